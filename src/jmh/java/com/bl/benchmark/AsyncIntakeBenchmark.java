@@ -0,0 +1,118 @@
+package com.bl.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.bl.exception.LoggerException;
+import com.bl.logger.LevelOfMessage;
+import com.bl.logger.async.AsyncDispatcher;
+import com.bl.logger.async.AsyncIntake;
+import com.bl.logger.async.BackPressurePolicy;
+import com.bl.logger.async.StripedDispatcher;
+
+/**
+ * Benchmarks of the intake of the asynchronous modes with a handler that does nothing, so only
+ * the cost of handing the messages to the background threads is measured
+ * @author Teddy
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AsyncIntakeBenchmark {
+
+	//The shared ring of StartAsyncMode or the per-thread buffers of StartStripedAsyncMode
+	@Param({"ring", "striped"})
+	public String intake;
+
+	//Atttributes of the class
+	private AsyncIntake dispatcher;
+
+	/**
+	 * Method that starts the intake with a handler that does nothing
+	 * @throws LoggerException
+	 */
+	@Setup(Level.Trial)
+	public void SetUp() throws LoggerException
+	{
+		if (intake.equals("striped"))
+			dispatcher = new StripedDispatcher(8192, BackPressurePolicy.BLOCK, event -> { });
+		else
+			dispatcher = new AsyncDispatcher(8192, 1, BackPressurePolicy.BLOCK, 0, event -> { });
+	}
+
+	/**
+	 * Method that stops the intake
+	 */
+	@TearDown(Level.Trial)
+	public void TearDown()
+	{
+		dispatcher.Stop(5, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Offering from a single thread
+	 * @return whether the message has been accepted
+	 * @throws LoggerException
+	 */
+	@Benchmark
+	@Threads(1)
+	public boolean OfferWithOneThread() throws LoggerException
+	{
+		return dispatcher.Offer(null, "This is a benchmark message", LevelOfMessage.MESSAGE);
+	}
+
+	/**
+	 * Offering from four threads at once
+	 * @return whether the message has been accepted
+	 * @throws LoggerException
+	 */
+	@Benchmark
+	@Threads(4)
+	public boolean OfferWithFourThreads() throws LoggerException
+	{
+		return dispatcher.Offer(null, "This is a benchmark message", LevelOfMessage.MESSAGE);
+	}
+
+	/**
+	 * Offering from sixteen threads at once
+	 * @return whether the message has been accepted
+	 * @throws LoggerException
+	 */
+	@Benchmark
+	@Threads(16)
+	public boolean OfferWithSixteenThreads() throws LoggerException
+	{
+		return dispatcher.Offer(null, "This is a benchmark message", LevelOfMessage.MESSAGE);
+	}
+
+	/**
+	 * Offering from thirty-two threads at once
+	 * @return whether the message has been accepted
+	 * @throws LoggerException
+	 */
+	@Benchmark
+	@Threads(32)
+	public boolean OfferWithThirtyTwoThreads() throws LoggerException
+	{
+		return dispatcher.Offer(null, "This is a benchmark message", LevelOfMessage.MESSAGE);
+	}
+
+}
@@ -0,0 +1,42 @@
+package com.bl.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmarks jar. It runs the benchmarks with the GC profiler, so every result
+ * has its throughput, its average latency and its allocation rate. Any JMH option can be given
+ * in the command line (for example a regular expression to run only some benchmarks)
+ * @author Teddy
+ *
+ */
+public class BenchmarkRunner {
+
+	/**
+	 * Method that runs the benchmarks
+	 * @param args The JMH command line options
+	 * @throws RunnerException If the benchmarks cannot be run
+	 * @throws CommandLineOptionException If the command line options are not valid
+	 */
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException
+	{
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		ChainedOptionsBuilder builder = new OptionsBuilder()
+				.parent(commandLine)
+				.addProfiler(GCProfiler.class);
+
+		//Without a regular expression we run every benchmark of the logger
+		if (commandLine.getIncludes().isEmpty())
+		{
+			builder.include(JobLoggerBenchmark.class.getSimpleName());
+			builder.include(AsyncIntakeBenchmark.class.getSimpleName());
+		}
+		new Runner(builder.build()).run();
+	}
+
+}
@@ -0,0 +1,135 @@
+package com.bl.benchmark;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.bl.exception.LoggerException;
+import com.bl.logger.JobLogger;
+import com.bl.logger.LevelOfMessage;
+import com.bl.logger.database.ConnectionPoolRegistry;
+import com.bl.logger.file.FileAppenderRegistry;
+
+/**
+ * Benchmarks of JobLogger.LogMessage for every destination and type of message
+ * @author Teddy
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JobLoggerBenchmark {
+
+	//Destinations of the message, the combinations are separated with a plus
+	@Param({"console", "file", "database", "file+database", "console+file+database"})
+	public String destination;
+
+	@Param({"MESSAGE", "WARNING", "ERROR"})
+	public LevelOfMessage level;
+
+	//Atttributes of the class
+	private File folder;
+	private Map<String, String> dbParams;
+	private boolean logToConsole;
+	private boolean logToFile;
+	private boolean logToDatabase;
+
+	/**
+	 * Method that prepares a temporary folder and an H2 database with the LOG table
+	 * @throws Exception
+	 */
+	@Setup(Level.Trial)
+	public void SetUp() throws Exception
+	{
+		folder = Files.createTempDirectory("joblogger-benchmark").toFile();
+		dbParams = new HashMap<String, String>();
+		dbParams.put("logFileFolder", folder.getPath());
+		dbParams.put("userName", "username");
+		dbParams.put("password", "dragon");
+		dbParams.put("dbms", "h2");
+		dbParams.put("serverName", folder.getPath());
+
+		//Creating the LOG table
+		Properties connectionProps = new Properties();
+		connectionProps.put("user", "username");
+		connectionProps.put("password", "dragon");
+		Connection connection = DriverManager.getConnection("jdbc:h2:" + folder.getPath()
+				+ "/test;DB_CLOSE_DELAY=-1;DATABASE_TO_UPPER=false", connectionProps);
+		Statement stmt = connection.createStatement();
+		stmt.executeUpdate("CREATE TABLE IF NOT EXISTS LOG(MESSAGE VARCHAR(4000), LEVEL INT)");
+		stmt.close();
+		connection.close();
+
+		logToConsole = destination.contains("console");
+		logToFile = destination.contains("file");
+		logToDatabase = destination.contains("database");
+	}
+
+	/**
+	 * Method that closes the appenders and the connections used by the trial
+	 */
+	@TearDown(Level.Trial)
+	public void TearDown()
+	{
+		FileAppenderRegistry.CloseAll();
+		ConnectionPoolRegistry.CloseAll();
+	}
+
+	/**
+	 * Logging from a single thread
+	 * @throws LoggerException
+	 */
+	@Benchmark
+	@Threads(1)
+	public void LogWithOneThread() throws LoggerException
+	{
+		JobLogger.LogMessage("This is a benchmark message", logToFile, logToConsole, logToDatabase, level, dbParams);
+	}
+
+	/**
+	 * Logging from four threads at once
+	 * @throws LoggerException
+	 */
+	@Benchmark
+	@Threads(4)
+	public void LogWithFourThreads() throws LoggerException
+	{
+		JobLogger.LogMessage("This is a benchmark message", logToFile, logToConsole, logToDatabase, level, dbParams);
+	}
+
+	/**
+	 * Logging from sixteen threads at once
+	 * @throws LoggerException
+	 */
+	@Benchmark
+	@Threads(16)
+	public void LogWithSixteenThreads() throws LoggerException
+	{
+		JobLogger.LogMessage("This is a benchmark message", logToFile, logToConsole, logToDatabase, level, dbParams);
+	}
+
+}
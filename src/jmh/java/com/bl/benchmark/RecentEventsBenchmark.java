@@ -0,0 +1,87 @@
+package com.bl.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.bl.logger.LevelOfMessage;
+import com.bl.logger.recent.RecentEvent;
+import com.bl.logger.recent.RecentEvents;
+
+/**
+ * Benchmarks of the copy of the last 10000 errors kept in memory, alone and while other threads keep logging
+ * @author Teddy
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecentEventsBenchmark {
+
+	//Amount of errors kept and copied
+	private static final int CAPACITY = 10000;
+
+	//Atttributes of the class
+	private RecentEvents recentEvents;
+
+	/**
+	 * Method that fills the ring of the errors
+	 */
+	@Setup(Level.Trial)
+	public void SetUp()
+	{
+		recentEvents = new RecentEvents(CAPACITY);
+		for (int i = 0; i < CAPACITY; i++)
+			recentEvents.Add("This is a benchmark error " + i, null, LevelOfMessage.ERROR, System.currentTimeMillis());
+	}
+
+	/**
+	 * Copying the last errors with nobody logging
+	 * @return the errors
+	 */
+	@Benchmark
+	public List<RecentEvent> SnapshotErrors()
+	{
+		return recentEvents.Snapshot(LevelOfMessage.ERROR, CAPACITY);
+	}
+
+	/**
+	 * Copying the last errors while three threads log errors
+	 * @return the errors
+	 */
+	@Benchmark
+	@Group("SnapshotWhileLogging")
+	@GroupThreads(1)
+	public List<RecentEvent> SnapshotWhileLoggingReader()
+	{
+		return recentEvents.Snapshot(LevelOfMessage.ERROR, CAPACITY);
+	}
+
+	/**
+	 * Logging errors while another thread copies them
+	 */
+	@Benchmark
+	@Group("SnapshotWhileLogging")
+	@GroupThreads(3)
+	public void SnapshotWhileLoggingWriter()
+	{
+		recentEvents.Add("This is a benchmark error", null, LevelOfMessage.ERROR, System.currentTimeMillis());
+	}
+
+}
@@ -1,5 +1,8 @@
 package com.bl.exception;
 
+import com.bl.logger.metrics.Counter;
+import com.bl.logger.metrics.MetricsRegistry;
+
 /**
  * This Exception is intended for any issue in the log class
  * @author Teddy
@@ -7,6 +10,8 @@ package com.bl.exception;
  */
 public class LoggerException extends ProjectException {
 
+	//Amount of exceptions created by the logger, published as the metric "exceptions"
+	private static final Counter created = MetricsRegistry.GetCounter("exceptions");
 	
 	/**
 	 * Constructor that receives the message of the error on the logger
@@ -14,17 +19,18 @@ public class LoggerException extends ProjectException {
 	 */
 	public LoggerException(String message) {
 		super(message);
-		
+		created.Increment();
 	}
 	
 	/**
 	 * Constructor that receives the message of the error and the exception that triggered this one
 	 * @param message The message for the exception in the logger
-	 * @param e The exception that triggered this one
+	 * @param e The exception or error that triggered this one
 	 */
-	public LoggerException(String message, Exception e)
+	public LoggerException(String message, Throwable e)
 	{
 		super(message, e);
+		created.Increment();
 	}
 
 }
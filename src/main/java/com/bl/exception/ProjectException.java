@@ -19,9 +19,9 @@ public class ProjectException extends Exception {
 	/**
 	 * Constructor that receives the message of the error and the exception that triggered this one
 	 * @param message The message for the exception
-	 * @param e The exception that triggered this one
+	 * @param e The exception or error that triggered this one
 	 */
-	public ProjectException(String message, Exception e)
+	public ProjectException(String message, Throwable e)
 	{
 		super(message, e);
 	}
@@ -0,0 +1,41 @@
+package com.bl.exception;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This Exception is thrown when a message has been sent to many destinations at the same time
+ * and at least one of them has failed, it tells which ones and why
+ * @author Teddy
+ *
+ */
+public class SinkFailureException extends LoggerException {
+
+	//Atttributes of the class
+	private final Map<String, LoggerException> failures;
+
+	/**
+	 * Constructor that receives the error of every destination that failed
+	 * @param failures The error of every failed destination, by the name of the destination
+	 */
+	public SinkFailureException(Map<String, LoggerException> failures)
+	{
+		super("The message could not be written into: " + String.join(", ", failures.keySet()),
+				failures.values().iterator().next());
+		this.failures = Collections.unmodifiableMap(new LinkedHashMap<String, LoggerException>(failures));
+		for (LoggerException failure : failures.values())
+			if (failure != getCause())
+				addSuppressed(failure);
+	}
+
+	/**
+	 * Getter for the destinations that failed
+	 * @return the error of every failed destination, by the name of the destination
+	 */
+	public Map<String, LoggerException> getFailures()
+	{
+		return failures;
+	}
+
+}
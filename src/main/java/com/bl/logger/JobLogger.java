@@ -1,21 +1,44 @@
 package com.bl.logger;
-import java.io.File;
-import java.io.IOException;
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.SQLException;
-import java.sql.SQLTimeoutException;
-import java.sql.Statement;
-import java.text.DateFormat;
-import java.util.Date;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.Properties;
-import java.util.logging.ConsoleHandler;
-import java.util.logging.FileHandler;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 import com.bl.exception.LoggerException;
+import com.bl.exception.SinkFailureException;
+import com.bl.logger.async.AsyncDispatcher;
+import com.bl.logger.async.AsyncEvent;
+import com.bl.logger.async.AsyncEventHandler;
+import com.bl.logger.async.AsyncIntake;
+import com.bl.logger.async.BackPressurePolicy;
+import com.bl.logger.async.StripedDispatcher;
+import com.bl.logger.event.LogEvent;
+import com.bl.logger.format.MessageRecord;
+import com.bl.logger.format.MessageTemplate;
+import com.bl.logger.metrics.Counter;
+import com.bl.logger.metrics.LatencyHistogram;
+import com.bl.logger.metrics.MetricsRegistry;
+import com.bl.logger.recent.RecentEvents;
+import com.bl.logger.sink.ConsoleSink;
+import com.bl.logger.sink.DatabaseSink;
+import com.bl.logger.sink.FileSink;
+import com.bl.logger.sink.LogSink;
+import com.bl.logger.sink.SinkCapability;
+import com.bl.logger.sink.SinkExecutors;
+import com.bl.logger.sink.SinkProviderRegistry;
+import com.bl.logger.throttle.MessageThrottle;
 
 /**
  * This class is intended to log (Informative, warning or error) messages
@@ -25,17 +48,122 @@ import com.bl.exception.LoggerException;
  */
 public class JobLogger {
 	
+	//Amount of configurations of LogMessage kept before the cache is emptied and its loggers closed
+	private static final int MAX_CACHED_LOGGERS = 256;
+	
+	//Default amount of different messages followed by the deduplication
+	private static final int DEFAULT_DEDUP_MAX_MESSAGES = 1024;
+	
+	//Default time a destination written in parallel has to answer, in milliseconds
+	private static final long DEFAULT_SINK_TIMEOUT = 5000;
+	
 	//Atttributes of the class
-	private static Logger logger;
-	private static String finalMessage;
-	private static Level levelOfMessage;
+	private static final Map<ConfigurationKey, JobLogger> cachedLoggers = new ConcurrentHashMap<ConfigurationKey, JobLogger>();
+	private static final ThreadLocal<LastLogger> lastLoggers = new ThreadLocal<LastLogger>();
+	private static volatile int cacheGeneration;
+	private static volatile AsyncIntake asyncDispatcher;
+	private static final Counter[] levelRecords = new Counter[LevelOfMessage.values().length];
+	private final LogSink[] sinks;
+	private final int[] thresholds;
+	private final boolean[] enabledLevels;
+	private final Map parameters;
+	private final MessageThrottle throttle;
+	private final Executor sinkExecutor;
+	private final long sinkTimeoutNanos;
+	private final LatencyHistogram[] sinkLatencies;
+	private final Counter[] sinkErrors;
+	private final boolean[] threadSafe;
+	private final boolean[] nonBlocking;
+	private final boolean[] batching;
+	private final boolean batched;
+	private final RecentEvents recentEvents;
+	
+	static {
+		//Metrics of the messages and of the asynchronous mode
+		for (LevelOfMessage level : LevelOfMessage.values())
+			levelRecords[level.ordinal()] = MetricsRegistry.GetCounter("records." + level.name());
+		MetricsRegistry.RegisterGauge("async.pending", () -> {
+			AsyncIntake dispatcher = asyncDispatcher;
+			return dispatcher == null ? 0 : dispatcher.getPendingEvents();
+		});
+		MetricsRegistry.RegisterGauge("async.dropped", () -> {
+			AsyncIntake dispatcher = asyncDispatcher;
+			return dispatcher == null ? 0 : dispatcher.getDroppedEvents();
+		});
+	}
 
 	/**
-	 * Empty Constructor of the class	 
+	 * Empty Constructor of the class, the instance has no destinations until it is built with a Builder	 
 	 */
 	public JobLogger() {				
+		this(new LogSink[0], new int[0], null, null, null, 0, 0);
 	}	
 	
+	/**
+	 * Constructor used by the builder with the destinations already resolved
+	 * @param sinks The destinations of the messages
+	 * @param thresholds The ordinal of the minimum type of message of every destination
+	 * @param parameters The copy of the parameters the destinations were resolved with
+	 * @param throttle The deduplication and rate limit of the messages, or null
+	 * @param sinkExecutor The executor that writes into the destinations in parallel, or null to write one after another
+	 * @param sinkTimeoutMillis The time a destination written in parallel has to answer
+	 * @param recentCapacity The amount of messages of every type kept in memory, 0 to keep none
+	 */
+	private JobLogger(LogSink[] sinks, int[] thresholds, Map parameters, MessageThrottle throttle,
+			Executor sinkExecutor, long sinkTimeoutMillis, int recentCapacity)
+	{
+		this.sinks = sinks;
+		this.thresholds = thresholds;
+		this.parameters = parameters;
+		this.throttle = throttle;
+		this.sinkExecutor = sinkExecutor;
+		this.sinkTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sinkTimeoutMillis);
+		this.recentEvents = recentCapacity > 0 ? new RecentEvents(recentCapacity) : null;
+		
+		//Every destination records how long it takes and how many times it fails
+		this.sinkLatencies = new LatencyHistogram[sinks.length];
+		this.sinkErrors = new Counter[sinks.length];
+		for (int i = 0; i < sinks.length; i++)
+		{
+			sinkLatencies[i] = MetricsRegistry.GetHistogram("sink." + sinks[i].getName() + ".latency");
+			sinkErrors[i] = MetricsRegistry.GetCounter("sink." + sinks[i].getName() + ".errors");
+		}
+		
+		//What every destination can do decides how it is written
+		this.threadSafe = new boolean[sinks.length];
+		this.nonBlocking = new boolean[sinks.length];
+		this.batching = new boolean[sinks.length];
+		boolean anyBatching = false;
+		for (int i = 0; i < sinks.length; i++)
+		{
+			Set<SinkCapability> capabilities = sinks[i].getCapabilities();
+			threadSafe[i] = capabilities.contains(SinkCapability.THREAD_SAFE);
+			nonBlocking[i] = capabilities.contains(SinkCapability.NON_BLOCKING);
+			batching[i] = capabilities.contains(SinkCapability.BATCHING);
+			anyBatching |= batching[i];
+		}
+		this.batched = anyBatching;
+		
+		//A type of message is enabled if at least one destination accepts it
+		this.enabledLevels = new boolean[LevelOfMessage.values().length];
+		for (int threshold : thresholds)
+			for (int level = threshold; level < enabledLevels.length; level++)
+				enabledLevels[level] = true;
+		
+		//The summaries of the messages that are not logged again do not wait for the next message
+		if (throttle != null)
+			throttle.SweepInBackground((summaryText, summaryLevel) -> Emit(summaryText, null, summaryLevel));
+	}
+	
+	/**
+	 * Method that creates a builder to configure a logger once and reuse it for every message
+	 * @return a new builder
+	 */
+	public static Builder NewBuilder()
+	{
+		return new Builder();
+	}
+	
 	/**
 	 * This methods logs a message on the required destiny and the type needed
 	 * @param messageText The text of the message we will log
@@ -62,16 +190,10 @@ public class JobLogger {
 					//If we have specified at least one type for the message
 					if (level != null)  
 					{
-						//Getting the logger
-						logger = Logger.getLogger("MyLog");
-						
-						//Inserting into the place where it's needed
-						if(logToDatabase)
-							LogIntoDataBase(messageText, level, dbParams);					
-						if(logToFile)
-							LogIntoFile(messageText, level, dbParams);
-						if(logToConsole)
-							LogIntoConsole(messageText, level);
+						//Reusing the logger already built for this configuration, unless no destination accepts the type
+						JobLogger cached = GetCachedLogger(logToFile, logToConsole, logToDatabase, dbParams);
+						if (cached.enabledLevels[level.ordinal()])
+							cached.Dispatch(messageText, null, level);
 					}
 					else
 						throw new LoggerException("Error or Warning or Message must be specified");
@@ -88,201 +210,1342 @@ public class JobLogger {
 	}
 	
 	/**
-	 * The method that holds the logic to prepare the final message (message + time) and the type
-	 * @param messageText The message we want to add
-	 * @param level The type of the message we will output
+	 * This methods logs a message with {} placeholders on the required destiny and the type needed. The 
+	 * arguments are only placed into the pattern if at least one destination accepts the type of the message
+	 * @param messagePattern The pattern of the message we will log
+	 * @param logToFile Flag to indicate whether we will log into a file
+	 * @param logToConsole Flag to indicate whether we will log into the console
+	 * @param logToDatabase Flag to indicate whether we will log into a database
+	 * @param level Flag to indicate the type of the message
+	 * @param dbParams the database parameters for inserting data (if apply)
+	 * @param arguments The values of the placeholders, in order
+	 * @throws LoggerException The exception that has been thrown during the process of logging
 	 */
-	private static void SetMessageAndLevel(String messageText, LevelOfMessage level)
+	public static void LogMessage(String messagePattern, 
+			boolean logToFile, boolean logToConsole, boolean logToDatabase,
+			LevelOfMessage level, Map dbParams, Object... arguments) throws LoggerException
 	{
-		switch(level)
+		//if its a valid pattern (not null, and not only empty spaces) we will log
+		if (messagePattern != null)
 		{
-			case ERROR:
-				finalMessage ="error " + DateFormat.getDateInstance(DateFormat.LONG).format(new Date()) + " " + messageText;
-				levelOfMessage = Level.SEVERE;
-				break;
-			case WARNING:
-				finalMessage = "warning " +DateFormat.getDateInstance(DateFormat.LONG).format(new Date()) + " " + messageText;
-				levelOfMessage = Level.WARNING;
-				break;
-			default:
-				finalMessage = "message " +DateFormat.getDateInstance(DateFormat.LONG).format(new Date()) + " " + messageText;
-				levelOfMessage = Level.INFO;
-				break;				
+			//if the pattern is not only white space
+			if (messagePattern.trim().length() != 0)
+			{
+				//If we have at least one destination of the log message
+				if (logToConsole || logToFile || logToDatabase)
+				{
+					//If we have specified at least one type for the message
+					if (level != null)
+					{
+						//The arguments are only placed when a destination accepts the type of the message
+						JobLogger cached = GetCachedLogger(logToFile, logToConsole, logToDatabase, dbParams);
+						if (cached.enabledLevels[level.ordinal()])
+							cached.Dispatch(MessageTemplate.Parse(messagePattern).Format(arguments), null, level);
+					}
+					else
+						throw new LoggerException("Error or Warning or Message must be specified");
+				}
+				else
+					throw new LoggerException("Invalid configuration");
+			}
+			else
+				throw new LoggerException("The message cannot contain only white space");
 		}
-		
+		else
+			throw new LoggerException("The Message cannot be null");
 	}
 	
 	/**
-	 * Method that holds the logic to log into a file
-	 * @param messageText The message we want to add
-	 * @param level The type of the message we will output
-	 * @param dbParams the file parameters used to insert the message
+	 * This methods logs a message on the required destiny and the type needed, the text of the message
+	 * is only built if at least one destination accepts the type of the message. It is not an overload
+	 * of LogMessage so LogMessage(null, ...) keeps compiling
+	 * @param messageSupplier The function that gives the text of the message we will log
+	 * @param logToFile Flag to indicate whether we will log into a file
+	 * @param logToConsole Flag to indicate whether we will log into the console
+	 * @param logToDatabase Flag to indicate whether we will log into a database
+	 * @param level Flag to indicate the type of the message
+	 * @param dbParams the database parameters for inserting data (if apply)
 	 * @throws LoggerException The exception that has been thrown during the process of logging
 	 */
-	private static void LogIntoFile(String messageText, LevelOfMessage level, Map dbParams) throws LoggerException
+	public static void LogLazyMessage(Supplier<String> messageSupplier, 
+			boolean logToFile, boolean logToConsole, boolean logToDatabase,
+			LevelOfMessage level, Map dbParams) throws LoggerException
 	{
-		//Validating the parameter is not null
-		if (dbParams != null)
-		{	
-			//Validating the file parameter has been specified
-			if (dbParams.containsKey("logFileFolder") && dbParams.get("logFileFolder") != null)
+		//The function that gives the message cannot be null
+		if (messageSupplier != null)
+		{
+			//If we have at least one destination of the log message
+			if (logToConsole || logToFile || logToDatabase)
 			{
-				//Validating the value of the path can be casted to a string (cannot be a class or any other thing)
-				if (dbParams.get("logFileFolder") instanceof String)
+				//If we have specified at least one type for the message
+				if (level != null)
 				{
-					//File path
-					File logFile = new File(dbParams.get("logFileFolder") + "/logFile.txt");		
-					try
-					{
-						//Creating the file if it doesn't exist
-						if (!logFile.exists())
-							logFile.createNewFile();			
-						
-						//Creating the handler and logging into the file
-						FileHandler fh = new FileHandler(dbParams.get("logFileFolder") + "/logFile.txt");
-						logger.addHandler(fh);
-						
-						//Setting the level/final message and logging
-						SetMessageAndLevel(messageText, level);			
-						logger.log(levelOfMessage, finalMessage);
-						
-						//Removing the handler to avoid leak of memory
-						logger.removeHandler(fh);
-						
-						//Closing the Handler
-						fh.close();			
-					}
-					catch(IOException e)
-					{
-						throw new LoggerException("An error has occurred trying to create, open a file", e);
-					}
-					catch(SecurityException e)
-					{
-						throw new LoggerException("A security error has occurred with the file", e);
-					}
+					//The text is only built when a destination accepts the type of the message
+					JobLogger cached = GetCachedLogger(logToFile, logToConsole, logToDatabase, dbParams);
+					if (cached.enabledLevels[level.ordinal()])
+						cached.Log(messageSupplier.get(), level);
 				}
 				else
-					throw new LoggerException("File parameter must be a valid location");
+					throw new LoggerException("Error or Warning or Message must be specified");
 			}
 			else
-				throw new LoggerException("File parameter has not been specified");
+				throw new LoggerException("Invalid configuration");
 		}
 		else
-			throw new LoggerException("File parameter cannot be blank");
+			throw new LoggerException("The Message cannot be null");
 	}
 	
 	/**
-	 * Method that holds the logic to log into the console
-	 * @param messageText The message we want to add
-	 * @param level The type of message we will output
+	 * This methods logs a structured event on the required destiny and the type needed. The event is only 
+	 * turned into text (or JSON, or columns) by the destinations that write it
+	 * @param event The structured event we will log
+	 * @param logToFile Flag to indicate whether we will log into a file
+	 * @param logToConsole Flag to indicate whether we will log into the console
+	 * @param logToDatabase Flag to indicate whether we will log into a database
+	 * @param level Flag to indicate the type of the message
+	 * @param dbParams the database parameters for inserting data (if apply)
 	 * @throws LoggerException The exception that has been thrown during the process of logging
 	 */
-	private static void LogIntoConsole(String messageText, LevelOfMessage level) throws LoggerException
+	public static void LogStructuredMessage(LogEvent event, 
+			boolean logToFile, boolean logToConsole, boolean logToDatabase,
+			LevelOfMessage level, Map dbParams) throws LoggerException
 	{
-		//Performing the process of logging into the console
-		try
+		//The event cannot be null
+		if (event != null && event.getTemplate() != null)
 		{
-			//Preparing the console handler
-			ConsoleHandler ch = new ConsoleHandler();
-			logger.addHandler(ch);
-			
-			//Setting the level/final message and logging
-			SetMessageAndLevel(messageText, level);			
-			logger.log(levelOfMessage, finalMessage);
-			
-			//Removing the handler to avoid leak of memory
-			logger.removeHandler(ch);
+			//If we have at least one destination of the log message
+			if (logToConsole || logToFile || logToDatabase)
+			{
+				//If we have specified at least one type for the message
+				if (level != null)
+					GetCachedLogger(logToFile, logToConsole, logToDatabase, dbParams).LogStructured(event, level);
+				else
+					throw new LoggerException("Error or Warning or Message must be specified");
+			}
+			else
+				throw new LoggerException("Invalid configuration");
+		}
+		else
+			throw new LoggerException("The Message cannot be null");
+	}
+	
+	/**
+	 * This method opens the destinations of a configuration of LogMessage before its first message, so that
+	 * message doesn't pay for the files, connections and appenders
+	 * @param logToFile Flag to indicate whether we will log into a file
+	 * @param logToConsole Flag to indicate whether we will log into the console
+	 * @param logToDatabase Flag to indicate whether we will log into a database
+	 * @param dbParams the database parameters for inserting data (if apply)
+	 * @throws LoggerException If the configuration is not valid or a destination cannot be opened
+	 */
+	public static void WarmUp(boolean logToFile, boolean logToConsole, boolean logToDatabase, 
+			Map dbParams) throws LoggerException
+	{
+		GetCachedLogger(logToFile, logToConsole, logToDatabase, dbParams).WarmUp();
+	}
+	
+	/**
+	 * Method that gives the logger cached for a configuration of LogMessage, building it the first time.
+	 * A thread that gives the same map again only compares it with the copy of its last logger, the
+	 * parameters are hashed only when the map or the destinations change. When the cache is full it is
+	 * emptied and the loggers it had are closed, the last logger of every thread is then asked again
+	 * @param logToFile Flag to indicate whether we will log into a file
+	 * @param logToConsole Flag to indicate whether we will log into the console
+	 * @param logToDatabase Flag to indicate whether we will log into a database
+	 * @param dbParams the database parameters for inserting data (if apply)
+	 * @return the logger of the configuration
+	 * @throws LoggerException If the configuration or the parameters are not valid
+	 */
+	private static JobLogger GetCachedLogger(boolean logToFile, boolean logToConsole, boolean logToDatabase, 
+			Map dbParams) throws LoggerException
+	{
+		//The copy shares the values of the map, so comparing them is usually a matter of references
+		int destinations = ConfigurationKey.Destinations(logToFile, logToConsole, logToDatabase);
+		LastLogger last = lastLoggers.get();
+		JobLogger cached = last == null ? null : last.Get(dbParams, destinations, cacheGeneration);
+		if (cached != null)
+			return cached;
+
+		ConfigurationKey key = new ConfigurationKey(logToFile, logToConsole, logToDatabase, dbParams);
+		cached = cachedLoggers.get(key);
+		if (cached == null)
+		{
+			List<JobLogger> evicted = null;
+			synchronized (cachedLoggers)
+			{
+				cached = cachedLoggers.get(key);
+				if (cached == null)
+				{
+					cached = NewBuilder().LogToFile(logToFile).LogToConsole(logToConsole).LogToDatabase(logToDatabase)
+							.WithParameters(dbParams).Build();
+					if (cachedLoggers.size() >= MAX_CACHED_LOGGERS)
+					{
+						evicted = new ArrayList<JobLogger>(cachedLoggers.values());
+						cachedLoggers.clear();
+						cacheGeneration++;
+					}
+					cachedLoggers.put(new ConfigurationKey(logToFile, logToConsole, logToDatabase, cached.parameters), cached);
+				}
+			}
 			
-			//Closing the handler
-			ch.close();
+			//The removed loggers write what they still have, out of the lock
+			if (evicted != null)
+				for (JobLogger logger : evicted)
+					logger.Close();
 		}
-		catch(SecurityException e)
+		lastLoggers.set(new LastLogger(dbParams, destinations, cached, cacheGeneration));
+		return cached;
+	}
+	
+	/**
+	 * This method logs a message on every destination this logger has been built with.
+	 * Types of message no destination accepts are discarded before looking at the text
+	 * @param messageText The text of the message we will log
+	 * @param level Flag to indicate the type of the message
+	 * @throws LoggerException The exception that has been thrown during the process of logging
+	 */
+	public void Log(String messageText, LevelOfMessage level) throws LoggerException
+	{
+		//if its a valid message (not null) we will log
+		if (messageText != null)
 		{
-			throw new LoggerException("There was an error trying to access to the console", e);
-		}		
-	}	
+			//If we have at least one destination of the log message
+			if (sinks.length != 0)
+			{
+				//If we have specified at least one type for the message
+				if (level != null)
+				{
+					//Nothing to do if no destination accepts the type of the message
+					if (!enabledLevels[level.ordinal()])
+						return;
+					
+					//if the message is not only white space
+					if (messageText.trim().length() != 0)
+						Dispatch(messageText, null, level);
+					else
+						throw new LoggerException("The message cannot contain only white space");
+				}
+				else
+					throw new LoggerException("Error or Warning or Message must be specified");
+			}
+			else
+				throw new LoggerException("Invalid configuration");
+		}
+		else
+			throw new LoggerException("The Message cannot be null");
+	}
 	
 	/**
-	 * Method that holds the logic to add a message into the database
-	 * @param messageText the message we want to add
-	 * @param level The type of message we will output	 
-	 * @param dbParams The database parameters used to insert the message
+	 * This method logs a message with {} placeholders on every destination this logger has been built with. 
+	 * The arguments are only placed into the pattern if at least one destination accepts the type of the message
+	 * @param messagePattern The pattern of the message we will log
+	 * @param level Flag to indicate the type of the message
+	 * @param arguments The values of the placeholders, in order
 	 * @throws LoggerException The exception that has been thrown during the process of logging
 	 */
-	private static void LogIntoDataBase(String messageText, LevelOfMessage level, Map dbParams) 
-			throws LoggerException
-	{		
-		//Validating database parameters doesn't come null
-		if (dbParams != null)
+	public void Log(String messagePattern, LevelOfMessage level, Object... arguments) throws LoggerException
+	{
+		//if its a valid pattern (not null) we will log
+		if (messagePattern != null)
 		{
-			//If we have all the required parameters for the database, we can open a connection
-			if ((dbParams.containsKey("userName")  && dbParams.get("userName")  != null) && 
-				 (dbParams.containsKey("password")  && dbParams.get("password")  != null) &&
-				 (dbParams.containsKey("dbms")      && dbParams.get("dbms")      != null) &&
-				 (dbParams.containsKey("serverName")&& dbParams.get("serverName")!= null))
+			//If we have at least one destination of the log message
+			if (sinks.length != 0)
 			{
-				//Validating the value of the parameters can be casted to a string (cannot be a class or any other thing)
-				if (dbParams.get("userName") instanceof String &&
-					dbParams.get("password") instanceof String &&
-					dbParams.get("dbms") instanceof String &&
-					dbParams.get("serverName") instanceof String)
+				//If we have specified at least one type for the message
+				if (level != null)
 				{
-					Connection connection = null;
-					Properties connectionProps = new Properties();
-					try
-					{
-						//Placing the credentials for the connection
-						connectionProps.put("user", dbParams.get("userName"));
-						connectionProps.put("password", dbParams.get("password"));
-			
-						//Creating a connection with the credentials given
-						connection = DriverManager.getConnection("jdbc:" + dbParams.get("dbms") + ":" + dbParams.get("serverName")
-								+ "/test;DB_CLOSE_DELAY=-1;DATABASE_TO_UPPER=false", connectionProps);
-						
-						//Depending on the type of the message we will insert in database, it will have a code
-						int typeOfMessage = 0;
-						switch(level)
-						{
-							case ERROR:
-								typeOfMessage = 2;
-								break;
-							case WARNING:
-								typeOfMessage = 3;
-								break;
-							default:
-								typeOfMessage = 1;
-								break;				
-						}					
-			
-						//Executing DB operation
-						Statement stmt = connection.createStatement();								
-						stmt.executeUpdate("INSERT INTO LOG VALUES('" + messageText + "', " + typeOfMessage + ")");
-						connection.commit();
-						
-						//Closing connection and statement
-						connection.close();
-						stmt.close();
+					//Nothing to do if no destination accepts the type of the message
+					if (!enabledLevels[level.ordinal()])
+						return;
+					
+					//if the pattern is not only white space
+					if (messagePattern.trim().length() != 0)
+						Dispatch(MessageTemplate.Parse(messagePattern).Format(arguments), null, level);
+					else
+						throw new LoggerException("The message cannot contain only white space");
+				}
+				else
+					throw new LoggerException("Error or Warning or Message must be specified");
+			}
+			else
+				throw new LoggerException("Invalid configuration");
+		}
+		else
+			throw new LoggerException("The Message cannot be null");
+	}
 	
-					}
-					catch (SQLTimeoutException e)
-					{
-						//If we get a timeout when trying to establish a DB connection
-						throw new LoggerException("Timeout occurred when attempting to establish a DB connection", e);
-					}
-					catch (SQLException e)
-					{
-						//If an error on the DB happens we will catch it
-						throw new LoggerException("Cannot create database connection or perform DML instruction, "
-								+ "Please check your Data Base parameters", e);
-					}
+	/**
+	 * This method logs a message on every destination this logger has been built with, the text
+	 * of the message is only built if at least one destination accepts the type of the message
+	 * @param messageSupplier The function that gives the text of the message we will log
+	 * @param level Flag to indicate the type of the message
+	 * @throws LoggerException The exception that has been thrown during the process of logging
+	 */
+	public void LogLazy(Supplier<String> messageSupplier, LevelOfMessage level) throws LoggerException
+	{
+		//The function that gives the message cannot be null
+		if (messageSupplier != null)
+		{
+			//If we have at least one destination of the log message
+			if (sinks.length != 0)
+			{
+				//If we have specified at least one type for the message
+				if (level != null)
+				{
+					//The text is only built when a destination accepts the type of the message
+					if (enabledLevels[level.ordinal()])
+						Log(messageSupplier.get(), level);
 				}
 				else
-					throw new LoggerException("Database parameters must be valid data");
+					throw new LoggerException("Error or Warning or Message must be specified");
 			}
 			else
-				throw new LoggerException("Not all the required database parameters have been specified");
+				throw new LoggerException("Invalid configuration");
 		}
 		else
-			throw new LoggerException ("DataBase parameters cannot be blank");
+			throw new LoggerException("The Message cannot be null");
+	}
+	
+	/**
+	 * This method logs a structured event on every destination this logger has been built with. The event is
+	 * only turned into text (or JSON, or columns) by the destinations that write it
+	 * @param event The structured event we will log
+	 * @param level Flag to indicate the type of the message
+	 * @throws LoggerException The exception that has been thrown during the process of logging
+	 */
+	public void LogStructured(LogEvent event, LevelOfMessage level) throws LoggerException
+	{
+		//The event and its template cannot be null
+		if (event != null && event.getTemplate() != null)
+		{
+			//If we have at least one destination of the log message
+			if (sinks.length != 0)
+			{
+				//If we have specified at least one type for the message
+				if (level != null)
+				{
+					//Nothing to do if no destination accepts the type of the message
+					if (!enabledLevels[level.ordinal()])
+						return;
+					
+					//if the template is not only white space
+					if (event.getTemplate().trim().length() != 0)
+						Dispatch(null, event, level);
+					else
+						throw new LoggerException("The message cannot contain only white space");
+				}
+				else
+					throw new LoggerException("Error or Warning or Message must be specified");
+			}
+			else
+				throw new LoggerException("Invalid configuration");
+		}
+		else
+			throw new LoggerException("The Message cannot be null");
+	}
+	
+	/**
+	 * Method that opens the files, connections and appenders of every destination and prepares their
+	 * formatters. Without it every destination is opened by its first message
+	 * @throws LoggerException If a destination cannot be opened
+	 */
+	public void WarmUp() throws LoggerException
+	{
+		for (LogSink sink : sinks)
+			sink.WarmUp();
+	}
+	
+	/**
+	 * Method that tells if at least one destination of the logger accepts a type of message
+	 * @param level The type of the message
+	 * @return true if a message of that type would be written
+	 */
+	public boolean IsEnabled(LevelOfMessage level)
+	{
+		return level != null && enabledLevels[level.ordinal()];
+	}
+	
+	/**
+	 * Getter for the last messages of every type kept in memory, they can be read while the logger is being used
+	 * @return the recent events, or null if the logger doesn't keep them
+	 */
+	public RecentEvents getRecentEvents()
+	{
+		return recentEvents;
+	}
+	
+	/**
+	 * Method that writes right now the summaries of the repeated messages that are still being collapsed
+	 * @throws LoggerException The exception that has been thrown during the process of logging
+	 */
+	public void FlushRepeatedMessages() throws LoggerException
+	{
+		if (throttle != null)
+			throttle.Flush((summaryText, summaryLevel) -> Emit(summaryText, null, summaryLevel));
+	}
+	
+	/**
+	 * Method that closes a logger removed from the cache of LogMessage: the background thread stops sweeping
+	 * its repeated messages and the pending summaries are written. The errors stay in the destinations
+	 */
+	private void Close()
+	{
+		if (throttle == null)
+			return;
+		try
+		{
+			throttle.Close((summaryText, summaryLevel) -> Emit(summaryText, null, summaryLevel));
+		}
+		catch (LoggerException e)
+		{
+			//The summaries are lost like a failed message
+		}
+	}
+	
+	/**
+	 * Method that collapses the repeats and applies the rate limit of an already validated message, 
+	 * then gives it to Emit. The repeats of a structured event are found by its template
+	 * @param messageText The text of the message we will log, or null for a structured event
+	 * @param event The structured event we will log, or null for a plain text
+	 * @param level Flag to indicate the type of the message
+	 * @throws LoggerException The exception that has been thrown during the process of logging
+	 */
+	private void Dispatch(String messageText, LogEvent event, LevelOfMessage level) throws LoggerException
+	{
+		if (throttle == null || throttle.Accept(event == null ? messageText : event.getTemplate(), level, 
+				System.currentTimeMillis(), (summaryText, summaryLevel) -> Emit(summaryText, null, summaryLevel)))
+			Emit(messageText, event, level);
+	}
+	
+	/**
+	 * Method that sends a message to the buffer in asynchronous mode, or writes it right now
+	 * @param messageText The text of the message we will log, or null for a structured event
+	 * @param event The structured event we will log, or null for a plain text
+	 * @param level Flag to indicate the type of the message
+	 * @throws LoggerException The exception that has been thrown during the process of logging
+	 */
+	private void Emit(String messageText, LogEvent event, LevelOfMessage level) throws LoggerException
+	{
+		levelRecords[level.ordinal()].Increment();
+		
+		//In asynchronous mode we only copy the message into the buffer
+		AsyncIntake dispatcher = asyncDispatcher;
+		if (dispatcher != null)
+			dispatcher.Offer(this, messageText, event, level);
+		else
+			WriteToSinks(messageText, event, level, System.currentTimeMillis());
+	}
+	
+	/**
+	 * Method that writes an already validated message into every destination of the logger
+	 * @param messageText The text of the message we will log, or null for a structured event
+	 * @param event The structured event we will log, or null for a plain text
+	 * @param level Flag to indicate the type of the message
+	 * @param timestamp The moment (in milliseconds) the message was logged
+	 * @throws LoggerException The exception that has been thrown during the process of logging
+	 */
+	private void WriteToSinks(String messageText, LogEvent event, LevelOfMessage level, long timestamp) throws LoggerException
+	{
+		WriteToSinks(messageText, event, level, timestamp, false);
+	}
+	
+	/**
+	 * Method that writes an already validated message into the destinations of the logger
+	 * @param messageText The text of the message we will log, or null for a structured event
+	 * @param event The structured event we will log, or null for a plain text
+	 * @param level Flag to indicate the type of the message
+	 * @param timestamp The moment (in milliseconds) the message was logged
+	 * @param skipBatching true if the destinations with the BATCHING capability are written apart
+	 * @throws LoggerException The exception that has been thrown during the process of logging
+	 */
+	private void WriteToSinks(String messageText, LogEvent event, LevelOfMessage level, long timestamp, 
+			boolean skipBatching) throws LoggerException
+	{
+		if (recentEvents != null)
+			recentEvents.Add(messageText, event, level, timestamp);
+		
+		//Every destination only gets the types of message over its threshold, in parallel each one has a timeout
+		if (sinkExecutor != null)
+		{
+			WriteInParallel(messageText, event, level, timestamp, skipBatching);
+			return;
+		}
+		int ordinal = level.ordinal();
+		for (int i = 0; i < sinks.length; i++)
+			if (Accepts(i, ordinal, skipBatching))
+				WriteToSink(i, messageText, event, level, timestamp);
+	}
+	
+	/**
+	 * Method that tells if a destination gets a message: the type must be over its threshold
+	 * @param index The position of the destination
+	 * @param ordinal The ordinal of the type of the message
+	 * @param skipBatching true if the destinations with the BATCHING capability are written apart
+	 * @return true if the destination must be written
+	 */
+	private boolean Accepts(int index, int ordinal, boolean skipBatching)
+	{
+		return ordinal >= thresholds[index] && !(skipBatching && batching[index]);
+	}
+	
+	/**
+	 * Method that writes a message into every destination at the same time, so it takes as long as the slowest one.
+	 * The executor writes every destination and each one has until the timeout to answer. Only the NON_BLOCKING
+	 * destinations, which never wait, are cheaper to write by the calling thread than to hand over
+	 * @param messageText The text of the message we will log, or null for a structured event
+	 * @param event The structured event we will log, or null for a plain text
+	 * @param level Flag to indicate the type of the message
+	 * @param timestamp The moment (in milliseconds) the message was logged
+	 * @param skipBatching true if the destinations with the BATCHING capability are written apart
+	 * @throws SinkFailureException If at least one destination has failed or has not answered in time
+	 */
+	private void WriteInParallel(final String messageText, final LogEvent event, final LevelOfMessage level, 
+			final long timestamp, boolean skipBatching) 
+			throws SinkFailureException
+	{
+		long deadline = System.nanoTime() + sinkTimeoutNanos;
+		int ordinal = level.ordinal();
+		LoggerException[] failures = new LoggerException[sinks.length];
+		boolean failed = false;
+		
+		//Sending the destinations that can wait to the executor
+		FutureTask<?>[] tasks = new FutureTask<?>[sinks.length];
+		for (int i = 0; i < sinks.length; i++)
+		{
+			if (Accepts(i, ordinal, skipBatching) && !nonBlocking[i])
+			{
+				final int index = i;
+				FutureTask<Void> task = new FutureTask<Void>(() -> {
+					WriteToSink(index, messageText, event, level, timestamp);
+					return null;
+				});
+				try
+				{
+					sinkExecutor.execute(task);
+					tasks[i] = task;
+				}
+				catch (RejectedExecutionException e)
+				{
+					//The executor is full or has been shut down, the destination is not written without a timeout
+					failures[i] = new LoggerException("The destination " + sinks[i].getName() + " could not be given to the executor", e);
+					failed = true;
+				}
+			}
+		}
+		
+		//Writing the destinations that never wait in the calling thread
+		for (int i = 0; i < sinks.length; i++)
+		{
+			if (!nonBlocking[i] || !Accepts(i, ordinal, skipBatching))
+				continue;
+			try
+			{
+				WriteToSink(i, messageText, event, level, timestamp);
+			}
+			catch (LoggerException e)
+			{
+				failures[i] = e;
+			}
+			catch (RuntimeException e)
+			{
+				failures[i] = new LoggerException("Unexpected error writing into the destination " + sinks[i].getName(), e);
+			}
+			failed |= failures[i] != null;
+		}
+		
+		//Waiting for the other destinations until the timeout, the ones that are late keep running
+		for (int i = 0; i < sinks.length; i++)
+		{
+			if (tasks[i] == null)
+				continue;
+			try
+			{
+				tasks[i].get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+			}
+			catch (ExecutionException e)
+			{
+				Throwable cause = e.getCause();
+				if (cause instanceof Error)
+					throw (Error) cause;
+				failures[i] = cause instanceof LoggerException ? (LoggerException) cause
+						: new LoggerException("Unexpected error writing into the destination " + sinks[i].getName(), 
+								(Exception) cause);
+			}
+			catch (TimeoutException e)
+			{
+				MetricsRegistry.GetCounter("sink." + sinks[i].getName() + ".timeouts").Increment();
+				failures[i] = new LoggerException("The destination " + sinks[i].getName() + " did not answer in "
+						+ TimeUnit.NANOSECONDS.toMillis(sinkTimeoutNanos) + " milliseconds", e);
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				failures[i] = new LoggerException("Interrupted while waiting for the destination " + sinks[i].getName(), e);
+			}
+			failed |= failures[i] != null;
+		}
+		
+		//Telling which destinations have failed, in the order they were configured
+		if (failed)
+		{
+			Map<String, LoggerException> failedSinks = new LinkedHashMap<String, LoggerException>();
+			for (int i = 0; i < sinks.length; i++)
+				if (failures[i] != null)
+					failedSinks.put(sinks[i].getName(), failures[i]);
+			throw new SinkFailureException(failedSinks);
+		}
+	}
+	
+	/**
+	 * Method that writes a message into one destination, recording its latency and its errors
+	 * @param index The position of the destination
+	 * @param messageText The text of the message we will log, or null for a structured event
+	 * @param event The structured event we will log, or null for a plain text
+	 * @param level Flag to indicate the type of the message
+	 * @param timestamp The moment (in milliseconds) the message was logged
+	 * @throws LoggerException The exception that has been thrown during the process of logging
+	 */
+	private void WriteToSink(int index, String messageText, LogEvent event, LevelOfMessage level, long timestamp) 
+			throws LoggerException
+	{
+		long start = System.nanoTime();
+		try
+		{
+			//A destination that is not thread safe is written from one thread at a time
+			if (threadSafe[index])
+				Write(sinks[index], messageText, event, level, timestamp);
+			else
+			{
+				synchronized (sinks[index])
+				{
+					Write(sinks[index], messageText, event, level, timestamp);
+				}
+			}
+		}
+		catch (LoggerException | RuntimeException e)
+		{
+			sinkErrors[index].Increment();
+			throw e;
+		}
+		finally
+		{
+			sinkLatencies[index].RecordSince(start);
+		}
+	}
+	
+	/**
+	 * Method that writes a message into a destination as a structured event or as a text
+	 * @param sink The destination
+	 * @param messageText The text of the message we will log, or null for a structured event
+	 * @param event The structured event we will log, or null for a plain text
+	 * @param level Flag to indicate the type of the message
+	 * @param timestamp The moment (in milliseconds) the message was logged
+	 * @throws LoggerException The exception that has been thrown during the process of logging
+	 */
+	private static void Write(LogSink sink, String messageText, LogEvent event, LevelOfMessage level, long timestamp) 
+			throws LoggerException
+	{
+		if (event != null)
+			sink.Write(event, level, timestamp);
+		else
+			sink.Write(messageText, level, timestamp);
+	}
+	
+	/**
+	 * Method that writes many messages into one destination in a single call, recording its latency and its errors
+	 * @param index The position of the destination
+	 * @param records The messages, in the order they were logged
+	 * @throws LoggerException The exception that has been thrown during the process of logging
+	 */
+	private void WriteBatchToSink(int index, List<MessageRecord> records) throws LoggerException
+	{
+		long start = System.nanoTime();
+		try
+		{
+			if (threadSafe[index])
+				sinks[index].Write(records);
+			else
+			{
+				synchronized (sinks[index])
+				{
+					sinks[index].Write(records);
+				}
+			}
+		}
+		catch (LoggerException | RuntimeException e)
+		{
+			sinkErrors[index].Increment();
+			throw e;
+		}
+		finally
+		{
+			sinkLatencies[index].RecordSince(start);
+		}
+	}
+	
+	/**
+	 * Method used by the asynchronous consumers to write a run of messages of this logger. Every destination
+	 * with the BATCHING capability gets all the messages over its threshold in a single call, the others one by one
+	 * @param events The slots that hold the messages
+	 * @param from The position of the first message of the run
+	 * @param to The position after the last message of the run
+	 * @param failures Where the error of every message is left
+	 */
+	private void WriteRun(AsyncEvent[] events, int from, int to, LoggerException[] failures)
+	{
+		for (int i = from; i < to; i++)
+		{
+			try
+			{
+				WriteToSinks(events[i].getMessageText(), events[i].getEvent(), events[i].getLevel(), 
+						events[i].getTimestamp(), batched);
+			}
+			catch (LoggerException e)
+			{
+				failures[i] = e;
+			}
+			catch (RuntimeException e)
+			{
+				failures[i] = new LoggerException("Unexpected error writing an asynchronous message", e);
+			}
+		}
+		if (!batched)
+			return;
+		
+		List<MessageRecord> records = new ArrayList<MessageRecord>(to - from);
+		for (int index = 0; index < sinks.length; index++)
+		{
+			if (!batching[index])
+				continue;
+			records.clear();
+			for (int i = from; i < to; i++)
+			{
+				AsyncEvent event = events[i];
+				if (event.getLevel().ordinal() >= thresholds[index])
+					records.add(event.getEvent() != null 
+							? new MessageRecord(event.getLevel(), event.getEvent(), event.getTimestamp())
+							: new MessageRecord(event.getLevel(), event.getMessageText(), event.getTimestamp()));
+			}
+			if (records.isEmpty())
+				continue;
+			try
+			{
+				WriteBatchToSink(index, records);
+			}
+			catch (LoggerException | RuntimeException e)
+			{
+				//Every message given to the destination has failed
+				LoggerException failure = e instanceof LoggerException ? (LoggerException) e
+						: new LoggerException("Unexpected error writing an asynchronous message", (RuntimeException) e);
+				for (int i = from; i < to; i++)
+					if (failures[i] == null && events[i].getLevel().ordinal() >= thresholds[index])
+						failures[i] = failure;
+			}
+		}
+	}
+	
+	/**
+	 * This method switches the logger into asynchronous mode: LogMessage only validates the message
+	 * and copies it into a bounded buffer that is drained by dedicated consumer threads.
+	 * Errors found by the consumers are counted in the dispatcher instead of being thrown to the caller
+	 * @param capacity The amount of messages the buffer can hold
+	 * @param consumerThreads The amount of threads that will write the messages
+	 * @param policy What to do when the buffer is full
+	 * @param sampleRate When the policy is SAMPLE, one out of this amount of messages is kept
+	 * @throws LoggerException If the configuration is not valid or the mode is already active
+	 */
+	public static synchronized void StartAsyncMode(int capacity, int consumerThreads, 
+			BackPressurePolicy policy, int sampleRate) throws LoggerException
+	{
+		if (asyncDispatcher != null)
+			throw new LoggerException("The asynchronous mode is already active");
+		asyncDispatcher = new AsyncDispatcher(capacity, consumerThreads, policy, sampleRate, new SinkWriter());
+	}
+	
+	/**
+	 * This method switches the logger into the striped asynchronous mode: every calling thread copies its
+	 * messages into its own lock-free buffer, so the callers never wait for each other, and a single
+	 * collector merges the buffers in timestamp order. It is stopped with StopAsyncMode
+	 * @param stripeCapacity The amount of messages the buffer of every thread can hold
+	 * @param policy What to do when the buffer of a thread is full, BLOCK or DROP_NEWEST
+	 * @throws LoggerException If the configuration is not valid or the mode is already active
+	 */
+	public static synchronized void StartStripedAsyncMode(int stripeCapacity, BackPressurePolicy policy) 
+			throws LoggerException
+	{
+		if (asyncDispatcher != null)
+			throw new LoggerException("The asynchronous mode is already active");
+		asyncDispatcher = new StripedDispatcher(stripeCapacity, policy, new SinkWriter());
+	}
+	
+	/**
+	 * This method goes back to synchronous mode after draining the pending messages
+	 * @param timeout The maximum time to wait for the pending messages
+	 * @param unit The unit of the timeout
+	 * @return true if every pending message has been written
+	 */
+	public static synchronized boolean StopAsyncMode(long timeout, TimeUnit unit)
+	{
+		AsyncIntake dispatcher = asyncDispatcher;
+		if (dispatcher == null)
+			return true;
+		asyncDispatcher = null;
+		return dispatcher.Stop(timeout, unit);
+	}
+	
+	/**
+	 * Getter for the dispatcher of the asynchronous mode, used to read its counters
+	 * @return the dispatcher or null if we are in synchronous mode
+	 */
+	public static AsyncIntake GetAsyncDispatcher()
+	{
+		return asyncDispatcher;
+	}
+	
+	/**
+	 * Method that validates the file parameters
+	 * @param dbParams the file parameters used to insert the message
+	 * @throws LoggerException If the file parameters are not valid
+	 */
+	private static void ValidateFileParameters(Map dbParams) throws LoggerException
+	{
+		//Validating the parameter is not null
+		if (dbParams != null)
+		{	
+			//Validating the file parameter has been specified
+			if (dbParams.containsKey("logFileFolder") && dbParams.get("logFileFolder") != null)
+			{
+				//Validating the value of the path can be casted to a string (cannot be a class or any other thing)
+				if (!(dbParams.get("logFileFolder") instanceof String))
+					throw new LoggerException("File parameter must be a valid location");
+			}
+			else
+				throw new LoggerException("File parameter has not been specified");
+		}
+		else
+			throw new LoggerException("File parameter cannot be blank");
+	}
+	
+	/**
+	 * Method that validates the database parameters
+	 * @param dbParams The database parameters used to insert the message
+	 * @throws LoggerException If the database parameters are not valid
+	 */
+	public static void ValidateDatabaseParameters(Map dbParams) throws LoggerException
+	{		
+		//Validating database parameters doesn't come null
+		if (dbParams != null)
+		{
+			//If we have all the required parameters for the database, we can open a connection
+			if ((dbParams.containsKey("userName")  && dbParams.get("userName")  != null) && 
+				 (dbParams.containsKey("password")  && dbParams.get("password")  != null) &&
+				 (dbParams.containsKey("dbms")      && dbParams.get("dbms")      != null) &&
+				 (dbParams.containsKey("serverName")&& dbParams.get("serverName")!= null))
+			{
+				//Validating the value of the parameters can be casted to a string (cannot be a class or any other thing)
+				if (!(dbParams.get("userName") instanceof String &&
+					dbParams.get("password") instanceof String &&
+					dbParams.get("dbms") instanceof String &&
+					dbParams.get("serverName") instanceof String))
+					throw new LoggerException("Database parameters must be valid data");
+			}
+			else
+				throw new LoggerException("Not all the required database parameters have been specified");
+		}
+		else
+			throw new LoggerException ("DataBase parameters cannot be blank");
+	}
+	
+	/**
+	 * Builder of loggers: the destinations and their parameters are validated once in Build and opened
+	 * by their first message (or by WarmUp), and the logger it gives can be shared by every thread
+	 * @author Teddy
+	 *
+	 */
+	public static final class Builder {
+		
+		//Atttributes of the class
+		private boolean logToFile;
+		private boolean logToConsole;
+		private boolean logToDatabase;
+		private Map dbParams;
+		private LevelOfMessage consoleThreshold;
+		private LevelOfMessage fileThreshold;
+		private LevelOfMessage databaseThreshold;
+		private Long deduplicationWindow;
+		private final Long[] rateLimits = new Long[LevelOfMessage.values().length];
+		private Boolean parallelSinks;
+		private Executor sinkExecutor;
+		private Long sinkTimeout;
+		private Integer recentEvents;
+		private final List<String> sinkNames = new ArrayList<String>();
+		private final List<LogSink> extraSinks = new ArrayList<LogSink>();
+		private final List<LevelOfMessage> extraThresholds = new ArrayList<LevelOfMessage>();
+		
+		/**
+		 * Private constructor, builders are created with JobLogger.NewBuilder
+		 */
+		private Builder() {
+		}
+		
+		/**
+		 * Method to indicate whether the logger will log into a file
+		 * @param logToFile true to log into the file of the logFileFolder parameter
+		 * @return the same builder
+		 */
+		public Builder LogToFile(boolean logToFile)
+		{
+			this.logToFile = logToFile;
+			return this;
+		}
+		
+		/**
+		 * Method to indicate whether the logger will log into the console
+		 * @param logToConsole true to log into the console
+		 * @return the same builder
+		 */
+		public Builder LogToConsole(boolean logToConsole)
+		{
+			this.logToConsole = logToConsole;
+			return this;
+		}
+		
+		/**
+		 * Method to indicate whether the logger will log into a database
+		 * @param logToDatabase true to log into the database of the parameters
+		 * @return the same builder
+		 */
+		public Builder LogToDatabase(boolean logToDatabase)
+		{
+			this.logToDatabase = logToDatabase;
+			return this;
+		}
+		
+		/**
+		 * Method to log into a destination created by the LogSinkProvider of its name, as if the name
+		 * was in the sinks parameter. Its minimum type of message is read from the parameter name + "Threshold"
+		 * @param name The name of the destination
+		 * @return the same builder
+		 */
+		public Builder LogTo(String name)
+		{
+			this.sinkNames.add(name);
+			return this;
+		}
+		
+		/**
+		 * Method to log into a destination created by the caller, it is written after the database, the file and the console
+		 * @param sink The destination
+		 * @param threshold The minimum type of message, or null to accept every type
+		 * @return the same builder
+		 */
+		public Builder WithSink(LogSink sink, LevelOfMessage threshold)
+		{
+			this.extraSinks.add(sink);
+			this.extraThresholds.add(threshold == null ? LevelOfMessage.MESSAGE : threshold);
+			return this;
+		}
+		
+		/**
+		 * Method to give the minimum type of message written into the console, it overrides the
+		 * consoleThreshold parameter
+		 * @param threshold The minimum type of message
+		 * @return the same builder
+		 */
+		public Builder ConsoleThreshold(LevelOfMessage threshold)
+		{
+			this.consoleThreshold = threshold;
+			return this;
+		}
+		
+		/**
+		 * Method to give the minimum type of message written into the file, it overrides the
+		 * fileThreshold parameter
+		 * @param threshold The minimum type of message
+		 * @return the same builder
+		 */
+		public Builder FileThreshold(LevelOfMessage threshold)
+		{
+			this.fileThreshold = threshold;
+			return this;
+		}
+		
+		/**
+		 * Method to give the minimum type of message written into the database, it overrides the
+		 * databaseThreshold parameter
+		 * @param threshold The minimum type of message
+		 * @return the same builder
+		 */
+		public Builder DatabaseThreshold(LevelOfMessage threshold)
+		{
+			this.databaseThreshold = threshold;
+			return this;
+		}
+		
+		/**
+		 * Method to collapse the repeats of a message (same text and type) into a single message with
+		 * the amount of repeats, it overrides the dedupWindow parameter
+		 * @param windowMillis Time during which the repeats are collapsed, 0 disables the deduplication
+		 * @return the same builder
+		 */
+		public Builder DeduplicationWindow(long windowMillis)
+		{
+			this.deduplicationWindow = windowMillis;
+			return this;
+		}
+		
+		/**
+		 * Method to give the maximum amount of messages per second of a type, it overrides the
+		 * errorRateLimit, warningRateLimit or messageRateLimit parameter
+		 * @param level The type of the message
+		 * @param perSecond The maximum amount of messages per second, 0 means no limit
+		 * @return the same builder
+		 */
+		public Builder RateLimit(LevelOfMessage level, long perSecond)
+		{
+			this.rateLimits[level.ordinal()] = perSecond;
+			return this;
+		}
+		
+		/**
+		 * Method to write every message into all its destinations at the same time instead of one after
+		 * another, it overrides the parallelSinks parameter
+		 * @param parallelSinks true to write into the destinations in parallel
+		 * @return the same builder
+		 */
+		public Builder ParallelSinks(boolean parallelSinks)
+		{
+			this.parallelSinks = parallelSinks;
+			return this;
+		}
+		
+		/**
+		 * Method to give the executor used when the destinations are written in parallel, by default
+		 * virtual threads are used if the JVM has them
+		 * @param sinkExecutor The executor
+		 * @return the same builder
+		 */
+		public Builder SinkExecutor(Executor sinkExecutor)
+		{
+			this.sinkExecutor = sinkExecutor;
+			return this;
+		}
+		
+		/**
+		 * Method to give the time a destination written in parallel has to answer, it overrides the
+		 * sinkTimeout parameter
+		 * @param timeoutMillis The time in milliseconds
+		 * @return the same builder
+		 */
+		public Builder SinkTimeout(long timeoutMillis)
+		{
+			this.sinkTimeout = timeoutMillis;
+			return this;
+		}
+		
+		/**
+		 * Method to keep the last messages of every type in memory, it overrides the recentEvents parameter
+		 * @param capacity The amount of messages kept for every type of message, 0 to keep none
+		 * @return the same builder
+		 */
+		public Builder RecentEvents(int capacity)
+		{
+			this.recentEvents = capacity;
+			return this;
+		}
+		
+		/**
+		 * Method to give the database and file parameters, they are copied when the logger is built
+		 * @param dbParams the database and file parameters (if apply)
+		 * @return the same builder
+		 */
+		public Builder WithParameters(Map dbParams)
+		{
+			this.dbParams = dbParams;
+			return this;
+		}
+		
+		/**
+		 * Method that validates the configuration and creates the destinations of the logger
+		 * @return the logger ready to be used
+		 * @throws LoggerException If the configuration or the parameters are not valid
+		 */
+		public JobLogger Build() throws LoggerException
+		{
+			//The destinations of the providers, from the builder and from the sinks parameter
+			List<String> names = new ArrayList<String>(sinkNames);
+			String namesParameter = LoggerParameters.GetString(dbParams, "sinks", null);
+			if (namesParameter != null)
+				for (String name : namesParameter.split(","))
+					if (name.trim().length() != 0 && !names.contains(name.trim()))
+						names.add(name.trim());
+			
+			//If we have at least one destination of the log message
+			if (!logToConsole && !logToFile && !logToDatabase && names.isEmpty() && extraSinks.isEmpty())
+				throw new LoggerException("Invalid configuration");
+			
+			//Validating in the same order the destinations are written
+			if (logToDatabase)
+				ValidateDatabaseParameters(dbParams);
+			if (logToFile)
+				ValidateFileParameters(dbParams);
+			
+			//The logger keeps its own copy, so changes in the map of the caller don't affect it
+			Map<Object, Object> parameters = LoggerParameters.Copy(dbParams);
+			List<LogSink> sinks = new ArrayList<LogSink>(3 + names.size() + extraSinks.size());
+			int[] thresholds = new int[3 + names.size() + extraSinks.size()];
+			if (logToDatabase)
+			{
+				thresholds[sinks.size()] = Threshold(databaseThreshold, parameters, "databaseThreshold").ordinal();
+				sinks.add(new DatabaseSink(parameters));
+			}
+			if (logToFile)
+			{
+				thresholds[sinks.size()] = Threshold(fileThreshold, parameters, "fileThreshold").ordinal();
+				sinks.add(new FileSink(parameters));
+			}
+			if (logToConsole)
+			{
+				thresholds[sinks.size()] = Threshold(consoleThreshold, parameters, "consoleThreshold").ordinal();
+				sinks.add(new ConsoleSink(parameters));
+			}
+			for (String name : names)
+			{
+				thresholds[sinks.size()] = Threshold(null, parameters, name + "Threshold").ordinal();
+				sinks.add(SinkProviderRegistry.Create(name, parameters));
+			}
+			for (int i = 0; i < extraSinks.size(); i++)
+			{
+				thresholds[sinks.size()] = extraThresholds.get(i).ordinal();
+				sinks.add(extraSinks.get(i));
+			}
+			return new JobLogger(sinks.toArray(new LogSink[sinks.size()]), 
+					Arrays.copyOf(thresholds, sinks.size()), parameters, Throttle(parameters), 
+					Executor(parameters), SinkTimeout(parameters), RecentCapacity(parameters));
+		}
+		
+		/**
+		 * Method that gives the executor that writes into the destinations in parallel
+		 * @param parameters The parameters of the logger
+		 * @return the executor, or null if the destinations are written one after another
+		 * @throws LoggerException If the parallelSinks parameter is not valid
+		 */
+		private Executor Executor(Map parameters) throws LoggerException
+		{
+			boolean parallel = parallelSinks != null ? parallelSinks 
+					: LoggerParameters.GetBoolean(parameters, "parallelSinks", false);
+			if (!parallel)
+				return null;
+			return sinkExecutor != null ? sinkExecutor : SinkExecutors.GetDefault();
+		}
+		
+		/**
+		 * Method that gives the time a destination written in parallel has to answer
+		 * @param parameters The parameters of the logger
+		 * @return the time in milliseconds
+		 * @throws LoggerException If the sinkTimeout parameter is not valid
+		 */
+		private long SinkTimeout(Map parameters) throws LoggerException
+		{
+			long timeout = sinkTimeout != null ? sinkTimeout 
+					: LoggerParameters.GetLong(parameters, "sinkTimeout", DEFAULT_SINK_TIMEOUT);
+			if (timeout <= 0)
+				throw new LoggerException("The parameter sinkTimeout must be positive");
+			return timeout;
+		}
+		
+		/**
+		 * Method that gives the amount of messages of every type kept in memory
+		 * @param parameters The parameters of the logger
+		 * @return the amount of messages, 0 to keep none
+		 * @throws LoggerException If the recentEvents parameter is not valid
+		 */
+		private int RecentCapacity(Map parameters) throws LoggerException
+		{
+			int capacity = recentEvents != null ? recentEvents 
+					: LoggerParameters.GetInt(parameters, "recentEvents", 0);
+			if (capacity < 0)
+				throw new LoggerException("The parameter recentEvents cannot be negative");
+			return capacity;
+		}
+		
+		/**
+		 * Method that builds the deduplication and rate limit of the messages, read from the builder or from the
+		 * dedupWindow, dedupMaxMessages, errorRateLimit, warningRateLimit, messageRateLimit and rateLimitBurst parameters
+		 * @param parameters The parameters of the logger
+		 * @return the throttle, or null if there is no deduplication and no rate limit
+		 * @throws LoggerException If the parameters are not valid
+		 */
+		private MessageThrottle Throttle(Map parameters) throws LoggerException
+		{
+			long window = deduplicationWindow != null ? deduplicationWindow 
+					: LoggerParameters.GetLong(parameters, "dedupWindow", 0);
+			int maxMessages = LoggerParameters.GetInt(parameters, "dedupMaxMessages", DEFAULT_DEDUP_MAX_MESSAGES);
+			long burst = LoggerParameters.GetLong(parameters, "rateLimitBurst", 0);
+			boolean limited = false;
+			long[] rates = new long[rateLimits.length];
+			for (LevelOfMessage level : LevelOfMessage.values())
+			{
+				Long rate = rateLimits[level.ordinal()];
+				rates[level.ordinal()] = rate != null ? rate 
+						: LoggerParameters.GetLong(parameters, level.name().toLowerCase(Locale.ROOT) + "RateLimit", 0);
+				if (rates[level.ordinal()] < 0)
+					throw new LoggerException("The deduplication and rate limit parameters are not valid");
+				limited |= rates[level.ordinal()] > 0;
+			}
+			if (window < 0 || maxMessages <= 0 || burst < 0)
+				throw new LoggerException("The deduplication and rate limit parameters are not valid");
+			
+			//Nothing to do in front of the destinations
+			if (window == 0 && !limited)
+				return null;
+			return new MessageThrottle(window, maxMessages, rates, burst);
+		}
+		
+		/**
+		 * Method that gives the minimum type of message of a destination, every type is accepted by default
+		 * @param threshold The threshold given to the builder, or null
+		 * @param parameters The parameters of the logger
+		 * @param key The name of the parameter with the threshold
+		 * @return the minimum type of message
+		 * @throws LoggerException If the parameter is not a type of message
+		 */
+		private static LevelOfMessage Threshold(LevelOfMessage threshold, Map parameters, String key) throws LoggerException
+		{
+			if (threshold != null)
+				return threshold;
+			return LoggerParameters.GetLevel(parameters, key, LevelOfMessage.MESSAGE);
+		}
+	}
+	
+	/**
+	 * Handler of the asynchronous consumers: every message goes to the destinations of its logger, and the
+	 * consecutive messages of a logger are written together so its batching destinations get them at once
+	 * @author Teddy
+	 *
+	 */
+	private static final class SinkWriter implements AsyncEventHandler {
+		
+		@Override
+		public void Handle(AsyncEvent event) throws LoggerException
+		{
+			event.getLogger().WriteToSinks(event.getMessageText(), event.getEvent(), event.getLevel(), event.getTimestamp());
+		}
+		
+		@Override
+		public void HandleBatch(AsyncEvent[] events, int count, LoggerException[] failures)
+		{
+			int from = 0;
+			while (from < count)
+			{
+				JobLogger logger = events[from].getLogger();
+				int to = from + 1;
+				while (to < count && events[to].getLogger() == logger)
+					to++;
+				logger.WriteRun(events, from, to, failures);
+				from = to;
+			}
+		}
+	}
+	
+	/**
+	 * Key of the loggers cached by LogMessage: the destinations and the content of the parameters
+	 * @author Teddy
+	 *
+	 */
+	private static final class ConfigurationKey {
+		
+		//Atttributes of the class
+		private final int destinations;
+		private final Map parameters;
+		private final int hash;
+		
+		/**
+		 * Constructor of the key
+		 * @param logToFile Flag to indicate whether we will log into a file
+		 * @param logToConsole Flag to indicate whether we will log into the console
+		 * @param logToDatabase Flag to indicate whether we will log into a database
+		 * @param parameters The database and file parameters (if apply)
+		 */
+		private ConfigurationKey(boolean logToFile, boolean logToConsole, boolean logToDatabase, Map parameters)
+		{
+			this.destinations = Destinations(logToFile, logToConsole, logToDatabase);
+			this.parameters = parameters;
+			this.hash = 31 * destinations + (parameters == null ? 0 : parameters.hashCode());
+		}
+		
+		@Override
+		public int hashCode()
+		{
+			return hash;
+		}
+		
+		@Override
+		public boolean equals(Object other)
+		{
+			if (!(other instanceof ConfigurationKey))
+				return false;
+			ConfigurationKey key = (ConfigurationKey) other;
+			return destinations == key.destinations && hash == key.hash
+					&& (parameters == null ? key.parameters == null : parameters.equals(key.parameters));
+		}
+		
+		/**
+		 * Method that packs the destinations of LogMessage into a number
+		 * @param logToFile Flag to indicate whether we will log into a file
+		 * @param logToConsole Flag to indicate whether we will log into the console
+		 * @param logToDatabase Flag to indicate whether we will log into a database
+		 * @return the destinations
+		 */
+		private static int Destinations(boolean logToFile, boolean logToConsole, boolean logToDatabase)
+		{
+			return (logToFile ? 1 : 0) | (logToConsole ? 2 : 0) | (logToDatabase ? 4 : 0);
+		}
+	}
+	
+	/**
+	 * Last logger used by LogMessage in a thread, with the map it was asked for. Both are weakly held,
+	 * so a pooled thread doesn't keep the map of its caller or a logger the cache has closed
+	 * @author Teddy
+	 *
+	 */
+	private static final class LastLogger {
+		
+		//Atttributes of the class
+		private final WeakReference<Map> parameters;
+		private final int destinations;
+		private final WeakReference<JobLogger> logger;
+		private final int generation;
+		
+		/**
+		 * Constructor of the last logger
+		 * @param parameters The map given to LogMessage, compared by identity
+		 * @param destinations The destinations given to LogMessage
+		 * @param logger The logger of that configuration
+		 * @param generation The times the cache had been emptied when the logger was taken from it
+		 */
+		private LastLogger(Map parameters, int destinations, JobLogger logger, int generation)
+		{
+			this.parameters = parameters == null ? null : new WeakReference<Map>(parameters);
+			this.destinations = destinations;
+			this.logger = new WeakReference<JobLogger>(logger);
+			this.generation = generation;
+		}
+		
+		/**
+		 * Method that gives the logger if it is still cached and was asked for the same map with the same content
+		 * @param dbParams The map given to LogMessage
+		 * @param destinations The destinations given to LogMessage
+		 * @param currentGeneration The times the cache has been emptied
+		 * @return the logger, or null if it must be asked to the cache
+		 */
+		private JobLogger Get(Map dbParams, int destinations, int currentGeneration)
+		{
+			if (generation != currentGeneration || this.destinations != destinations
+					|| (parameters == null ? dbParams != null : dbParams == null || parameters.get() != dbParams))
+				return null;
+			JobLogger last = logger.get();
+			return last != null && (dbParams == null || dbParams.equals(last.parameters)) ? last : null;
+		}
 	}
 }
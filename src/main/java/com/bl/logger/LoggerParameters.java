@@ -0,0 +1,162 @@
+package com.bl.logger;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.bl.exception.LoggerException;
+
+/**
+ * Helper class to read the optional configuration values that can travel in the parameters map
+ * of the logger (next to the database and file parameters)
+ * @author Teddy
+ *
+ */
+public final class LoggerParameters {
+
+	/**
+	 * Private constructor, this class only has static methods
+	 */
+	private LoggerParameters() {
+	}
+
+	/**
+	 * Method that copies the parameters map, so later changes in the map of the caller are not seen
+	 * @param params The parameters map (it can be null)
+	 * @return the copy, or null if there are no parameters
+	 */
+	public static Map<Object, Object> Copy(Map params)
+	{
+		if (params == null)
+			return null;
+		Map<Object, Object> copy = new HashMap<Object, Object>(Math.max(16, params.size() * 4 / 3 + 1));
+		for (Object entry : params.entrySet())
+			copy.put(((Map.Entry<?, ?>) entry).getKey(), ((Map.Entry<?, ?>) entry).getValue());
+		return copy;
+	}
+
+	/**
+	 * Method that reads a numeric parameter, it can be given as a number or as a string
+	 * @param params The parameters map (it can be null)
+	 * @param key The name of the parameter
+	 * @param defaultValue The value to use when the parameter has not been specified
+	 * @return the value of the parameter
+	 * @throws LoggerException If the parameter cannot be treated as a number
+	 */
+	public static long GetLong(Map params, String key, long defaultValue) throws LoggerException
+	{
+		//Using the default value when the parameter is missing
+		if (params == null || params.get(key) == null)
+			return defaultValue;
+
+		Object value = params.get(key);
+		if (value instanceof Number)
+			return ((Number) value).longValue();
+		if (value instanceof String)
+		{
+			try
+			{
+				return Long.parseLong(((String) value).trim());
+			}
+			catch (NumberFormatException e)
+			{
+				throw new LoggerException("The parameter " + key + " must be a valid number", e);
+			}
+		}
+		throw new LoggerException("The parameter " + key + " must be a valid number");
+	}
+
+	/**
+	 * Method that reads a numeric parameter that must fit in an integer
+	 * @param params The parameters map (it can be null)
+	 * @param key The name of the parameter
+	 * @param defaultValue The value to use when the parameter has not been specified
+	 * @return the value of the parameter
+	 * @throws LoggerException If the parameter cannot be treated as a number
+	 */
+	public static int GetInt(Map params, String key, int defaultValue) throws LoggerException
+	{
+		long value = GetLong(params, key, defaultValue);
+		if (value > Integer.MAX_VALUE || value < Integer.MIN_VALUE)
+			throw new LoggerException("The parameter " + key + " must be a valid number");
+		return (int) value;
+	}
+
+	/**
+	 * Method that reads a text parameter
+	 * @param params The parameters map (it can be null)
+	 * @param key The name of the parameter
+	 * @param defaultValue The value to use when the parameter has not been specified
+	 * @return the value of the parameter
+	 * @throws LoggerException If the parameter is not a string
+	 */
+	public static String GetString(Map params, String key, String defaultValue) throws LoggerException
+	{
+		//Using the default value when the parameter is missing
+		if (params == null || params.get(key) == null)
+			return defaultValue;
+
+		if (!(params.get(key) instanceof String))
+			throw new LoggerException("The parameter " + key + " must be a valid text");
+		return (String) params.get(key);
+	}
+
+	/**
+	 * Method that reads a flag parameter, it can be given as a Boolean or as the text true or false
+	 * @param params The parameters map (it can be null)
+	 * @param key The name of the parameter
+	 * @param defaultValue The value to use when the parameter has not been specified
+	 * @return the value of the parameter
+	 * @throws LoggerException If the parameter is not a flag
+	 */
+	public static boolean GetBoolean(Map params, String key, boolean defaultValue) throws LoggerException
+	{
+		//Using the default value when the parameter is missing
+		if (params == null || params.get(key) == null)
+			return defaultValue;
+
+		Object value = params.get(key);
+		if (value instanceof Boolean)
+			return (Boolean) value;
+		if (value instanceof String)
+		{
+			String text = ((String) value).trim();
+			if (text.equalsIgnoreCase("true"))
+				return true;
+			if (text.equalsIgnoreCase("false"))
+				return false;
+		}
+		throw new LoggerException("The parameter " + key + " must be a valid flag");
+	}
+
+	/**
+	 * Method that reads a type of message parameter, it can be given as a LevelOfMessage or as its name
+	 * @param params The parameters map (it can be null)
+	 * @param key The name of the parameter
+	 * @param defaultValue The value to use when the parameter has not been specified
+	 * @return the value of the parameter
+	 * @throws LoggerException If the parameter is not a type of message
+	 */
+	public static LevelOfMessage GetLevel(Map params, String key, LevelOfMessage defaultValue) throws LoggerException
+	{
+		//Using the default value when the parameter is missing
+		if (params == null || params.get(key) == null)
+			return defaultValue;
+
+		Object value = params.get(key);
+		if (value instanceof LevelOfMessage)
+			return (LevelOfMessage) value;
+		if (value instanceof String)
+		{
+			try
+			{
+				return LevelOfMessage.valueOf(((String) value).trim().toUpperCase());
+			}
+			catch (IllegalArgumentException e)
+			{
+				throw new LoggerException("The parameter " + key + " must be a valid level", e);
+			}
+		}
+		throw new LoggerException("The parameter " + key + " must be a valid level");
+	}
+
+}
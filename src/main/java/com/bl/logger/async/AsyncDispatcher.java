@@ -0,0 +1,356 @@
+package com.bl.logger.async;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.bl.exception.LoggerException;
+import com.bl.logger.JobLogger;
+import com.bl.logger.LevelOfMessage;
+import com.bl.logger.event.LogEvent;
+
+/**
+ * This class holds a bounded, preallocated ring buffer of messages and the consumer threads
+ * that drain it into the real destinations, so the caller only pays for copying the message
+ * @author Teddy
+ *
+ */
+public class AsyncDispatcher implements AsyncIntake {
+
+	//Amount of messages a consumer takes from the buffer each time it wakes up
+	private static final int DRAIN_BATCH = 64;
+
+	//Atttributes of the class
+	private final AsyncEvent[] slots;
+	private final int mask;
+	private final BackPressurePolicy policy;
+	private final int sampleRate;
+	private final int highWaterMark;
+	private final AsyncEventHandler handler;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notEmpty = lock.newCondition();
+	private final Condition notFull = lock.newCondition();
+	private final Thread[] consumers;
+	private final Thread shutdownHook;
+	private final AtomicLong droppedEvents = new AtomicLong();
+	private final AtomicLong failedEvents = new AtomicLong();
+	private final AtomicLong processedEvents = new AtomicLong();
+	private volatile LoggerException lastFailure;
+	private long head;
+	private long tail;
+	private long sampleCounter;
+	private volatile boolean running;
+
+	/**
+	 * Constructor of the dispatcher, it preallocates all the slots and starts the consumers
+	 * @param capacity The amount of messages the buffer can hold (rounded up to a power of two)
+	 * @param consumerThreads The amount of threads that will drain the buffer
+	 * @param policy What to do when the buffer is full
+	 * @param sampleRate When sampling, one out of this amount of messages is kept
+	 * @param handler The object that writes every message into its destinations
+	 * @throws LoggerException If the configuration is not valid
+	 */
+	public AsyncDispatcher(int capacity, int consumerThreads, BackPressurePolicy policy, int sampleRate,
+			AsyncEventHandler handler) throws LoggerException
+	{
+		//Validating the configuration
+		if (capacity <= 0 || consumerThreads <= 0)
+			throw new LoggerException("The capacity and the consumers of the asynchronous mode must be positive");
+		if (policy == null || handler == null)
+			throw new LoggerException("The back-pressure policy must be specified");
+		if (policy == BackPressurePolicy.SAMPLE && sampleRate <= 1)
+			throw new LoggerException("The sample rate must be greater than one");
+
+		//Rounding the capacity so we can use a mask instead of a modulo
+		int size = 1;
+		while (size < capacity)
+			size <<= 1;
+
+		//Preallocating every slot of the buffer
+		this.slots = new AsyncEvent[size];
+		for (int i = 0; i < size; i++)
+			this.slots[i] = new AsyncEvent();
+		this.mask = size - 1;
+		this.policy = policy;
+		this.sampleRate = sampleRate;
+		this.highWaterMark = Math.max(1, size - (size >> 2));
+		this.handler = handler;
+		this.running = true;
+
+		//Starting the consumers
+		this.consumers = new Thread[consumerThreads];
+		for (int i = 0; i < consumerThreads; i++)
+		{
+			this.consumers[i] = new Thread(this::Consume, "JobLogger-async-" + i);
+			this.consumers[i].setDaemon(true);
+			this.consumers[i].start();
+		}
+
+		//Draining whatever is left when the application stops
+		this.shutdownHook = new Thread(() -> Stop(5, TimeUnit.SECONDS), "JobLogger-async-shutdown");
+		Runtime.getRuntime().addShutdownHook(this.shutdownHook);
+	}
+
+	/**
+	 * Method that copies a message into the buffer, applying the back-pressure policy if it is full
+	 * @param logger The logger whose destinations will write the message
+	 * @param messageText The text of the message we will log, or null for a structured event
+	 * @param event The structured event we will log, or null for a plain text
+	 * @param level The type of the message
+	 * @return true if the message has been accepted, false if it has been dropped
+	 * @throws LoggerException If the dispatcher is stopped or the caller was interrupted while waiting
+	 */
+	@Override
+	public boolean Offer(JobLogger logger, String messageText, LogEvent event, LevelOfMessage level) throws LoggerException
+	{
+		long timestamp = System.currentTimeMillis();
+		lock.lock();
+		try
+		{
+			if (!running)
+				throw new LoggerException("The asynchronous mode has been stopped");
+
+			//Sampling once we are over the high-water mark
+			if (policy == BackPressurePolicy.SAMPLE && tail - head >= highWaterMark && (sampleCounter++ % sampleRate) != 0)
+			{
+				droppedEvents.incrementAndGet();
+				return false;
+			}
+
+			//Applying the policy while the buffer is full
+			while (tail - head == slots.length)
+			{
+				switch(policy)
+				{
+					case BLOCK:
+						notFull.await();
+						if (!running)
+							throw new LoggerException("The asynchronous mode has been stopped");
+						break;
+					case DROP_OLDEST:
+						slots[(int) (head & mask)].Clear();
+						head++;
+						droppedEvents.incrementAndGet();
+						break;
+					default:
+						droppedEvents.incrementAndGet();
+						return false;
+				}
+			}
+
+			//Copying the message into its slot
+			slots[(int) (tail & mask)].Set(logger, messageText, event, level, timestamp);
+			tail++;
+			notEmpty.signal();
+			return true;
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new LoggerException("Interrupted while waiting for space in the asynchronous buffer", e);
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Method executed by every consumer thread, it takes batches of messages and writes them
+	 */
+	private void Consume()
+	{
+		//Every consumer has its own preallocated batch
+		AsyncEvent[] batch = new AsyncEvent[DRAIN_BATCH];
+		for (int i = 0; i < DRAIN_BATCH; i++)
+			batch[i] = new AsyncEvent();
+		LoggerException[] failures = new LoggerException[DRAIN_BATCH];
+
+		while (true)
+		{
+			int taken = 0;
+			lock.lock();
+			try
+			{
+				//Waiting for messages while we are still running
+				while (tail == head && running)
+					notEmpty.await();
+
+				//Stopped and nothing else to drain
+				if (tail == head)
+					return;
+
+				//Copying a batch out of the ring so the lock is held as short as possible
+				while (taken < DRAIN_BATCH && head < tail)
+				{
+					AsyncEvent slot = slots[(int) (head & mask)];
+					batch[taken++].CopyFrom(slot);
+					slot.Clear();
+					head++;
+				}
+				notFull.signalAll();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				return;
+			}
+			finally
+			{
+				lock.unlock();
+			}
+
+			//Writing the batch outside of the lock, the handler can give it whole to the destinations
+			try
+			{
+				handler.HandleBatch(batch, taken, failures);
+			}
+			catch (Throwable e)
+			{
+				//Even an Error must not kill the consumer, the producers blocked on a full buffer would wait forever
+				for (int i = 0; i < taken; i++)
+				{
+					if (failures[i] == null)
+						failures[i] = new LoggerException("Unexpected error writing an asynchronous message", e);
+				}
+			}
+			for (int i = 0; i < taken; i++)
+			{
+				if (failures[i] == null)
+					processedEvents.incrementAndGet();
+				else
+				{
+					failedEvents.incrementAndGet();
+					lastFailure = failures[i];
+					failures[i] = null;
+				}
+				batch[i].Clear();
+			}
+		}
+	}
+
+	/**
+	 * Method that stops accepting messages and waits for the consumers to drain the buffer
+	 * @param timeout The maximum time to wait for the consumers
+	 * @param unit The unit of the timeout
+	 * @return true if every pending message has been written before the timeout
+	 */
+	@Override
+	public boolean Stop(long timeout, TimeUnit unit)
+	{
+		lock.lock();
+		try
+		{
+			running = false;
+			notEmpty.signalAll();
+			notFull.signalAll();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+
+		//Waiting for the consumers to finish
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		try
+		{
+			for (Thread consumer : consumers)
+			{
+				long remaining = deadline - System.nanoTime();
+				if (remaining > 0)
+					TimeUnit.NANOSECONDS.timedJoin(consumer, remaining);
+			}
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+
+		//The hook is not needed anymore if we have been stopped by hand
+		if (Thread.currentThread() != shutdownHook)
+		{
+			try
+			{
+				Runtime.getRuntime().removeShutdownHook(shutdownHook);
+			}
+			catch (IllegalStateException e)
+			{
+				//The JVM is already shutting down, nothing to remove
+			}
+		}
+
+		for (Thread consumer : consumers)
+			if (consumer.isAlive())
+				return false;
+		return true;
+	}
+
+	/**
+	 * Getter for the amount of messages discarded by the back-pressure policy
+	 * @return the amount of dropped messages
+	 */
+	@Override
+	public long getDroppedEvents()
+	{
+		return droppedEvents.get();
+	}
+
+	/**
+	 * Getter for the amount of messages that could not be written into their destinations
+	 * @return the amount of failed messages
+	 */
+	@Override
+	public long getFailedEvents()
+	{
+		return failedEvents.get();
+	}
+
+	/**
+	 * Getter for the amount of messages written successfully
+	 * @return the amount of processed messages
+	 */
+	@Override
+	public long getProcessedEvents()
+	{
+		return processedEvents.get();
+	}
+
+	/**
+	 * Getter for the last error the consumers have found
+	 * @return the last exception or null if there has not been any
+	 */
+	@Override
+	public LoggerException getLastFailure()
+	{
+		return lastFailure;
+	}
+
+	/**
+	 * Getter for the amount of messages waiting in the buffer
+	 * @return the amount of pending messages
+	 */
+	@Override
+	public int getPendingEvents()
+	{
+		lock.lock();
+		try
+		{
+			return (int) (tail - head);
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Getter for the real capacity of the buffer
+	 * @return the amount of slots
+	 */
+	public int getCapacity()
+	{
+		return slots.length;
+	}
+
+}
@@ -0,0 +1,110 @@
+package com.bl.logger.async;
+
+import com.bl.logger.JobLogger;
+import com.bl.logger.LevelOfMessage;
+import com.bl.logger.event.LogEvent;
+
+/**
+ * Preallocated slot of the asynchronous ring buffer. The dispatcher copies every message
+ * into one of these slots instead of creating a new object per call
+ * @author Teddy
+ *
+ */
+public final class AsyncEvent {
+	
+	//Atttributes of the class
+	private JobLogger logger;
+	private String messageText;
+	private LogEvent event;
+	private LevelOfMessage level;
+	private long timestamp;
+	
+	/**
+	 * Package constructor, slots are only created by the dispatcher
+	 */
+	AsyncEvent() {
+	}
+	
+	/**
+	 * Method that fills the slot with the information of the message
+	 * @param logger The logger whose destinations will write the message
+	 * @param messageText The text of the message we will log
+	 * @param event The structured event we will log, or null for a plain text
+	 * @param level The type of the message
+	 * @param timestamp The moment (in milliseconds) when the message was logged
+	 */
+	void Set(JobLogger logger, String messageText, LogEvent event, LevelOfMessage level, long timestamp)
+	{
+		this.logger = logger;
+		this.messageText = messageText;
+		this.event = event;
+		this.level = level;
+		this.timestamp = timestamp;
+	}
+	
+	/**
+	 * Method that copies the content of another slot into this one
+	 * @param other The slot we will copy
+	 */
+	void CopyFrom(AsyncEvent other)
+	{
+		Set(other.logger, other.messageText, other.event, other.level, other.timestamp);
+	}
+	
+	/**
+	 * Method that releases the references of the slot so they can be collected
+	 */
+	void Clear()
+	{
+		this.logger = null;
+		this.messageText = null;
+		this.event = null;
+		this.level = null;
+	}
+	
+	/**
+	 * Getter for the logger whose destinations will write the message
+	 * @return the logger
+	 */
+	public JobLogger getLogger()
+	{
+		return this.logger;
+	}
+	
+	/**
+	 * Getter for the text of the message
+	 * @return the text of the message
+	 */
+	public String getMessageText()
+	{
+		return this.messageText;
+	}
+	
+	/**
+	 * Getter for the structured event
+	 * @return the event, or null if the message is a plain text
+	 */
+	public LogEvent getEvent()
+	{
+		return this.event;
+	}
+	
+	/**
+	 * Getter for the type of the message
+	 * @return the type of the message
+	 */
+	public LevelOfMessage getLevel()
+	{
+		return this.level;
+	}
+	
+	/**
+	 * Getter for the moment the message was logged
+	 * @return the time in milliseconds
+	 */
+	public long getTimestamp()
+	{
+		return this.timestamp;
+	}
+
+}
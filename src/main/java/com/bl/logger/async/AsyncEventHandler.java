@@ -0,0 +1,44 @@
+package com.bl.logger.async;
+
+import com.bl.exception.LoggerException;
+
+/**
+ * Interface implemented by whoever writes the messages taken from the asynchronous buffer
+ * @author Teddy
+ *
+ */
+public interface AsyncEventHandler {
+	
+	/**
+	 * Method that writes one message into its destinations
+	 * @param event The slot that holds the message
+	 * @throws LoggerException The exception that has been thrown during the process of logging
+	 */
+	void Handle(AsyncEvent event) throws LoggerException;
+	
+	/**
+	 * Method that writes many messages into their destinations, by default one after another
+	 * @param events The slots that hold the messages, in order
+	 * @param count The amount of messages
+	 * @param failures Where the error of every message is left, it stays null if the message has been written
+	 */
+	default void HandleBatch(AsyncEvent[] events, int count, LoggerException[] failures)
+	{
+		for (int i = 0; i < count; i++)
+		{
+			try
+			{
+				Handle(events[i]);
+			}
+			catch (LoggerException e)
+			{
+				failures[i] = e;
+			}
+			catch (RuntimeException | Error e)
+			{
+				failures[i] = new LoggerException("Unexpected error writing an asynchronous message", e);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,81 @@
+package com.bl.logger.async;
+
+import java.util.concurrent.TimeUnit;
+
+import com.bl.exception.LoggerException;
+import com.bl.logger.JobLogger;
+import com.bl.logger.LevelOfMessage;
+import com.bl.logger.event.LogEvent;
+
+/**
+ * Interface of the buffers that take the messages of the asynchronous mode, so the callers only
+ * pay for copying the message and other threads write it into its destinations
+ * @author Teddy
+ *
+ */
+public interface AsyncIntake {
+
+	/**
+	 * Method that copies a message into the buffer, applying the back-pressure policy if it is full
+	 * @param logger The logger whose destinations will write the message
+	 * @param messageText The text of the message we will log
+	 * @param level The type of the message
+	 * @return true if the message has been accepted, false if it has been dropped
+	 * @throws LoggerException If the buffer is stopped or the caller was interrupted while waiting
+	 */
+	default boolean Offer(JobLogger logger, String messageText, LevelOfMessage level) throws LoggerException
+	{
+		return Offer(logger, messageText, null, level);
+	}
+
+	/**
+	 * Method that copies a plain message or a structured event into the buffer, applying the back-pressure
+	 * policy if it is full
+	 * @param logger The logger whose destinations will write the message
+	 * @param messageText The text of the message we will log, or null for a structured event
+	 * @param event The structured event we will log, or null for a plain text
+	 * @param level The type of the message
+	 * @return true if the message has been accepted, false if it has been dropped
+	 * @throws LoggerException If the buffer is stopped or the caller was interrupted while waiting
+	 */
+	boolean Offer(JobLogger logger, String messageText, LogEvent event, LevelOfMessage level) throws LoggerException;
+
+	/**
+	 * Method that stops accepting messages and waits for the pending ones to be written
+	 * @param timeout The maximum time to wait
+	 * @param unit The unit of the timeout
+	 * @return true if every pending message has been written before the timeout
+	 */
+	boolean Stop(long timeout, TimeUnit unit);
+
+	/**
+	 * Getter for the amount of messages discarded by the back-pressure policy
+	 * @return the amount of dropped messages
+	 */
+	long getDroppedEvents();
+
+	/**
+	 * Getter for the amount of messages that could not be written into their destinations
+	 * @return the amount of failed messages
+	 */
+	long getFailedEvents();
+
+	/**
+	 * Getter for the amount of messages written successfully
+	 * @return the amount of processed messages
+	 */
+	long getProcessedEvents();
+
+	/**
+	 * Getter for the last error found writing the messages
+	 * @return the last exception or null if there has not been any
+	 */
+	LoggerException getLastFailure();
+
+	/**
+	 * Getter for the amount of messages waiting in the buffer
+	 * @return the amount of pending messages
+	 */
+	int getPendingEvents();
+
+}
@@ -0,0 +1,30 @@
+package com.bl.logger.async;
+
+/**
+ * Enum that allows to choose what the asynchronous dispatcher does when its buffer is full
+ * @author Teddy
+ *
+ */
+public enum BackPressurePolicy {
+	
+	/**
+	 * The caller waits until the consumers free a slot
+	 */
+	BLOCK,
+	
+	/**
+	 * The message being logged is discarded
+	 */
+	DROP_NEWEST,
+	
+	/**
+	 * The oldest pending message is discarded to make room for the new one
+	 */
+	DROP_OLDEST,
+	
+	/**
+	 * Once the buffer goes over its high-water mark only one out of every N messages is kept
+	 */
+	SAMPLE
+
+}
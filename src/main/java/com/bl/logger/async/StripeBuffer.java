@@ -0,0 +1,124 @@
+package com.bl.logger.async;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.bl.logger.JobLogger;
+import com.bl.logger.LevelOfMessage;
+import com.bl.logger.event.LogEvent;
+
+/**
+ * Preallocated ring buffer with a single producer (the thread that owns it) and a single consumer
+ * (the collector). Neither side takes a lock: the producer publishes with an ordered write of the
+ * tail and the consumer frees the slots with an ordered write of the head
+ * @author Teddy
+ *
+ */
+final class StripeBuffer {
+
+	//Atttributes of the class
+	private final AsyncEvent[] slots;
+	private final int mask;
+	private final Thread owner;
+	private final AtomicLong head = new AtomicLong();
+	private final AtomicLong tail = new AtomicLong();
+	private long cachedHead;
+	private volatile boolean offering;
+
+	/**
+	 * Constructor of the buffer
+	 * @param capacity The amount of messages the buffer can hold, a power of two
+	 * @param owner The only thread that will write into the buffer
+	 */
+	StripeBuffer(int capacity, Thread owner)
+	{
+		this.slots = new AsyncEvent[capacity];
+		for (int i = 0; i < capacity; i++)
+			this.slots[i] = new AsyncEvent();
+		this.mask = capacity - 1;
+		this.owner = owner;
+	}
+
+	/**
+	 * Method used by the owner to copy a message into the buffer
+	 * @param logger The logger whose destinations will write the message
+	 * @param messageText The text of the message
+	 * @param event The structured event, or null for a plain text
+	 * @param level The type of the message
+	 * @param timestamp The moment (in milliseconds) the message was logged
+	 * @return false if the buffer is full
+	 */
+	boolean Offer(JobLogger logger, String messageText, LogEvent event, LevelOfMessage level, long timestamp)
+	{
+		long currentTail = tail.get();
+
+		//The head is only read again when the buffer looks full
+		if (currentTail - cachedHead == slots.length)
+		{
+			cachedHead = head.get();
+			if (currentTail - cachedHead == slots.length)
+				return false;
+		}
+		slots[(int) (currentTail & mask)].Set(logger, messageText, event, level, timestamp);
+		tail.lazySet(currentTail + 1);
+		return true;
+	}
+
+	/**
+	 * Method used by the owner to tell the collector it is inside Offer, before it looks at the state of the dispatcher
+	 * @param inside true when the owner enters Offer, false when it leaves
+	 */
+	void SetOffering(boolean inside)
+	{
+		offering = inside;
+	}
+
+	/**
+	 * Method used by the collector to know if the owner can still publish a message
+	 * @return true if the owner is inside Offer
+	 */
+	boolean IsOffering()
+	{
+		return offering;
+	}
+
+	/**
+	 * Method used by the collector to know how many messages it can take
+	 * @return the amount of published messages
+	 */
+	int Available()
+	{
+		return (int) (tail.get() - head.get());
+	}
+
+	/**
+	 * Method used by the collector to read the moment of the oldest message, only after Available
+	 * @return the time in milliseconds of the next message
+	 */
+	long PeekTimestamp()
+	{
+		return slots[(int) (head.get() & mask)].getTimestamp();
+	}
+
+	/**
+	 * Method used by the collector to move the oldest message out of the buffer, only after Available
+	 * @param target The event where the message is copied
+	 */
+	void Take(AsyncEvent target)
+	{
+		long currentHead = head.get();
+		AsyncEvent slot = slots[(int) (currentHead & mask)];
+		target.CopyFrom(slot);
+		slot.Clear();
+		head.lazySet(currentHead + 1);
+	}
+
+	/**
+	 * Method that tells if the buffer can be forgotten because its owner has finished
+	 * @return true if the owner is dead and the buffer is empty
+	 */
+	boolean IsAbandoned()
+	{
+		return !owner.isAlive() && Available() == 0;
+	}
+
+}
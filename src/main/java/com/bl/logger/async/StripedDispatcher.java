@@ -0,0 +1,377 @@
+package com.bl.logger.async;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.bl.exception.LoggerException;
+import com.bl.logger.JobLogger;
+import com.bl.logger.LevelOfMessage;
+import com.bl.logger.event.LogEvent;
+
+/**
+ * Asynchronous intake without contention between the callers: every thread copies its messages into
+ * its own lock-free buffer, and a single collector thread merges the buffers in timestamp order and
+ * writes the messages into their destinations. Only the BLOCK and DROP_NEWEST policies are supported,
+ * the messages of a full buffer belong to its owner so there is nothing to sample or to drop for it.
+ * When it is stopped, the collector only finishes once no caller is inside Offer and every buffer is empty
+ * @author Teddy
+ *
+ */
+public class StripedDispatcher implements AsyncIntake {
+
+	//Amount of messages per buffer the collector merges each time it looks at the buffers
+	private static final int MERGE_BATCH = 256;
+
+	//Longest sleep of the collector and of a blocked caller when there is nothing to do
+	private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	//Atttributes of the class
+	private final int stripeCapacity;
+	private final BackPressurePolicy policy;
+	private final AsyncEventHandler handler;
+	private volatile StripeBuffer[] stripes = new StripeBuffer[0];
+	private final ThreadLocal<StripeBuffer> ownStripe = new ThreadLocal<StripeBuffer>();
+	private final Thread collector;
+	private final Thread shutdownHook;
+	private final AtomicLong droppedEvents = new AtomicLong();
+	private final AtomicLong failedEvents = new AtomicLong();
+	private final AtomicLong processedEvents = new AtomicLong();
+	private volatile LoggerException lastFailure;
+	private volatile boolean running;
+
+	/**
+	 * Constructor of the dispatcher, it starts the collector
+	 * @param stripeCapacity The amount of messages the buffer of every thread can hold (rounded up to a power of two)
+	 * @param policy What to do when the buffer of a thread is full, BLOCK or DROP_NEWEST
+	 * @param handler The object that writes every message into its destinations
+	 * @throws LoggerException If the configuration is not valid
+	 */
+	public StripedDispatcher(int stripeCapacity, BackPressurePolicy policy, AsyncEventHandler handler) throws LoggerException
+	{
+		//Validating the configuration
+		if (stripeCapacity <= 0)
+			throw new LoggerException("The capacity and the consumers of the asynchronous mode must be positive");
+		if (policy == null || handler == null)
+			throw new LoggerException("The back-pressure policy must be specified");
+		if (policy != BackPressurePolicy.BLOCK && policy != BackPressurePolicy.DROP_NEWEST)
+			throw new LoggerException("The striped asynchronous mode only supports the BLOCK and DROP_NEWEST policies");
+
+		//Rounding the capacity so the buffers can use a mask instead of a modulo
+		int size = 1;
+		while (size < stripeCapacity)
+			size <<= 1;
+		this.stripeCapacity = size;
+		this.policy = policy;
+		this.handler = handler;
+		this.running = true;
+
+		//Starting the collector
+		this.collector = new Thread(this::Collect, "JobLogger-striped-collector");
+		this.collector.setDaemon(true);
+		this.collector.start();
+
+		//Draining whatever is left when the application stops
+		this.shutdownHook = new Thread(() -> Stop(5, TimeUnit.SECONDS), "JobLogger-striped-shutdown");
+		Runtime.getRuntime().addShutdownHook(this.shutdownHook);
+	}
+
+	/**
+	 * Method that copies a message into the buffer of the calling thread
+	 * @param logger The logger whose destinations will write the message
+	 * @param messageText The text of the message we will log, or null for a structured event
+	 * @param event The structured event we will log, or null for a plain text
+	 * @param level The type of the message
+	 * @return true if the message has been accepted, false if it has been dropped
+	 * @throws LoggerException If the dispatcher is stopped or the caller was interrupted while waiting
+	 */
+	@Override
+	public boolean Offer(JobLogger logger, String messageText, LogEvent event, LevelOfMessage level) throws LoggerException
+	{
+		if (!running)
+			throw new LoggerException("The asynchronous mode has been stopped");
+
+		//The first message of a thread creates its buffer
+		StripeBuffer stripe = ownStripe.get();
+		if (stripe == null)
+		{
+			stripe = new StripeBuffer(stripeCapacity, Thread.currentThread());
+			ownStripe.set(stripe);
+			AddStripe(stripe);
+		}
+
+		//The collector doesn't finish while we are here, so the state is read again once it can see us
+		stripe.SetOffering(true);
+		try
+		{
+			if (!running)
+				throw new LoggerException("The asynchronous mode has been stopped");
+			long timestamp = System.currentTimeMillis();
+			long parkNanos = 1000;
+			while (!stripe.Offer(logger, messageText, event, level, timestamp))
+			{
+				if (policy == BackPressurePolicy.DROP_NEWEST)
+				{
+					droppedEvents.incrementAndGet();
+					return false;
+				}
+
+				//Waiting for the collector to free a slot
+				LockSupport.unpark(collector);
+				LockSupport.parkNanos(this, parkNanos);
+				parkNanos = Math.min(parkNanos << 1, MAX_PARK_NANOS);
+				if (Thread.interrupted())
+				{
+					Thread.currentThread().interrupt();
+					throw new LoggerException("Interrupted while waiting for space in the asynchronous buffer");
+				}
+				if (!running)
+					throw new LoggerException("The asynchronous mode has been stopped");
+			}
+			return true;
+		}
+		finally
+		{
+			stripe.SetOffering(false);
+		}
+	}
+
+	/**
+	 * Method that publishes the buffer of a new thread to the collector
+	 * @param stripe The buffer of the thread
+	 */
+	private synchronized void AddStripe(StripeBuffer stripe)
+	{
+		StripeBuffer[] current = stripes;
+		StripeBuffer[] updated = Arrays.copyOf(current, current.length + 1);
+		updated[current.length] = stripe;
+		stripes = updated;
+	}
+
+	/**
+	 * Method that forgets the buffers of the threads that have finished
+	 */
+	private synchronized void RemoveAbandonedStripes()
+	{
+		StripeBuffer[] current = stripes;
+		StripeBuffer[] updated = new StripeBuffer[current.length];
+		int kept = 0;
+		for (StripeBuffer stripe : current)
+			if (!stripe.IsAbandoned())
+				updated[kept++] = stripe;
+		if (kept != current.length)
+			stripes = Arrays.copyOf(updated, kept);
+	}
+
+	/**
+	 * Method executed by the collector, it merges the buffers of every thread until it is stopped
+	 */
+	private void Collect()
+	{
+		AsyncEvent[] batch = new AsyncEvent[MERGE_BATCH];
+		for (int i = 0; i < MERGE_BATCH; i++)
+			batch[i] = new AsyncEvent();
+		LoggerException[] failures = new LoggerException[MERGE_BATCH];
+		int[] available = new int[0];
+		long[] heads = new long[0];
+		long idleNanos = 1000;
+		while (true)
+		{
+			//Reading the state before the buffers, so nothing published before a stop is lost
+			boolean stopping = !running;
+			StripeBuffer[] current = stripes;
+
+			//A caller that is still inside Offer can publish after the snapshot, it is waited for
+			boolean offering = false;
+			if (stopping)
+				for (StripeBuffer stripe : current)
+					offering |= stripe.IsOffering();
+
+			//Taking a snapshot of the messages published in every buffer
+			if (available.length < current.length)
+			{
+				available = new int[current.length];
+				heads = new long[current.length];
+			}
+			int total = 0;
+			for (int i = 0; i < current.length; i++)
+			{
+				available[i] = current[i].Available();
+				if (available[i] > 0)
+					heads[i] = current[i].PeekTimestamp();
+				total += available[i];
+			}
+
+			if (total == 0)
+			{
+				//The buffers of finished threads are not looked at anymore
+				RemoveAbandonedStripes();
+				if (stopping && !offering)
+					return;
+				LockSupport.parkNanos(this, idleNanos);
+				idleNanos = Math.min(idleNanos << 1, MAX_PARK_NANOS);
+				continue;
+			}
+			idleNanos = 1000;
+
+			//Merging the snapshot: the oldest head of all the buffers goes first
+			int taken = 0;
+			for (int merged = 0; merged < total && merged < MERGE_BATCH * current.length; merged++)
+			{
+				int oldest = -1;
+				long oldestTimestamp = Long.MAX_VALUE;
+				for (int i = 0; i < current.length; i++)
+				{
+					if (available[i] > 0 && heads[i] < oldestTimestamp)
+					{
+						oldest = i;
+						oldestTimestamp = heads[i];
+					}
+				}
+				StripeBuffer stripe = current[oldest];
+				stripe.Take(batch[taken++]);
+				if (--available[oldest] > 0)
+					heads[oldest] = stripe.PeekTimestamp();
+				if (taken == MERGE_BATCH)
+				{
+					Write(batch, taken, failures);
+					taken = 0;
+				}
+			}
+			if (taken > 0)
+				Write(batch, taken, failures);
+		}
+	}
+
+	/**
+	 * Method that gives the merged messages to the handler in one call, counting the result of every message
+	 * @param batch The messages, in timestamp order
+	 * @param count The amount of messages
+	 * @param failures Where the handler leaves the error of every message
+	 */
+	private void Write(AsyncEvent[] batch, int count, LoggerException[] failures)
+	{
+		try
+		{
+			handler.HandleBatch(batch, count, failures);
+		}
+		catch (Throwable e)
+		{
+			//A handler that fails as a whole, even with an Error, fails every message of the batch and the collector goes on
+			for (int i = 0; i < count; i++)
+				if (failures[i] == null)
+					failures[i] = new LoggerException("Unexpected error writing an asynchronous message", e);
+		}
+		for (int i = 0; i < count; i++)
+		{
+			if (failures[i] == null)
+				processedEvents.incrementAndGet();
+			else
+			{
+				failedEvents.incrementAndGet();
+				lastFailure = failures[i];
+				failures[i] = null;
+			}
+			batch[i].Clear();
+		}
+	}
+
+	/**
+	 * Method that stops accepting messages and waits for the collector to drain every buffer
+	 * @param timeout The maximum time to wait for the collector
+	 * @param unit The unit of the timeout
+	 * @return true if every pending message has been written before the timeout
+	 */
+	@Override
+	public boolean Stop(long timeout, TimeUnit unit)
+	{
+		running = false;
+		LockSupport.unpark(collector);
+		try
+		{
+			unit.timedJoin(collector, timeout);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+
+		//The hook is not needed anymore if we have been stopped by hand
+		if (Thread.currentThread() != shutdownHook)
+		{
+			try
+			{
+				Runtime.getRuntime().removeShutdownHook(shutdownHook);
+			}
+			catch (IllegalStateException e)
+			{
+				//The JVM is already shutting down, nothing to remove
+			}
+		}
+		return !collector.isAlive();
+	}
+
+	/**
+	 * Getter for the amount of messages discarded by the back-pressure policy
+	 * @return the amount of dropped messages
+	 */
+	@Override
+	public long getDroppedEvents()
+	{
+		return droppedEvents.get();
+	}
+
+	/**
+	 * Getter for the amount of messages that could not be written into their destinations
+	 * @return the amount of failed messages
+	 */
+	@Override
+	public long getFailedEvents()
+	{
+		return failedEvents.get();
+	}
+
+	/**
+	 * Getter for the amount of messages written successfully
+	 * @return the amount of processed messages
+	 */
+	@Override
+	public long getProcessedEvents()
+	{
+		return processedEvents.get();
+	}
+
+	/**
+	 * Getter for the last error the collector has found
+	 * @return the last exception or null if there has not been any
+	 */
+	@Override
+	public LoggerException getLastFailure()
+	{
+		return lastFailure;
+	}
+
+	/**
+	 * Getter for the amount of messages waiting in the buffers of every thread
+	 * @return the amount of pending messages
+	 */
+	@Override
+	public int getPendingEvents()
+	{
+		int pending = 0;
+		for (StripeBuffer stripe : stripes)
+			pending += stripe.Available();
+		return pending;
+	}
+
+	/**
+	 * Getter for the amount of threads that currently have a buffer
+	 * @return the amount of buffers
+	 */
+	public int getStripes()
+	{
+		return stripes.length;
+	}
+
+}
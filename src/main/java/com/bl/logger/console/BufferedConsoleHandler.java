@@ -0,0 +1,289 @@
+package com.bl.logger.console;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.SimpleFormatter;
+
+import com.bl.logger.metrics.Counter;
+import com.bl.logger.metrics.MetricsRegistry;
+
+/**
+ * Handler that writes into the console through a background thread, so a slow reader of the console
+ * never blocks the threads that log. The formatted messages are appended into a bounded buffer that
+ * the flusher writes when an error arrives, when it is half full or when its oldest message has waited
+ * the maximum staleness. If the reader is so slow that the buffer fills up, the new messages are dropped.
+ * A message bigger than the whole buffer is written by the calling thread once the buffer is empty
+ * @author Teddy
+ *
+ */
+public class BufferedConsoleHandler extends Handler {
+
+	//Atttributes of the class
+	private final Writer writer;
+	private final int capacity;
+	private final long maxStalenessNanos;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition pendingChanged = lock.newCondition();
+	private final Condition written = lock.newCondition();
+	private final Thread flusher;
+	private final Counter dropped = MetricsRegistry.GetCounter("console.dropped");
+	private StringBuilder pending;
+	private StringBuilder writing;
+	private long oldestPending;
+	private long appended;
+	private long flushed;
+	private boolean urgent;
+	private boolean closed;
+
+	/**
+	 * Constructor of the handler, it starts the flusher thread
+	 * @param out The stream of the console
+	 * @param capacity The maximum amount of characters waiting to be written
+	 * @param maxStalenessMillis The maximum time (in milliseconds) a message that is not an error waits
+	 */
+	public BufferedConsoleHandler(OutputStream out, int capacity, long maxStalenessMillis)
+	{
+		this.writer = new OutputStreamWriter(out);
+		this.capacity = capacity;
+		this.maxStalenessNanos = TimeUnit.MILLISECONDS.toNanos(maxStalenessMillis);
+		this.pending = new StringBuilder(Math.min(capacity, 8192));
+		this.writing = new StringBuilder(Math.min(capacity, 8192));
+		setFormatter(new SimpleFormatter());
+
+		this.flusher = new Thread(this::Drain, "JobLogger-console-flusher");
+		this.flusher.setDaemon(true);
+		this.flusher.start();
+	}
+
+	/**
+	 * Method that formats the message and appends it into the buffer, it never writes into the console
+	 * @param record the specific log record we are writing
+	 */
+	@Override
+	public void publish(LogRecord record)
+	{
+		if (!isLoggable(record))
+			return;
+		String message;
+		try
+		{
+			message = getFormatter().format(record);
+		}
+		catch (RuntimeException e)
+		{
+			reportError("Cannot format the message", e, ErrorManager.FORMAT_FAILURE);
+			return;
+		}
+
+		//A message bigger than the whole buffer would never fit, it is written by the caller
+		if (message.length() > capacity)
+		{
+			WriteThrough(message);
+			return;
+		}
+
+		lock.lock();
+		try
+		{
+			if (closed)
+				return;
+			if (pending.length() + message.length() > capacity)
+			{
+				//The reader of the console is too slow, the message is lost instead of blocking
+				dropped.Increment();
+				return;
+			}
+			if (pending.length() == 0)
+				oldestPending = System.nanoTime();
+			pending.append(message);
+			appended++;
+
+			//Errors are written right now, the rest when the buffer fills up or gets stale
+			boolean error = record.getLevel().intValue() >= Level.SEVERE.intValue();
+			if (error)
+				urgent = true;
+			if (error || pending.length() == message.length() || pending.length() >= capacity / 2)
+				pendingChanged.signal();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Method executed by the flusher thread, it writes the buffer whenever it is due
+	 */
+	private void Drain()
+	{
+		while (true)
+		{
+			long target;
+			lock.lock();
+			try
+			{
+				//Waiting until there is something due or the handler is closed
+				while (!closed && !IsDue())
+				{
+					if (pending.length() == 0)
+						pendingChanged.await();
+					else
+						pendingChanged.awaitNanos(oldestPending + maxStalenessNanos - System.nanoTime());
+				}
+				if (closed && pending.length() == 0)
+					return;
+
+				//Swapping the buffers so the callers keep appending while we write
+				StringBuilder full = pending;
+				pending = writing;
+				writing = full;
+				target = appended;
+				urgent = false;
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				return;
+			}
+			finally
+			{
+				lock.unlock();
+			}
+
+			Write(writing);
+			writing.setLength(0);
+
+			lock.lock();
+			try
+			{
+				flushed = target;
+				written.signalAll();
+			}
+			finally
+			{
+				lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Method that writes a message bigger than the buffer right away, after the messages that were already waiting
+	 * @param message The formatted message
+	 */
+	private void WriteThrough(String message)
+	{
+		lock.lock();
+		try
+		{
+			if (closed)
+				return;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+		flush();
+		Write(message);
+	}
+
+	/**
+	 * Method that writes some text into the console, one writer at a time
+	 * @param text The text
+	 */
+	private void Write(CharSequence text)
+	{
+		synchronized (writer)
+		{
+			try
+			{
+				writer.append(text);
+				writer.flush();
+			}
+			catch (IOException e)
+			{
+				reportError("Cannot write into the console", e, ErrorManager.WRITE_FAILURE);
+			}
+		}
+	}
+
+	/**
+	 * Method that tells if the buffer must be written now. It must be called holding the lock
+	 * @return true if there is an error, the buffer is half full or its oldest message is stale
+	 */
+	private boolean IsDue()
+	{
+		return pending.length() > 0 && (urgent || pending.length() >= capacity / 2
+				|| System.nanoTime() - oldestPending >= maxStalenessNanos);
+	}
+
+	/**
+	 * Method that waits until every message appended so far has been written into the console
+	 */
+	@Override
+	public void flush()
+	{
+		lock.lock();
+		try
+		{
+			long target = appended;
+			urgent = true;
+			pendingChanged.signal();
+			while (flushed < target && flusher.isAlive())
+				written.await(100, TimeUnit.MILLISECONDS);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Method that writes the pending messages and stops the flusher, the console itself is not closed
+	 */
+	@Override
+	public void close() throws SecurityException
+	{
+		flush();
+		lock.lock();
+		try
+		{
+			closed = true;
+			pendingChanged.signal();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Getter for the amount of characters waiting to be written
+	 * @return the amount of pending characters
+	 */
+	public int getPendingCharacters()
+	{
+		lock.lock();
+		try
+		{
+			return pending.length();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+}
@@ -0,0 +1,129 @@
+package com.bl.logger.console;
+
+import java.util.Map;
+import java.util.logging.Handler;
+import java.util.logging.Logger;
+
+import com.bl.exception.LoggerException;
+import com.bl.logger.LoggerParameters;
+import com.bl.logger.handler.ForwardingHandler;
+
+/**
+ * Class that keeps the single long-lived console appender of the logger. It is attached to its own
+ * child of the "MyLog" logger, so the handlers of "MyLog" (and not the ones of the root logger) still receive the messages. The optional
+ * parameters consoleBufferSize (characters) and consoleMaxStaleness (milliseconds a message that is
+ * not an error can wait) are read only when the appender is created
+ * @author Teddy
+ *
+ */
+public final class ConsoleAppenderRegistry {
+
+	//Default configuration of the appender
+	private static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+	private static final long DEFAULT_MAX_STALENESS = 100;
+
+	//Atttributes of the class
+	private static final Object lock = new Object();
+	private static volatile Logger consoleLogger;
+	private static volatile int generation;
+	private static boolean shutdownHookAdded;
+
+	/**
+	 * Private constructor, this class only has static methods
+	 */
+	private ConsoleAppenderRegistry() {
+	}
+
+	/**
+	 * Method that gives the logger that writes into the console, creating the appender the first time
+	 * @param params The parameters of the logger (it can be null)
+	 * @return the logger attached to the console appender
+	 * @throws LoggerException If the optional console parameters are not valid
+	 */
+	public static Logger GetLogger(Map params) throws LoggerException
+	{
+		//Most of the times the appender already exists
+		Logger current = consoleLogger;
+		if (current != null)
+			return current;
+
+		//Reading the optional configuration of the appender
+		int bufferSize = LoggerParameters.GetInt(params, "consoleBufferSize", DEFAULT_BUFFER_SIZE);
+		long maxStaleness = LoggerParameters.GetLong(params, "consoleMaxStaleness", DEFAULT_MAX_STALENESS);
+		if (bufferSize <= 0 || maxStaleness <= 0)
+			throw new LoggerException("The console appender parameters are not valid");
+
+		synchronized (lock)
+		{
+			if (consoleLogger != null)
+				return consoleLogger;
+
+			//The child logger sends the messages to its appender and then only to the handlers of "MyLog",
+			//the console handler of the root logger would write them again without the buffer
+			current = Logger.getAnonymousLogger();
+			current.setParent(Logger.getLogger("MyLog"));
+			current.setUseParentHandlers(false);
+			current.addHandler(new BufferedConsoleHandler(System.err, bufferSize, maxStaleness));
+			current.addHandler(new ForwardingHandler(Logger.getLogger("MyLog")));
+			AddShutdownHook();
+			consoleLogger = current;
+		}
+		return current;
+	}
+
+	/**
+	 * Method that waits until the console appender has written every pending message
+	 */
+	public static void FlushAll()
+	{
+		Logger current = consoleLogger;
+		if (current != null)
+			for (Handler handler : current.getHandlers())
+				handler.flush();
+	}
+
+	/**
+	 * Method that writes the pending messages and closes the console appender, a new one will be
+	 * created if the logger is used again
+	 */
+	public static void CloseAll()
+	{
+		synchronized (lock)
+		{
+			Logger current = consoleLogger;
+			if (current != null)
+			{
+				for (Handler handler : current.getHandlers())
+				{
+					current.removeHandler(handler);
+					handler.close();
+				}
+			}
+			consoleLogger = null;
+			generation++;
+		}
+	}
+
+	/**
+	 * Getter for the amount of times the appender has been closed, the destinations that keep
+	 * a logger use it to know when they must ask for a new one
+	 * @return the generation of the appender
+	 */
+	public static int getGeneration()
+	{
+		return generation;
+	}
+
+	/**
+	 * Method that registers the hook that writes the pending messages when the application stops.
+	 * It must be called holding the lock
+	 */
+	private static void AddShutdownHook()
+	{
+		if (shutdownHookAdded)
+			return;
+		Runtime.getRuntime().addShutdownHook(new Thread(ConsoleAppenderRegistry::CloseAll, "JobLogger-console-shutdown"));
+		shutdownHookAdded = true;
+	}
+
+}
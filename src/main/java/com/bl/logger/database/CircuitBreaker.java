@@ -0,0 +1,88 @@
+package com.bl.logger.database;
+
+/**
+ * Circuit breaker with exponential backoff: after every failure the next attempt is delayed twice as
+ * long as the previous one (up to a maximum), and after a number of consecutive failures the circuit
+ * opens so the database is left alone until the delay is over
+ * @author Teddy
+ *
+ */
+public class CircuitBreaker {
+
+	//Atttributes of the class
+	private final int failureThreshold;
+	private final long baseDelayMillis;
+	private final long maxDelayMillis;
+	private CircuitState state = CircuitState.CLOSED;
+	private int failures;
+	private long nextAttempt;
+
+	/**
+	 * Constructor of the circuit breaker, it starts closed
+	 * @param failureThreshold The amount of consecutive failures that opens the circuit
+	 * @param baseDelayMillis The delay after the first failure
+	 * @param maxDelayMillis The maximum delay between two attempts
+	 */
+	public CircuitBreaker(int failureThreshold, long baseDelayMillis, long maxDelayMillis)
+	{
+		this.failureThreshold = failureThreshold;
+		this.baseDelayMillis = baseDelayMillis;
+		this.maxDelayMillis = maxDelayMillis;
+	}
+
+	/**
+	 * Method that gives the time left until the next attempt, an open circuit whose delay is over becomes half open
+	 * @param now The current time in milliseconds
+	 * @return the time to wait in milliseconds, 0 if the attempt can be done right now
+	 */
+	public synchronized long DelayMillis(long now)
+	{
+		if (now < nextAttempt)
+			return nextAttempt - now;
+		if (state == CircuitState.OPEN)
+			state = CircuitState.HALF_OPEN;
+		return 0;
+	}
+
+	/**
+	 * Method that records a successful attempt, closing the circuit
+	 */
+	public synchronized void RecordSuccess()
+	{
+		failures = 0;
+		nextAttempt = 0;
+		state = CircuitState.CLOSED;
+	}
+
+	/**
+	 * Method that records a failed attempt, delaying the next one and opening the circuit if needed
+	 * @param now The current time in milliseconds
+	 */
+	public synchronized void RecordFailure(long now)
+	{
+		failures++;
+		long delay = baseDelayMillis << Math.min(failures - 1, 30);
+		nextAttempt = now + Math.min(maxDelayMillis, delay);
+		if (state == CircuitState.HALF_OPEN || failures >= failureThreshold)
+			state = CircuitState.OPEN;
+	}
+
+	/**
+	 * Getter for the state of the circuit
+	 * @return the state
+	 */
+	public synchronized CircuitState getState()
+	{
+		return state;
+	}
+
+	/**
+	 * Getter for the amount of failures since the last successful attempt
+	 * @return the amount of consecutive failures
+	 */
+	public synchronized int getConsecutiveFailures()
+	{
+		return failures;
+	}
+
+}
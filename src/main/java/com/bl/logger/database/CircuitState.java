@@ -0,0 +1,25 @@
+package com.bl.logger.database;
+
+/**
+ * Enum with the states of the circuit breaker that protects a database that is failing
+ * @author Teddy
+ *
+ */
+public enum CircuitState {
+
+	/**
+	 * The database answers, the rows are written as soon as they arrive
+	 */
+	CLOSED,
+
+	/**
+	 * The database has failed too many times in a row, nothing is attempted until the delay is over
+	 */
+	OPEN,
+
+	/**
+	 * The delay is over and a single attempt decides if the circuit closes or opens again
+	 */
+	HALF_OPEN
+
+}
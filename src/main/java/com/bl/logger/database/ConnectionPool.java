@@ -0,0 +1,456 @@
+package com.bl.logger.database;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.bl.logger.metrics.LatencyHistogram;
+import com.bl.logger.metrics.MetricsRegistry;
+
+/**
+ * Pool of JDBC connections for one set of database parameters, so repeated messages reuse
+ * warm connections instead of opening a new one every time
+ * @author Teddy
+ *
+ */
+public class ConnectionPool {
+
+	//Latencies shared by every pool, published in the MetricsRegistry
+	private static final LatencyHistogram connectLatency = MetricsRegistry.GetHistogram("database.connect.latency");
+	private static final LatencyHistogram borrowLatency = MetricsRegistry.GetHistogram("database.borrow.latency");
+
+	//Atttributes of the class
+	private final String url;
+	private final Properties connectionProps;
+	private final int minSize;
+	private final int maxSize;
+	private final long idleTimeoutMillis;
+	private final long borrowTimeoutMillis;
+	private final int validationTimeoutSeconds;
+	private final Deque<PooledConnection> idle = new ArrayDeque<PooledConnection>();
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition available = lock.newCondition();
+	private int totalConnections;
+	private boolean closed;
+
+	//Metrics of the pool
+	private final AtomicLong borrowCount = new AtomicLong();
+	private final AtomicLong createdCount = new AtomicLong();
+	private final AtomicLong destroyedCount = new AtomicLong();
+	private final AtomicLong validationFailures = new AtomicLong();
+	private final AtomicLong borrowTimeouts = new AtomicLong();
+	private final AtomicLong totalBorrowWaitNanos = new AtomicLong();
+	private final AtomicLong maxBorrowWaitNanos = new AtomicLong();
+
+	/**
+	 * Constructor of the pool
+	 * @param url The JDBC url of the database
+	 * @param connectionProps The credentials for the connection
+	 * @param minSize The amount of connections that are kept open even when idle
+	 * @param maxSize The maximum amount of connections the pool will open
+	 * @param idleTimeoutMillis Time after which an idle connection over the minimum is closed
+	 * @param borrowTimeoutMillis Maximum time a caller waits for a free connection
+	 * @param validationTimeoutSeconds Time given to a connection to answer the validation on borrow (0 disables it)
+	 */
+	public ConnectionPool(String url, Properties connectionProps, int minSize, int maxSize,
+			long idleTimeoutMillis, long borrowTimeoutMillis, int validationTimeoutSeconds)
+	{
+		this.url = url;
+		this.connectionProps = connectionProps;
+		this.minSize = minSize;
+		this.maxSize = maxSize;
+		this.idleTimeoutMillis = idleTimeoutMillis;
+		this.borrowTimeoutMillis = borrowTimeoutMillis;
+		this.validationTimeoutSeconds = validationTimeoutSeconds;
+	}
+
+	/**
+	 * Method that gives a connection of the pool, opening a new one if there is no idle connection
+	 * and the maximum has not been reached
+	 * @return a connection that must be released once the work is done
+	 * @throws SQLTimeoutException If no connection has been available during the borrow timeout
+	 * @throws SQLException If the connection cannot be opened
+	 */
+	public PooledConnection Borrow() throws SQLException
+	{
+		long start = System.nanoTime();
+		long remaining = TimeUnit.MILLISECONDS.toNanos(borrowTimeoutMillis);
+		while (true)
+		{
+			PooledConnection candidate = null;
+			boolean create = false;
+			lock.lock();
+			try
+			{
+				//Waiting until there is an idle connection or room for a new one
+				while (!closed && idle.isEmpty() && totalConnections >= maxSize)
+				{
+					if (remaining <= 0)
+					{
+						borrowTimeouts.incrementAndGet();
+						throw new SQLTimeoutException("Timeout waiting for a pooled database connection");
+					}
+					remaining = available.awaitNanos(remaining);
+				}
+				if (closed)
+					throw new SQLException("The connection pool has been closed");
+
+				//The most recently used connection is the warmest one
+				if (!idle.isEmpty())
+					candidate = idle.pollFirst();
+				else
+				{
+					totalConnections++;
+					create = true;
+				}
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				throw new SQLException("Interrupted while waiting for a pooled database connection", e);
+			}
+			finally
+			{
+				lock.unlock();
+			}
+
+			//Opening the new connection outside of the lock
+			if (create)
+			{
+				try
+				{
+					candidate = new PooledConnection(Connect(), this);
+					createdCount.incrementAndGet();
+				}
+				catch (SQLException | RuntimeException e)
+				{
+					Discarded();
+					throw e;
+				}
+			}
+			//Validating the idle connection before giving it
+			else if (!IsValid(candidate))
+			{
+				validationFailures.incrementAndGet();
+				candidate.CloseQuietly();
+				Discarded();
+				continue;
+			}
+
+			RecordBorrow(System.nanoTime() - start);
+			borrowLatency.RecordSince(start);
+			return candidate;
+		}
+	}
+
+	/**
+	 * Method that opens a new physical connection, measuring how long the driver takes
+	 * @return the new connection
+	 * @throws SQLException If the connection cannot be opened
+	 */
+	private Connection Connect() throws SQLException
+	{
+		long start = System.nanoTime();
+		try
+		{
+			return DriverManager.getConnection(url, connectionProps);
+		}
+		finally
+		{
+			connectLatency.RecordSince(start);
+		}
+	}
+
+	/**
+	 * Method that receives a connection back from its user
+	 * @param connection The connection we are getting back
+	 * @param broken true if the connection had an error and must be closed
+	 */
+	void Release(PooledConnection connection, boolean broken)
+	{
+		lock.lock();
+		try
+		{
+			if (!broken && !closed)
+			{
+				connection.setLastUsed(System.currentTimeMillis());
+				idle.offerFirst(connection);
+				available.signal();
+				return;
+			}
+		}
+		finally
+		{
+			lock.unlock();
+		}
+
+		//The connection cannot be reused
+		connection.CloseQuietly();
+		Discarded();
+	}
+
+	/**
+	 * Method that closes the idle connections over the minimum that have not been used for a while
+	 * and opens new ones if we are below the minimum
+	 */
+	public void Evict()
+	{
+		List<PooledConnection> expired = new ArrayList<PooledConnection>();
+		long now = System.currentTimeMillis();
+		lock.lock();
+		try
+		{
+			//The oldest connections are at the end of the deque
+			Iterator<PooledConnection> iterator = idle.descendingIterator();
+			while (iterator.hasNext() && totalConnections - expired.size() > minSize)
+			{
+				PooledConnection connection = iterator.next();
+				if (now - connection.getLastUsed() < idleTimeoutMillis)
+					break;
+				iterator.remove();
+				expired.add(connection);
+			}
+		}
+		finally
+		{
+			lock.unlock();
+		}
+
+		//Closing outside of the lock
+		for (PooledConnection connection : expired)
+		{
+			connection.CloseQuietly();
+			Discarded();
+		}
+
+		try
+		{
+			Prefill();
+		}
+		catch (SQLException e)
+		{
+			//The next borrow will report the error to the caller
+		}
+	}
+
+	/**
+	 * Method that opens connections until the pool reaches its minimum size
+	 * @throws SQLException If a connection cannot be opened
+	 */
+	public void Prefill() throws SQLException
+	{
+		while (true)
+		{
+			lock.lock();
+			try
+			{
+				if (closed || totalConnections >= minSize)
+					return;
+				totalConnections++;
+			}
+			finally
+			{
+				lock.unlock();
+			}
+
+			PooledConnection connection;
+			try
+			{
+				connection = new PooledConnection(Connect(), this);
+				createdCount.incrementAndGet();
+			}
+			catch (SQLException | RuntimeException e)
+			{
+				Discarded();
+				throw e;
+			}
+			Release(connection, false);
+		}
+	}
+
+	/**
+	 * Method that closes every idle connection, the borrowed ones are closed when they are released
+	 */
+	public void Close()
+	{
+		List<PooledConnection> toClose;
+		lock.lock();
+		try
+		{
+			closed = true;
+			toClose = new ArrayList<PooledConnection>(idle);
+			idle.clear();
+			available.signalAll();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+		for (PooledConnection connection : toClose)
+		{
+			connection.CloseQuietly();
+			Discarded();
+		}
+	}
+
+	/**
+	 * Method that checks an idle connection still works
+	 * @param connection The connection to validate
+	 * @return true if the connection can be used
+	 */
+	private boolean IsValid(PooledConnection connection)
+	{
+		if (validationTimeoutSeconds <= 0)
+			return true;
+		try
+		{
+			Connection real = connection.getConnection();
+			return !real.isClosed() && real.isValid(validationTimeoutSeconds);
+		}
+		catch (SQLException e)
+		{
+			return false;
+		}
+	}
+
+	/**
+	 * Method that updates the counters after a connection has been closed
+	 */
+	private void Discarded()
+	{
+		destroyedCount.incrementAndGet();
+		lock.lock();
+		try
+		{
+			totalConnections--;
+			available.signal();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Method that updates the borrow metrics
+	 * @param waitNanos The time the caller has waited for the connection
+	 */
+	private void RecordBorrow(long waitNanos)
+	{
+		borrowCount.incrementAndGet();
+		totalBorrowWaitNanos.addAndGet(waitNanos);
+		long max = maxBorrowWaitNanos.get();
+		while (waitNanos > max && !maxBorrowWaitNanos.compareAndSet(max, waitNanos))
+			max = maxBorrowWaitNanos.get();
+	}
+
+	/**
+	 * Getter for the amount of connections given by the pool
+	 * @return the amount of borrows
+	 */
+	public long getBorrowCount()
+	{
+		return borrowCount.get();
+	}
+
+	/**
+	 * Getter for the amount of connections opened by the pool
+	 * @return the amount of created connections
+	 */
+	public long getCreatedCount()
+	{
+		return createdCount.get();
+	}
+
+	/**
+	 * Getter for the amount of connections closed by the pool
+	 * @return the amount of destroyed connections
+	 */
+	public long getDestroyedCount()
+	{
+		return destroyedCount.get();
+	}
+
+	/**
+	 * Getter for the amount of idle connections that failed the validation on borrow
+	 * @return the amount of validation failures
+	 */
+	public long getValidationFailures()
+	{
+		return validationFailures.get();
+	}
+
+	/**
+	 * Getter for the amount of callers that did not get a connection in time
+	 * @return the amount of borrow timeouts
+	 */
+	public long getBorrowTimeouts()
+	{
+		return borrowTimeouts.get();
+	}
+
+	/**
+	 * Getter for the average time callers have waited for a connection
+	 * @return the average wait in nanoseconds
+	 */
+	public long getAverageBorrowWaitNanos()
+	{
+		long borrows = borrowCount.get();
+		return borrows == 0 ? 0 : totalBorrowWaitNanos.get() / borrows;
+	}
+
+	/**
+	 * Getter for the longest time a caller has waited for a connection
+	 * @return the maximum wait in nanoseconds
+	 */
+	public long getMaxBorrowWaitNanos()
+	{
+		return maxBorrowWaitNanos.get();
+	}
+
+	/**
+	 * Getter for the amount of idle connections
+	 * @return the amount of idle connections
+	 */
+	public int getIdleConnections()
+	{
+		lock.lock();
+		try
+		{
+			return idle.size();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Getter for the amount of open connections (idle or borrowed)
+	 * @return the amount of open connections
+	 */
+	public int getTotalConnections()
+	{
+		lock.lock();
+		try
+		{
+			return totalConnections;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+}
@@ -0,0 +1,380 @@
+package com.bl.logger.database;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.bl.exception.LoggerException;
+import com.bl.logger.LoggerParameters;
+import com.bl.logger.metrics.MetricsRegistry;
+
+/**
+ * Class that keeps one connection pool and one batch writer for every userName/password/dbms/serverName
+ * combination used by the logger. The pool sizes and timeouts can be tuned with the optional parameters
+ * poolMinSize, poolMaxSize, poolIdleTimeout, poolBorrowTimeout (milliseconds) and
+ * poolValidationTimeout (seconds, 0 disables the validation on borrow), the batches with batchSize and
+ * batchMaxDelay (milliseconds). When the databaseSpool parameter gives a folder, the rows go first into a spool
+ * file of that folder, tuned with spoolBatchSize, spoolRetryDelay, spoolMaxRetryDelay (milliseconds),
+ * spoolFailureThreshold and spoolSync. The databaseColumns parameter lists (separated by commas) the fields of
+ * the structured events written into extra columns of the LOG table with the same names. With databaseBootstrap
+ * the LOG table gets the LOGGED_AT column and the indexes of LogSchema when the writer is created, and every row
+ * is written with its moment (a LOGGED_AT named in databaseColumns is filled the same way).
+ * They are read only when the pool, the writer or the spool is created
+ * @author Teddy
+ *
+ */
+public final class ConnectionPoolRegistry {
+
+	//Default configuration of the pools
+	private static final int DEFAULT_MIN_SIZE = 0;
+	private static final int DEFAULT_MAX_SIZE = 8;
+	private static final long DEFAULT_IDLE_TIMEOUT = 60000;
+	private static final long DEFAULT_BORROW_TIMEOUT = 5000;
+	private static final int DEFAULT_VALIDATION_TIMEOUT = 1;
+	private static final long EVICTION_INTERVAL = 1000;
+	private static final int DEFAULT_BATCH_SIZE = 1;
+	private static final long DEFAULT_BATCH_MAX_DELAY = 1000;
+	private static final int DEFAULT_SPOOL_BATCH_SIZE = 100;
+	private static final long DEFAULT_SPOOL_RETRY_DELAY = 100;
+	private static final long DEFAULT_SPOOL_MAX_RETRY_DELAY = 30000;
+	private static final int DEFAULT_SPOOL_FAILURE_THRESHOLD = 5;
+	private static final long SPOOL_CLOSE_TIMEOUT = 5000;
+
+	//Atttributes of the class
+	private static final Map<String, ConnectionPool> pools = new ConcurrentHashMap<String, ConnectionPool>();
+	private static final Map<String, DatabaseBatchWriter> writers = new ConcurrentHashMap<String, DatabaseBatchWriter>();
+	private static final Map<String, DatabaseSpool> spools = new ConcurrentHashMap<String, DatabaseSpool>();
+	private static final Map<String, ScheduledFuture<?>> flushes = new ConcurrentHashMap<String, ScheduledFuture<?>>();
+	private static volatile int generation;
+	private static ScheduledExecutorService scheduler;
+	private static boolean evictionScheduled;
+
+	static {
+		//Metrics of every pool and writer together
+		MetricsRegistry.RegisterGauge("database.connections", () -> {
+			long total = 0;
+			for (ConnectionPool pool : pools.values())
+				total += pool.getTotalConnections();
+			return total;
+		});
+		MetricsRegistry.RegisterGauge("database.pendingRows", () -> {
+			long total = 0;
+			for (DatabaseBatchWriter writer : writers.values())
+				total += writer.getPendingRows();
+			return total;
+		});
+		MetricsRegistry.RegisterGauge("database.spool.pending", () -> {
+			long total = 0;
+			for (DatabaseSpool spool : spools.values())
+				total += spool.getPendingRecords();
+			return total;
+		});
+		MetricsRegistry.RegisterGauge("database.spool.openCircuits", () -> {
+			long total = 0;
+			for (DatabaseSpool spool : spools.values())
+				if (spool.getBreaker().getState() != CircuitState.CLOSED)
+					total++;
+			return total;
+		});
+	}
+
+	/**
+	 * Private constructor, this class only has static methods
+	 */
+	private ConnectionPoolRegistry() {
+	}
+
+	/**
+	 * Method that gives the pool for the database parameters, creating it the first time
+	 * @param dbParams The already validated database parameters
+	 * @return the connection pool
+	 * @throws LoggerException If the optional pool parameters are not valid
+	 */
+	public static ConnectionPool GetPool(Map dbParams) throws LoggerException
+	{
+		//Most of the times the pool already exists
+		String key = Key(dbParams);
+		ConnectionPool pool = pools.get(key);
+		if (pool != null)
+			return pool;
+
+		//Reading the optional configuration of the pool
+		int minSize = LoggerParameters.GetInt(dbParams, "poolMinSize", DEFAULT_MIN_SIZE);
+		int maxSize = LoggerParameters.GetInt(dbParams, "poolMaxSize", DEFAULT_MAX_SIZE);
+		long idleTimeout = LoggerParameters.GetLong(dbParams, "poolIdleTimeout", DEFAULT_IDLE_TIMEOUT);
+		long borrowTimeout = LoggerParameters.GetLong(dbParams, "poolBorrowTimeout", DEFAULT_BORROW_TIMEOUT);
+		int validationTimeout = LoggerParameters.GetInt(dbParams, "poolValidationTimeout", DEFAULT_VALIDATION_TIMEOUT);
+		if (minSize < 0 || maxSize <= 0 || minSize > maxSize || idleTimeout < 0 || borrowTimeout < 0 || validationTimeout < 0)
+			throw new LoggerException("The connection pool parameters are not valid");
+
+		//Placing the credentials for the connection
+		Properties connectionProps = new Properties();
+		connectionProps.put("user", dbParams.get("userName"));
+		connectionProps.put("password", dbParams.get("password"));
+		String url = "jdbc:" + dbParams.get("dbms") + ":" + dbParams.get("serverName")
+				+ "/test;DB_CLOSE_DELAY=-1;DATABASE_TO_UPPER=false";
+
+		synchronized (pools)
+		{
+			pool = pools.get(key);
+			if (pool == null)
+			{
+				pool = new ConnectionPool(url, connectionProps, minSize, maxSize, idleTimeout, borrowTimeout, validationTimeout);
+				pools.put(key, pool);
+				if (!evictionScheduled)
+				{
+					GetScheduler().scheduleWithFixedDelay(ConnectionPoolRegistry::EvictAll,
+							EVICTION_INTERVAL, EVICTION_INTERVAL, TimeUnit.MILLISECONDS);
+					evictionScheduled = true;
+				}
+			}
+		}
+		return pool;
+	}
+
+	/**
+	 * Method that gives the batch writer of the LOG table for the database parameters, creating it the first time
+	 * @param dbParams The already validated database parameters
+	 * @return the batch writer
+	 * @throws LoggerException If the optional pool or batch parameters are not valid
+	 */
+	public static DatabaseBatchWriter GetBatchWriter(Map dbParams) throws LoggerException
+	{
+		//Most of the times the writer already exists
+		String[] columns = GetColumns(dbParams);
+		String key = Key(dbParams) + "\u0000" + String.join(",", columns);
+		DatabaseBatchWriter writer = writers.get(key);
+		if (writer != null)
+			return writer;
+
+		//Reading the optional configuration of the batches
+		int batchSize = LoggerParameters.GetInt(dbParams, "batchSize", DEFAULT_BATCH_SIZE);
+		long maxDelay = LoggerParameters.GetLong(dbParams, "batchMaxDelay", DEFAULT_BATCH_MAX_DELAY);
+		if (batchSize <= 0 || maxDelay <= 0)
+			throw new LoggerException("The database batch parameters are not valid");
+		boolean bootstrap = LoggerParameters.GetBoolean(dbParams, "databaseBootstrap", false);
+		ConnectionPool pool = GetPool(dbParams);
+
+		synchronized (pools)
+		{
+			writer = writers.get(key);
+			if (writer == null)
+			{
+				//The table is prepared before its first row
+				final DatabaseBatchWriter created = new DatabaseBatchWriter(pool, batchSize, maxDelay, columns);
+				if (bootstrap)
+				{
+					try
+					{
+						created.Bootstrap();
+					}
+					catch (SQLException e)
+					{
+						throw new LoggerException("Cannot bootstrap the LOG table", e);
+					}
+				}
+				writers.put(key, created);
+
+				//Rows of an incomplete batch are written once they have waited the maximum delay
+				if (batchSize > 1)
+					flushes.put(key, GetScheduler().scheduleWithFixedDelay(() -> created.FlushQuietly(false),
+							maxDelay, Math.max(1, maxDelay / 2), TimeUnit.MILLISECONDS));
+				writer = created;
+			}
+		}
+		return writer;
+	}
+
+	/**
+	 * Method that gives the spool of the database parameters, creating it the first time
+	 * @param dbParams The already validated database parameters
+	 * @return the spool, or null if the databaseSpool parameter has not been specified
+	 * @throws LoggerException If the spool parameters are not valid or the spool cannot be opened
+	 */
+	public static DatabaseSpool GetSpool(Map dbParams) throws LoggerException
+	{
+		String folder = LoggerParameters.GetString(dbParams, "databaseSpool", null);
+		if (folder == null)
+			return null;
+
+		//Most of the times the spool already exists
+		String[] columns = GetColumns(dbParams);
+		String database = Key(dbParams) + "\u0000" + String.join(",", columns);
+		String key = database + "\u0000" + folder;
+		DatabaseSpool spool = spools.get(key);
+		if (spool != null)
+			return spool;
+
+		//Reading the optional configuration of the spool
+		int batchSize = LoggerParameters.GetInt(dbParams, "spoolBatchSize", DEFAULT_SPOOL_BATCH_SIZE);
+		long retryDelay = LoggerParameters.GetLong(dbParams, "spoolRetryDelay", DEFAULT_SPOOL_RETRY_DELAY);
+		long maxRetryDelay = LoggerParameters.GetLong(dbParams, "spoolMaxRetryDelay", DEFAULT_SPOOL_MAX_RETRY_DELAY);
+		int failureThreshold = LoggerParameters.GetInt(dbParams, "spoolFailureThreshold", DEFAULT_SPOOL_FAILURE_THRESHOLD);
+		boolean sync = LoggerParameters.GetBoolean(dbParams, "spoolSync", false);
+		boolean bootstrap = LoggerParameters.GetBoolean(dbParams, "databaseBootstrap", false);
+		if (batchSize <= 0 || retryDelay <= 0 || maxRetryDelay < retryDelay || failureThreshold <= 0)
+			throw new LoggerException("The database spool parameters are not valid");
+		ConnectionPool pool = GetPool(dbParams);
+
+		synchronized (pools)
+		{
+			spool = spools.get(key);
+			if (spool == null)
+			{
+				//Every database has its own file in the folder
+				String name = "databaseSpool-" + String.format("%08x", database.hashCode()) + ".dat";
+				try
+				{
+					spool = new DatabaseSpool(new File(folder), name, new DatabaseBatchWriter(pool, batchSize, Long.MAX_VALUE, columns),
+							batchSize, new CircuitBreaker(failureThreshold, retryDelay, maxRetryDelay), sync, bootstrap);
+				}
+				catch (IOException e)
+				{
+					throw new LoggerException("Cannot open the database spool", e);
+				}
+				spools.put(key, spool);
+			}
+		}
+		return spool;
+	}
+
+	/**
+	 * Method that gives the extra columns of the LOG table filled with the fields of the structured events
+	 * @param dbParams The database parameters
+	 * @return the names of the columns, empty if the databaseColumns parameter has not been specified
+	 * @throws LoggerException If the parameter is not a list of column names
+	 */
+	public static String[] GetColumns(Map dbParams) throws LoggerException
+	{
+		String list = LoggerParameters.GetString(dbParams, "databaseColumns", "");
+		String[] columns = list.trim().isEmpty() ? new String[0] : list.split(",");
+		boolean timestamps = LoggerParameters.GetBoolean(dbParams, "databaseBootstrap", false);
+
+		//Only plain names are accepted, they become part of the insert
+		for (int i = 0; i < columns.length; i++)
+		{
+			columns[i] = columns[i].trim();
+			if (!columns[i].matches("[A-Za-z_][A-Za-z0-9_]*"))
+				throw new LoggerException("The parameter databaseColumns must be a list of column names");
+			if (columns[i].equalsIgnoreCase(LogSchema.TIMESTAMP_COLUMN))
+				timestamps = false;
+		}
+
+		//A bootstrapped table gets the moment of every row
+		if (!timestamps)
+			return columns;
+		String[] withTimestamp = new String[columns.length + 1];
+		withTimestamp[0] = LogSchema.TIMESTAMP_COLUMN;
+		System.arraycopy(columns, 0, withTimestamp, 1, columns.length);
+		return withTimestamp;
+	}
+
+	/**
+	 * Method that writes the pending rows of every batch writer
+	 * @throws SQLException The first error found writing the rows
+	 */
+	public static void FlushAll() throws SQLException
+	{
+		SQLException error = null;
+		for (DatabaseBatchWriter writer : writers.values())
+		{
+			try
+			{
+				writer.Flush(true);
+			}
+			catch (SQLException e)
+			{
+				if (error == null)
+					error = e;
+			}
+		}
+		if (error != null)
+			throw error;
+	}
+
+	/**
+	 * Method that writes the pending rows and closes every pool, new pools will be created if the logger is used again
+	 */
+	public static void CloseAll()
+	{
+		synchronized (pools)
+		{
+			//The spools write what they can before the pools are closed, the rest stays in their files
+			for (DatabaseSpool spool : spools.values())
+				spool.Close(SPOOL_CLOSE_TIMEOUT, TimeUnit.MILLISECONDS);
+			spools.clear();
+
+			//The delayed batches of the closed writers are not looked at anymore
+			for (ScheduledFuture<?> flush : flushes.values())
+				flush.cancel(false);
+			flushes.clear();
+			for (DatabaseBatchWriter writer : writers.values())
+				writer.Close();
+			writers.clear();
+			for (ConnectionPool pool : pools.values())
+				pool.Close();
+			pools.clear();
+			generation++;
+		}
+	}
+
+	/**
+	 * Getter for the amount of times the pools have been closed, the destinations that keep
+	 * a batch writer use it to know when they must ask for a new one
+	 * @return the generation of the pools
+	 */
+	public static int getGeneration()
+	{
+		return generation;
+	}
+
+	/**
+	 * Method that builds the key of the pool from the database parameters
+	 * @param dbParams The already validated database parameters
+	 * @return the key of the pool
+	 */
+	private static String Key(Map dbParams)
+	{
+		return dbParams.get("userName") + "\u0000" + dbParams.get("password") + "\u0000"
+				+ dbParams.get("dbms") + "\u0000" + dbParams.get("serverName");
+	}
+
+	/**
+	 * Method that closes the idle connections of every pool
+	 */
+	private static void EvictAll()
+	{
+		for (ConnectionPool pool : pools.values())
+			pool.Evict();
+	}
+
+	/**
+	 * Method that gives the background thread used for the idle connections and the delayed batches,
+	 * the pending rows are written when the application stops. It must be called holding the pools lock
+	 * @return the scheduler
+	 */
+	private static ScheduledExecutorService GetScheduler()
+	{
+		if (scheduler == null)
+		{
+			scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "JobLogger-database");
+				thread.setDaemon(true);
+				return thread;
+			});
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				for (DatabaseBatchWriter writer : writers.values())
+					writer.FlushQuietly(true);
+			}, "JobLogger-database-shutdown"));
+		}
+		return scheduler;
+	}
+
+}
@@ -0,0 +1,503 @@
+package com.bl.logger.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.bl.logger.metrics.Counter;
+import com.bl.logger.metrics.MetricsRegistry;
+
+/**
+ * Class that groups the rows for the LOG table into JDBC batches executed through a cached
+ * prepared statement, with a single commit per batch. A batch is written when it reaches its size
+ * or when its oldest row has waited the maximum delay. The insert names its columns, so the table can
+ * have more of them: extra columns can be filled with the fields of structured events and the moment.
+ * When the rows have their moment (LOGGED_AT) the batches are written at the same time, each one with its own
+ * connection of the pool, otherwise they are written one at a time in the order they were completed, so the
+ * rows keep their order. A closed writer doesn't keep rows, every row is written as soon as it arrives
+ * @author Teddy
+ *
+ */
+public class DatabaseBatchWriter {
+
+	//Sql used for every row
+	private static final String INSERT_SQL = "INSERT INTO LOG(MESSAGE, LEVEL) VALUES(?, ?)";
+
+	//Metrics of every writer together
+	private static final Counter droppedRows = MetricsRegistry.GetCounter("database.dropped");
+
+	//Atttributes of the class
+	private final ConnectionPool pool;
+	private final String insertSql;
+	private final int extraColumns;
+	private final int batchSize;
+	private final long maxDelayMillis;
+	private final boolean needsSerialWrites;
+	private final Object writeLock = new Object();
+	private long nextTurn;
+	private final AtomicLong writtenRows = new AtomicLong();
+	private final AtomicLong writtenBatches = new AtomicLong();
+	private final AtomicLong failedRows = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+	private volatile SQLException lastFailure;
+	private String[] messages;
+	private int[] levels;
+	private Object[][] extras;
+	private int count;
+	private long oldestRow;
+	private long nextTicket;
+	private boolean closed;
+
+	/**
+	 * Constructor of the batch writer
+	 * @param pool The pool the connections are borrowed from
+	 * @param batchSize The amount of rows of every batch (1 writes every row immediately)
+	 * @param maxDelayMillis Maximum time a row waits for its batch to be completed
+	 */
+	public DatabaseBatchWriter(ConnectionPool pool, int batchSize, long maxDelayMillis)
+	{
+		this(pool, batchSize, maxDelayMillis, new String[0]);
+	}
+
+	/**
+	 * Constructor of the batch writer of a table with extra columns
+	 * @param pool The pool the connections are borrowed from
+	 * @param batchSize The amount of rows of every batch (1 writes every row immediately)
+	 * @param maxDelayMillis Maximum time a row waits for its batch to be completed
+	 * @param columns The names of the extra columns, already validated
+	 */
+	public DatabaseBatchWriter(ConnectionPool pool, int batchSize, long maxDelayMillis, String[] columns)
+	{
+		this.pool = pool;
+		this.batchSize = batchSize;
+		this.maxDelayMillis = maxDelayMillis;
+		this.extraColumns = columns.length;
+		this.messages = new String[batchSize];
+		this.levels = new int[batchSize];
+		this.extras = new Object[batchSize][];
+		boolean timestamps = false;
+		for (String column : columns)
+			timestamps |= column.equalsIgnoreCase(LogSchema.TIMESTAMP_COLUMN);
+		this.needsSerialWrites = !timestamps;
+		if (columns.length == 0)
+			this.insertSql = INSERT_SQL;
+		else
+		{
+			StringBuilder sql = new StringBuilder("INSERT INTO LOG(MESSAGE, LEVEL");
+			for (String column : columns)
+				sql.append(", ").append(column);
+			sql.append(") VALUES(?, ?");
+			for (int i = 0; i < columns.length; i++)
+				sql.append(", ?");
+			this.insertSql = sql.append(')').toString();
+		}
+	}
+
+	/**
+	 * Method that adds a row to the current batch, the batch is written by the caller that completes it
+	 * @param messageText The message of the row
+	 * @param typeOfMessage The code of the type of the message
+	 * @throws SQLException If the batch completed by this row cannot be written
+	 */
+	public void Add(String messageText, int typeOfMessage) throws SQLException
+	{
+		Add(messageText, typeOfMessage, null);
+	}
+
+	/**
+	 * Method that adds a row with the values of its extra columns to the current batch
+	 * @param messageText The message of the row
+	 * @param typeOfMessage The code of the type of the message
+	 * @param values The values of the extra columns, or null to leave them empty
+	 * @throws SQLException If the batch completed by this row cannot be written
+	 */
+	public void Add(String messageText, int typeOfMessage, Object[] values) throws SQLException
+	{
+		String[] batchMessages;
+		int[] batchLevels;
+		Object[][] batchExtras;
+		int batchCount;
+		long ticket;
+		synchronized (this)
+		{
+			if (count == 0)
+				oldestRow = System.currentTimeMillis();
+			messages[count] = messageText;
+			levels[count] = typeOfMessage;
+			extras[count] = values;
+			count++;
+			if (count < batchSize && !closed)
+				return;
+
+			//Taking the full batch and starting a new one
+			batchMessages = messages;
+			batchLevels = levels;
+			batchExtras = extras;
+			batchCount = count;
+			ticket = nextTicket++;
+			messages = new String[batchSize];
+			levels = new int[batchSize];
+			extras = new Object[batchSize][];
+			count = 0;
+		}
+		Write(ticket, batchMessages, batchLevels, batchExtras, batchCount);
+	}
+
+	/**
+	 * Method that adds many rows to the current batch, taking the lock once for every batch they fill.
+	 * The batches completed by these rows are written by the caller
+	 * @param rowMessages The messages of the rows
+	 * @param rowLevels The codes of the types of the rows
+	 * @param rowExtras The values of the extra columns of the rows (a row can be null)
+	 * @param rowCount The amount of rows
+	 * @throws SQLException If a batch completed by these rows cannot be written
+	 */
+	public void Add(String[] rowMessages, int[] rowLevels, Object[][] rowExtras, int rowCount) throws SQLException
+	{
+		int next = 0;
+		while (next < rowCount)
+		{
+			String[] batchMessages;
+			int[] batchLevels;
+			Object[][] batchExtras;
+			int batchCount;
+			long ticket;
+			synchronized (this)
+			{
+				if (count == 0)
+					oldestRow = System.currentTimeMillis();
+				int copied = Math.min(rowCount - next, batchSize - count);
+				System.arraycopy(rowMessages, next, messages, count, copied);
+				System.arraycopy(rowLevels, next, levels, count, copied);
+				System.arraycopy(rowExtras, next, extras, count, copied);
+				count += copied;
+				next += copied;
+				if (count < batchSize && !closed)
+					return;
+
+				//Taking the full batch and starting a new one
+				batchMessages = messages;
+				batchLevels = levels;
+				batchExtras = extras;
+				batchCount = count;
+				ticket = nextTicket++;
+				messages = new String[batchSize];
+				levels = new int[batchSize];
+				extras = new Object[batchSize][];
+				count = 0;
+			}
+			Write(ticket, batchMessages, batchLevels, batchExtras, batchCount);
+		}
+	}
+
+	/**
+	 * Method that writes the pending rows if the oldest one has waited the maximum delay
+	 * @param force true to write the pending rows no matter how long they have waited
+	 * @throws SQLException If the rows cannot be written
+	 */
+	public void Flush(boolean force) throws SQLException
+	{
+		Flush(force, false);
+	}
+
+	/**
+	 * Method used by the background flush, it writes the pending rows like Flush but nobody is there to get
+	 * the error, so the rows that cannot be written are counted as dropped
+	 * @param force true to write the pending rows no matter how long they have waited
+	 */
+	public void FlushQuietly(boolean force)
+	{
+		try
+		{
+			Flush(force, true);
+		}
+		catch (SQLException e)
+		{
+			//The rows have already been counted as dropped
+		}
+	}
+
+	/**
+	 * Method that takes the pending rows and writes them
+	 * @param force true to write the pending rows no matter how long they have waited
+	 * @param quietly true to count the rows as dropped instead of throwing the error
+	 * @throws SQLException If the rows cannot be written and they are not written quietly
+	 */
+	private void Flush(boolean force, boolean quietly) throws SQLException
+	{
+		String[] batchMessages;
+		int[] batchLevels;
+		Object[][] batchExtras;
+		int batchCount;
+		long ticket;
+		synchronized (this)
+		{
+			if (count == 0 || (!force && System.currentTimeMillis() - oldestRow < maxDelayMillis))
+				return;
+			batchMessages = messages;
+			batchLevels = levels;
+			batchExtras = extras;
+			batchCount = count;
+			ticket = nextTicket++;
+			messages = new String[batchSize];
+			levels = new int[batchSize];
+			extras = new Object[batchSize][];
+			count = 0;
+		}
+		try
+		{
+			Write(ticket, batchMessages, batchLevels, batchExtras, batchCount);
+		}
+		catch (SQLException e)
+		{
+			if (!quietly)
+				throw e;
+			//The writer keeps the last failure
+			dropped.addAndGet(batchCount);
+			droppedRows.Add(batchCount);
+		}
+	}
+
+	/**
+	 * Method that writes the pending rows and makes the next rows be written as soon as they arrive. It is
+	 * used when the registry forgets the writer, a destination that still has it doesn't leave rows behind
+	 */
+	void Close()
+	{
+		synchronized (this)
+		{
+			closed = true;
+		}
+		FlushQuietly(true);
+	}
+
+	/**
+	 * Method that executes one batch with a single commit, the spool uses it to replay its rows
+	 * @param batchMessages The messages of the rows
+	 * @param batchLevels The codes of the types of the rows
+	 * @param batchExtras The values of the extra columns of the rows (a row can be null)
+	 * @param batchCount The amount of rows
+	 * @throws SQLException If the batch cannot be written
+	 */
+	void Write(String[] batchMessages, int[] batchLevels, Object[][] batchExtras, int batchCount) throws SQLException
+	{
+		long ticket;
+		synchronized (this)
+		{
+			ticket = nextTicket++;
+		}
+		Write(ticket, batchMessages, batchLevels, batchExtras, batchCount);
+	}
+
+	/**
+	 * Method that executes one batch. Without the moment of the rows the batches are written one at a time,
+	 * in the order of the tickets they got when they were taken, so the rows keep their order
+	 * @param ticket The position of the batch, given while holding the lock of the writer
+	 * @param batchMessages The messages of the rows
+	 * @param batchLevels The codes of the types of the rows
+	 * @param batchExtras The values of the extra columns of the rows (a row can be null)
+	 * @param batchCount The amount of rows
+	 * @throws SQLException If the batch cannot be written
+	 */
+	private void Write(long ticket, String[] batchMessages, int[] batchLevels, Object[][] batchExtras, int batchCount) 
+			throws SQLException
+	{
+		if (!needsSerialWrites)
+		{
+			Execute(batchMessages, batchLevels, batchExtras, batchCount);
+			return;
+		}
+		synchronized (writeLock)
+		{
+			//Waiting for the batches taken before this one, an interruption doesn't skip the turn
+			boolean interrupted = false;
+			while (nextTurn != ticket)
+			{
+				try
+				{
+					writeLock.wait();
+				}
+				catch (InterruptedException e)
+				{
+					interrupted = true;
+				}
+			}
+			try
+			{
+				Execute(batchMessages, batchLevels, batchExtras, batchCount);
+			}
+			finally
+			{
+				nextTurn++;
+				writeLock.notifyAll();
+				if (interrupted)
+					Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Method that executes one batch with a connection of the pool
+	 * @param batchMessages The messages of the rows
+	 * @param batchLevels The codes of the types of the rows
+	 * @param batchExtras The values of the extra columns of the rows (a row can be null)
+	 * @param batchCount The amount of rows
+	 * @throws SQLException If the batch cannot be written
+	 */
+	private void Execute(String[] batchMessages, int[] batchLevels, Object[][] batchExtras, int batchCount) throws SQLException
+	{
+		PooledConnection pooled = null;
+		try
+		{
+			pooled = pool.Borrow();
+			Connection connection = pooled.getConnection();
+			if (connection.getAutoCommit())
+				connection.setAutoCommit(false);
+
+			//Sending every row in a single round trip
+			PreparedStatement statement = pooled.Prepare(insertSql);
+			if (batchCount == 1)
+			{
+				SetRow(statement, batchMessages[0], batchLevels[0], batchExtras[0]);
+				statement.executeUpdate();
+			}
+			else
+			{
+				for (int i = 0; i < batchCount; i++)
+				{
+					SetRow(statement, batchMessages[i], batchLevels[i], batchExtras[i]);
+					statement.addBatch();
+				}
+				statement.executeBatch();
+			}
+			connection.commit();
+
+			pooled.Release();
+			pooled = null;
+			writtenRows.addAndGet(batchCount);
+			writtenBatches.incrementAndGet();
+		}
+		catch (SQLException e)
+		{
+			failedRows.addAndGet(batchCount);
+			lastFailure = e;
+			throw e;
+		}
+		finally
+		{
+			//A connection that had an error is not given back to the pool
+			if (pooled != null)
+				pooled.Invalidate();
+		}
+	}
+
+	/**
+	 * Method that prepares the LOG table (LogSchema) with a connection of the pool
+	 * @throws SQLException If the table cannot be prepared
+	 */
+	void Bootstrap() throws SQLException
+	{
+		PooledConnection pooled = pool.Borrow();
+		try
+		{
+			LogSchema.Bootstrap(pooled.getConnection());
+			pooled.Release();
+			pooled = null;
+		}
+		finally
+		{
+			if (pooled != null)
+				pooled.Invalidate();
+		}
+	}
+
+	/**
+	 * Method that places the values of a row in the statement
+	 * @param statement The insert statement
+	 * @param messageText The message of the row
+	 * @param typeOfMessage The code of the type of the message
+	 * @param values The values of the extra columns, or null
+	 * @throws SQLException If a value cannot be placed
+	 */
+	private void SetRow(PreparedStatement statement, String messageText, int typeOfMessage, Object[] values) throws SQLException
+	{
+		statement.setString(1, messageText);
+		statement.setInt(2, typeOfMessage);
+		for (int i = 0; i < extraColumns; i++)
+			statement.setObject(3 + i, values == null || i >= values.length ? null : values[i]);
+	}
+
+	/**
+	 * Getter for the amount of extra columns of the rows
+	 * @return the amount of extra columns
+	 */
+	public int getExtraColumns()
+	{
+		return extraColumns;
+	}
+
+	/**
+	 * Getter for the amount of rows waiting for their batch
+	 * @return the amount of pending rows
+	 */
+	public synchronized int getPendingRows()
+	{
+		return count;
+	}
+
+	/**
+	 * Getter for the amount of rows written into the table
+	 * @return the amount of written rows
+	 */
+	public long getWrittenRows()
+	{
+		return writtenRows.get();
+	}
+
+	/**
+	 * Getter for the amount of batches written into the table
+	 * @return the amount of written batches
+	 */
+	public long getWrittenBatches()
+	{
+		return writtenBatches.get();
+	}
+
+	/**
+	 * Getter for the amount of rows that could not be written
+	 * @return the amount of failed rows
+	 */
+	public long getFailedRows()
+	{
+		return failedRows.get();
+	}
+
+	/**
+	 * Getter for the amount of rows of the background flushes that could not be written and have been lost
+	 * @return the amount of dropped rows
+	 */
+	public long getDroppedRows()
+	{
+		return dropped.get();
+	}
+
+	/**
+	 * Getter for the last error writing a batch
+	 * @return the last exception or null if there has not been any
+	 */
+	public SQLException getLastFailure()
+	{
+		return lastFailure;
+	}
+
+	/**
+	 * Getter for the maximum time a row waits for its batch
+	 * @return the delay in milliseconds
+	 */
+	public long getMaxDelayMillis()
+	{
+		return maxDelayMillis;
+	}
+
+}
@@ -0,0 +1,710 @@
+package com.bl.logger.database;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+import com.bl.logger.metrics.Counter;
+import com.bl.logger.metrics.MetricsRegistry;
+
+/**
+ * Append-only file that takes the rows for the LOG table right away, so a slow or stopped database
+ * costs neither latency nor messages. A background replayer drains the file into the table in batches,
+ * backing off while the database fails. The position already written is kept in a second file, so
+ * the rows left when the application stops are written the next time the spool is opened.
+ * A row can be written twice if the application stops between the commit and the save of the position.
+ * The values of the extra columns keep their type. A damaged record in the middle of the file is skipped up to
+ * the next record marker, and a file that cannot be read is tried again later
+ * @author Teddy
+ *
+ */
+public class DatabaseSpool {
+
+	//Every record is: marker, length of the data, CRC32 of the type and the data, type, and the data: length of the
+	//text, text in UTF-8 and then the values of the extra columns, each one a tag and its bytes
+	private static final int RECORD_MARKER = 0x4A4C5350;
+	private static final int RECORD_HEADER = 4 + 4 + 4 + 1;
+
+	//Tags of the values of the extra columns, any other type is kept as its text
+	private static final byte NULL_VALUE = 0;
+	private static final byte LONG_VALUE = 1;
+	private static final byte DOUBLE_VALUE = 2;
+	private static final byte BOOLEAN_VALUE = 3;
+	private static final byte TIMESTAMP_VALUE = 4;
+	private static final byte STRING_VALUE = 5;
+	private static final Object UNKNOWN_VALUE = new Object();
+
+	//Bytes read at once while looking for the next record marker
+	private static final int SCAN_CHUNK = 4096;
+
+	//Counters shared by every spool, published in the MetricsRegistry
+	private static final Counter replayedRows = MetricsRegistry.GetCounter("database.spool.replayed");
+	private static final Counter failedAttempts = MetricsRegistry.GetCounter("database.spool.failures");
+	private static final Counter damagedRecords = MetricsRegistry.GetCounter("database.spool.damaged");
+
+	//Atttributes of the class
+	private final FileChannel channel;
+	private final FileChannel offsetChannel;
+	private final DatabaseBatchWriter writer;
+	private final CircuitBreaker breaker;
+	private final int batchSize;
+	private final boolean sync;
+	private boolean bootstrap;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition changed = lock.newCondition();
+	private final ByteBuffer offsetBuffer = ByteBuffer.allocate(8);
+	private final Thread replayer;
+	private ByteBuffer readBuffer = ByteBuffer.allocate(4096);
+	private long readPosition;
+	private long writePosition;
+	private long pendingRecords;
+	private volatile SQLException lastFailure;
+	private volatile boolean running;
+
+	/**
+	 * Constructor of the spool, it opens (or creates) the file, discards a record left half written
+	 * and starts the replayer
+	 * @param folder The folder of the spool files
+	 * @param name The name of the spool file
+	 * @param writer The writer that executes the batches of rows
+	 * @param batchSize The maximum amount of rows written with a single commit
+	 * @param breaker The circuit breaker of the database
+	 * @param sync true to force every record into the disk before returning
+	 * @param bootstrap true to prepare the LOG table (LogSchema) before the first batch, it is tried again while it fails
+	 * @throws IOException If the spool files cannot be opened
+	 */
+	public DatabaseSpool(File folder, String name, DatabaseBatchWriter writer, int batchSize, CircuitBreaker breaker,
+			boolean sync, boolean bootstrap) throws IOException
+	{
+		this.bootstrap = bootstrap;
+		this.writer = writer;
+		this.batchSize = batchSize;
+		this.breaker = breaker;
+		this.sync = sync;
+		this.channel = new RandomAccessFile(new File(folder, name), "rw").getChannel();
+		FileChannel offsets = null;
+		boolean opened = false;
+		try
+		{
+			offsets = new RandomAccessFile(new File(folder, name + ".offset"), "rw").getChannel();
+			this.offsetChannel = offsets;
+
+			//Continuing where the previous replayer stopped
+			offsetBuffer.clear();
+			while (offsetBuffer.hasRemaining() && offsetChannel.read(offsetBuffer, offsetBuffer.position()) > 0)
+				;
+			long saved = offsetBuffer.position() == 8 ? offsetBuffer.getLong(0) : 0;
+			readPosition = saved >= 0 && saved <= channel.size() ? saved : 0;
+
+			//Counting the records that are still pending, a broken tail is removed
+			long position = readPosition;
+			long next;
+			while ((next = ReadRecord(position, channel.size(), null, null, null, 0)) > 0)
+			{
+				position = next;
+				pendingRecords++;
+			}
+			channel.truncate(position);
+			writePosition = position;
+			opened = true;
+		}
+		finally
+		{
+			//A spool that cannot be opened doesn't keep its files open
+			if (!opened)
+			{
+				CloseQuietly(channel);
+				CloseQuietly(offsets);
+			}
+		}
+
+		running = true;
+		replayer = new Thread(this::Replay, "JobLogger-spool-" + name);
+		replayer.setDaemon(true);
+		replayer.start();
+	}
+
+	/**
+	 * Method that appends a row to the spool, it does not wait for the database
+	 * @param messageText The message of the row
+	 * @param typeOfMessage The code of the type of the message
+	 * @throws IOException If the record cannot be written or the spool has been closed
+	 */
+	public void Append(String messageText, int typeOfMessage) throws IOException
+	{
+		Append(messageText, typeOfMessage, null);
+	}
+
+	/**
+	 * Method that appends a row with the values of its extra columns to the spool. Numbers, booleans and moments
+	 * keep their type, so the replay binds the same objects as a row written without the spool
+	 * @param messageText The message of the row
+	 * @param typeOfMessage The code of the type of the message
+	 * @param values The values of the extra columns, or null to leave them empty
+	 * @throws IOException If the record cannot be written or the spool has been closed
+	 */
+	public void Append(String messageText, int typeOfMessage, Object[] values) throws IOException
+	{
+		byte[] text = messageText.getBytes(StandardCharsets.UTF_8);
+		int length = 4 + text.length;
+		byte[][] texts = null;
+		if (values != null)
+		{
+			texts = new byte[values.length][];
+			for (int i = 0; i < values.length; i++)
+			{
+				byte tag = Tag(values[i]);
+				if (tag == STRING_VALUE)
+					texts[i] = String.valueOf(values[i]).getBytes(StandardCharsets.UTF_8);
+				length += 1 + ValueLength(tag, texts[i]);
+			}
+		}
+		ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER + length);
+		record.putInt(RECORD_MARKER).putInt(length).putInt(0).put((byte) typeOfMessage).putInt(text.length).put(text);
+		if (values != null)
+			for (int i = 0; i < values.length; i++)
+				PutValue(record, values[i], texts[i]);
+		CRC32 crc = new CRC32();
+		crc.update(typeOfMessage);
+		crc.update(record.array(), RECORD_HEADER, length);
+		record.putInt(8, (int) crc.getValue());
+		record.flip();
+
+		lock.lock();
+		try
+		{
+			if (!running)
+				throw new IOException("The database spool has been closed");
+			long position = writePosition;
+			while (record.hasRemaining())
+				position += channel.write(record, position);
+			if (sync)
+				channel.force(false);
+			writePosition = position;
+			pendingRecords++;
+			changed.signal();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Method executed by the replayer thread, it writes the pending records in batches
+	 */
+	private void Replay()
+	{
+		String[] messages = new String[batchSize];
+		int[] levels = new int[batchSize];
+		Object[][] extras = new Object[batchSize][];
+		while (true)
+		{
+			long from;
+			long limit;
+			lock.lock();
+			try
+			{
+				//Waiting for records, and for the database while the circuit does not allow an attempt
+				long delay;
+				while (true)
+				{
+					if (pendingRecords == 0)
+					{
+						if (!running)
+							return;
+						changed.await();
+						continue;
+					}
+					delay = breaker.DelayMillis(System.currentTimeMillis());
+					if (delay == 0)
+						break;
+					if (!running)
+						return;
+					changed.await(delay, TimeUnit.MILLISECONDS);
+				}
+				from = readPosition;
+				limit = writePosition;
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				return;
+			}
+			finally
+			{
+				lock.unlock();
+			}
+
+			//Reading and writing the batch outside of the lock, the appends go after the limit
+			try
+			{
+				int count = 0;
+				long position = from;
+				long next;
+				while (count < batchSize && (next = ReadRecord(position, limit, messages, levels, extras, count)) > 0)
+				{
+					position = next;
+					count++;
+				}
+				if (count == 0)
+				{
+					//A damaged record doesn't stop the replay, it goes on with the next valid record
+					SkipDamaged(from, limit);
+					continue;
+				}
+				if (bootstrap)
+				{
+					writer.Bootstrap();
+					bootstrap = false;
+				}
+				writer.Write(messages, levels, extras, count);
+				breaker.RecordSuccess();
+				replayedRows.Add(count);
+				Committed(position, count);
+			}
+			catch (SQLException e)
+			{
+				lastFailure = e;
+				failedAttempts.Increment();
+				breaker.RecordFailure(System.currentTimeMillis());
+			}
+			catch (ClosedChannelException e)
+			{
+				//The spool has been closed, the records stay there for the next time it is opened
+				return;
+			}
+			catch (IOException e)
+			{
+				//The file cannot be read now, it is tried again later like a failing database
+				lastFailure = new SQLException("Cannot read the database spool", e);
+				failedAttempts.Increment();
+				breaker.RecordFailure(System.currentTimeMillis());
+			}
+			finally
+			{
+				for (int i = 0; i < batchSize; i++)
+				{
+					messages[i] = null;
+					extras[i] = null;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Method that skips a damaged record, looking for the next record marker where a whole record with a valid
+	 * checksum begins. The records of the damaged bytes are lost and counted in database.spool.damaged
+	 * @param from The position of the damaged record
+	 * @param limit The end of the records that can be read
+	 * @throws IOException If the file cannot be read
+	 */
+	private void SkipDamaged(long from, long limit) throws IOException
+	{
+		long next = NextMarker(from + 1, limit);
+		while (next < limit && ReadRecord(next, limit, null, null, null, 0) < 0)
+			next = NextMarker(next + 1, limit);
+
+		lock.lock();
+		try
+		{
+			//The damaged bytes may have held any amount of records, the ones left are counted again
+			long left = 0;
+			long position = next;
+			long end;
+			while ((end = ReadRecord(position, writePosition, null, null, null, 0)) > 0)
+			{
+				position = end;
+				left++;
+			}
+			long lost = Math.max(pendingRecords - left, 1);
+			damagedRecords.Add(lost);
+			lastFailure = new SQLException("The database spool had a damaged record at " + from);
+			Committed(next, (int) (pendingRecords - left));
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Method that looks for the next record marker, reading the file in chunks
+	 * @param position Where the search begins
+	 * @param limit The end of the records that can be read
+	 * @return the position of the marker, or the limit if there is no room for another record
+	 * @throws IOException If the file cannot be read
+	 */
+	private long NextMarker(long position, long limit) throws IOException
+	{
+		while (limit - position >= RECORD_HEADER)
+		{
+			int length = (int) Math.min(SCAN_CHUNK, limit - position);
+			ByteBuffer chunk = Read(position, length);
+			for (int i = 0; i + 4 <= length; i++)
+				if (chunk.getInt(i) == RECORD_MARKER)
+					return position + i;
+
+			//The last bytes can be the beginning of a marker
+			position += length - 3;
+		}
+		return limit;
+	}
+
+	/**
+	 * Method that saves the position of the records already written, emptying the file when every record is written
+	 * @param position The position after the last written record
+	 * @param count The amount of written records
+	 * @throws IOException If the position cannot be saved
+	 */
+	private void Committed(long position, int count) throws IOException
+	{
+		lock.lock();
+		try
+		{
+			pendingRecords -= count;
+			readPosition = position;
+			if (pendingRecords == 0 && readPosition == writePosition)
+			{
+				channel.truncate(0);
+				readPosition = 0;
+				writePosition = 0;
+			}
+			offsetBuffer.clear();
+			offsetBuffer.putLong(0, readPosition);
+			while (offsetBuffer.hasRemaining())
+				offsetChannel.write(offsetBuffer, offsetBuffer.position());
+			if (sync)
+				offsetChannel.force(false);
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Method that reads the record at a position of the file
+	 * @param position The position of the record
+	 * @param limit The end of the records that can be read
+	 * @param messages Where the message is placed, or null to only check the record
+	 * @param levels Where the type is placed
+	 * @param extras Where the values of the extra columns are placed
+	 * @param index The position in the arrays
+	 * @return the position of the next record, or -1 if there is no complete and valid record
+	 * @throws IOException If the file cannot be read
+	 */
+	private long ReadRecord(long position, long limit, String[] messages, int[] levels, Object[][] extras, int index)
+			throws IOException
+	{
+		if (limit - position < RECORD_HEADER)
+			return -1;
+		ByteBuffer header = Read(position, RECORD_HEADER);
+		if (header.getInt() != RECORD_MARKER)
+			return -1;
+		int length = header.getInt();
+		int checksum = header.getInt();
+		int typeOfMessage = header.get();
+		if (length < 4 || limit - position - RECORD_HEADER < length)
+			return -1;
+
+		ByteBuffer data = Read(position + RECORD_HEADER, length);
+		CRC32 crc = new CRC32();
+		crc.update(typeOfMessage);
+		crc.update(data.array(), 0, length);
+		if ((int) crc.getValue() != checksum)
+			return -1;
+		if (messages != null)
+		{
+			int textLength = data.getInt();
+			messages[index] = new String(data.array(), data.position(), textLength, StandardCharsets.UTF_8);
+			levels[index] = typeOfMessage;
+			data.position(data.position() + textLength);
+
+			//The values of the extra columns, if the row has them
+			Object[] values = null;
+			if (data.hasRemaining())
+			{
+				values = new Object[writer.getExtraColumns()];
+				for (int i = 0; data.hasRemaining(); i++)
+				{
+					Object value = GetValue(data);
+					if (value == UNKNOWN_VALUE)
+						return -1;
+					if (i < values.length)
+						values[i] = value;
+				}
+			}
+			extras[index] = values;
+		}
+		return position + RECORD_HEADER + length;
+	}
+
+	/**
+	 * Method that gives the tag a value of an extra column is kept with
+	 * @param value The value
+	 * @return the tag of its type
+	 */
+	private static byte Tag(Object value)
+	{
+		if (value == null)
+			return NULL_VALUE;
+		if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte)
+			return LONG_VALUE;
+		if (value instanceof Double || value instanceof Float)
+			return DOUBLE_VALUE;
+		if (value instanceof Boolean)
+			return BOOLEAN_VALUE;
+		if (value instanceof Date)
+			return TIMESTAMP_VALUE;
+		return STRING_VALUE;
+	}
+
+	/**
+	 * Method that gives the amount of bytes of a value after its tag
+	 * @param tag The tag of the value
+	 * @param text The UTF-8 bytes of a value kept as text
+	 * @return the amount of bytes
+	 */
+	private static int ValueLength(byte tag, byte[] text)
+	{
+		switch (tag)
+		{
+			case LONG_VALUE:
+			case DOUBLE_VALUE:
+				return 8;
+			case BOOLEAN_VALUE:
+				return 1;
+			case TIMESTAMP_VALUE:
+				return 8 + 4;
+			case STRING_VALUE:
+				return 4 + text.length;
+			default:
+				return 0;
+		}
+	}
+
+	/**
+	 * Method that writes a value of an extra column with its tag
+	 * @param record The record being built
+	 * @param value The value
+	 * @param text The UTF-8 bytes of a value kept as text
+	 */
+	private static void PutValue(ByteBuffer record, Object value, byte[] text)
+	{
+		byte tag = Tag(value);
+		record.put(tag);
+		switch (tag)
+		{
+			case LONG_VALUE:
+				record.putLong(((Number) value).longValue());
+				break;
+			case DOUBLE_VALUE:
+				record.putDouble(((Number) value).doubleValue());
+				break;
+			case BOOLEAN_VALUE:
+				record.put((byte) ((Boolean) value ? 1 : 0));
+				break;
+			case TIMESTAMP_VALUE:
+				record.putLong(((Date) value).getTime());
+				record.putInt(value instanceof Timestamp ? ((Timestamp) value).getNanos() : -1);
+				break;
+			case STRING_VALUE:
+				record.putInt(text.length).put(text);
+				break;
+			default:
+				break;
+		}
+	}
+
+	/**
+	 * Method that reads a value of an extra column, building the object of its type again
+	 * @param data The data of the record, placed at the tag of the value
+	 * @return the value, or UNKNOWN_VALUE if the tag is not known and the record must be skipped
+	 */
+	private static Object GetValue(ByteBuffer data)
+	{
+		byte tag = data.get();
+		switch (tag)
+		{
+			case NULL_VALUE:
+				return null;
+			case LONG_VALUE:
+				return data.getLong();
+			case DOUBLE_VALUE:
+				return data.getDouble();
+			case BOOLEAN_VALUE:
+				return data.get() != 0;
+			case TIMESTAMP_VALUE:
+				Timestamp timestamp = new Timestamp(data.getLong());
+				int nanos = data.getInt();
+				if (nanos >= 0)
+					timestamp.setNanos(nanos);
+				return timestamp;
+			case STRING_VALUE:
+				int length = data.getInt();
+				String text = new String(data.array(), data.position(), length, StandardCharsets.UTF_8);
+				data.position(data.position() + length);
+				return text;
+			default:
+				return UNKNOWN_VALUE;
+		}
+	}
+
+	/**
+	 * Method that closes a file of the spool, used when the spool cannot be opened
+	 * @param file The channel of the file, or null
+	 */
+	private static void CloseQuietly(FileChannel file)
+	{
+		if (file == null)
+			return;
+		try
+		{
+			file.close();
+		}
+		catch (IOException e)
+		{
+			//Nothing else can be done with the file
+		}
+	}
+
+	/**
+	 * Method that reads bytes of the file into the reusable buffer
+	 * @param position Where the bytes begin
+	 * @param length The amount of bytes
+	 * @return the buffer ready to be read
+	 * @throws IOException If the file cannot be read or ends before
+	 */
+	private ByteBuffer Read(long position, int length) throws IOException
+	{
+		if (readBuffer.capacity() < length)
+			readBuffer = ByteBuffer.allocate(Math.max(length, readBuffer.capacity() * 2));
+		readBuffer.clear();
+		readBuffer.limit(length);
+		while (readBuffer.hasRemaining())
+		{
+			if (channel.read(readBuffer, position + readBuffer.position()) < 0)
+				throw new IOException("The database spool ends in the middle of a record");
+		}
+		readBuffer.flip();
+		return readBuffer;
+	}
+
+	/**
+	 * Method that stops the replayer, giving it some time to write the pending records, and closes the files.
+	 * The records that are still pending are written the next time the spool is opened
+	 * @param timeout The maximum time to wait for the replayer
+	 * @param unit The unit of the timeout
+	 * @return true if every record has been written
+	 */
+	public boolean Close(long timeout, TimeUnit unit)
+	{
+		lock.lock();
+		try
+		{
+			running = false;
+			changed.signalAll();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+
+		try
+		{
+			unit.timedJoin(replayer, timeout);
+			if (replayer.isAlive())
+			{
+				replayer.interrupt();
+				replayer.join(1000);
+			}
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+
+		lock.lock();
+		try
+		{
+			channel.close();
+			offsetChannel.close();
+		}
+		catch (IOException e)
+		{
+			//Nothing else can be done with the files
+		}
+		finally
+		{
+			lock.unlock();
+		}
+		return getPendingRecords() == 0;
+	}
+
+	/**
+	 * Method that waits until every record of the spool has been written
+	 * @param timeout The maximum time to wait
+	 * @param unit The unit of the timeout
+	 * @return true if there are no pending records
+	 * @throws InterruptedException If the caller is interrupted while waiting
+	 */
+	public boolean AwaitDrained(long timeout, TimeUnit unit) throws InterruptedException
+	{
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		while (getPendingRecords() > 0)
+		{
+			if (System.nanoTime() >= deadline)
+				return false;
+			Thread.sleep(10);
+		}
+		return true;
+	}
+
+	/**
+	 * Getter for the amount of records waiting to be written into the table
+	 * @return the amount of pending records
+	 */
+	public long getPendingRecords()
+	{
+		lock.lock();
+		try
+		{
+			return pendingRecords;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Getter for the circuit breaker of the database
+	 * @return the circuit breaker
+	 */
+	public CircuitBreaker getBreaker()
+	{
+		return breaker;
+	}
+
+	/**
+	 * Getter for the last error writing the records
+	 * @return the last exception or null if there has not been any
+	 */
+	public SQLException getLastFailure()
+	{
+		return lastFailure;
+	}
+
+}
@@ -0,0 +1,119 @@
+package com.bl.logger.database;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Class that prepares the LOG table to be queried: it creates the table if it doesn't exist, adds the
+ * LOGGED_AT column with the moment of every message and the indexes by moment and by type. Every step
+ * checks the metadata of the database first, so it can be run any amount of times
+ * @author Teddy
+ *
+ */
+public final class LogSchema {
+
+	//Names of the objects of the schema
+	public static final String TABLE = "LOG";
+	public static final String TIMESTAMP_COLUMN = "LOGGED_AT";
+	public static final String TIMESTAMP_INDEX = "LOG_LOGGED_AT_IDX";
+	public static final String LEVEL_INDEX = "LOG_LEVEL_IDX";
+
+	/**
+	 * Private constructor, this class only has static methods
+	 */
+	private LogSchema() {
+	}
+
+	/**
+	 * Method that creates the table, the LOGGED_AT column and the indexes that are missing
+	 * @param connection The connection to the database, it is committed if it is not in auto-commit mode
+	 * @throws SQLException If the schema cannot be read or changed
+	 */
+	public static void Bootstrap(Connection connection) throws SQLException
+	{
+		DatabaseMetaData metadata = connection.getMetaData();
+		String table = FindTable(metadata);
+		try (Statement statement = connection.createStatement())
+		{
+			if (table == null)
+			{
+				statement.executeUpdate("CREATE TABLE " + TABLE + "(MESSAGE VARCHAR(4000), LEVEL INT, "
+						+ TIMESTAMP_COLUMN + " TIMESTAMP)");
+				table = FindTable(metadata);
+			}
+			else if (!Names(metadata.getColumns(null, null, table, null), "COLUMN_NAME").contains(TIMESTAMP_COLUMN))
+				statement.executeUpdate("ALTER TABLE " + TABLE + " ADD COLUMN " + TIMESTAMP_COLUMN + " TIMESTAMP");
+
+			//The type index also has the moment, so a range of one type is read in order from the index
+			Set<String> indexes = Names(metadata.getIndexInfo(null, null, table, false, false), "INDEX_NAME");
+			if (!indexes.contains(TIMESTAMP_INDEX))
+				statement.executeUpdate("CREATE INDEX " + TIMESTAMP_INDEX + " ON " + TABLE + "(" + TIMESTAMP_COLUMN + ")");
+			if (!indexes.contains(LEVEL_INDEX))
+				statement.executeUpdate("CREATE INDEX " + LEVEL_INDEX + " ON " + TABLE + "(LEVEL, " + TIMESTAMP_COLUMN + ")");
+		}
+		if (!connection.getAutoCommit())
+			connection.commit();
+	}
+
+	/**
+	 * Method that tells if the LOG table already has the LOGGED_AT column
+	 * @param connection The connection to the database
+	 * @return true if the table exists and has the column
+	 * @throws SQLException If the schema cannot be read
+	 */
+	public static boolean HasTimestamps(Connection connection) throws SQLException
+	{
+		DatabaseMetaData metadata = connection.getMetaData();
+		String table = FindTable(metadata);
+		return table != null && Names(metadata.getColumns(null, null, table, null), "COLUMN_NAME").contains(TIMESTAMP_COLUMN);
+	}
+
+	/**
+	 * Method that finds the name the database gives to the LOG table, some of them keep it in lower case
+	 * @param metadata The metadata of the database
+	 * @return the name of the table, or null if it doesn't exist
+	 * @throws SQLException If the metadata cannot be read
+	 */
+	private static String FindTable(DatabaseMetaData metadata) throws SQLException
+	{
+		for (String name : new String[] { TABLE, TABLE.toLowerCase(Locale.ROOT) })
+		{
+			try (ResultSet rs = metadata.getTables(null, null, name, null))
+			{
+				if (rs.next())
+					return name;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Method that reads a column of a metadata result, in upper case
+	 * @param rs The metadata result, it is closed
+	 * @param column The column with the names
+	 * @return the names found
+	 * @throws SQLException If the result cannot be read
+	 */
+	private static Set<String> Names(ResultSet rs, String column) throws SQLException
+	{
+		Set<String> names = new HashSet<String>();
+		try
+		{
+			while (rs.next())
+				if (rs.getString(column) != null)
+					names.add(rs.getString(column).toUpperCase(Locale.ROOT));
+		}
+		finally
+		{
+			rs.close();
+		}
+		return names;
+	}
+
+}
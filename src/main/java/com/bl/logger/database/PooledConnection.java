@@ -0,0 +1,123 @@
+package com.bl.logger.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A JDBC connection that belongs to a connection pool. It must be given back to its pool
+ * with Release once the work is done
+ * @author Teddy
+ *
+ */
+public class PooledConnection {
+
+	//Atttributes of the class
+	private final Connection connection;
+	private final ConnectionPool pool;
+	private final long createdAt;
+	private final Map<String, PreparedStatement> statements = new HashMap<String, PreparedStatement>();
+	private long lastUsed;
+
+	/**
+	 * Constructor of the pooled connection
+	 * @param connection The real JDBC connection
+	 * @param pool The pool that owns the connection
+	 */
+	PooledConnection(Connection connection, ConnectionPool pool)
+	{
+		this.connection = connection;
+		this.pool = pool;
+		this.createdAt = System.currentTimeMillis();
+		this.lastUsed = this.createdAt;
+	}
+
+	/**
+	 * Getter for the real JDBC connection
+	 * @return the connection
+	 */
+	public Connection getConnection()
+	{
+		return this.connection;
+	}
+
+	/**
+	 * Method that gives a prepared statement for the sql, it is prepared only the first time
+	 * and reused while the connection lives
+	 * @param sql The sql of the statement
+	 * @return the prepared statement
+	 * @throws SQLException If the statement cannot be prepared
+	 */
+	public PreparedStatement Prepare(String sql) throws SQLException
+	{
+		PreparedStatement statement = statements.get(sql);
+		if (statement == null || statement.isClosed())
+		{
+			statement = connection.prepareStatement(sql);
+			statements.put(sql, statement);
+		}
+		return statement;
+	}
+
+	/**
+	 * Method that gives the connection back to its pool so it can be reused
+	 */
+	public void Release()
+	{
+		pool.Release(this, false);
+	}
+
+	/**
+	 * Method that gives the connection back to its pool after an error, so it is closed instead of reused
+	 */
+	public void Invalidate()
+	{
+		pool.Release(this, true);
+	}
+
+	/**
+	 * Getter for the moment the connection has been created
+	 * @return the time in milliseconds
+	 */
+	public long getCreatedAt()
+	{
+		return this.createdAt;
+	}
+
+	/**
+	 * Getter for the last moment the connection was given back to the pool
+	 * @return the time in milliseconds
+	 */
+	long getLastUsed()
+	{
+		return this.lastUsed;
+	}
+
+	/**
+	 * Setter for the last moment the connection was given back to the pool
+	 * @param lastUsed the time in milliseconds
+	 */
+	void setLastUsed(long lastUsed)
+	{
+		this.lastUsed = lastUsed;
+	}
+
+	/**
+	 * Method that closes the real connection ignoring any error
+	 */
+	void CloseQuietly()
+	{
+		statements.clear();
+		try
+		{
+			connection.close();
+		}
+		catch (SQLException e)
+		{
+			//The connection is being discarded anyway
+		}
+	}
+
+}
@@ -0,0 +1,330 @@
+package com.bl.logger.event;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import com.bl.logger.LevelOfMessage;
+import com.bl.logger.format.JsonLinesFormatter;
+
+/**
+ * Structured message: a template and typed key-value fields. The primitive fields are kept
+ * without boxing and nothing is turned into text until a destination writes the event. A field
+ * can be placed in the template as {key}, the fields that are not in the template are written
+ * after it as key=value. An event must not be modified once it has been logged
+ * @author Teddy
+ *
+ */
+public final class LogEvent {
+
+	//Types of the fields
+	private static final byte LONG = 0;
+	private static final byte DOUBLE = 1;
+	private static final byte BOOLEAN = 2;
+	private static final byte OBJECT = 3;
+
+	//Atttributes of the class
+	private final String template;
+	private String[] keys = new String[4];
+	private byte[] types = new byte[4];
+	private long[] primitives = new long[4];
+	private Object[] objects;
+	private int size;
+	private String messageText;
+
+	/**
+	 * Private constructor, events are created with LogEvent.Of
+	 * @param template The template of the message
+	 */
+	private LogEvent(String template)
+	{
+		this.template = template;
+	}
+
+	/**
+	 * Method that creates an event
+	 * @param template The template of the message, a field can be placed in it as {key}
+	 * @return the new event
+	 */
+	public static LogEvent Of(String template)
+	{
+		return new LogEvent(template);
+	}
+
+	/**
+	 * Method that adds an integer field
+	 * @param key The name of the field
+	 * @param value The value of the field
+	 * @return the same event
+	 */
+	public LogEvent With(String key, long value)
+	{
+		Add(key, LONG, value, null);
+		return this;
+	}
+
+	/**
+	 * Method that adds a decimal field
+	 * @param key The name of the field
+	 * @param value The value of the field
+	 * @return the same event
+	 */
+	public LogEvent With(String key, double value)
+	{
+		Add(key, DOUBLE, Double.doubleToRawLongBits(value), null);
+		return this;
+	}
+
+	/**
+	 * Method that adds a boolean field
+	 * @param key The name of the field
+	 * @param value The value of the field
+	 * @return the same event
+	 */
+	public LogEvent With(String key, boolean value)
+	{
+		Add(key, BOOLEAN, value ? 1 : 0, null);
+		return this;
+	}
+
+	/**
+	 * Method that adds a field of any other type, it is turned into text with String.valueOf
+	 * @param key The name of the field
+	 * @param value The value of the field
+	 * @return the same event
+	 */
+	public LogEvent With(String key, Object value)
+	{
+		Add(key, OBJECT, 0, value);
+		return this;
+	}
+
+	/**
+	 * Method that stores a field, growing the arrays when they are full
+	 * @param key The name of the field
+	 * @param type The type of the field
+	 * @param primitive The value of a primitive field
+	 * @param object The value of any other field
+	 */
+	private void Add(String key, byte type, long primitive, Object object)
+	{
+		Objects.requireNonNull(key, "The key of a field cannot be null");
+		if (size == keys.length)
+		{
+			keys = Arrays.copyOf(keys, size * 2);
+			types = Arrays.copyOf(types, size * 2);
+			primitives = Arrays.copyOf(primitives, size * 2);
+			if (objects != null)
+				objects = Arrays.copyOf(objects, size * 2);
+		}
+		if (object != null && objects == null)
+			objects = new Object[keys.length];
+		keys[size] = key;
+		types[size] = type;
+		primitives[size] = primitive;
+		if (objects != null)
+			objects[size] = object;
+		size++;
+		messageText = null;
+	}
+
+	/**
+	 * Getter for the template of the message
+	 * @return the template
+	 */
+	public String getTemplate()
+	{
+		return template;
+	}
+
+	/**
+	 * Getter for the amount of fields
+	 * @return the amount of fields
+	 */
+	public int getFieldCount()
+	{
+		return size;
+	}
+
+	/**
+	 * Getter for the name of a field
+	 * @param index The position of the field
+	 * @return the name of the field
+	 */
+	public String getKey(int index)
+	{
+		return keys[index];
+	}
+
+	/**
+	 * Getter for the value of a field, primitive values are boxed here
+	 * @param index The position of the field
+	 * @return the value of the field
+	 */
+	public Object getValue(int index)
+	{
+		switch(types[index])
+		{
+			case LONG:
+				return primitives[index];
+			case DOUBLE:
+				return Double.longBitsToDouble(primitives[index]);
+			case BOOLEAN:
+				return primitives[index] != 0;
+			default:
+				return objects[index];
+		}
+	}
+
+	/**
+	 * Method that gives the position of a field
+	 * @param key The name of the field
+	 * @return the position of the last field with that name, or -1 if there is none
+	 */
+	public int IndexOf(String key)
+	{
+		for (int i = size - 1; i >= 0; i--)
+			if (keys[i].equals(key))
+				return i;
+		return -1;
+	}
+
+	/**
+	 * Getter for the text of the message: the template with its fields and then the other fields as key=value.
+	 * It is built the first time a destination needs it
+	 * @return the text of the message
+	 */
+	public String getMessageText()
+	{
+		String text = messageText;
+		if (text == null)
+		{
+			StringBuilder buffer = new StringBuilder(template.length() + 16 * size);
+			boolean[] used = AppendTemplate(buffer);
+			for (int i = 0; i < size; i++)
+			{
+				if (!used[i])
+				{
+					buffer.append(' ').append(keys[i]).append('=');
+					AppendValue(buffer, i);
+				}
+			}
+			text = buffer.toString();
+			messageText = text;
+		}
+		return text;
+	}
+
+	/**
+	 * Method that appends the event as a JSON object, with the fields in their own object
+	 * @param buffer The buffer where the event is appended
+	 * @param level The type of the message
+	 * @param timestamp The moment (in milliseconds) the message was logged
+	 * @return the same buffer
+	 */
+	public StringBuilder AppendJson(StringBuilder buffer, LevelOfMessage level, long timestamp)
+	{
+		StringBuilder message = new StringBuilder(template.length() + 16 * size);
+		AppendTemplate(message);
+		buffer.append("{\"timestamp\":").append(timestamp).append(",\"level\":\"").append(level.name())
+				.append("\",\"message\":");
+		JsonLinesFormatter.AppendString(buffer, message);
+		buffer.append(",\"fields\":{");
+		for (int i = 0; i < size; i++)
+		{
+			if (i > 0)
+				buffer.append(',');
+			JsonLinesFormatter.AppendString(buffer, keys[i]);
+			buffer.append(':');
+			switch(types[i])
+			{
+				case LONG:
+					buffer.append(primitives[i]);
+					break;
+				case DOUBLE:
+					double value = Double.longBitsToDouble(primitives[i]);
+					if (Double.isNaN(value) || Double.isInfinite(value))
+						JsonLinesFormatter.AppendString(buffer, String.valueOf(value));
+					else
+						buffer.append(value);
+					break;
+				case BOOLEAN:
+					buffer.append(primitives[i] != 0);
+					break;
+				default:
+					if (objects[i] == null)
+						buffer.append("null");
+					else
+						JsonLinesFormatter.AppendString(buffer, String.valueOf(objects[i]));
+					break;
+			}
+		}
+		return buffer.append("}}");
+	}
+
+	/**
+	 * Method that appends the template replacing every {key} by the value of its field
+	 * @param buffer The buffer where the message is appended
+	 * @return which fields have been placed in the template
+	 */
+	private boolean[] AppendTemplate(StringBuilder buffer)
+	{
+		boolean[] used = new boolean[size];
+		int start = 0;
+		int open;
+		while ((open = template.indexOf('{', start)) >= 0)
+		{
+			int close = template.indexOf('}', open + 1);
+			if (close < 0)
+				break;
+			int index = IndexOf(template.substring(open + 1, close));
+			if (index < 0)
+			{
+				//Not a field, the text is kept as it is
+				buffer.append(template, start, open + 1);
+				start = open + 1;
+				continue;
+			}
+			buffer.append(template, start, open);
+			AppendValue(buffer, index);
+			used[index] = true;
+			start = close + 1;
+		}
+		buffer.append(template, start, template.length());
+		return used;
+	}
+
+	/**
+	 * Method that appends the value of a field as text, without boxing the primitive values
+	 * @param buffer The buffer where the value is appended
+	 * @param index The position of the field
+	 */
+	private void AppendValue(StringBuilder buffer, int index)
+	{
+		switch(types[index])
+		{
+			case LONG:
+				buffer.append(primitives[index]);
+				break;
+			case DOUBLE:
+				buffer.append(Double.longBitsToDouble(primitives[index]));
+				break;
+			case BOOLEAN:
+				buffer.append(primitives[index] != 0);
+				break;
+			default:
+				buffer.append(objects[index]);
+				break;
+		}
+	}
+
+	/**
+	 * Method that gives the text of the message
+	 * @return the text of the message
+	 */
+	@Override
+	public String toString()
+	{
+		return getMessageText();
+	}
+
+}
@@ -0,0 +1,157 @@
+package com.bl.logger.file;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+
+import com.bl.logger.LevelOfMessage;
+import com.bl.logger.format.BinaryLogFormat;
+import com.bl.logger.format.MessageFormatter;
+import com.bl.logger.format.MessageRecord;
+
+/**
+ * Handler that keeps its log file open and writes the messages in the binary log format instead of
+ * text: no date is formatted and no formatter wraps the message. BinaryLogReader turns the file back into text
+ * @author Teddy
+ *
+ */
+public class BinaryFileHandler extends Handler {
+
+	//Bytes needed by the type, the moment and the longest varint
+	private static final int RECORD_OVERHEAD = 1 + 8 + 5;
+
+	//Atttributes of the class
+	private final OutputStream out;
+	private final FlushPolicy policy;
+	private final long flushEvery;
+	private byte[] buffer = new byte[512];
+	private long pendingRecords;
+	private boolean closed;
+
+	/**
+	 * Constructor of the handler, it opens the file in append mode and writes the header if it is empty
+	 * @param file The file we will log into
+	 * @param policy When the buffer is written into the disk
+	 * @param flushEvery The amount of messages for EVERY_N_RECORDS
+	 * @param bufferSize The size of the buffer in bytes
+	 * @throws IOException If the file cannot be opened or it is not a binary log
+	 */
+	public BinaryFileHandler(File file, FlushPolicy policy, long flushEvery, int bufferSize) throws IOException
+	{
+		//An existing file must be a binary log we can continue
+		if (file.length() > 0)
+		{
+			try (InputStream in = new FileInputStream(file))
+			{
+				BinaryLogFormat.ReadHeader(in);
+			}
+		}
+		this.out = new BufferedOutputStream(new FileOutputStream(file, true), bufferSize);
+		if (file.length() == 0)
+		{
+			BinaryLogFormat.WriteHeader(out);
+			out.flush();
+		}
+		this.policy = policy;
+		this.flushEvery = flushEvery;
+	}
+
+	/**
+	 * Method that encodes and writes the message into the buffer
+	 * @param record the specific log record we are writing
+	 */
+	@Override
+	public synchronized void publish(LogRecord record)
+	{
+		if (closed || !isLoggable(record))
+			return;
+
+		//The records of the logger carry the type and the original text, other records are written as they come
+		LevelOfMessage level;
+		String text;
+		if (record instanceof MessageRecord)
+		{
+			level = ((MessageRecord) record).getLevelOfMessage();
+			text = ((MessageRecord) record).getMessageText();
+		}
+		else
+		{
+			level = MessageFormatter.ToLevelOfMessage(record.getLevel());
+			text = record.getMessage() == null ? "" : record.getMessage();
+		}
+
+		try
+		{
+			byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+			if (buffer.length < bytes.length + RECORD_OVERHEAD)
+				buffer = new byte[bytes.length + RECORD_OVERHEAD];
+
+			//The whole record is prepared first so it goes into the stream with a single write
+			buffer[0] = (byte) level.ordinal();
+			int position = BinaryLogFormat.PutLong(record.getMillis() * 1000000L, buffer, 1);
+			position = BinaryLogFormat.PutVarint(bytes.length, buffer, position);
+			System.arraycopy(bytes, 0, buffer, position, bytes.length);
+			out.write(buffer, 0, position + bytes.length);
+
+			//Applying the flush policy
+			if (policy == FlushPolicy.EVERY_RECORD)
+				out.flush();
+			else if (policy == FlushPolicy.EVERY_N_RECORDS && ++pendingRecords >= flushEvery)
+			{
+				out.flush();
+				pendingRecords = 0;
+			}
+		}
+		catch (IOException e)
+		{
+			reportError("Cannot write into the log file", e, ErrorManager.WRITE_FAILURE);
+		}
+	}
+
+	/**
+	 * Method that writes the buffer into the disk
+	 */
+	@Override
+	public synchronized void flush()
+	{
+		if (closed)
+			return;
+		try
+		{
+			out.flush();
+			pendingRecords = 0;
+		}
+		catch (IOException e)
+		{
+			reportError("Cannot flush the log file", e, ErrorManager.FLUSH_FAILURE);
+		}
+	}
+
+	/**
+	 * Method that writes the buffer and closes the file
+	 */
+	@Override
+	public synchronized void close() throws SecurityException
+	{
+		if (closed)
+			return;
+		closed = true;
+		try
+		{
+			out.close();
+		}
+		catch (IOException e)
+		{
+			reportError("Cannot close the log file", e, ErrorManager.CLOSE_FAILURE);
+		}
+	}
+
+}
@@ -0,0 +1,85 @@
+package com.bl.logger.file;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * Class that keeps a bounded amount of off-heap buffers of the same size, so the appenders that
+ * stage their records outside of the heap don't allocate (nor free) a direct buffer for every write
+ * @author Teddy
+ *
+ */
+public class DirectBufferPool {
+
+	//Atttributes of the class
+	private final int bufferSize;
+	private final int maxPooled;
+	private final ArrayDeque<ByteBuffer> pooled = new ArrayDeque<ByteBuffer>();
+	private long allocated;
+
+	/**
+	 * Constructor of the pool, no buffer is allocated until it is needed
+	 * @param bufferSize The size in bytes of every buffer
+	 * @param maxPooled The maximum amount of free buffers kept by the pool
+	 */
+	public DirectBufferPool(int bufferSize, int maxPooled)
+	{
+		this.bufferSize = bufferSize;
+		this.maxPooled = maxPooled;
+	}
+
+	/**
+	 * Method that gives an empty buffer, reusing a free one if there is any
+	 * @return an empty direct buffer
+	 */
+	public synchronized ByteBuffer Acquire()
+	{
+		ByteBuffer buffer = pooled.pollFirst();
+		if (buffer == null)
+		{
+			buffer = ByteBuffer.allocateDirect(bufferSize);
+			allocated++;
+		}
+		return buffer;
+	}
+
+	/**
+	 * Method that gives a buffer back to the pool, it is discarded if the pool is already full
+	 * @param buffer The buffer that is not used anymore
+	 */
+	public synchronized void Release(ByteBuffer buffer)
+	{
+		if (buffer.capacity() != bufferSize || pooled.size() >= maxPooled)
+			return;
+		buffer.clear();
+		pooled.addFirst(buffer);
+	}
+
+	/**
+	 * Getter for the amount of direct buffers the pool has ever allocated
+	 * @return the amount of allocated buffers
+	 */
+	public synchronized long getAllocated()
+	{
+		return allocated;
+	}
+
+	/**
+	 * Getter for the amount of free buffers waiting in the pool
+	 * @return the amount of free buffers
+	 */
+	public synchronized int getPooled()
+	{
+		return pooled.size();
+	}
+
+	/**
+	 * Getter for the size of the buffers of the pool
+	 * @return the size in bytes
+	 */
+	public int getBufferSize()
+	{
+		return bufferSize;
+	}
+
+}
@@ -0,0 +1,242 @@
+package com.bl.logger.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.ErrorManager;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+
+import com.bl.logger.LevelOfMessage;
+import com.bl.logger.format.MessageFormatter;
+import com.bl.logger.format.MessageRecord;
+
+/**
+ * Handler that encodes every message as UTF-8 straight into off-heap buffers taken from a pool, and
+ * writes the staged buffers into the file with a single gathering write of its channel. The records
+ * of the logger are written as "type date text" lines without building any string; a formatter is
+ * only used if one has been set (for JSON lines)
+ * @author Teddy
+ *
+ */
+public class DirectFileHandler extends Handler {
+
+	//Amount of buffers staged before they are written even if the flush policy doesn't say so
+	private static final int MAX_STAGED_BUFFERS = 16;
+
+	//Bytes of the longest UTF-8 sequence
+	private static final int MAX_CHAR_BYTES = 4;
+
+	//Atttributes of the class
+	private final FileChannel channel;
+	private final DirectBufferPool pool;
+	private final FlushPolicy policy;
+	private final long flushEvery;
+	private final ByteBuffer[] staged = new ByteBuffer[MAX_STAGED_BUFFERS];
+	private int stagedCount;
+	private long pendingRecords;
+	private boolean closed;
+
+	/**
+	 * Constructor of the handler, it opens the channel of the file in append mode
+	 * @param file The file we will log into
+	 * @param policy When the staged buffers are written into the disk
+	 * @param flushEvery The amount of messages for EVERY_N_RECORDS
+	 * @param bufferSize The size in bytes of every off-heap buffer
+	 * @throws IOException If the file cannot be opened
+	 */
+	public DirectFileHandler(File file, FlushPolicy policy, long flushEvery, int bufferSize) throws IOException
+	{
+		this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.APPEND);
+		this.pool = new DirectBufferPool(Math.max(bufferSize, 64), MAX_STAGED_BUFFERS);
+		this.policy = policy;
+		this.flushEvery = flushEvery;
+		this.staged[0] = pool.Acquire();
+		this.stagedCount = 1;
+	}
+
+	/**
+	 * Method that encodes the message into the staged buffers
+	 * @param record the specific log record we are writing
+	 */
+	@Override
+	public synchronized void publish(LogRecord record)
+	{
+		if (closed || !isLoggable(record))
+			return;
+		try
+		{
+			Formatter formatter = getFormatter();
+			if (formatter != null)
+				Encode(formatter.format(record));
+			else if (record instanceof MessageRecord)
+			{
+				//The prefix of the day is shared, the text is encoded as it is
+				MessageRecord message = (MessageRecord) record;
+				Encode(MessageFormatter.Prefix(message.getLevelOfMessage(), record.getMillis()));
+				Encode(message.getMessageText());
+				Encode("\n");
+			}
+			else
+			{
+				LevelOfMessage level = MessageFormatter.ToLevelOfMessage(record.getLevel());
+				Encode(MessageFormatter.Prefix(level, record.getMillis()));
+				Encode(record.getMessage() == null ? "" : record.getMessage());
+				Encode("\n");
+			}
+
+			//Applying the flush policy
+			if (policy == FlushPolicy.EVERY_RECORD)
+				WriteStaged();
+			else if (policy == FlushPolicy.EVERY_N_RECORDS && ++pendingRecords >= flushEvery)
+				WriteStaged();
+		}
+		catch (IOException e)
+		{
+			reportError("Cannot write into the log file", e, ErrorManager.WRITE_FAILURE);
+		}
+	}
+
+	/**
+	 * Method that encodes a text as UTF-8 into the staged buffers, taking a new buffer when the current one is full
+	 * @param text The text to encode
+	 * @throws IOException If the staged buffers had to be written and the write has failed
+	 */
+	private void Encode(CharSequence text) throws IOException
+	{
+		ByteBuffer buffer = staged[stagedCount - 1];
+		int length = text.length();
+		for (int i = 0; i < length; i++)
+		{
+			if (buffer.remaining() < MAX_CHAR_BYTES)
+				buffer = NextBuffer();
+			char c = text.charAt(i);
+			if (c < 0x80)
+				buffer.put((byte) c);
+			else if (c < 0x800)
+			{
+				buffer.put((byte) (0xC0 | (c >> 6)));
+				buffer.put((byte) (0x80 | (c & 0x3F)));
+			}
+			else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1)))
+			{
+				int codePoint = Character.toCodePoint(c, text.charAt(++i));
+				buffer.put((byte) (0xF0 | (codePoint >> 18)));
+				buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+				buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+				buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+			}
+			else if (Character.isSurrogate(c))
+				buffer.put((byte) '?');
+			else
+			{
+				buffer.put((byte) (0xE0 | (c >> 12)));
+				buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+				buffer.put((byte) (0x80 | (c & 0x3F)));
+			}
+		}
+	}
+
+	/**
+	 * Method that stages a new buffer from the pool, writing the staged ones first if there are too many
+	 * @return the buffer where the encoding continues
+	 * @throws IOException If the staged buffers could not be written
+	 */
+	private ByteBuffer NextBuffer() throws IOException
+	{
+		if (stagedCount == staged.length)
+		{
+			WriteStaged();
+			return staged[0];
+		}
+		staged[stagedCount] = pool.Acquire();
+		return staged[stagedCount++];
+	}
+
+	/**
+	 * Method that writes every staged buffer with a gathering write and gives them back to the pool,
+	 * except the first one that stays staged
+	 * @throws IOException If the channel could not write the buffers
+	 */
+	private void WriteStaged() throws IOException
+	{
+		pendingRecords = 0;
+		if (stagedCount == 1 && staged[0].position() == 0)
+			return;
+		for (int i = 0; i < stagedCount; i++)
+			staged[i].flip();
+		try
+		{
+			while (staged[stagedCount - 1].hasRemaining())
+				channel.write(staged, 0, stagedCount);
+		}
+		finally
+		{
+			//Even after a failure the buffers are reused, the messages they had are lost
+			for (int i = 1; i < stagedCount; i++)
+			{
+				pool.Release(staged[i]);
+				staged[i] = null;
+			}
+			staged[0].clear();
+			stagedCount = 1;
+		}
+	}
+
+	/**
+	 * Method that writes the staged buffers into the disk
+	 */
+	@Override
+	public synchronized void flush()
+	{
+		if (closed)
+			return;
+		try
+		{
+			WriteStaged();
+		}
+		catch (IOException e)
+		{
+			reportError("Cannot flush the log file", e, ErrorManager.FLUSH_FAILURE);
+		}
+	}
+
+	/**
+	 * Method that writes the staged buffers and closes the file
+	 */
+	@Override
+	public synchronized void close() throws SecurityException
+	{
+		if (closed)
+			return;
+		closed = true;
+		try
+		{
+			WriteStaged();
+			channel.close();
+		}
+		catch (IOException e)
+		{
+			reportError("Cannot close the log file", e, ErrorManager.CLOSE_FAILURE);
+		}
+		finally
+		{
+			pool.Release(staged[0]);
+			staged[0] = null;
+		}
+	}
+
+	/**
+	 * Getter for the pool of off-heap buffers of the handler
+	 * @return the pool of buffers
+	 */
+	public DirectBufferPool getPool()
+	{
+		return pool;
+	}
+
+}
@@ -0,0 +1,306 @@
+package com.bl.logger.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Handler;
+import java.util.logging.Logger;
+
+import com.bl.exception.LoggerException;
+import com.bl.logger.LoggerParameters;
+import com.bl.logger.format.JsonLinesFormatter;
+import com.bl.logger.handler.ForwardingHandler;
+
+/**
+ * Class that keeps one long-lived file appender for every logFileFolder used by the logger.
+ * Every appender is attached to its own child of the "MyLog" logger, so the handlers of "MyLog"
+ * (and not the ones of the root logger) still receive the messages. The optional parameter fileMode chooses the appender: "buffered"
+ * (the default) can be tuned with fileFlushPolicy (a FlushPolicy name), fileFlushEvery (messages
+ * or milliseconds) and fileBufferSize (characters), "mapped" writes into a memory-mapped region
+ * that grows in chunks of fileChunkSize bytes, "rolling" works like "buffered" but rolls the file
+ * once it reaches fileMaxSize bytes or fileRollInterval milliseconds (0 to roll only by size) and
+ * keeps fileMaxSegments gzip-compressed segments, "binary" writes logFile.bin in the compact format
+ * of BinaryLogFormat (buffered like "buffered"), "direct" encodes the messages into pooled off-heap
+ * buffers of fileBufferSize bytes and writes them with gathering writes of a FileChannel. The text appenders write one JSON object per line
+ * when fileFormat is "json" instead of "text". They are read only when the appender is created, a folder
+ * can only be used again with the same configuration
+ * @author Teddy
+ *
+ */
+public final class FileAppenderRegistry {
+
+	//Default configuration of the appenders
+	private static final int DEFAULT_BUFFER_SIZE = 8192;
+	private static final long DEFAULT_FLUSH_EVERY = 1000;
+	private static final long DEFAULT_CHUNK_SIZE = 1 << 20;
+	private static final long DEFAULT_MAX_SIZE = 10 << 20;
+	private static final long DEFAULT_ROLL_INTERVAL = 24 * 60 * 60 * 1000;
+	private static final int DEFAULT_MAX_SEGMENTS = 10;
+
+	//Atttributes of the class
+	private static final Map<String, Logger> loggers = new ConcurrentHashMap<String, Logger>();
+	private static final Map<String, String> configurations = new ConcurrentHashMap<String, String>();
+	private static final Map<String, ScheduledFuture<?>> flushes = new ConcurrentHashMap<String, ScheduledFuture<?>>();
+	private static volatile int generation;
+	private static ScheduledExecutorService flusher;
+	private static ExecutorService compressor;
+	private static boolean shutdownHookAdded;
+
+	/**
+	 * Private constructor, this class only has static methods
+	 */
+	private FileAppenderRegistry() {
+	}
+
+	/**
+	 * Method that gives the logger that writes into the log file of the folder, opening the file the first time
+	 * @param dbParams The parameters with an already validated logFileFolder
+	 * @return the logger attached to the appender of the folder
+	 * @throws IOException If the file cannot be created or opened
+	 * @throws LoggerException If the optional file parameters are not valid or the folder already has an appender
+	 * with another configuration
+	 */
+	public static Logger GetLogger(Map dbParams) throws IOException, LoggerException
+	{
+		//Reading the optional configuration of the appender
+		String folder = (String) dbParams.get("logFileFolder");
+		String mode = LoggerParameters.GetString(dbParams, "fileMode", "buffered");
+		if (!mode.equals("buffered") && !mode.equals("mapped") && !mode.equals("rolling")
+				&& !mode.equals("binary") && !mode.equals("direct"))
+			throw new LoggerException("The parameter fileMode must be a valid file mode");
+		String format = LoggerParameters.GetString(dbParams, "fileFormat", "text");
+		if (!format.equals("text") && !format.equals("json"))
+			throw new LoggerException("The parameter fileFormat must be a valid file format");
+		FlushPolicy policy;
+		try
+		{
+			policy = FlushPolicy.valueOf(LoggerParameters.GetString(dbParams, "fileFlushPolicy", FlushPolicy.EVERY_RECORD.name()));
+		}
+		catch (IllegalArgumentException e)
+		{
+			throw new LoggerException("The parameter fileFlushPolicy must be a valid flush policy", e);
+		}
+		long flushEvery = LoggerParameters.GetLong(dbParams, "fileFlushEvery", DEFAULT_FLUSH_EVERY);
+		int bufferSize = LoggerParameters.GetInt(dbParams, "fileBufferSize", DEFAULT_BUFFER_SIZE);
+		long chunkSize = LoggerParameters.GetLong(dbParams, "fileChunkSize", DEFAULT_CHUNK_SIZE);
+		long maxSize = LoggerParameters.GetLong(dbParams, "fileMaxSize", DEFAULT_MAX_SIZE);
+		long rollInterval = LoggerParameters.GetLong(dbParams, "fileRollInterval", DEFAULT_ROLL_INTERVAL);
+		int maxSegments = LoggerParameters.GetInt(dbParams, "fileMaxSegments", DEFAULT_MAX_SEGMENTS);
+		if (flushEvery <= 0 || bufferSize <= 0 || chunkSize <= 0 || chunkSize > Integer.MAX_VALUE
+				|| maxSize <= 0 || rollInterval < 0 || maxSegments < 0)
+			throw new LoggerException("The file appender parameters are not valid");
+
+		//Most of the times the appender already exists, it must have been opened the same way
+		String configuration = mode + "," + format + "," + policy + "," + flushEvery + "," + bufferSize + "," + chunkSize
+				+ "," + maxSize + "," + rollInterval + "," + maxSegments;
+		Logger fileLogger = Existing(folder, configuration);
+		if (fileLogger != null)
+			return fileLogger;
+
+		synchronized (loggers)
+		{
+			fileLogger = Existing(folder, configuration);
+			if (fileLogger != null)
+				return fileLogger;
+
+			//Creating the file if it doesn't exist
+			File logFile = new File(folder + (mode.equals("binary") ? "/logFile.bin" : "/logFile.txt"));
+			if (!logFile.exists())
+				logFile.createNewFile();
+			final Handler handler;
+			if (mode.equals("mapped"))
+				handler = new MappedFileHandler(logFile, chunkSize);
+			else if (mode.equals("direct"))
+				handler = new DirectFileHandler(logFile, policy, flushEvery, bufferSize);
+			else if (mode.equals("binary"))
+				handler = new BinaryFileHandler(logFile, policy, flushEvery, bufferSize);
+			else if (mode.equals("rolling"))
+				handler = new RollingFileHandler(logFile, policy, flushEvery, bufferSize, maxSize, rollInterval,
+						maxSegments, GetCompressor());
+			else
+				handler = new PersistentFileHandler(logFile, policy, flushEvery, bufferSize);
+			if (format.equals("json"))
+				handler.setFormatter(new JsonLinesFormatter());
+
+			//The child logger sends the messages to its appender and then only to the handlers of "MyLog",
+			//the console handler of the root logger would write every message into the console
+			fileLogger = Logger.getAnonymousLogger();
+			fileLogger.setParent(Logger.getLogger("MyLog"));
+			fileLogger.setUseParentHandlers(false);
+			fileLogger.addHandler(handler);
+			fileLogger.addHandler(new ForwardingHandler(Logger.getLogger("MyLog")));
+
+			//Time based flushes are done in the background
+			if (policy == FlushPolicy.EVERY_N_MILLIS)
+				flushes.put(folder, GetFlusher().scheduleWithFixedDelay(handler::flush, flushEvery, flushEvery, TimeUnit.MILLISECONDS));
+			AddShutdownHook();
+			configurations.put(folder, configuration);
+			loggers.put(folder, fileLogger);
+		}
+		return fileLogger;
+	}
+
+	/**
+	 * Method that gives the logger of a folder that already has an appender
+	 * @param folder The folder of the log file
+	 * @param configuration The configuration asked for the appender
+	 * @return the logger, or null if the folder doesn't have an appender yet
+	 * @throws LoggerException If the appender of the folder has another configuration
+	 */
+	private static Logger Existing(String folder, String configuration) throws LoggerException
+	{
+		Logger fileLogger = loggers.get(folder);
+		if (fileLogger != null && !configuration.equals(configurations.get(folder)))
+			throw new LoggerException("The log file folder is already used with another file configuration");
+		return fileLogger;
+	}
+
+	/**
+	 * Method that writes the buffer of every appender into the disk
+	 */
+	public static void FlushAll()
+	{
+		for (Logger fileLogger : loggers.values())
+			for (Handler handler : fileLogger.getHandlers())
+				handler.flush();
+	}
+
+	/**
+	 * Method that closes every appender, new appenders will be created if the logger is used again
+	 */
+	public static void CloseAll()
+	{
+		synchronized (loggers)
+		{
+			//The time based flushes of the closed appenders are not needed anymore
+			for (ScheduledFuture<?> flush : flushes.values())
+				flush.cancel(false);
+			flushes.clear();
+			for (Logger fileLogger : loggers.values())
+			{
+				for (Handler handler : fileLogger.getHandlers())
+				{
+					fileLogger.removeHandler(handler);
+					handler.close();
+				}
+			}
+			loggers.clear();
+			configurations.clear();
+			generation++;
+		}
+	}
+
+	/**
+	 * Getter for the amount of times the appenders have been closed, the destinations that keep
+	 * a logger use it to know when they must ask for a new one
+	 * @return the generation of the appenders
+	 */
+	public static int getGeneration()
+	{
+		return generation;
+	}
+
+	/**
+	 * Method that gives the background thread used for the time based flushes.
+	 * It must be called holding the loggers lock
+	 * @return the flusher
+	 */
+	private static ScheduledExecutorService GetFlusher()
+	{
+		if (flusher == null)
+		{
+			flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "JobLogger-file-flusher");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		return flusher;
+	}
+
+	/**
+	 * Method that waits for the rolled segments to be compressed
+	 * @param timeout The maximum time to wait
+	 * @param unit The unit of the timeout
+	 * @return true if every pending compression has finished
+	 * @throws InterruptedException If the caller is interrupted while waiting
+	 */
+	public static boolean AwaitCompression(long timeout, TimeUnit unit) throws InterruptedException
+	{
+		ExecutorService current;
+		synchronized (loggers)
+		{
+			current = compressor;
+		}
+		if (current == null)
+			return true;
+
+		//The compressor has a single thread, so this task runs after every pending one
+		try
+		{
+			current.submit(() -> { }).get(timeout, unit);
+			return true;
+		}
+		catch (ExecutionException | TimeoutException e)
+		{
+			return false;
+		}
+	}
+
+	/**
+	 * Method that gives the background thread that compresses the rolled segments.
+	 * It must be called holding the loggers lock
+	 * @return the compressor
+	 */
+	private static ExecutorService GetCompressor()
+	{
+		if (compressor == null)
+		{
+			compressor = Executors.newSingleThreadExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "JobLogger-file-compressor");
+				thread.setDaemon(true);
+				thread.setPriority(Thread.MIN_PRIORITY);
+				return thread;
+			});
+		}
+		return compressor;
+	}
+
+	/**
+	 * Method that registers the hook that drains every appender when the application stops.
+	 * It must be called holding the loggers lock
+	 */
+	private static void AddShutdownHook()
+	{
+		if (shutdownHookAdded)
+			return;
+		Runtime.getRuntime().addShutdownHook(new Thread(FileAppenderRegistry::Shutdown, "JobLogger-file-shutdown"));
+		shutdownHookAdded = true;
+	}
+
+	/**
+	 * Method executed when the application stops: it closes every appender and gives the compressor
+	 * some time to finish the segments already rolled
+	 */
+	private static void Shutdown()
+	{
+		CloseAll();
+		try
+		{
+			AwaitCompression(5, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,30 @@
+package com.bl.logger.file;
+
+/**
+ * Enum that allows to choose when a file appender writes its buffer into the disk
+ * @author Teddy
+ *
+ */
+public enum FlushPolicy {
+	
+	/**
+	 * The buffer is written after every message
+	 */
+	EVERY_RECORD,
+	
+	/**
+	 * The buffer is written every N messages
+	 */
+	EVERY_N_RECORDS,
+	
+	/**
+	 * The buffer is written every N milliseconds
+	 */
+	EVERY_N_MILLIS,
+	
+	/**
+	 * The buffer is only written when it is full or the application stops
+	 */
+	ON_SHUTDOWN
+
+}
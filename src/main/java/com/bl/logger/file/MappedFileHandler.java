@@ -0,0 +1,179 @@
+package com.bl.logger.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.SimpleFormatter;
+
+/**
+ * Handler that writes the messages straight into a memory-mapped region of the log file.
+ * The region grows in chunks and a write cursor remembers where the next message goes, so
+ * logging a message does not need any system call. While the file is open the part of the
+ * chunk that has not been used yet is filled with zeros, the file is truncated to the cursor
+ * when the handler is closed
+ * @author Teddy
+ *
+ */
+public class MappedFileHandler extends Handler {
+
+	//Size of the blocks read when looking for the end of a file that was not closed properly
+	private static final int SCAN_BLOCK = 8192;
+
+	//Atttributes of the class
+	private final RandomAccessFile file;
+	private final FileChannel channel;
+	private final long chunkSize;
+	private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+			.onMalformedInput(CodingErrorAction.REPLACE)
+			.onUnmappableCharacter(CodingErrorAction.REPLACE);
+	private MappedByteBuffer region;
+	private long regionStart;
+	private boolean closed;
+
+	/**
+	 * Constructor of the handler, it maps the first chunk after the current end of the file
+	 * @param logFile The file we will log into
+	 * @param chunkSize The size of every mapped chunk in bytes
+	 * @throws IOException If the file cannot be opened or mapped
+	 */
+	public MappedFileHandler(File logFile, long chunkSize) throws IOException
+	{
+		this.file = new RandomAccessFile(logFile, "rw");
+		this.channel = file.getChannel();
+		this.chunkSize = chunkSize;
+		try
+		{
+			Map(FindEnd(), chunkSize);
+		}
+		catch (IOException e)
+		{
+			file.close();
+			throw e;
+		}
+		setFormatter(new SimpleFormatter());
+	}
+
+	/**
+	 * Method that formats the message and encodes it directly into the mapped region
+	 * @param record the specific log record we are writing
+	 */
+	@Override
+	public synchronized void publish(LogRecord record)
+	{
+		if (closed || !isLoggable(record))
+			return;
+		try
+		{
+			CharBuffer text = CharBuffer.wrap(getFormatter().format(record));
+			encoder.reset();
+			while (true)
+			{
+				CoderResult result = encoder.encode(text, region, true);
+				if (result.isUnderflow())
+					result = encoder.flush(region);
+				if (result.isUnderflow())
+					break;
+				if (result.isOverflow())
+				{
+					//Mapping the next chunk right after the cursor
+					Map(regionStart + region.position(), Math.max(chunkSize, text.remaining() * 4L));
+				}
+				else
+					result.throwException();
+			}
+		}
+		catch (IOException e)
+		{
+			reportError("Cannot write into the mapped log file", e, ErrorManager.WRITE_FAILURE);
+		}
+	}
+
+	/**
+	 * Method that forces the mapped region into the disk
+	 */
+	@Override
+	public synchronized void flush()
+	{
+		if (!closed)
+			region.force();
+	}
+
+	/**
+	 * Method that forces the mapped region, removes the unused part of the chunk and closes the file
+	 */
+	@Override
+	public synchronized void close() throws SecurityException
+	{
+		if (closed)
+			return;
+		closed = true;
+		try
+		{
+			region.force();
+			channel.truncate(regionStart + region.position());
+			file.close();
+		}
+		catch (IOException e)
+		{
+			reportError("Cannot close the mapped log file", e, ErrorManager.CLOSE_FAILURE);
+		}
+	}
+
+	/**
+	 * Getter for the position in the file where the next message will be written
+	 * @return the write cursor
+	 */
+	public synchronized long getCursor()
+	{
+		return regionStart + region.position();
+	}
+
+	/**
+	 * Method that maps a new region of the file
+	 * @param start The position of the file where the region begins
+	 * @param size The size of the region
+	 * @throws IOException If the region cannot be mapped
+	 */
+	private void Map(long start, long size) throws IOException
+	{
+		region = channel.map(FileChannel.MapMode.READ_WRITE, start, size);
+		regionStart = start;
+	}
+
+	/**
+	 * Method that finds the end of the written data, skipping the zeros left by a chunk that was not truncated
+	 * @return the position after the last written byte
+	 * @throws IOException If the file cannot be read
+	 */
+	private long FindEnd() throws IOException
+	{
+		long end = channel.size();
+		ByteBuffer block = ByteBuffer.allocate(SCAN_BLOCK);
+		while (end > 0)
+		{
+			int length = (int) Math.min(SCAN_BLOCK, end);
+			block.clear().limit(length);
+			while (block.hasRemaining() && channel.read(block, end - length + block.position()) > 0)
+				continue;
+			for (int i = length - 1; i >= 0; i--)
+			{
+				if (block.get(i) != 0)
+					return end - length + i + 1;
+			}
+			end -= length;
+		}
+		return 0;
+	}
+
+}
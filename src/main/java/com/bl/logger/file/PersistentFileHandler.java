@@ -0,0 +1,122 @@
+package com.bl.logger.file;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.SimpleFormatter;
+
+/**
+ * Handler that keeps its log file open and writes through a buffer, instead of opening and
+ * closing a FileHandler for every message. When the buffer is written depends on its flush policy
+ * @author Teddy
+ *
+ */
+public class PersistentFileHandler extends Handler {
+
+	//Atttributes of the class
+	private final Writer writer;
+	private final FlushPolicy policy;
+	private final long flushEvery;
+	private long pendingRecords;
+	private boolean closed;
+
+	/**
+	 * Constructor of the handler, it opens the file in append mode
+	 * @param file The file we will log into
+	 * @param policy When the buffer is written into the disk
+	 * @param flushEvery The amount of messages for EVERY_N_RECORDS
+	 * @param bufferSize The size of the buffer in characters
+	 * @throws IOException If the file cannot be opened
+	 */
+	public PersistentFileHandler(File file, FlushPolicy policy, long flushEvery, int bufferSize) throws IOException
+	{
+		this.writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8),
+				bufferSize);
+		this.policy = policy;
+		this.flushEvery = flushEvery;
+		setFormatter(new SimpleFormatter());
+	}
+
+	/**
+	 * Method that formats and writes the message into the buffer
+	 * @param record the specific log record we are writing
+	 */
+	@Override
+	public synchronized void publish(LogRecord record)
+	{
+		if (closed || !isLoggable(record))
+			return;
+		try
+		{
+			writer.write(getFormatter().format(record));
+
+			//Applying the flush policy
+			if (policy == FlushPolicy.EVERY_RECORD)
+				writer.flush();
+			else if (policy == FlushPolicy.EVERY_N_RECORDS && ++pendingRecords >= flushEvery)
+			{
+				writer.flush();
+				pendingRecords = 0;
+			}
+		}
+		catch (IOException e)
+		{
+			reportError("Cannot write into the log file", e, ErrorManager.WRITE_FAILURE);
+		}
+	}
+
+	/**
+	 * Method that writes the buffer into the disk
+	 */
+	@Override
+	public synchronized void flush()
+	{
+		if (closed)
+			return;
+		try
+		{
+			writer.flush();
+			pendingRecords = 0;
+		}
+		catch (IOException e)
+		{
+			reportError("Cannot flush the log file", e, ErrorManager.FLUSH_FAILURE);
+		}
+	}
+
+	/**
+	 * Method that writes the buffer and closes the file
+	 */
+	@Override
+	public synchronized void close() throws SecurityException
+	{
+		if (closed)
+			return;
+		closed = true;
+		try
+		{
+			writer.close();
+		}
+		catch (IOException e)
+		{
+			reportError("Cannot close the log file", e, ErrorManager.CLOSE_FAILURE);
+		}
+	}
+
+	/**
+	 * Getter for the flush policy of the handler
+	 * @return the flush policy
+	 */
+	public FlushPolicy getPolicy()
+	{
+		return policy;
+	}
+
+}
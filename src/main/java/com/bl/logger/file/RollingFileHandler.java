@@ -0,0 +1,292 @@
+package com.bl.logger.file;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.SimpleFormatter;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Handler that writes into a log file like PersistentFileHandler, but closes it once it reaches a size
+ * or an age. The closed file is renamed to a numbered segment (logFile.txt.1, logFile.txt.2...) that is
+ * gzip-compressed by a background thread, and only the newest segments are kept
+ * @author Teddy
+ *
+ */
+public class RollingFileHandler extends Handler {
+
+	//Atttributes of the class
+	private final File file;
+	private final FlushPolicy policy;
+	private final long flushEvery;
+	private final int bufferSize;
+	private final long maxSize;
+	private final long rollInterval;
+	private final int maxSegments;
+	private final ExecutorService compressor;
+	private Writer writer;
+	private long size;
+	private long nextRoll;
+	private long segment;
+	private long pendingRecords;
+	private boolean closed;
+
+	/**
+	 * Constructor of the handler, it opens the file in append mode
+	 * @param file The file we will log into
+	 * @param policy When the buffer is written into the disk
+	 * @param flushEvery The amount of messages for EVERY_N_RECORDS
+	 * @param bufferSize The size of the buffer in characters
+	 * @param maxSize The size in bytes after which the file is rolled
+	 * @param rollInterval The time in milliseconds after which the file is rolled, 0 to roll only by size
+	 * @param maxSegments The amount of closed segments that are kept
+	 * @param compressor The thread that compresses the closed segments
+	 * @throws IOException If the file cannot be opened
+	 */
+	public RollingFileHandler(File file, FlushPolicy policy, long flushEvery, int bufferSize, long maxSize,
+			long rollInterval, int maxSegments, ExecutorService compressor) throws IOException
+	{
+		this.file = file;
+		this.policy = policy;
+		this.flushEvery = flushEvery;
+		this.bufferSize = bufferSize;
+		this.maxSize = maxSize;
+		this.rollInterval = rollInterval;
+		this.maxSegments = maxSegments;
+		this.compressor = compressor;
+
+		//Numbering continues after the segments of a previous run
+		for (File existing : ListSegments())
+			segment = Math.max(segment, SegmentNumber(existing));
+		Open();
+		setFormatter(new SimpleFormatter());
+	}
+
+	/**
+	 * Method that formats and writes the message into the buffer, rolling the file before if needed
+	 * @param record the specific log record we are writing
+	 */
+	@Override
+	public synchronized void publish(LogRecord record)
+	{
+		if (closed || !isLoggable(record))
+			return;
+		try
+		{
+			String text = getFormatter().format(record);
+			int length = Utf8Length(text);
+
+			//A message never goes into a file that is already full or too old
+			if ((size > 0 && size + length > maxSize) || (rollInterval > 0 && record.getMillis() >= nextRoll))
+				Roll();
+			writer.write(text);
+			size += length;
+
+			//Applying the flush policy
+			if (policy == FlushPolicy.EVERY_RECORD)
+				writer.flush();
+			else if (policy == FlushPolicy.EVERY_N_RECORDS && ++pendingRecords >= flushEvery)
+			{
+				writer.flush();
+				pendingRecords = 0;
+			}
+		}
+		catch (IOException e)
+		{
+			reportError("Cannot write into the log file", e, ErrorManager.WRITE_FAILURE);
+		}
+	}
+
+	/**
+	 * Method that writes the buffer into the disk
+	 */
+	@Override
+	public synchronized void flush()
+	{
+		if (closed)
+			return;
+		try
+		{
+			writer.flush();
+			pendingRecords = 0;
+		}
+		catch (IOException e)
+		{
+			reportError("Cannot flush the log file", e, ErrorManager.FLUSH_FAILURE);
+		}
+	}
+
+	/**
+	 * Method that writes the buffer and closes the file, the file is not rolled
+	 */
+	@Override
+	public synchronized void close() throws SecurityException
+	{
+		if (closed)
+			return;
+		closed = true;
+		try
+		{
+			writer.close();
+		}
+		catch (IOException e)
+		{
+			reportError("Cannot close the log file", e, ErrorManager.CLOSE_FAILURE);
+		}
+	}
+
+	/**
+	 * Method that opens the log file in append mode
+	 * @throws IOException If the file cannot be opened
+	 */
+	private void Open() throws IOException
+	{
+		this.writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8),
+				bufferSize);
+		this.size = file.length();
+		this.nextRoll = System.currentTimeMillis() + rollInterval;
+	}
+
+	/**
+	 * Method that closes the log file, renames it to the next segment and opens a new one.
+	 * The compression and the retention are done by the compressor
+	 * @throws IOException If the new file cannot be opened
+	 */
+	private void Roll() throws IOException
+	{
+		writer.close();
+		pendingRecords = 0;
+		if (size > 0)
+		{
+			final File closedSegment = new File(file.getPath() + "." + (++segment));
+			if (file.renameTo(closedSegment))
+				compressor.execute(() -> Compress(closedSegment));
+			else
+				reportError("Cannot rename the log file to " + closedSegment.getName(), null, ErrorManager.GENERIC_FAILURE);
+		}
+		Open();
+	}
+
+	/**
+	 * Method executed by the compressor: it gzips a closed segment and removes the oldest ones
+	 * @param closedSegment The segment that has just been closed
+	 */
+	private void Compress(File closedSegment)
+	{
+		File compressed = new File(closedSegment.getPath() + ".gz");
+		File temporary = new File(closedSegment.getPath() + ".gz.tmp");
+		try
+		{
+			//Writing into a temporary file so a half compressed segment is never taken as a good one
+			try (InputStream in = new FileInputStream(closedSegment);
+					OutputStream out = new GZIPOutputStream(new FileOutputStream(temporary), 64 * 1024))
+			{
+				byte[] buffer = new byte[64 * 1024];
+				int read;
+				while ((read = in.read(buffer)) != -1)
+					out.write(buffer, 0, read);
+			}
+			if (temporary.renameTo(compressed))
+				closedSegment.delete();
+			else
+				reportError("Cannot rename the compressed segment " + compressed.getName(), null, ErrorManager.GENERIC_FAILURE);
+		}
+		catch (IOException e)
+		{
+			temporary.delete();
+			reportError("Cannot compress the segment " + closedSegment.getName(), e, ErrorManager.GENERIC_FAILURE);
+		}
+
+		//Keeping only the newest segments
+		File[] segments = ListSegments();
+		Arrays.sort(segments, (first, second) -> Long.compare(SegmentNumber(first), SegmentNumber(second)));
+		for (int i = 0; i < segments.length - maxSegments; i++)
+			segments[i].delete();
+	}
+
+	/**
+	 * Method that gives the closed segments of the log file, compressed or not
+	 * @return the segments
+	 */
+	private File[] ListSegments()
+	{
+		final String prefix = file.getName() + ".";
+		File[] segments = file.getAbsoluteFile().getParentFile().listFiles((folder, name) -> name.startsWith(prefix)
+				&& !name.endsWith(".tmp") && SegmentNumber(name.substring(prefix.length())) > 0);
+		return segments == null ? new File[0] : segments;
+	}
+
+	/**
+	 * Method that gives the number of a segment from its file
+	 * @param segmentFile The segment
+	 * @return the number of the segment
+	 */
+	private long SegmentNumber(File segmentFile)
+	{
+		return SegmentNumber(segmentFile.getName().substring(file.getName().length() + 1));
+	}
+
+	/**
+	 * Method that gives the number of a segment from the end of its name ("3" or "3.gz")
+	 * @param suffix The part of the name after the name of the log file
+	 * @return the number of the segment or -1 if it is not a segment
+	 */
+	private static long SegmentNumber(String suffix)
+	{
+		String number = suffix.endsWith(".gz") ? suffix.substring(0, suffix.length() - 3) : suffix;
+		if (number.isEmpty() || number.length() > 18)
+			return -1;
+		for (int i = 0; i < number.length(); i++)
+			if (number.charAt(i) < '0' || number.charAt(i) > '9')
+				return -1;
+		return Long.parseLong(number);
+	}
+
+	/**
+	 * Method that gives the amount of bytes of a text in UTF-8, without encoding it
+	 * @param text The text
+	 * @return the amount of bytes
+	 */
+	private static int Utf8Length(String text)
+	{
+		int length = 0;
+		for (int i = 0; i < text.length(); i++)
+		{
+			char c = text.charAt(i);
+			if (c < 0x80)
+				length++;
+			else if (c < 0x800)
+				length += 2;
+			else if (Character.isHighSurrogate(c))
+			{
+				length += 4;
+				i++;
+			}
+			else
+				length += 3;
+		}
+		return length;
+	}
+
+	/**
+	 * Getter for the number of the last closed segment
+	 * @return the number of the segment, 0 if the file has never been rolled
+	 */
+	public synchronized long getSegment()
+	{
+		return segment;
+	}
+
+}
@@ -0,0 +1,86 @@
+package com.bl.logger.format;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Constants and helpers of the binary log format. A file starts with the header "JLOG" followed by
+ * the version byte, and then every message is written as: the type (the ordinal of LevelOfMessage,
+ * one byte), the moment in nanoseconds since the epoch (eight bytes, big-endian), the length of the
+ * text in bytes (unsigned varint, seven bits per byte) and the text in UTF-8
+ * @author Teddy
+ *
+ */
+public final class BinaryLogFormat {
+
+	//Header of every binary log file
+	public static final byte[] MAGIC = {'J', 'L', 'O', 'G'};
+	public static final byte VERSION = 1;
+	public static final int HEADER_LENGTH = MAGIC.length + 1;
+
+	/**
+	 * Private constructor, this class only has static methods
+	 */
+	private BinaryLogFormat() {
+	}
+
+	/**
+	 * Method that writes the header of a binary log file
+	 * @param out The stream of the file
+	 * @throws IOException If the header cannot be written
+	 */
+	public static void WriteHeader(OutputStream out) throws IOException
+	{
+		out.write(MAGIC);
+		out.write(VERSION);
+	}
+
+	/**
+	 * Method that reads and checks the header of a binary log file
+	 * @param in The stream of the file
+	 * @throws IOException If the stream is not a binary log of a known version
+	 */
+	public static void ReadHeader(InputStream in) throws IOException
+	{
+		for (byte expected : MAGIC)
+			if (in.read() != expected)
+				throw new IOException("The stream is not a binary log");
+		int version = in.read();
+		if (version != VERSION)
+			throw new IOException("Unsupported binary log version " + version);
+	}
+
+	/**
+	 * Method that writes a number as an unsigned varint into a buffer
+	 * @param value The number, it must not be negative
+	 * @param buffer The buffer
+	 * @param offset The position of the buffer where the varint starts
+	 * @return the position after the varint
+	 */
+	public static int PutVarint(int value, byte[] buffer, int offset)
+	{
+		while ((value & ~0x7F) != 0)
+		{
+			buffer[offset++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		buffer[offset++] = (byte) value;
+		return offset;
+	}
+
+	/**
+	 * Method that writes a number as eight big-endian bytes into a buffer
+	 * @param value The number
+	 * @param buffer The buffer
+	 * @param offset The position of the buffer where the number starts
+	 * @return the position after the number
+	 */
+	public static int PutLong(long value, byte[] buffer, int offset)
+	{
+		for (int shift = 56; shift >= 0; shift -= 8)
+			buffer[offset++] = (byte) (value >>> shift);
+		return offset;
+	}
+
+}
@@ -0,0 +1,207 @@
+package com.bl.logger.format;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import com.bl.logger.LevelOfMessage;
+
+/**
+ * Streaming decoder of the binary log format: it reads one message at a time and reuses its buffer,
+ * so files of any size can be read with constant memory
+ * @author Teddy
+ *
+ */
+public class BinaryLogReader implements Closeable {
+
+	//Longest text accepted, anything bigger means the file is corrupted
+	private static final int MAX_TEXT_LENGTH = 64 << 20;
+
+	//Atttributes of the class
+	private final InputStream in;
+	private byte[] buffer = new byte[256];
+	private LevelOfMessage level;
+	private long timestampNanos;
+	private String messageText;
+
+	/**
+	 * Constructor of the reader, it reads and checks the header of the stream
+	 * @param in The stream of the binary log
+	 * @throws IOException If the stream is not a binary log
+	 */
+	public BinaryLogReader(InputStream in) throws IOException
+	{
+		this(in, true);
+	}
+
+	/**
+	 * Constructor of the reader of a stream that may have only messages, like the frames sent to a collector
+	 * @param in The stream of the messages
+	 * @param header true to read and check the header of the stream first
+	 * @throws IOException If the header is expected and the stream is not a binary log
+	 */
+	public BinaryLogReader(InputStream in, boolean header) throws IOException
+	{
+		//The bytes already in memory don't need a buffer
+		this.in = in instanceof BufferedInputStream || in instanceof ByteArrayInputStream ? in
+				: new BufferedInputStream(in, 64 * 1024);
+		if (header)
+			BinaryLogFormat.ReadHeader(this.in);
+	}
+
+	/**
+	 * Method that reads the next message of the stream
+	 * @return true if a message has been read, false at the end of the stream
+	 * @throws IOException If the stream cannot be read or a message is incomplete
+	 */
+	public boolean Next() throws IOException
+	{
+		//A clean end of the stream can only happen before a message
+		int type = in.read();
+		if (type == -1)
+			return false;
+		LevelOfMessage[] levels = LevelOfMessage.values();
+		if (type >= levels.length)
+			throw new IOException("Unknown type of message " + type);
+
+		level = levels[type];
+		timestampNanos = 0;
+		for (int i = 0; i < 8; i++)
+			timestampNanos = (timestampNanos << 8) | ReadByte();
+		int length = ReadVarint();
+		if (buffer.length < length)
+			buffer = new byte[Math.max(length, buffer.length * 2)];
+		ReadFully(buffer, length);
+		messageText = new String(buffer, 0, length, StandardCharsets.UTF_8);
+		return true;
+	}
+
+	/**
+	 * Getter for the type of the current message
+	 * @return the type of the message
+	 */
+	public LevelOfMessage getLevel()
+	{
+		return level;
+	}
+
+	/**
+	 * Getter for the moment of the current message
+	 * @return the nanoseconds since the epoch
+	 */
+	public long getTimestampNanos()
+	{
+		return timestampNanos;
+	}
+
+	/**
+	 * Getter for the moment of the current message
+	 * @return the milliseconds since the epoch
+	 */
+	public long getTimestamp()
+	{
+		return timestampNanos / 1000000;
+	}
+
+	/**
+	 * Getter for the text of the current message
+	 * @return the text of the message
+	 */
+	public String getMessageText()
+	{
+		return messageText;
+	}
+
+	/**
+	 * Method that closes the stream
+	 * @throws IOException If the stream cannot be closed
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		in.close();
+	}
+
+	/**
+	 * Method that turns a whole binary log back into text, one "type date text" line per message
+	 * @param in The stream of the binary log
+	 * @param out Where the text is written
+	 * @return the amount of messages decoded
+	 * @throws IOException If the stream cannot be read or the text cannot be written
+	 */
+	public static long Decode(InputStream in, Writer out) throws IOException
+	{
+		BinaryLogReader reader = new BinaryLogReader(in);
+		StringBuilder line = MessageFormatter.GetBuffer();
+		long messages = 0;
+		while (reader.Next())
+		{
+			line.setLength(0);
+			MessageFormatter.FormatTo(line, reader.getLevel(), reader.getMessageText(), reader.getTimestamp())
+					.append(System.lineSeparator());
+			out.append(line);
+			messages++;
+		}
+		out.flush();
+		return messages;
+	}
+
+	/**
+	 * Method that reads one byte that must exist
+	 * @return the byte
+	 * @throws IOException If the stream has ended
+	 */
+	private int ReadByte() throws IOException
+	{
+		int value = in.read();
+		if (value == -1)
+			throw new EOFException("The last message of the binary log is incomplete");
+		return value;
+	}
+
+	/**
+	 * Method that reads an unsigned varint
+	 * @return the number
+	 * @throws IOException If the stream has ended or the number is not valid
+	 */
+	private int ReadVarint() throws IOException
+	{
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7)
+		{
+			int current = ReadByte();
+			value |= (current & 0x7F) << shift;
+			if ((current & 0x80) == 0)
+			{
+				if (value < 0 || value > MAX_TEXT_LENGTH)
+					throw new IOException("Invalid length of message " + value);
+				return value;
+			}
+		}
+		throw new IOException("Invalid length of message");
+	}
+
+	/**
+	 * Method that reads an exact amount of bytes
+	 * @param target Where the bytes are copied
+	 * @param length The amount of bytes
+	 * @throws IOException If the stream has ended
+	 */
+	private void ReadFully(byte[] target, int length) throws IOException
+	{
+		int read = 0;
+		while (read < length)
+		{
+			int current = in.read(target, read, length - read);
+			if (current == -1)
+				throw new EOFException("The last message of the binary log is incomplete");
+			read += current;
+		}
+	}
+
+}
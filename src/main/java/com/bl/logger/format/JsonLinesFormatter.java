@@ -0,0 +1,93 @@
+package com.bl.logger.format;
+
+import java.util.logging.Formatter;
+import java.util.logging.LogRecord;
+
+/**
+ * Formatter that writes every message as one JSON object per line, with the moment, the type,
+ * the text and (for structured events) the fields of the message
+ * @author Teddy
+ *
+ */
+public class JsonLinesFormatter extends Formatter {
+
+	//Characters that are written as an escape sequence
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	/**
+	 * Method that gives the JSON line of a record
+	 * @param record The record we will write
+	 * @return the JSON object followed by a line break
+	 */
+	@Override
+	public String format(LogRecord record)
+	{
+		StringBuilder buffer = new StringBuilder(128);
+		if (record instanceof MessageRecord && ((MessageRecord) record).getEvent() != null)
+		{
+			MessageRecord message = (MessageRecord) record;
+			message.getEvent().AppendJson(buffer, message.getLevelOfMessage(), record.getMillis());
+		}
+		else
+		{
+			String level;
+			String text;
+			if (record instanceof MessageRecord)
+			{
+				level = ((MessageRecord) record).getLevelOfMessage().name();
+				text = ((MessageRecord) record).getMessageText();
+			}
+			else
+			{
+				level = record.getLevel().getName();
+				text = formatMessage(record);
+			}
+			buffer.append("{\"timestamp\":").append(record.getMillis()).append(",\"level\":\"").append(level)
+					.append("\",\"message\":");
+			AppendString(buffer, text == null ? "" : text);
+			buffer.append('}');
+		}
+		return buffer.append('\n').toString();
+	}
+
+	/**
+	 * Method that appends a text as a JSON string, with its quotes and its escape sequences
+	 * @param buffer The buffer where the text is appended
+	 * @param text The text
+	 * @return the same buffer
+	 */
+	public static StringBuilder AppendString(StringBuilder buffer, CharSequence text)
+	{
+		buffer.append('"');
+		for (int i = 0; i < text.length(); i++)
+		{
+			char c = text.charAt(i);
+			switch(c)
+			{
+				case '"':
+					buffer.append("\\\"");
+					break;
+				case '\\':
+					buffer.append("\\\\");
+					break;
+				case '\n':
+					buffer.append("\\n");
+					break;
+				case '\r':
+					buffer.append("\\r");
+					break;
+				case '\t':
+					buffer.append("\\t");
+					break;
+				default:
+					if (c < 0x20)
+						buffer.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+					else
+						buffer.append(c);
+					break;
+			}
+		}
+		return buffer.append('"');
+	}
+
+}
@@ -0,0 +1,194 @@
+package com.bl.logger.format;
+
+import java.text.DateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.logging.Level;
+
+import com.bl.logger.LevelOfMessage;
+
+/**
+ * Class that prepares the final message (type + date + message) of the logger. It does not keep
+ * any shared mutable state: the "type date " prefixes are computed once per day and published
+ * as an immutable object, and every thread has its own reusable buffer
+ * @author Teddy
+ *
+ */
+public final class MessageFormatter {
+
+	//Buffers bigger than this are not kept by the thread
+	private static final int MAX_KEPT_BUFFER = 64 * 1024;
+
+	//Atttributes of the class
+	private static final ThreadLocal<StringBuilder> buffers = ThreadLocal.withInitial(() -> new StringBuilder(256));
+	private static volatile DayPrefixes today = new DayPrefixes(System.currentTimeMillis());
+
+	/**
+	 * Private constructor, this class only has static methods
+	 */
+	private MessageFormatter() {
+	}
+
+	/**
+	 * Method that gives the final message for a message logged right now
+	 * @param level The type of the message
+	 * @param messageText The text of the message
+	 * @return the final message
+	 */
+	public static String Format(LevelOfMessage level, String messageText)
+	{
+		return Format(level, messageText, System.currentTimeMillis());
+	}
+
+	/**
+	 * Method that gives the final message for a message logged at a given moment
+	 * @param level The type of the message
+	 * @param messageText The text of the message
+	 * @param timestamp The moment (in milliseconds) the message was logged
+	 * @return the final message
+	 */
+	public static String Format(LevelOfMessage level, String messageText, long timestamp)
+	{
+		//The prefix already has the trailing space, a single allocation gives the final message
+		return Prefix(level, timestamp).concat(messageText);
+	}
+
+	/**
+	 * Method that appends the final message into a buffer, without creating any string
+	 * @param buffer The buffer where the message is appended
+	 * @param level The type of the message
+	 * @param messageText The text of the message
+	 * @param timestamp The moment (in milliseconds) the message was logged
+	 * @return the same buffer
+	 */
+	public static StringBuilder FormatTo(StringBuilder buffer, LevelOfMessage level, CharSequence messageText, long timestamp)
+	{
+		return buffer.append(Prefix(level, timestamp)).append(messageText);
+	}
+
+	/**
+	 * Method that gives the empty reusable buffer of the current thread
+	 * @return the buffer of the thread
+	 */
+	public static StringBuilder GetBuffer()
+	{
+		StringBuilder buffer = buffers.get();
+		if (buffer.capacity() > MAX_KEPT_BUFFER)
+		{
+			buffer = new StringBuilder(256);
+			buffers.set(buffer);
+		}
+		buffer.setLength(0);
+		return buffer;
+	}
+
+	/**
+	 * Method that gives the "type date " prefix of a message
+	 * @param level The type of the message
+	 * @param timestamp The moment (in milliseconds) the message was logged
+	 * @return the prefix
+	 */
+	public static String Prefix(LevelOfMessage level, long timestamp)
+	{
+		DayPrefixes prefixes = today;
+		if (!prefixes.Contains(timestamp))
+		{
+			//The date has rolled over, messages of another day (late asynchronous ones) are not cached
+			DayPrefixes other = new DayPrefixes(timestamp);
+			if (timestamp > prefixes.dayStart)
+				today = other;
+			prefixes = other;
+		}
+		return prefixes.prefixes[level.ordinal()];
+	}
+
+	/**
+	 * Method that gives the java.util.logging level of a type of message
+	 * @param level The type of the message
+	 * @return the equivalent level
+	 */
+	public static Level ToLevel(LevelOfMessage level)
+	{
+		switch(level)
+		{
+			case ERROR:
+				return Level.SEVERE;
+			case WARNING:
+				return Level.WARNING;
+			default:
+				return Level.INFO;
+		}
+	}
+
+	/**
+	 * Method that gives the type of message of a java.util.logging level
+	 * @param level The level of the record
+	 * @return the equivalent type of message
+	 */
+	public static LevelOfMessage ToLevelOfMessage(Level level)
+	{
+		if (level.intValue() >= Level.SEVERE.intValue())
+			return LevelOfMessage.ERROR;
+		if (level.intValue() >= Level.WARNING.intValue())
+			return LevelOfMessage.WARNING;
+		return LevelOfMessage.MESSAGE;
+	}
+
+	/**
+	 * Immutable holder of the prefixes of every type of message for one day
+	 */
+	private static final class DayPrefixes {
+
+		private final long dayStart;
+		private final long dayEnd;
+		private final String[] prefixes;
+
+		/**
+		 * Constructor that computes the prefixes for the day of the timestamp
+		 * @param timestamp A moment of the day
+		 */
+		private DayPrefixes(long timestamp)
+		{
+			//Finding where the day begins and ends in the default time zone
+			Calendar calendar = Calendar.getInstance();
+			calendar.setTimeInMillis(timestamp);
+			calendar.set(Calendar.HOUR_OF_DAY, 0);
+			calendar.set(Calendar.MINUTE, 0);
+			calendar.set(Calendar.SECOND, 0);
+			calendar.set(Calendar.MILLISECOND, 0);
+			this.dayStart = calendar.getTimeInMillis();
+			calendar.add(Calendar.DAY_OF_MONTH, 1);
+			this.dayEnd = calendar.getTimeInMillis();
+
+			//Same text the logger has always produced
+			String date = DateFormat.getDateInstance(DateFormat.LONG).format(new Date(timestamp));
+			this.prefixes = new String[LevelOfMessage.values().length];
+			for (LevelOfMessage level : LevelOfMessage.values())
+			{
+				switch(level)
+				{
+					case ERROR:
+						prefixes[level.ordinal()] = "error " + date + " ";
+						break;
+					case WARNING:
+						prefixes[level.ordinal()] = "warning " + date + " ";
+						break;
+					default:
+						prefixes[level.ordinal()] = "message " + date + " ";
+						break;
+				}
+			}
+		}
+
+		/**
+		 * Method that checks if a moment belongs to the day of the prefixes
+		 * @param timestamp The moment in milliseconds
+		 * @return true if the prefixes can be used for that moment
+		 */
+		private boolean Contains(long timestamp)
+		{
+			return timestamp >= dayStart && timestamp < dayEnd;
+		}
+	}
+
+}
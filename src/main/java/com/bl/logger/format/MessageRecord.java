@@ -0,0 +1,100 @@
+package com.bl.logger.format;
+
+import java.util.logging.LogRecord;
+
+import com.bl.logger.LevelOfMessage;
+import com.bl.logger.event.LogEvent;
+
+/**
+ * Log record of a message of the logger. Its message is the final text ("type date text") the
+ * handlers of "MyLog" have always received, built the first time it is asked for. It also keeps the
+ * type, the moment and the original text so the appenders that don't write text don't have to parse it back
+ * @author Teddy
+ *
+ */
+public class MessageRecord extends LogRecord {
+
+	private static final long serialVersionUID = 1L;
+
+	//Atttributes of the class
+	private final LevelOfMessage levelOfMessage;
+	private final transient LogEvent event;
+	private String messageText;
+
+	/**
+	 * Constructor of the record
+	 * @param level The type of the message
+	 * @param messageText The text of the message
+	 * @param timestamp The moment (in milliseconds) the message was logged
+	 */
+	@SuppressWarnings("deprecation")
+	public MessageRecord(LevelOfMessage level, String messageText, long timestamp)
+	{
+		super(MessageFormatter.ToLevel(level), null);
+		this.levelOfMessage = level;
+		this.messageText = messageText;
+		this.event = null;
+		setMillis(timestamp);
+	}
+
+	/**
+	 * Constructor of the record of a structured event, its text is only built if a handler needs it
+	 * @param level The type of the message
+	 * @param event The structured event
+	 * @param timestamp The moment (in milliseconds) the message was logged
+	 */
+	@SuppressWarnings("deprecation")
+	public MessageRecord(LevelOfMessage level, LogEvent event, long timestamp)
+	{
+		super(MessageFormatter.ToLevel(level), null);
+		this.levelOfMessage = level;
+		this.event = event;
+		setMillis(timestamp);
+	}
+
+	/**
+	 * Getter for the final message, it is formatted only once and only if a handler needs it
+	 * @return the final message
+	 */
+	@Override
+	public String getMessage()
+	{
+		String message = super.getMessage();
+		if (message == null)
+		{
+			message = MessageFormatter.Format(levelOfMessage, getMessageText(), getMillis());
+			setMessage(message);
+		}
+		return message;
+	}
+
+	/**
+	 * Getter for the type of the message
+	 * @return the type of the message
+	 */
+	public LevelOfMessage getLevelOfMessage()
+	{
+		return levelOfMessage;
+	}
+
+	/**
+	 * Getter for the text of the message, without the type and the date
+	 * @return the text of the message
+	 */
+	public String getMessageText()
+	{
+		if (messageText == null && event != null)
+			messageText = event.getMessageText();
+		return messageText;
+	}
+
+	/**
+	 * Getter for the structured event of the record
+	 * @return the event, or null if the message is a plain text
+	 */
+	public LogEvent getEvent()
+	{
+		return event;
+	}
+
+}
@@ -0,0 +1,152 @@
+package com.bl.logger.format;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Class that holds a message pattern with {} placeholders already split into its literal parts, so
+ * the pattern is scanned only once. The parsed patterns are cached, a call site that always logs the
+ * same pattern only pays for a lookup. A placeholder written as \{} is kept as the literal text {}
+ * @author Teddy
+ *
+ */
+public final class MessageTemplate {
+
+	//Amount of patterns kept before the cache is emptied
+	private static final int MAX_CACHED_TEMPLATES = 1024;
+
+	//Atttributes of the class
+	private static final Map<String, MessageTemplate> cachedTemplates = new ConcurrentHashMap<String, MessageTemplate>();
+	private final String pattern;
+	private final String[] parts;
+
+	/**
+	 * Constructor of the template, it splits the pattern around its placeholders
+	 * @param pattern The pattern of the message
+	 */
+	private MessageTemplate(String pattern)
+	{
+		List<String> found = new ArrayList<String>();
+		StringBuilder part = new StringBuilder(pattern.length());
+		int length = pattern.length();
+		for (int i = 0; i < length; i++)
+		{
+			char current = pattern.charAt(i);
+			if (current == '\\' && i + 2 < length && pattern.charAt(i + 1) == '{' && pattern.charAt(i + 2) == '}')
+			{
+				//An escaped placeholder is only text
+				part.append("{}");
+				i += 2;
+			}
+			else if (current == '{' && i + 1 < length && pattern.charAt(i + 1) == '}')
+			{
+				found.add(part.toString());
+				part.setLength(0);
+				i++;
+			}
+			else
+				part.append(current);
+		}
+		//A pattern without placeholders nor escapes is kept as it is
+		found.add(found.isEmpty() && part.length() == length ? pattern : part.toString());
+		this.pattern = pattern;
+		this.parts = found.toArray(new String[found.size()]);
+	}
+
+	/**
+	 * Method that gives the parsed template of a pattern, parsing it only the first time it is seen
+	 * @param pattern The pattern of the message
+	 * @return the parsed template
+	 */
+	public static MessageTemplate Parse(String pattern)
+	{
+		MessageTemplate template = cachedTemplates.get(pattern);
+		if (template == null)
+		{
+			template = new MessageTemplate(pattern);
+			if (cachedTemplates.size() >= MAX_CACHED_TEMPLATES)
+				cachedTemplates.clear();
+			cachedTemplates.put(pattern, template);
+		}
+		return template;
+	}
+
+	/**
+	 * Method that gives the text of the message with the arguments in place of the placeholders, it is
+	 * built in the reusable buffer of the thread so only the final string is created
+	 * @param arguments The values of the placeholders, in order
+	 * @return the text of the message
+	 */
+	public String Format(Object... arguments)
+	{
+		//A pattern without placeholders is already the text of the message
+		if (parts.length == 1)
+			return parts[0];
+		return AppendTo(MessageFormatter.GetBuffer(), arguments).toString();
+	}
+
+	/**
+	 * Method that appends the text of the message with the arguments in place of the placeholders. The
+	 * placeholders without argument are kept as {} and the arguments without placeholder are ignored
+	 * @param buffer The buffer where the text is appended
+	 * @param arguments The values of the placeholders, in order
+	 * @return the same buffer
+	 */
+	public StringBuilder AppendTo(StringBuilder buffer, Object... arguments)
+	{
+		int count = arguments == null ? 0 : arguments.length;
+		buffer.append(parts[0]);
+		for (int i = 1; i < parts.length; i++)
+		{
+			if (i - 1 < count)
+				AppendArgument(buffer, arguments[i - 1]);
+			else
+				buffer.append("{}");
+			buffer.append(parts[i]);
+		}
+		return buffer;
+	}
+
+	/**
+	 * Method that appends an argument, showing the content of the arrays instead of their identity
+	 * @param buffer The buffer where the argument is appended
+	 * @param argument The value of the placeholder
+	 */
+	private static void AppendArgument(StringBuilder buffer, Object argument)
+	{
+		if (argument instanceof Object[])
+			buffer.append(Arrays.deepToString((Object[]) argument));
+		else if (argument instanceof int[])
+			buffer.append(Arrays.toString((int[]) argument));
+		else if (argument instanceof long[])
+			buffer.append(Arrays.toString((long[]) argument));
+		else if (argument instanceof double[])
+			buffer.append(Arrays.toString((double[]) argument));
+		else if (argument instanceof byte[])
+			buffer.append(Arrays.toString((byte[]) argument));
+		else
+			buffer.append(argument);
+	}
+
+	/**
+	 * Getter for the amount of placeholders of the pattern
+	 * @return the amount of placeholders
+	 */
+	public int getPlaceholderCount()
+	{
+		return parts.length - 1;
+	}
+
+	/**
+	 * Getter for the pattern of the message
+	 * @return the pattern
+	 */
+	public String getPattern()
+	{
+		return pattern;
+	}
+
+}
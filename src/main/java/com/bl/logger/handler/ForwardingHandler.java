@@ -0,0 +1,55 @@
+package com.bl.logger.handler;
+
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Handler that gives the records to the handlers of another logger, and only to them. The appenders
+ * use it to reach the handlers of "MyLog" without going up to the handlers of the root logger, whose
+ * console handler would write every message again into the console, synchronously
+ * @author Teddy
+ *
+ */
+public class ForwardingHandler extends Handler {
+
+	//Atttributes of the class
+	private final Logger target;
+
+	/**
+	 * Constructor of the handler
+	 * @param target The logger whose handlers receive the records
+	 */
+	public ForwardingHandler(Logger target)
+	{
+		this.target = target;
+	}
+
+	/**
+	 * Method that gives the record to every handler of the target logger
+	 * @param record the specific log record we are forwarding
+	 */
+	@Override
+	public void publish(LogRecord record)
+	{
+		for (Handler handler : target.getHandlers())
+			handler.publish(record);
+	}
+
+	/**
+	 * The handlers belong to the target logger, they are flushed by their owner
+	 */
+	@Override
+	public void flush()
+	{
+	}
+
+	/**
+	 * The handlers belong to the target logger, they are closed by their owner
+	 */
+	@Override
+	public void close() throws SecurityException
+	{
+	}
+
+}
@@ -0,0 +1,47 @@
+package com.bl.logger.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counter that only goes up, it can be increased by many threads at once without contention
+ * @author Teddy
+ *
+ */
+public final class Counter {
+
+	//Atttributes of the class
+	private final LongAdder value = new LongAdder();
+
+	/**
+	 * Package constructor, counters are created by the MetricsRegistry
+	 */
+	Counter() {
+	}
+
+	/**
+	 * Method that adds one to the counter
+	 */
+	public void Increment()
+	{
+		value.increment();
+	}
+
+	/**
+	 * Method that adds an amount to the counter
+	 * @param amount The amount, it must not be negative
+	 */
+	public void Add(long amount)
+	{
+		value.add(amount);
+	}
+
+	/**
+	 * Getter for the value of the counter
+	 * @return the value
+	 */
+	public long getValue()
+	{
+		return value.sum();
+	}
+
+}
@@ -0,0 +1,16 @@
+package com.bl.logger.metrics;
+
+/**
+ * Interface of a value that is read when the metrics are looked at, for example the size of a buffer
+ * @author Teddy
+ *
+ */
+public interface Gauge {
+
+	/**
+	 * Method that gives the current value
+	 * @return the value
+	 */
+	long Value();
+
+}
@@ -0,0 +1,82 @@
+package com.bl.logger.metrics;
+
+/**
+ * Immutable summary of a latency histogram, all the values are in nanoseconds
+ * @author Teddy
+ *
+ */
+public final class HistogramSnapshot {
+
+	//Atttributes of the class
+	private final long count;
+	private final double mean;
+	private final long max;
+	private final long p50;
+	private final long p90;
+	private final long p99;
+	private final long p999;
+
+	/**
+	 * Constructor of the snapshot
+	 * @param count The amount of records
+	 * @param mean The mean latency
+	 * @param max The maximum latency
+	 * @param p50 The median
+	 * @param p90 The 90th percentile
+	 * @param p99 The 99th percentile
+	 * @param p999 The 99.9th percentile
+	 */
+	HistogramSnapshot(long count, double mean, long max, long p50, long p90, long p99, long p999)
+	{
+		this.count = count;
+		this.mean = mean;
+		this.max = max;
+		this.p50 = p50;
+		this.p90 = p90;
+		this.p99 = p99;
+		this.p999 = p999;
+	}
+
+	public long getCount()
+	{
+		return count;
+	}
+
+	public double getMean()
+	{
+		return mean;
+	}
+
+	public long getMax()
+	{
+		return max;
+	}
+
+	public long getP50()
+	{
+		return p50;
+	}
+
+	public long getP90()
+	{
+		return p90;
+	}
+
+	public long getP99()
+	{
+		return p99;
+	}
+
+	public long getP999()
+	{
+		return p999;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "count=" + count + " mean=" + (long) mean + "ns p50=" + p50 + "ns p90=" + p90 + "ns p99=" + p99
+				+ "ns p999=" + p999 + "ns max=" + max + "ns";
+	}
+
+}
@@ -0,0 +1,140 @@
+package com.bl.logger.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of latencies in nanoseconds with a fixed memory footprint, in the style of HdrHistogram:
+ * every power of two is split into 32 linear buckets, so any percentile has an error under about 3%.
+ * Recording is a couple of atomic increments and never allocates
+ * @author Teddy
+ *
+ */
+public final class LatencyHistogram {
+
+	//Every power of two is split into 2^SUB_BUCKET_BITS buckets
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	//Atttributes of the class
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Package constructor, histograms are created by the MetricsRegistry
+	 */
+	LatencyHistogram() {
+	}
+
+	/**
+	 * Method that records one latency
+	 * @param nanos The latency in nanoseconds, negative values are taken as zero
+	 */
+	public void Record(long nanos)
+	{
+		long value = Math.max(0, nanos);
+		buckets.incrementAndGet(Index(value));
+		count.increment();
+		sum.add(value);
+
+		//The maximum only changes a few times, so the loop almost never repeats
+		long current = max.get();
+		while (value > current && !max.compareAndSet(current, value))
+			current = max.get();
+	}
+
+	/**
+	 * Method that records the time elapsed since a moment
+	 * @param startNanos The moment given by System.nanoTime when the operation started
+	 */
+	public void RecordSince(long startNanos)
+	{
+		Record(System.nanoTime() - startNanos);
+	}
+
+	/**
+	 * Method that gives the count, the mean, the maximum and the main percentiles of the histogram.
+	 * It does not stop the writers, so a snapshot taken under load may be off by the records in flight
+	 * @return the snapshot
+	 */
+	public HistogramSnapshot Snapshot()
+	{
+		long[] copy = new long[BUCKETS];
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++)
+		{
+			copy[i] = buckets.get(i);
+			total += copy[i];
+		}
+		long maximum = max.get();
+		double mean = total == 0 ? 0 : (double) sum.sum() / total;
+		return new HistogramSnapshot(total, mean, maximum,
+				Percentile(copy, total, 0.50, maximum), Percentile(copy, total, 0.90, maximum),
+				Percentile(copy, total, 0.99, maximum), Percentile(copy, total, 0.999, maximum));
+	}
+
+	/**
+	 * Getter for the amount of recorded latencies
+	 * @return the amount of records
+	 */
+	public long getCount()
+	{
+		return count.sum();
+	}
+
+	/**
+	 * Method that gives a percentile from a copy of the buckets
+	 * @param copy The copy of the buckets
+	 * @param total The amount of records of the copy
+	 * @param quantile The percentile between 0 and 1
+	 * @param maximum The maximum recorded value, no percentile goes over it
+	 * @return the highest value of the bucket of the percentile
+	 */
+	private static long Percentile(long[] copy, long total, double quantile, long maximum)
+	{
+		if (total == 0)
+			return 0;
+		long rank = Math.max(1, (long) Math.ceil(quantile * total));
+		long seen = 0;
+		for (int i = 0; i < copy.length; i++)
+		{
+			seen += copy[i];
+			if (seen >= rank)
+				return Math.min(HighestValue(i), maximum);
+		}
+		return maximum;
+	}
+
+	/**
+	 * Method that gives the bucket of a value
+	 * @param value The value, not negative
+	 * @return the index of the bucket
+	 */
+	static int Index(long value)
+	{
+		if (value < SUB_BUCKETS)
+			return (int) value;
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int shift = exponent - SUB_BUCKET_BITS;
+		return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+	}
+
+	/**
+	 * Method that gives the highest value that goes into a bucket
+	 * @param index The index of the bucket
+	 * @return the highest value of the bucket
+	 */
+	static long HighestValue(int index)
+	{
+		if (index < SUB_BUCKETS)
+			return index;
+		int shift = index / SUB_BUCKETS - 1;
+		long subBucket = index % SUB_BUCKETS + SUB_BUCKETS;
+		return ((subBucket + 1) << shift) - 1;
+	}
+
+}
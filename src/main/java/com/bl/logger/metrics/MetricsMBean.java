@@ -0,0 +1,112 @@
+package com.bl.logger.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+
+/**
+ * Read-only MBean with one attribute per metric. Counters and gauges keep their name, every histogram
+ * gives the attributes name.count, name.mean, name.p50, name.p90, name.p99, name.p999 and name.max
+ * @author Teddy
+ *
+ */
+class MetricsMBean implements DynamicMBean {
+
+	/**
+	 * Method that gives the value of an attribute
+	 * @param attribute The name of the attribute
+	 * @return the value of the metric
+	 * @throws AttributeNotFoundException If there is no metric with that name
+	 */
+	@Override
+	public Object getAttribute(String attribute) throws AttributeNotFoundException
+	{
+		Object value = Attributes(MetricsRegistry.Snapshot()).get(attribute);
+		if (value == null)
+			throw new AttributeNotFoundException(attribute);
+		return value;
+	}
+
+	/**
+	 * Method that gives the value of many attributes with a single snapshot
+	 * @param attributes The names of the attributes
+	 * @return the attributes that exist
+	 */
+	@Override
+	public AttributeList getAttributes(String[] attributes)
+	{
+		Map<String, Object> values = Attributes(MetricsRegistry.Snapshot());
+		AttributeList list = new AttributeList();
+		for (String attribute : attributes)
+			if (values.containsKey(attribute))
+				list.add(new Attribute(attribute, values.get(attribute)));
+		return list;
+	}
+
+	/**
+	 * Method that describes the attributes, they change as new metrics are created
+	 * @return the description of the MBean
+	 */
+	@Override
+	public MBeanInfo getMBeanInfo()
+	{
+		List<MBeanAttributeInfo> infos = new ArrayList<MBeanAttributeInfo>();
+		for (Map.Entry<String, Object> entry : Attributes(MetricsRegistry.Snapshot()).entrySet())
+			infos.add(new MBeanAttributeInfo(entry.getKey(), entry.getValue().getClass().getName(),
+					"Metric " + entry.getKey() + " of the logger", true, false, false));
+		return new MBeanInfo(getClass().getName(), "Metrics of the logger",
+				infos.toArray(new MBeanAttributeInfo[infos.size()]), null, new MBeanOperationInfo[0], null);
+	}
+
+	@Override
+	public void setAttribute(Attribute attribute) throws AttributeNotFoundException
+	{
+		throw new AttributeNotFoundException("The metrics of the logger are read-only");
+	}
+
+	@Override
+	public AttributeList setAttributes(AttributeList attributes)
+	{
+		return new AttributeList();
+	}
+
+	@Override
+	public Object invoke(String actionName, Object[] params, String[] signature)
+	{
+		throw new UnsupportedOperationException("The metrics of the logger have no operations");
+	}
+
+	/**
+	 * Method that flattens a snapshot into attributes
+	 * @param snapshot The snapshot of the metrics
+	 * @return the value of every attribute by name
+	 */
+	private static Map<String, Object> Attributes(MetricsSnapshot snapshot)
+	{
+		Map<String, Object> values = new TreeMap<String, Object>();
+		values.putAll(snapshot.getCounters());
+		values.putAll(snapshot.getGauges());
+		for (Map.Entry<String, HistogramSnapshot> entry : snapshot.getHistograms().entrySet())
+		{
+			HistogramSnapshot histogram = entry.getValue();
+			values.put(entry.getKey() + ".count", histogram.getCount());
+			values.put(entry.getKey() + ".mean", histogram.getMean());
+			values.put(entry.getKey() + ".p50", histogram.getP50());
+			values.put(entry.getKey() + ".p90", histogram.getP90());
+			values.put(entry.getKey() + ".p99", histogram.getP99());
+			values.put(entry.getKey() + ".p999", histogram.getP999());
+			values.put(entry.getKey() + ".max", histogram.getMax());
+		}
+		return values;
+	}
+
+}
@@ -0,0 +1,137 @@
+package com.bl.logger.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Registry of the metrics of the logger, without any external dependency. Counters, gauges and
+ * latency histograms are created the first time their name is used and live as long as the
+ * application. Every metric can be read with Snapshot, and through JMX as the attributes of
+ * the MBean com.bl.logger:type=Metrics
+ * @author Teddy
+ *
+ */
+public final class MetricsRegistry {
+
+	//Name of the MBean of the metrics
+	public static final String OBJECT_NAME = "com.bl.logger:type=Metrics";
+
+	//Atttributes of the class
+	private static final Map<String, Counter> counters = new ConcurrentHashMap<String, Counter>();
+	private static final Map<String, Gauge> gauges = new ConcurrentHashMap<String, Gauge>();
+	private static final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<String, LatencyHistogram>();
+	private static volatile boolean registeredInJmx;
+
+	/**
+	 * Private constructor, this class only has static methods
+	 */
+	private MetricsRegistry() {
+	}
+
+	/**
+	 * Method that gives a counter, creating it the first time
+	 * @param name The name of the counter
+	 * @return the counter
+	 */
+	public static Counter GetCounter(String name)
+	{
+		Counter counter = counters.get(name);
+		if (counter == null)
+		{
+			RegisterInJmx();
+			counter = counters.computeIfAbsent(name, key -> new Counter());
+		}
+		return counter;
+	}
+
+	/**
+	 * Method that gives a latency histogram, creating it the first time
+	 * @param name The name of the histogram
+	 * @return the histogram
+	 */
+	public static LatencyHistogram GetHistogram(String name)
+	{
+		LatencyHistogram histogram = histograms.get(name);
+		if (histogram == null)
+		{
+			RegisterInJmx();
+			histogram = histograms.computeIfAbsent(name, key -> new LatencyHistogram());
+		}
+		return histogram;
+	}
+
+	/**
+	 * Method that registers a gauge, replacing the previous one with the same name
+	 * @param name The name of the gauge
+	 * @param gauge The function that reads the value
+	 */
+	public static void RegisterGauge(String name, Gauge gauge)
+	{
+		RegisterInJmx();
+		gauges.put(name, gauge);
+	}
+
+	/**
+	 * Method that takes a copy of every metric
+	 * @return the snapshot
+	 */
+	public static MetricsSnapshot Snapshot()
+	{
+		TreeMap<String, Long> counterValues = new TreeMap<String, Long>();
+		for (Map.Entry<String, Counter> entry : counters.entrySet())
+			counterValues.put(entry.getKey(), entry.getValue().getValue());
+
+		//A gauge that fails is left out instead of breaking the whole snapshot
+		TreeMap<String, Long> gaugeValues = new TreeMap<String, Long>();
+		for (Map.Entry<String, Gauge> entry : gauges.entrySet())
+		{
+			try
+			{
+				gaugeValues.put(entry.getKey(), entry.getValue().Value());
+			}
+			catch (RuntimeException e)
+			{
+				//Nothing to report for this gauge
+			}
+		}
+
+		TreeMap<String, HistogramSnapshot> histogramValues = new TreeMap<String, HistogramSnapshot>();
+		for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet())
+			histogramValues.put(entry.getKey(), entry.getValue().Snapshot());
+		return new MetricsSnapshot(System.currentTimeMillis(), counterValues, gaugeValues, histogramValues);
+	}
+
+	/**
+	 * Method that publishes the metrics in the platform MBean server, only the first time it is called.
+	 * If JMX is not available the metrics can still be read with Snapshot
+	 */
+	private static void RegisterInJmx()
+	{
+		if (registeredInJmx)
+			return;
+		synchronized (MetricsRegistry.class)
+		{
+			if (registeredInJmx)
+				return;
+			registeredInJmx = true;
+			try
+			{
+				MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+				ObjectName name = new ObjectName(OBJECT_NAME);
+				if (!server.isRegistered(name))
+					server.registerMBean(new MetricsMBean(), name);
+			}
+			catch (JMException | SecurityException e)
+			{
+				//The metrics are still available through Snapshot
+			}
+		}
+	}
+
+}
@@ -0,0 +1,93 @@
+package com.bl.logger.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable copy of every metric of the logger at a given moment, sorted by name
+ * @author Teddy
+ *
+ */
+public final class MetricsSnapshot {
+
+	//Atttributes of the class
+	private final long timestamp;
+	private final Map<String, Long> counters;
+	private final Map<String, Long> gauges;
+	private final Map<String, HistogramSnapshot> histograms;
+
+	/**
+	 * Constructor of the snapshot, it takes ownership of the maps
+	 * @param timestamp The moment (in milliseconds) the snapshot was taken
+	 * @param counters The value of every counter
+	 * @param gauges The value of every gauge
+	 * @param histograms The summary of every histogram
+	 */
+	MetricsSnapshot(long timestamp, TreeMap<String, Long> counters, TreeMap<String, Long> gauges,
+			TreeMap<String, HistogramSnapshot> histograms)
+	{
+		this.timestamp = timestamp;
+		this.counters = Collections.unmodifiableMap(counters);
+		this.gauges = Collections.unmodifiableMap(gauges);
+		this.histograms = Collections.unmodifiableMap(histograms);
+	}
+
+	/**
+	 * Getter for the moment the snapshot was taken
+	 * @return the time in milliseconds
+	 */
+	public long getTimestamp()
+	{
+		return timestamp;
+	}
+
+	/**
+	 * Getter for the counters
+	 * @return the value of every counter by name
+	 */
+	public Map<String, Long> getCounters()
+	{
+		return counters;
+	}
+
+	/**
+	 * Getter for the gauges
+	 * @return the value of every gauge by name
+	 */
+	public Map<String, Long> getGauges()
+	{
+		return gauges;
+	}
+
+	/**
+	 * Getter for the histograms
+	 * @return the summary of every histogram by name
+	 */
+	public Map<String, HistogramSnapshot> getHistograms()
+	{
+		return histograms;
+	}
+
+	/**
+	 * Method that gives the value of a counter
+	 * @param name The name of the counter
+	 * @return the value, 0 if the counter does not exist
+	 */
+	public long Counter(String name)
+	{
+		Long value = counters.get(name);
+		return value == null ? 0 : value;
+	}
+
+	/**
+	 * Method that gives the summary of a histogram
+	 * @param name The name of the histogram
+	 * @return the summary, or null if the histogram does not exist
+	 */
+	public HistogramSnapshot Histogram(String name)
+	{
+		return histograms.get(name);
+	}
+
+}
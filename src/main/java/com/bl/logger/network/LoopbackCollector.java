@@ -0,0 +1,345 @@
+package com.bl.logger.network;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.bl.logger.format.MessageRecord;
+
+/**
+ * Collector that listens on the loopback address and keeps in memory the messages of the frames it
+ * receives. It is meant for the tests and for checking a configuration locally, not for production
+ * @author Teddy
+ *
+ */
+public class LoopbackCollector implements AutoCloseable {
+
+	//Atttributes of the class
+	private final ServerSocketChannel server;
+	private final DatagramChannel datagram;
+	private final Thread receiver;
+	private final List<SocketChannel> connections = new ArrayList<SocketChannel>();
+	private final List<Thread> readers = new ArrayList<Thread>();
+	private final List<MessageRecord> records = new ArrayList<MessageRecord>();
+	private int frames;
+	private int compressedFrames;
+	private boolean closed;
+	private volatile IOException lastFailure;
+
+	/**
+	 * Constructor of the collector, it starts listening right away
+	 * @param udp true to receive datagrams, false to accept TCP connections
+	 * @param port The port to listen on, 0 to take any free port
+	 * @throws IOException If the port cannot be used
+	 */
+	public LoopbackCollector(boolean udp, int port) throws IOException
+	{
+		InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+		if (udp)
+		{
+			server = null;
+			datagram = DatagramChannel.open();
+			datagram.bind(address);
+			receiver = new Thread(this::ReceiveDatagrams, "JobLogger-collector");
+		}
+		else
+		{
+			//The port can be taken again as soon as a previous collector is closed
+			datagram = null;
+			server = ServerSocketChannel.open();
+			server.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+			server.bind(address);
+			receiver = new Thread(this::Accept, "JobLogger-collector");
+		}
+		receiver.setDaemon(true);
+		receiver.start();
+	}
+
+	/**
+	 * Method executed by the receiver thread with TCP, every connection is read by its own thread
+	 */
+	private void Accept()
+	{
+		try
+		{
+			while (true)
+			{
+				SocketChannel connection = server.accept();
+				Thread reader = new Thread(() -> Read(connection), "JobLogger-collector-connection");
+				reader.setDaemon(true);
+				synchronized (records)
+				{
+					//A connection accepted while closing is not read
+					if (closed)
+					{
+						connection.close();
+						return;
+					}
+					connections.add(connection);
+					readers.add(reader);
+				}
+				reader.start();
+			}
+		}
+		catch (ClosedChannelException e)
+		{
+			//The collector has been closed
+		}
+		catch (IOException e)
+		{
+			lastFailure = e;
+		}
+	}
+
+	/**
+	 * Method that reads the frames of a connection until it is closed
+	 * @param connection The TCP connection
+	 */
+	private void Read(SocketChannel connection)
+	{
+		ByteBuffer length = ByteBuffer.allocate(4);
+		try
+		{
+			while (true)
+			{
+				length.clear();
+				if (!ReadFully(connection, length, true))
+					return;
+				int frameLength = length.getInt(0);
+				if (frameLength < NetworkFrame.HEADER_LENGTH - 4 || frameLength > NetworkFrame.MAX_FRAME_LENGTH)
+					throw new IOException("The frame is not valid");
+				ByteBuffer frame = ByteBuffer.allocate(frameLength);
+				ReadFully(connection, frame, false);
+				frame.flip();
+				Received(frame);
+			}
+		}
+		catch (ClosedChannelException e)
+		{
+			//The collector has been closed
+		}
+		catch (IOException e)
+		{
+			lastFailure = e;
+		}
+		finally
+		{
+			try
+			{
+				connection.close();
+			}
+			catch (IOException e)
+			{
+				//Nothing else can be done with the connection
+			}
+			synchronized (records)
+			{
+				readers.remove(Thread.currentThread());
+			}
+		}
+	}
+
+	/**
+	 * Method that fills a buffer from a connection
+	 * @param connection The TCP connection
+	 * @param buffer The buffer
+	 * @param atFrame true if the connection can end cleanly before the buffer
+	 * @return false if the connection has ended before the buffer
+	 * @throws IOException If the connection cannot be read or ends in the middle of a frame
+	 */
+	private static boolean ReadFully(SocketChannel connection, ByteBuffer buffer, boolean atFrame) throws IOException
+	{
+		while (buffer.hasRemaining())
+		{
+			if (connection.read(buffer) == -1)
+			{
+				if (atFrame && buffer.position() == 0)
+					return false;
+				throw new EOFException("The last frame is incomplete");
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Method executed by the receiver thread with UDP, every datagram is a whole frame
+	 */
+	private void ReceiveDatagrams()
+	{
+		ByteBuffer buffer = ByteBuffer.allocate(NetworkFrame.MAX_DATAGRAM_LENGTH);
+		try
+		{
+			while (true)
+			{
+				buffer.clear();
+				datagram.receive(buffer);
+				buffer.flip();
+				try
+				{
+					if (buffer.remaining() < 4 || buffer.getInt() != buffer.remaining())
+						throw new IOException("The datagram is not a valid frame");
+					Received(buffer);
+				}
+				catch (IOException e)
+				{
+					//A wrong datagram doesn't stop the next ones
+					lastFailure = e;
+				}
+			}
+		}
+		catch (ClosedChannelException e)
+		{
+			//The collector has been closed
+		}
+		catch (IOException e)
+		{
+			lastFailure = e;
+		}
+	}
+
+	/**
+	 * Method that keeps the messages of a frame
+	 * @param frame The frame after its length
+	 * @throws IOException If the frame is not valid
+	 */
+	private void Received(ByteBuffer frame) throws IOException
+	{
+		boolean compressed = frame.get(frame.position()) == NetworkFrame.DEFLATE;
+		List<MessageRecord> decoded = NetworkFrame.Decode(frame);
+		synchronized (records)
+		{
+			records.addAll(decoded);
+			frames++;
+			if (compressed)
+				compressedFrames++;
+			records.notifyAll();
+		}
+	}
+
+	/**
+	 * Method that waits until the collector has received some messages
+	 * @param count The amount of messages
+	 * @param timeout The maximum time to wait
+	 * @param unit The unit of the timeout
+	 * @return true if the collector has at least that amount of messages
+	 * @throws InterruptedException If the caller is interrupted while waiting
+	 */
+	public boolean AwaitRecords(int count, long timeout, TimeUnit unit) throws InterruptedException
+	{
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		synchronized (records)
+		{
+			while (records.size() < count)
+			{
+				long remaining = deadline - System.nanoTime();
+				if (remaining <= 0)
+					return false;
+				TimeUnit.NANOSECONDS.timedWait(records, remaining);
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Getter for the port the collector listens on
+	 * @return the port
+	 * @throws IOException If the channel has been closed
+	 */
+	public int getPort() throws IOException
+	{
+		InetSocketAddress address = (InetSocketAddress) (server != null ? server.getLocalAddress() : datagram.getLocalAddress());
+		return address.getPort();
+	}
+
+	/**
+	 * Getter for a copy of the messages received
+	 * @return the messages, in the order they arrived
+	 */
+	public List<MessageRecord> getRecords()
+	{
+		synchronized (records)
+		{
+			return new ArrayList<MessageRecord>(records);
+		}
+	}
+
+	/**
+	 * Getter for the amount of frames received
+	 * @return the amount of frames
+	 */
+	public int getFrames()
+	{
+		synchronized (records)
+		{
+			return frames;
+		}
+	}
+
+	/**
+	 * Getter for the amount of frames received with their messages compressed
+	 * @return the amount of compressed frames
+	 */
+	public int getCompressedFrames()
+	{
+		synchronized (records)
+		{
+			return compressedFrames;
+		}
+	}
+
+	/**
+	 * Getter for the last error reading the frames
+	 * @return the last exception or null if there has not been any
+	 */
+	public IOException getLastFailure()
+	{
+		return lastFailure;
+	}
+
+	/**
+	 * Method that stops listening and closes the connections, the shippers see the collector go away as soon
+	 * as it returns
+	 * @throws IOException If the channels cannot be closed
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		if (server != null)
+			server.close();
+		else
+			datagram.close();
+		List<Thread> stopping;
+		synchronized (records)
+		{
+			closed = true;
+			for (SocketChannel connection : connections)
+				connection.close();
+			connections.clear();
+			stopping = new ArrayList<Thread>(readers);
+			readers.clear();
+		}
+		try
+		{
+			receiver.join(1000);
+			//A connection is only released when the thread blocked reading it wakes up, until then the
+			//shipper doesn't see it closed and keeps writing into it
+			for (Thread reader : stopping)
+				reader.join(1000);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
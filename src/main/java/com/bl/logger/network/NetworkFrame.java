@@ -0,0 +1,131 @@
+package com.bl.logger.network;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import com.bl.logger.LevelOfMessage;
+import com.bl.logger.format.BinaryLogFormat;
+import com.bl.logger.format.BinaryLogReader;
+import com.bl.logger.format.MessageRecord;
+
+/**
+ * Constants and helpers of the frames sent to a collector. Every frame is: the length of the rest of
+ * the frame (four bytes, big-endian), the compression (one byte), the amount of messages (four bytes),
+ * the length of the messages before the compression (four bytes) and the messages, written one after
+ * another as in the binary log format but without its header. Over UDP every datagram is one frame
+ * @author Teddy
+ *
+ */
+public final class NetworkFrame {
+
+	//Compressions of the messages of a frame
+	public static final byte NONE = 0;
+	public static final byte DEFLATE = 1;
+
+	//Bytes of a frame before its messages
+	public static final int HEADER_LENGTH = 4 + 1 + 4 + 4;
+
+	//Biggest frame accepted, anything bigger means the stream is corrupted
+	public static final int MAX_FRAME_LENGTH = 64 << 20;
+
+	//Biggest datagram of UDP and the messages that fit in it
+	public static final int MAX_DATAGRAM_LENGTH = 65507;
+	public static final int MAX_DATAGRAM_PAYLOAD = MAX_DATAGRAM_LENGTH - HEADER_LENGTH;
+
+	//Type, moment and longest varint of the length of the text
+	private static final int RECORD_OVERHEAD = 1 + 8 + 5;
+
+	/**
+	 * Private constructor, this class only has static methods
+	 */
+	private NetworkFrame() {
+	}
+
+	/**
+	 * Method that encodes a message as it goes inside a frame
+	 * @param level The type of the message
+	 * @param messageText The text of the message
+	 * @param timestamp The moment (in milliseconds) the message was logged
+	 * @return the bytes of the message
+	 */
+	public static byte[] EncodeRecord(LevelOfMessage level, String messageText, long timestamp)
+	{
+		byte[] text = messageText.getBytes(StandardCharsets.UTF_8);
+		byte[] buffer = new byte[text.length + RECORD_OVERHEAD];
+		buffer[0] = (byte) level.ordinal();
+		int position = BinaryLogFormat.PutLong(timestamp * 1000000L, buffer, 1);
+		position = BinaryLogFormat.PutVarint(text.length, buffer, position);
+		System.arraycopy(text, 0, buffer, position, text.length);
+
+		//The longest varint is rarely used, the message is cut to its real length
+		int length = position + text.length;
+		if (length == buffer.length)
+			return buffer;
+		byte[] record = new byte[length];
+		System.arraycopy(buffer, 0, record, 0, length);
+		return record;
+	}
+
+	/**
+	 * Method that decodes the messages of a frame
+	 * @param frame The frame after its length, with its position at the compression
+	 * @return the messages, in the order they were logged
+	 * @throws IOException If the frame is not valid
+	 */
+	public static List<MessageRecord> Decode(ByteBuffer frame) throws IOException
+	{
+		if (frame.remaining() < HEADER_LENGTH - 4)
+			throw new IOException("The frame is incomplete");
+		byte compression = frame.get();
+		int count = frame.getInt();
+		int length = frame.getInt();
+		if (count < 0 || length < 0 || length > MAX_FRAME_LENGTH)
+			throw new IOException("The frame is not valid");
+
+		//Getting the messages back as they were written
+		byte[] payload = new byte[length];
+		if (compression == NONE)
+		{
+			if (frame.remaining() != length)
+				throw new IOException("The frame is not valid");
+			frame.get(payload);
+		}
+		else if (compression == DEFLATE)
+		{
+			byte[] compressed = new byte[frame.remaining()];
+			frame.get(compressed);
+			Inflater inflater = new Inflater();
+			try
+			{
+				inflater.setInput(compressed);
+				if (inflater.inflate(payload) != length || !inflater.finished())
+					throw new IOException("The frame is not valid");
+			}
+			catch (DataFormatException e)
+			{
+				throw new IOException("The frame cannot be decompressed", e);
+			}
+			finally
+			{
+				inflater.end();
+			}
+		}
+		else
+			throw new IOException("Unknown compression " + compression);
+
+		List<MessageRecord> records = new ArrayList<MessageRecord>(count);
+		BinaryLogReader reader = new BinaryLogReader(new ByteArrayInputStream(payload), false);
+		while (reader.Next())
+			records.add(new MessageRecord(reader.getLevel(), reader.getMessageText(), reader.getTimestamp()));
+		if (records.size() != count)
+			throw new IOException("The frame does not have the messages it announces");
+		return records;
+	}
+
+}
@@ -0,0 +1,592 @@
+package com.bl.logger.network;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.Deflater;
+
+import com.bl.logger.metrics.Counter;
+import com.bl.logger.metrics.MetricsRegistry;
+
+/**
+ * Sender of the messages of the logger to a collector. The messages wait in a bounded buffer that
+ * forgets the oldest ones when it is full, so a slow or stopped collector costs neither latency nor
+ * memory. A background thread sends them in frames of up to batchSize messages, or fewer when the oldest
+ * one has waited maxDelay, and keeps the frame it could not send until the collector is back.
+ * Over TCP a frame written just before the collector goes away can be lost, over UDP any frame can be
+ * @author Teddy
+ *
+ */
+public class NetworkShipper {
+
+	//Counters shared by every shipper, published in the MetricsRegistry
+	private static final Counter sentRecords = MetricsRegistry.GetCounter("network.sent");
+	private static final Counter droppedRecords = MetricsRegistry.GetCounter("network.dropped");
+	private static final Counter reconnections = MetricsRegistry.GetCounter("network.reconnects");
+
+	//Atttributes of the class
+	private final String host;
+	private final int port;
+	private final boolean udp;
+	private final boolean deflate;
+	private final int batchSize;
+	private final long maxDelayNanos;
+	private final int bufferSize;
+	private final long reconnectDelayNanos;
+	private final int connectTimeout;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition available = lock.newCondition();
+	private final Condition drained = lock.newCondition();
+	private final ArrayDeque<byte[]> queue = new ArrayDeque<byte[]>();
+	private final Thread sender;
+	private final ByteBuffer probe = ByteBuffer.allocate(256);
+	private final Deflater deflater;
+	private byte[] payload = new byte[4096];
+	private byte[] compressed = new byte[4096];
+	private ByteBuffer frame = ByteBuffer.allocate(4096);
+	private ByteChannel channel;
+	private long connections;
+	private int inFlight;
+	private int flushers;
+	private long sent;
+	private long dropped;
+	private volatile IOException lastFailure;
+	private volatile boolean running;
+
+	/**
+	 * Constructor of the shipper, it starts the thread that connects to the collector and sends the messages
+	 * @param host The host of the collector
+	 * @param port The port of the collector
+	 * @param udp true to send every frame in a datagram, false to send them through a TCP connection
+	 * @param deflate true to compress the messages of every frame with deflate
+	 * @param batchSize The maximum amount of messages of a frame
+	 * @param maxDelay The maximum time (in milliseconds) a message waits for its frame to be full
+	 * @param bufferSize The maximum amount of messages waiting to be sent
+	 * @param reconnectDelay The time (in milliseconds) between two attempts to send a frame
+	 * @param connectTimeout The maximum time (in milliseconds) to wait for a TCP connection
+	 */
+	public NetworkShipper(String host, int port, boolean udp, boolean deflate, int batchSize, long maxDelay, int bufferSize,
+			long reconnectDelay, int connectTimeout)
+	{
+		this.host = host;
+		this.port = port;
+		this.udp = udp;
+		this.deflate = deflate;
+		this.batchSize = batchSize;
+		this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelay);
+		this.bufferSize = bufferSize;
+		this.reconnectDelayNanos = TimeUnit.MILLISECONDS.toNanos(reconnectDelay);
+		this.connectTimeout = connectTimeout;
+		this.deflater = deflate ? new Deflater(Deflater.BEST_SPEED) : null;
+
+		running = true;
+		sender = new Thread(this::Ship, "JobLogger-network-" + host + ":" + port);
+		sender.setDaemon(true);
+		sender.start();
+	}
+
+	/**
+	 * Method that leaves a message waiting to be sent, it does not wait for the collector
+	 * @param record The message encoded with NetworkFrame.EncodeRecord
+	 */
+	public void Offer(byte[] record)
+	{
+		lock.lock();
+		try
+		{
+			Enqueue(record);
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Method that leaves many messages waiting to be sent, it does not wait for the collector
+	 * @param records The messages encoded with NetworkFrame.EncodeRecord, in the order they were logged
+	 */
+	public void Offer(List<byte[]> records)
+	{
+		lock.lock();
+		try
+		{
+			for (byte[] record : records)
+				Enqueue(record);
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Method that adds a message to the buffer, forgetting the oldest one if it is full.
+	 * It must be called holding the lock
+	 * @param record The encoded message
+	 */
+	private void Enqueue(byte[] record)
+	{
+		//A closed shipper or a message that doesn't fit in a datagram is lost
+		if (!running || (udp && record.length > NetworkFrame.MAX_DATAGRAM_PAYLOAD))
+		{
+			Dropped(1);
+			return;
+		}
+		if (queue.size() >= bufferSize)
+		{
+			queue.pollFirst();
+			Dropped(1);
+		}
+		queue.addLast(record);
+
+		//The sender waits for the first message and then for a full frame
+		if (queue.size() == 1 || queue.size() == batchSize)
+			available.signal();
+	}
+
+	/**
+	 * Method executed by the sender thread, it sends the waiting messages in frames
+	 */
+	private void Ship()
+	{
+		List<byte[]> batch = new ArrayList<byte[]>(batchSize);
+		try
+		{
+			//The connection is opened right away, so the first message finds it ready
+			try
+			{
+				Connect();
+			}
+			catch (IOException e)
+			{
+				//The first frame tries again
+				lastFailure = e;
+			}
+			while (true)
+			{
+				lock.lock();
+				try
+				{
+					//Waiting for a message, and then for a full frame or for the first message to wait too long
+					while (queue.isEmpty())
+					{
+						if (!running)
+							return;
+						available.await();
+					}
+					long remaining = maxDelayNanos;
+					while (running && flushers == 0 && queue.size() < batchSize && remaining > 0)
+						remaining = available.awaitNanos(remaining);
+
+					//A datagram cannot take more than 64KB
+					int length = 0;
+					while (batch.size() < batchSize && !queue.isEmpty())
+					{
+						if (udp && length + queue.peekFirst().length > NetworkFrame.MAX_DATAGRAM_PAYLOAD)
+							break;
+						byte[] record = queue.pollFirst();
+						length += record.length;
+						batch.add(record);
+					}
+					inFlight = batch.size();
+				}
+				finally
+				{
+					lock.unlock();
+				}
+
+				//The frame is sent again until it arrives, the messages that keep coming wait in the buffer
+				Encode(batch);
+				while (!Send())
+				{
+					if (!AwaitReconnect())
+					{
+						GiveUp();
+						return;
+					}
+				}
+				Sent();
+				batch.clear();
+			}
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			GiveUp();
+		}
+		finally
+		{
+			CloseChannel();
+			if (deflater != null)
+				deflater.end();
+		}
+	}
+
+	/**
+	 * Method that writes the messages of the batch into the frame, compressed if that makes it smaller
+	 * @param batch The encoded messages
+	 */
+	private void Encode(List<byte[]> batch)
+	{
+		int length = 0;
+		for (byte[] record : batch)
+			length += record.length;
+		if (payload.length < length)
+			payload = new byte[Math.max(length, payload.length * 2)];
+		int position = 0;
+		for (byte[] record : batch)
+		{
+			System.arraycopy(record, 0, payload, position, record.length);
+			position += record.length;
+		}
+
+		byte compression = NetworkFrame.NONE;
+		byte[] body = payload;
+		int bodyLength = length;
+		if (deflate)
+		{
+			//The compressed messages are only used if they are smaller
+			if (compressed.length < length)
+				compressed = new byte[Math.max(length, compressed.length * 2)];
+			deflater.reset();
+			deflater.setInput(payload, 0, length);
+			deflater.finish();
+			int size = 0;
+			while (!deflater.finished() && size < length)
+				size += deflater.deflate(compressed, size, length - size);
+			if (deflater.finished() && size < length)
+			{
+				compression = NetworkFrame.DEFLATE;
+				body = compressed;
+				bodyLength = size;
+			}
+		}
+
+		if (frame.capacity() < NetworkFrame.HEADER_LENGTH + bodyLength)
+			frame = ByteBuffer.allocate(Math.max(NetworkFrame.HEADER_LENGTH + bodyLength, frame.capacity() * 2));
+		frame.clear();
+		frame.putInt(NetworkFrame.HEADER_LENGTH - 4 + bodyLength);
+		frame.put(compression);
+		frame.putInt(batch.size());
+		frame.putInt(length);
+		frame.put(body, 0, bodyLength);
+		frame.flip();
+	}
+
+	/**
+	 * Method that sends the frame, connecting to the collector if needed
+	 * @return true if the frame has been sent
+	 */
+	private boolean Send()
+	{
+		frame.rewind();
+		try
+		{
+			if (channel != null && PeerClosed())
+				CloseChannel();
+			if (channel == null)
+				Connect();
+			while (frame.hasRemaining())
+				channel.write(frame);
+			return true;
+		}
+		catch (IOException e)
+		{
+			lastFailure = e;
+			CloseChannel();
+			return false;
+		}
+	}
+
+	/**
+	 * Method that opens the channel to the collector, the host is resolved every time so a collector that
+	 * moves is found again
+	 * @throws IOException If the collector cannot be reached
+	 */
+	private void Connect() throws IOException
+	{
+		InetSocketAddress address = new InetSocketAddress(host, port);
+		if (address.isUnresolved())
+			throw new IOException("Unknown host " + host);
+		if (udp)
+		{
+			DatagramChannel datagram = DatagramChannel.open();
+			try
+			{
+				datagram.connect(address);
+			}
+			catch (IOException e)
+			{
+				datagram.close();
+				throw e;
+			}
+			channel = datagram;
+		}
+		else
+		{
+			SocketChannel socket = SocketChannel.open();
+			try
+			{
+				socket.socket().connect(address, connectTimeout);
+				socket.socket().setTcpNoDelay(true);
+			}
+			catch (IOException e)
+			{
+				socket.close();
+				throw e;
+			}
+			channel = socket;
+		}
+		if (connections++ > 0)
+			reconnections.Increment();
+	}
+
+	/**
+	 * Method that checks if the collector has closed the TCP connection, without waiting for it
+	 * @return true if the connection cannot be used anymore
+	 */
+	private boolean PeerClosed()
+	{
+		if (udp)
+			return false;
+		SocketChannel socket = (SocketChannel) channel;
+		try
+		{
+			//The collector doesn't send anything, whatever it sends is ignored
+			socket.configureBlocking(false);
+			probe.clear();
+			boolean closed = socket.read(probe) == -1;
+			socket.configureBlocking(true);
+			return closed;
+		}
+		catch (IOException e)
+		{
+			return true;
+		}
+	}
+
+	/**
+	 * Method that closes the channel to the collector
+	 */
+	private void CloseChannel()
+	{
+		if (channel == null)
+			return;
+		try
+		{
+			channel.close();
+		}
+		catch (IOException e)
+		{
+			//Nothing else can be done with the channel
+		}
+		channel = null;
+	}
+
+	/**
+	 * Method that waits before the next attempt to send the frame
+	 * @return true if the frame must be sent again, false if the shipper is closing
+	 * @throws InterruptedException If the sender is interrupted while waiting
+	 */
+	private boolean AwaitReconnect() throws InterruptedException
+	{
+		lock.lock();
+		try
+		{
+			long remaining = reconnectDelayNanos;
+			while (running && remaining > 0)
+				remaining = available.awaitNanos(remaining);
+			return running;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Method that records the frame that has just been sent
+	 */
+	private void Sent()
+	{
+		lock.lock();
+		try
+		{
+			sent += inFlight;
+			sentRecords.Add(inFlight);
+			inFlight = 0;
+			if (queue.isEmpty())
+				drained.signalAll();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Method that forgets the frame and the waiting messages when the shipper closes without a collector
+	 */
+	private void GiveUp()
+	{
+		lock.lock();
+		try
+		{
+			Dropped(inFlight + queue.size());
+			queue.clear();
+			inFlight = 0;
+			drained.signalAll();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Method that counts lost messages. It must be called holding the lock
+	 * @param count The amount of lost messages
+	 */
+	private void Dropped(int count)
+	{
+		dropped += count;
+		droppedRecords.Add(count);
+	}
+
+	/**
+	 * Method that waits until every waiting message has been sent, without waiting for full frames
+	 * @param timeout The maximum time to wait
+	 * @param unit The unit of the timeout
+	 * @return true if there are no messages waiting
+	 * @throws InterruptedException If the caller is interrupted while waiting
+	 */
+	public boolean Flush(long timeout, TimeUnit unit) throws InterruptedException
+	{
+		long remaining = unit.toNanos(timeout);
+		lock.lock();
+		try
+		{
+			flushers++;
+			available.signal();
+			while (!queue.isEmpty() || inFlight > 0)
+			{
+				if (remaining <= 0)
+					return false;
+				remaining = drained.awaitNanos(remaining);
+			}
+			return true;
+		}
+		finally
+		{
+			flushers--;
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Method that stops the sender, giving it some time to send the waiting messages and closing the channel.
+	 * The messages that cannot be sent are lost
+	 * @param timeout The maximum time to wait for the sender
+	 * @param unit The unit of the timeout
+	 * @return true if every message has been sent
+	 */
+	public boolean Close(long timeout, TimeUnit unit)
+	{
+		lock.lock();
+		try
+		{
+			running = false;
+			available.signalAll();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+
+		try
+		{
+			unit.timedJoin(sender, timeout);
+			if (sender.isAlive())
+			{
+				sender.interrupt();
+				sender.join(1000);
+			}
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		return getPendingRecords() == 0;
+	}
+
+	/**
+	 * Getter for the amount of messages waiting to be sent, with the ones of the frame being sent
+	 * @return the amount of pending messages
+	 */
+	public long getPendingRecords()
+	{
+		lock.lock();
+		try
+		{
+			return queue.size() + inFlight;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Getter for the amount of messages sent to the collector
+	 * @return the amount of sent messages
+	 */
+	public long getSentRecords()
+	{
+		lock.lock();
+		try
+		{
+			return sent;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Getter for the amount of messages lost because the buffer was full or the shipper was closed
+	 * @return the amount of dropped messages
+	 */
+	public long getDroppedRecords()
+	{
+		lock.lock();
+		try
+		{
+			return dropped;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Getter for the last error reaching the collector
+	 * @return the last exception or null if there has not been any
+	 */
+	public IOException getLastFailure()
+	{
+		return lastFailure;
+	}
+
+}
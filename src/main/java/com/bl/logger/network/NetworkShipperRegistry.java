@@ -0,0 +1,162 @@
+package com.bl.logger.network;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import com.bl.exception.LoggerException;
+import com.bl.logger.LoggerParameters;
+import com.bl.logger.metrics.MetricsRegistry;
+
+/**
+ * Class that keeps one shipper for every collector used by the logger. The collector is given by the
+ * networkHost and networkPort parameters, networkProtocol chooses tcp (default) or udp and
+ * networkCompression none (default) or deflate. The shippers can be tuned with the optional parameters
+ * networkBatchSize, networkMaxDelay (milliseconds), networkBufferSize, networkReconnectDelay and
+ * networkConnectTimeout (milliseconds), read only when the shipper is created
+ * @author Teddy
+ *
+ */
+public final class NetworkShipperRegistry {
+
+	//Default configuration of the shippers
+	private static final String DEFAULT_PROTOCOL = "tcp";
+	private static final String DEFAULT_COMPRESSION = "none";
+	private static final int DEFAULT_BATCH_SIZE = 100;
+	private static final long DEFAULT_MAX_DELAY = 100;
+	private static final int DEFAULT_BUFFER_SIZE = 10000;
+	private static final long DEFAULT_RECONNECT_DELAY = 1000;
+	private static final int DEFAULT_CONNECT_TIMEOUT = 1000;
+	private static final long CLOSE_TIMEOUT = 5000;
+
+	//Atttributes of the class
+	private static final Map<String, NetworkShipper> shippers = new ConcurrentHashMap<String, NetworkShipper>();
+	private static volatile int generation;
+	private static boolean shutdownHookAdded;
+
+	static {
+		//Metrics of every shipper together
+		MetricsRegistry.RegisterGauge("network.pending", () -> {
+			long total = 0;
+			for (NetworkShipper shipper : shippers.values())
+				total += shipper.getPendingRecords();
+			return total;
+		});
+	}
+
+	/**
+	 * Private constructor, this class only has static methods
+	 */
+	private NetworkShipperRegistry() {
+	}
+
+	/**
+	 * Method that checks the parameters that choose the collector
+	 * @param networkParams The parameters of the logger
+	 * @throws LoggerException If the collector parameters are not valid
+	 */
+	public static void ValidateParameters(Map networkParams) throws LoggerException
+	{
+		String host = LoggerParameters.GetString(networkParams, "networkHost", null);
+		int port = LoggerParameters.GetInt(networkParams, "networkPort", 0);
+		String protocol = LoggerParameters.GetString(networkParams, "networkProtocol", DEFAULT_PROTOCOL);
+		String compression = LoggerParameters.GetString(networkParams, "networkCompression", DEFAULT_COMPRESSION);
+		if (host == null || host.trim().isEmpty() || port <= 0 || port > 65535
+				|| !(protocol.equals("tcp") || protocol.equals("udp"))
+				|| !(compression.equals("none") || compression.equals("deflate")))
+			throw new LoggerException("The network parameters are not valid");
+	}
+
+	/**
+	 * Method that gives the shipper for the collector parameters, creating it the first time
+	 * @param networkParams The already validated parameters of the logger
+	 * @return the shipper
+	 * @throws LoggerException If the optional shipper parameters are not valid
+	 */
+	public static NetworkShipper GetShipper(Map networkParams) throws LoggerException
+	{
+		//Most of the times the shipper already exists
+		String host = LoggerParameters.GetString(networkParams, "networkHost", null);
+		int port = LoggerParameters.GetInt(networkParams, "networkPort", 0);
+		String protocol = LoggerParameters.GetString(networkParams, "networkProtocol", DEFAULT_PROTOCOL);
+		String compression = LoggerParameters.GetString(networkParams, "networkCompression", DEFAULT_COMPRESSION);
+		String key = protocol + "://" + host + ":" + port + "/" + compression;
+		NetworkShipper shipper = shippers.get(key);
+		if (shipper != null)
+			return shipper;
+
+		//Reading the optional configuration of the shipper
+		int batchSize = LoggerParameters.GetInt(networkParams, "networkBatchSize", DEFAULT_BATCH_SIZE);
+		long maxDelay = LoggerParameters.GetLong(networkParams, "networkMaxDelay", DEFAULT_MAX_DELAY);
+		int bufferSize = LoggerParameters.GetInt(networkParams, "networkBufferSize", DEFAULT_BUFFER_SIZE);
+		long reconnectDelay = LoggerParameters.GetLong(networkParams, "networkReconnectDelay", DEFAULT_RECONNECT_DELAY);
+		int connectTimeout = LoggerParameters.GetInt(networkParams, "networkConnectTimeout", DEFAULT_CONNECT_TIMEOUT);
+		if (batchSize <= 0 || maxDelay < 0 || bufferSize <= 0 || reconnectDelay < 0 || connectTimeout < 0)
+			throw new LoggerException("The network parameters are not valid");
+
+		synchronized (shippers)
+		{
+			shipper = shippers.get(key);
+			if (shipper == null)
+			{
+				shipper = new NetworkShipper(host, port, protocol.equals("udp"), compression.equals("deflate"), batchSize,
+						maxDelay, bufferSize, reconnectDelay, connectTimeout);
+				shippers.put(key, shipper);
+				AddShutdownHook();
+			}
+		}
+		return shipper;
+	}
+
+	/**
+	 * Method that waits until every shipper has sent its waiting messages
+	 * @param timeout The maximum time to wait for every shipper
+	 * @param unit The unit of the timeout
+	 * @return true if there are no messages waiting
+	 * @throws InterruptedException If the caller is interrupted while waiting
+	 */
+	public static boolean FlushAll(long timeout, TimeUnit unit) throws InterruptedException
+	{
+		boolean flushed = true;
+		for (NetworkShipper shipper : shippers.values())
+			flushed &= shipper.Flush(timeout, unit);
+		return flushed;
+	}
+
+	/**
+	 * Method that sends what it can and closes every shipper, new shippers will be created if the logger is used again
+	 */
+	public static void CloseAll()
+	{
+		synchronized (shippers)
+		{
+			for (NetworkShipper shipper : shippers.values())
+				shipper.Close(CLOSE_TIMEOUT, TimeUnit.MILLISECONDS);
+			shippers.clear();
+			generation++;
+		}
+	}
+
+	/**
+	 * Getter for the amount of times the shippers have been closed, the destinations that keep
+	 * a shipper use it to know when they must ask for a new one
+	 * @return the generation of the shippers
+	 */
+	public static int getGeneration()
+	{
+		return generation;
+	}
+
+	/**
+	 * Method that registers the hook that sends the waiting messages when the application stops.
+	 * It must be called holding the shippers lock
+	 */
+	private static void AddShutdownHook()
+	{
+		if (shutdownHookAdded)
+			return;
+		Runtime.getRuntime().addShutdownHook(new Thread(NetworkShipperRegistry::CloseAll, "JobLogger-network-shutdown"));
+		shutdownHookAdded = true;
+	}
+
+}
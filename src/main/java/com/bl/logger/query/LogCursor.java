@@ -0,0 +1,104 @@
+package com.bl.logger.query;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+import com.bl.exception.LoggerException;
+import com.bl.logger.database.PooledConnection;
+import com.bl.logger.sink.DatabaseSink;
+
+/**
+ * Class that reads the messages found by a search one at a time from the open result of the database,
+ * so a big result is never loaded into memory. It keeps a connection of the pool until it is closed or
+ * its last message has been read
+ * @author Teddy
+ *
+ */
+public class LogCursor implements AutoCloseable {
+
+	//Atttributes of the class
+	private final PooledConnection pooled;
+	private final PreparedStatement statement;
+	private final ResultSet rs;
+	private boolean closed;
+
+	/**
+	 * Constructor of the cursor
+	 * @param pooled The connection the search has been executed with
+	 * @param statement The statement of the search
+	 * @param rs The open result of the search
+	 */
+	LogCursor(PooledConnection pooled, PreparedStatement statement, ResultSet rs)
+	{
+		this.pooled = pooled;
+		this.statement = statement;
+		this.rs = rs;
+	}
+
+	/**
+	 * Method that reads the next message of the result
+	 * @return the next message, or null once every message has been read
+	 * @throws LoggerException If the result cannot be read
+	 */
+	public LogEntry Next() throws LoggerException
+	{
+		if (closed)
+			return null;
+		try
+		{
+			if (!rs.next())
+			{
+				close();
+				return null;
+			}
+			Timestamp loggedAt = rs.getTimestamp(3);
+			return new LogEntry(rs.getString(1), DatabaseSink.LevelOfType(rs.getInt(2)),
+					loggedAt == null ? 0 : loggedAt.getTime());
+		}
+		catch (SQLException e)
+		{
+			Close(true);
+			throw new LoggerException("Cannot read the messages of the LOG table", e);
+		}
+	}
+
+	/**
+	 * Method that closes the result and gives the connection back to the pool
+	 */
+	@Override
+	public void close()
+	{
+		Close(false);
+	}
+
+	/**
+	 * Method that closes the result and gives the connection back to the pool, or discards it after an error
+	 * @param failed true if the connection had an error
+	 */
+	private void Close(boolean failed)
+	{
+		if (closed)
+			return;
+		closed = true;
+		try
+		{
+			rs.close();
+			statement.close();
+
+			//Ending the read transaction before the connection is reused
+			if (!pooled.getConnection().getAutoCommit())
+				pooled.getConnection().commit();
+		}
+		catch (SQLException e)
+		{
+			failed = true;
+		}
+		if (failed)
+			pooled.Invalidate();
+		else
+			pooled.Release();
+	}
+
+}
@@ -0,0 +1,57 @@
+package com.bl.logger.query;
+
+import com.bl.logger.LevelOfMessage;
+
+/**
+ * Class that holds one message read back from the LOG table
+ * @author Teddy
+ *
+ */
+public final class LogEntry {
+
+	//Atttributes of the class
+	private final String messageText;
+	private final LevelOfMessage level;
+	private final long timestamp;
+
+	/**
+	 * Constructor of the entry
+	 * @param messageText The text of the message
+	 * @param level The type of the message
+	 * @param timestamp The moment (in milliseconds) the message was logged
+	 */
+	public LogEntry(String messageText, LevelOfMessage level, long timestamp)
+	{
+		this.messageText = messageText;
+		this.level = level;
+		this.timestamp = timestamp;
+	}
+
+	/**
+	 * Getter for the text of the message
+	 * @return the text of the message
+	 */
+	public String getMessageText()
+	{
+		return messageText;
+	}
+
+	/**
+	 * Getter for the type of the message
+	 * @return the type of the message
+	 */
+	public LevelOfMessage getLevel()
+	{
+		return level;
+	}
+
+	/**
+	 * Getter for the moment the message was logged
+	 * @return the moment in milliseconds
+	 */
+	public long getTimestamp()
+	{
+		return timestamp;
+	}
+
+}
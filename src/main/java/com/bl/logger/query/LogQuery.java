@@ -0,0 +1,184 @@
+package com.bl.logger.query;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import com.bl.logger.LevelOfMessage;
+
+/**
+ * Class that holds the conditions of a search in the LOG table: the types of message, a range of
+ * moments and a text the messages must contain. A condition that is not given doesn't filter
+ * @author Teddy
+ *
+ */
+public final class LogQuery {
+
+	//Default amount of rows the driver brings in every round trip
+	private static final int DEFAULT_FETCH_SIZE = 500;
+
+	//Atttributes of the class
+	private final Set<LevelOfMessage> levels = EnumSet.noneOf(LevelOfMessage.class);
+	private Long fromMillis;
+	private Long toMillis;
+	private String text;
+	private int limit;
+	private int fetchSize = DEFAULT_FETCH_SIZE;
+	private boolean newestFirst;
+
+	/**
+	 * Private constructor, the searches are created with NewQuery
+	 */
+	private LogQuery() {
+	}
+
+	/**
+	 * Method that creates a search without conditions
+	 * @return a new search
+	 */
+	public static LogQuery NewQuery()
+	{
+		return new LogQuery();
+	}
+
+	/**
+	 * Method that keeps only the messages of some types
+	 * @param types The types of message accepted
+	 * @return the same search
+	 */
+	public LogQuery Levels(LevelOfMessage... types)
+	{
+		for (LevelOfMessage type : types)
+			levels.add(type);
+		return this;
+	}
+
+	/**
+	 * Method that keeps only the messages logged at this moment or later
+	 * @param fromMillis The first moment accepted, in milliseconds
+	 * @return the same search
+	 */
+	public LogQuery From(long fromMillis)
+	{
+		this.fromMillis = fromMillis;
+		return this;
+	}
+
+	/**
+	 * Method that keeps only the messages logged before this moment
+	 * @param toMillis The first moment not accepted, in milliseconds
+	 * @return the same search
+	 */
+	public LogQuery To(long toMillis)
+	{
+		this.toMillis = toMillis;
+		return this;
+	}
+
+	/**
+	 * Method that keeps only the messages that contain a text
+	 * @param text The text the messages must contain
+	 * @return the same search
+	 */
+	public LogQuery Containing(String text)
+	{
+		this.text = text;
+		return this;
+	}
+
+	/**
+	 * Method that limits the amount of messages found
+	 * @param limit The maximum amount of messages, 0 for no limit
+	 * @return the same search
+	 */
+	public LogQuery Limit(int limit)
+	{
+		this.limit = limit;
+		return this;
+	}
+
+	/**
+	 * Method that sets the amount of rows the driver brings in every round trip
+	 * @param fetchSize The amount of rows
+	 * @return the same search
+	 */
+	public LogQuery FetchSize(int fetchSize)
+	{
+		this.fetchSize = fetchSize;
+		return this;
+	}
+
+	/**
+	 * Method that gives the newest messages first instead of the oldest
+	 * @param newestFirst true to order from the newest message
+	 * @return the same search
+	 */
+	public LogQuery NewestFirst(boolean newestFirst)
+	{
+		this.newestFirst = newestFirst;
+		return this;
+	}
+
+	/**
+	 * Getter for the types of message accepted
+	 * @return the types, empty to accept every type
+	 */
+	public Set<LevelOfMessage> getLevels()
+	{
+		return levels;
+	}
+
+	/**
+	 * Getter for the first moment accepted
+	 * @return the moment in milliseconds, or null if there is no lower bound
+	 */
+	public Long getFromMillis()
+	{
+		return fromMillis;
+	}
+
+	/**
+	 * Getter for the first moment not accepted
+	 * @return the moment in milliseconds, or null if there is no upper bound
+	 */
+	public Long getToMillis()
+	{
+		return toMillis;
+	}
+
+	/**
+	 * Getter for the text the messages must contain
+	 * @return the text, or null if there is no condition on the text
+	 */
+	public String getText()
+	{
+		return text;
+	}
+
+	/**
+	 * Getter for the maximum amount of messages
+	 * @return the limit, 0 for no limit
+	 */
+	public int getLimit()
+	{
+		return limit;
+	}
+
+	/**
+	 * Getter for the amount of rows the driver brings in every round trip
+	 * @return the fetch size
+	 */
+	public int getFetchSize()
+	{
+		return fetchSize;
+	}
+
+	/**
+	 * Getter for the order of the messages
+	 * @return true if the newest messages come first
+	 */
+	public boolean isNewestFirst()
+	{
+		return newestFirst;
+	}
+
+}
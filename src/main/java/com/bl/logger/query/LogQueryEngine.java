@@ -0,0 +1,276 @@
+package com.bl.logger.query;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.bl.exception.LoggerException;
+import com.bl.logger.JobLogger;
+import com.bl.logger.LevelOfMessage;
+import com.bl.logger.LoggerParameters;
+import com.bl.logger.database.ConnectionPool;
+import com.bl.logger.database.ConnectionPoolRegistry;
+import com.bl.logger.database.LogSchema;
+import com.bl.logger.database.PooledConnection;
+import com.bl.logger.sink.DatabaseSink;
+
+/**
+ * Class that searches the messages of the LOG table by type, moment and text. It uses the pool of the
+ * database parameters and needs the LOGGED_AT column, which Bootstrap (or the databaseBootstrap parameter
+ * of the logger) adds together with the indexes that make the searches by moment and by type fast
+ * @author Teddy
+ *
+ */
+public class LogQueryEngine {
+
+	//Atttributes of the class
+	private final Map dbParams;
+	private volatile ConnectionPool pool;
+	private volatile int generation;
+	private volatile boolean checked;
+
+	/**
+	 * Constructor of the engine
+	 * @param dbParams The database parameters, the same ones given to the logger
+	 * @throws LoggerException If the database parameters are not valid
+	 */
+	public LogQueryEngine(Map dbParams) throws LoggerException
+	{
+		JobLogger.ValidateDatabaseParameters(dbParams);
+		this.dbParams = LoggerParameters.Copy(dbParams);
+		Resolve();
+	}
+
+	/**
+	 * Method that creates the LOG table, its LOGGED_AT column and its indexes if they are missing
+	 * @throws LoggerException If the table cannot be prepared
+	 */
+	public void Bootstrap() throws LoggerException
+	{
+		PooledConnection pooled = Borrow();
+		try
+		{
+			LogSchema.Bootstrap(pooled.getConnection());
+			pooled.Release();
+			checked = true;
+		}
+		catch (SQLException e)
+		{
+			pooled.Invalidate();
+			throw new LoggerException("Cannot bootstrap the LOG table", e);
+		}
+	}
+
+	/**
+	 * Method that searches the messages, they are read from the database while the cursor advances
+	 * @param query The conditions of the search
+	 * @return the cursor of the messages found, it must be closed if it is not read until the end
+	 * @throws LoggerException If the search cannot be executed
+	 */
+	public LogCursor Query(LogQuery query) throws LoggerException
+	{
+		List<Object> values = new ArrayList<Object>();
+		StringBuilder sql = new StringBuilder("SELECT MESSAGE, LEVEL, ").append(LogSchema.TIMESTAMP_COLUMN)
+				.append(" FROM ").append(LogSchema.TABLE);
+		Where(query, sql, values);
+		sql.append(" ORDER BY ").append(LogSchema.TIMESTAMP_COLUMN).append(query.isNewestFirst() ? " DESC" : "");
+
+		PooledConnection pooled = Borrow();
+		PreparedStatement statement = null;
+		try
+		{
+			CheckSchema(pooled.getConnection());
+			statement = Prepare(pooled.getConnection(), sql.toString(), values);
+			statement.setFetchSize(query.getFetchSize());
+			if (query.getLimit() > 0)
+				statement.setMaxRows(query.getLimit());
+			return new LogCursor(pooled, statement, statement.executeQuery());
+		}
+		catch (SQLException e)
+		{
+			Discard(pooled, statement);
+			throw new LoggerException("Cannot query the LOG table", e);
+		}
+		catch (LoggerException e)
+		{
+			//The table has not been bootstrapped, the connection itself is fine
+			pooled.Release();
+			throw e;
+		}
+	}
+
+	/**
+	 * Method that counts the messages of a search without reading them
+	 * @param query The conditions of the search, its limit and order are ignored
+	 * @return the amount of messages found
+	 * @throws LoggerException If the search cannot be executed
+	 */
+	public long Count(LogQuery query) throws LoggerException
+	{
+		List<Object> values = new ArrayList<Object>();
+		StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM ").append(LogSchema.TABLE);
+		Where(query, sql, values);
+
+		PooledConnection pooled = Borrow();
+		PreparedStatement statement = null;
+		try
+		{
+			CheckSchema(pooled.getConnection());
+			statement = Prepare(pooled.getConnection(), sql.toString(), values);
+			long count;
+			try (ResultSet rs = statement.executeQuery())
+			{
+				rs.next();
+				count = rs.getLong(1);
+			}
+			statement.close();
+			if (!pooled.getConnection().getAutoCommit())
+				pooled.getConnection().commit();
+			pooled.Release();
+			return count;
+		}
+		catch (SQLException e)
+		{
+			Discard(pooled, statement);
+			throw new LoggerException("Cannot query the LOG table", e);
+		}
+		catch (LoggerException e)
+		{
+			//The table has not been bootstrapped, the connection itself is fine
+			pooled.Release();
+			throw e;
+		}
+	}
+
+	/**
+	 * Method that appends the conditions of the search to the sql
+	 * @param query The conditions of the search
+	 * @param sql The sql of the search
+	 * @param values The values of the parameters of the sql, in order
+	 */
+	private static void Where(LogQuery query, StringBuilder sql, List<Object> values)
+	{
+		List<String> conditions = new ArrayList<String>();
+		if (!query.getLevels().isEmpty())
+		{
+			StringBuilder in = new StringBuilder("LEVEL IN (");
+			for (LevelOfMessage level : query.getLevels())
+			{
+				in.append(values.isEmpty() ? "?" : ", ?");
+				values.add(DatabaseSink.TypeOfMessage(level));
+			}
+			conditions.add(in.append(')').toString());
+		}
+		if (query.getFromMillis() != null)
+		{
+			conditions.add(LogSchema.TIMESTAMP_COLUMN + " >= ?");
+			values.add(new Timestamp(query.getFromMillis()));
+		}
+		if (query.getToMillis() != null)
+		{
+			conditions.add(LogSchema.TIMESTAMP_COLUMN + " < ?");
+			values.add(new Timestamp(query.getToMillis()));
+		}
+		if (query.getText() != null)
+		{
+			//The wildcards of the text are searched as plain characters
+			conditions.add("MESSAGE LIKE ? ESCAPE '!'");
+			values.add("%" + query.getText().replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%");
+		}
+		for (int i = 0; i < conditions.size(); i++)
+			sql.append(i == 0 ? " WHERE " : " AND ").append(conditions.get(i));
+	}
+
+	/**
+	 * Method that prepares the statement of a search with its values
+	 * @param connection The connection to the database
+	 * @param sql The sql of the search
+	 * @param values The values of the parameters of the sql
+	 * @return the statement
+	 * @throws SQLException If the statement cannot be prepared
+	 */
+	private static PreparedStatement Prepare(Connection connection, String sql, List<Object> values) throws SQLException
+	{
+		PreparedStatement statement = connection.prepareStatement(sql);
+		for (int i = 0; i < values.size(); i++)
+			statement.setObject(i + 1, values.get(i));
+		return statement;
+	}
+
+	/**
+	 * Method that checks the first time that the table has the LOGGED_AT column
+	 * @param connection The connection to the database
+	 * @throws SQLException If the schema cannot be read
+	 * @throws LoggerException If the table has not been bootstrapped
+	 */
+	private void CheckSchema(Connection connection) throws SQLException, LoggerException
+	{
+		if (checked)
+			return;
+		if (!LogSchema.HasTimestamps(connection))
+			throw new LoggerException("The LOG table must be bootstrapped before it is queried");
+		checked = true;
+	}
+
+	/**
+	 * Method that borrows a connection of the pool
+	 * @return the connection
+	 * @throws LoggerException If no connection can be borrowed
+	 */
+	private PooledConnection Borrow() throws LoggerException
+	{
+		//The pool has been closed since we got it
+		ConnectionPool current = pool;
+		if (generation != ConnectionPoolRegistry.getGeneration())
+			current = Resolve();
+		try
+		{
+			return current.Borrow();
+		}
+		catch (SQLException e)
+		{
+			throw new LoggerException("Cannot create database connection or perform DML instruction, "
+					+ "Please check your Data Base parameters", e);
+		}
+	}
+
+	/**
+	 * Method that gets the pool of the database parameters from the registry
+	 * @return the connection pool
+	 * @throws LoggerException If the optional pool parameters are not valid
+	 */
+	private ConnectionPool Resolve() throws LoggerException
+	{
+		//The generation is read first, a close in between only means we will resolve again
+		int current = ConnectionPoolRegistry.getGeneration();
+		ConnectionPool resolved = ConnectionPoolRegistry.GetPool(dbParams);
+		pool = resolved;
+		generation = current;
+		return resolved;
+	}
+
+	/**
+	 * Method that closes the statement and discards the connection after an error
+	 * @param pooled The connection
+	 * @param statement The statement, or null
+	 */
+	private static void Discard(PooledConnection pooled, PreparedStatement statement)
+	{
+		try
+		{
+			if (statement != null)
+				statement.close();
+		}
+		catch (SQLException e)
+		{
+			//The connection is discarded anyway
+		}
+		pooled.Invalidate();
+	}
+
+}
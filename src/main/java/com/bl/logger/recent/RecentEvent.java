@@ -0,0 +1,89 @@
+package com.bl.logger.recent;
+
+import com.bl.logger.LevelOfMessage;
+import com.bl.logger.event.LogEvent;
+
+/**
+ * Class that holds one message kept in memory by the recent events of a logger. It never changes
+ * once it is in the ring, so it can be read by any thread without copying it
+ * @author Teddy
+ *
+ */
+public final class RecentEvent {
+
+	//Atttributes of the class
+	private final long sequence;
+	private final String messageText;
+	private final LogEvent event;
+	private final LevelOfMessage level;
+	private final long timestamp;
+
+	/**
+	 * Constructor of the recent event
+	 * @param sequence The position of the message among all the messages of its ring
+	 * @param messageText The text of the message, or null for a structured event
+	 * @param event The structured event, or null for a plain text
+	 * @param level The type of the message
+	 * @param timestamp The moment (in milliseconds) the message was logged
+	 */
+	RecentEvent(long sequence, String messageText, LogEvent event, LevelOfMessage level, long timestamp)
+	{
+		this.sequence = sequence;
+		this.messageText = messageText;
+		this.event = event;
+		this.level = level;
+		this.timestamp = timestamp;
+	}
+
+	/**
+	 * Getter for the position of the message among all the messages of its ring
+	 * @return the sequence, it starts in 0
+	 */
+	public long getSequence()
+	{
+		return sequence;
+	}
+
+	/**
+	 * Getter for the text of the message, a structured event is only turned into text when it is asked for
+	 * @return the text of the message
+	 */
+	public String getMessageText()
+	{
+		return event != null ? event.getMessageText() : messageText;
+	}
+
+	/**
+	 * Getter for the structured event
+	 * @return the structured event, or null for a plain text
+	 */
+	public LogEvent getEvent()
+	{
+		return event;
+	}
+
+	/**
+	 * Getter for the type of the message
+	 * @return the type of the message
+	 */
+	public LevelOfMessage getLevel()
+	{
+		return level;
+	}
+
+	/**
+	 * Getter for the moment the message was logged
+	 * @return the moment in milliseconds
+	 */
+	public long getTimestamp()
+	{
+		return timestamp;
+	}
+
+	@Override
+	public String toString()
+	{
+		return level + " " + getMessageText();
+	}
+
+}
@@ -0,0 +1,157 @@
+package com.bl.logger.recent;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.bl.logger.LevelOfMessage;
+import com.bl.logger.event.LogEvent;
+
+/**
+ * Ring of fixed size that keeps the last messages of one type. Neither the writers nor the readers take
+ * a lock: a writer takes the next sequence and publishes its message into the slot of that sequence, and
+ * a reader only keeps the slots whose message has the sequence it expects, so a slot that is being
+ * overwritten or that has not been published yet is skipped instead of waited for. A writer that has been
+ * overtaken by a newer message of the same slot leaves the slot to it
+ * @author Teddy
+ *
+ */
+public final class RecentEventRing implements Iterable<RecentEvent> {
+
+	//Atttributes of the class
+	private final AtomicReferenceArray<RecentEvent> slots;
+	private final int capacity;
+	private final AtomicLong nextSequence = new AtomicLong();
+
+	/**
+	 * Constructor of the ring
+	 * @param capacity The amount of messages kept
+	 */
+	public RecentEventRing(int capacity)
+	{
+		this.slots = new AtomicReferenceArray<RecentEvent>(capacity);
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Method that keeps a message, the oldest one is forgotten when the ring is full
+	 * @param messageText The text of the message, or null for a structured event
+	 * @param event The structured event, or null for a plain text
+	 * @param level The type of the message
+	 * @param timestamp The moment (in milliseconds) the message was logged
+	 */
+	public void Add(String messageText, LogEvent event, LevelOfMessage level, long timestamp)
+	{
+		long sequence = nextSequence.getAndIncrement();
+		RecentEvent created = new RecentEvent(sequence, messageText, event, level, timestamp);
+		int index = (int) (sequence % capacity);
+		while (true)
+		{
+			//A writer a whole ring ahead can have published first, its message must not be lost
+			RecentEvent current = slots.get(index);
+			if (current != null && current.getSequence() > sequence)
+				return;
+			if (slots.compareAndSet(index, current, created))
+				return;
+		}
+	}
+
+	/**
+	 * Method that copies the messages kept right now, the writers keep going while it is done
+	 * @return the messages from the oldest to the newest
+	 */
+	public List<RecentEvent> Snapshot()
+	{
+		return Snapshot(capacity);
+	}
+
+	/**
+	 * Method that copies the newest messages kept right now, the writers keep going while it is done
+	 * @param max The maximum amount of messages
+	 * @return the messages from the oldest to the newest
+	 */
+	public List<RecentEvent> Snapshot(int max)
+	{
+		long end = nextSequence.get();
+		long start = Math.max(0, end - Math.min(max, capacity));
+		List<RecentEvent> events = new ArrayList<RecentEvent>((int) (end - start));
+		for (long sequence = start; sequence < end; sequence++)
+		{
+			RecentEvent event = slots.get((int) (sequence % capacity));
+			if (event != null && event.getSequence() == sequence)
+				events.add(event);
+		}
+		return events;
+	}
+
+	/**
+	 * Method that reads the messages kept from the oldest to the newest one at the time it is called,
+	 * without copying them first. The messages overwritten while it advances are skipped
+	 * @return the iterator of the messages
+	 */
+	@Override
+	public Iterator<RecentEvent> iterator()
+	{
+		final long end = nextSequence.get();
+		final long start = Math.max(0, end - capacity);
+		return new Iterator<RecentEvent>() {
+
+			private long sequence = start;
+			private RecentEvent next = Advance();
+
+			/**
+			 * Method that finds the next message that is still in its slot
+			 * @return the message, or null once the end has been reached
+			 */
+			private RecentEvent Advance()
+			{
+				while (sequence < end)
+				{
+					RecentEvent event = slots.get((int) (sequence % capacity));
+					sequence++;
+					if (event != null && event.getSequence() == sequence - 1)
+						return event;
+				}
+				return null;
+			}
+
+			@Override
+			public boolean hasNext()
+			{
+				return next != null;
+			}
+
+			@Override
+			public RecentEvent next()
+			{
+				if (next == null)
+					throw new NoSuchElementException();
+				RecentEvent current = next;
+				next = Advance();
+				return current;
+			}
+		};
+	}
+
+	/**
+	 * Getter for the amount of messages the ring keeps
+	 * @return the capacity
+	 */
+	public int getCapacity()
+	{
+		return capacity;
+	}
+
+	/**
+	 * Getter for the amount of messages added since the ring was created, including the forgotten ones
+	 * @return the amount of messages added
+	 */
+	public long getAdded()
+	{
+		return nextSequence.get();
+	}
+
+}
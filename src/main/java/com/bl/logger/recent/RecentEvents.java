@@ -0,0 +1,78 @@
+package com.bl.logger.recent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import com.bl.logger.LevelOfMessage;
+import com.bl.logger.event.LogEvent;
+
+/**
+ * Class that keeps in memory the last messages of a logger, with a ring for every type of message
+ * so a burst of informative messages never pushes the errors out
+ * @author Teddy
+ *
+ */
+public final class RecentEvents {
+
+	//Atttributes of the class
+	private final RecentEventRing[] rings = new RecentEventRing[LevelOfMessage.values().length];
+
+	/**
+	 * Constructor of the recent events
+	 * @param capacity The amount of messages kept for every type of message
+	 */
+	public RecentEvents(int capacity)
+	{
+		for (int i = 0; i < rings.length; i++)
+			rings[i] = new RecentEventRing(capacity);
+	}
+
+	/**
+	 * Method that keeps a message in the ring of its type
+	 * @param messageText The text of the message, or null for a structured event
+	 * @param event The structured event, or null for a plain text
+	 * @param level The type of the message
+	 * @param timestamp The moment (in milliseconds) the message was logged
+	 */
+	public void Add(String messageText, LogEvent event, LevelOfMessage level, long timestamp)
+	{
+		rings[level.ordinal()].Add(messageText, event, level, timestamp);
+	}
+
+	/**
+	 * Getter for the ring of a type of message, to read it without copying it
+	 * @param level The type of message
+	 * @return the ring
+	 */
+	public RecentEventRing getRing(LevelOfMessage level)
+	{
+		return rings[level.ordinal()];
+	}
+
+	/**
+	 * Method that copies the newest messages of one type
+	 * @param level The type of message
+	 * @param max The maximum amount of messages
+	 * @return the messages from the oldest to the newest
+	 */
+	public List<RecentEvent> Snapshot(LevelOfMessage level, int max)
+	{
+		return rings[level.ordinal()].Snapshot(max);
+	}
+
+	/**
+	 * Method that copies the messages of every type, ordered by the moment they were logged
+	 * @return the messages from the oldest to the newest
+	 */
+	public List<RecentEvent> Snapshot()
+	{
+		List<RecentEvent> events = new ArrayList<RecentEvent>();
+		for (RecentEventRing ring : rings)
+			events.addAll(ring.Snapshot());
+		Collections.sort(events, Comparator.comparingLong(RecentEvent::getTimestamp));
+		return events;
+	}
+
+}
@@ -0,0 +1,133 @@
+package com.bl.logger.sink;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Handler;
+import java.util.logging.Logger;
+
+import com.bl.exception.LoggerException;
+import com.bl.logger.LevelOfMessage;
+import com.bl.logger.console.ConsoleAppenderRegistry;
+import com.bl.logger.event.LogEvent;
+import com.bl.logger.format.MessageRecord;
+
+/**
+ * Destination that writes the messages into the console. It keeps the logger of the long-lived
+ * console appender, asked to the registry by the first message and again only if the appender has been closed
+ * @author Teddy
+ *
+ */
+public class ConsoleSink implements LogSink {
+
+	//Atttributes of the class
+	private final Map consoleParams;
+	private volatile Logger consoleLogger;
+	private volatile int generation = -1;
+
+	/**
+	 * Constructor of the console destination, the console appender is created by the first message
+	 * @param consoleParams The parameters of the logger (it can be null), they must not be modified afterwards
+	 */
+	public ConsoleSink(Map consoleParams)
+	{
+		this.consoleParams = consoleParams;
+	}
+
+	/**
+	 * Method that holds the logic to log into the console
+	 * @param messageText The message we want to add
+	 * @param level The type of message we will output
+	 * @param timestamp The moment (in milliseconds) the message was logged
+	 * @throws LoggerException The exception that has been thrown during the process of logging
+	 */
+	@Override
+	public void Write(String messageText, LevelOfMessage level, long timestamp) throws LoggerException
+	{
+		Publish(new MessageRecord(level, messageText, timestamp));
+	}
+
+	/**
+	 * Method that holds the logic to log a structured event into the console
+	 * @param event The structured event
+	 * @param level The type of the message we will output
+	 * @param timestamp The moment (in milliseconds) the message was logged
+	 * @throws LoggerException The exception that has been thrown during the process of logging
+	 */
+	@Override
+	public void Write(LogEvent event, LevelOfMessage level, long timestamp) throws LoggerException
+	{
+		Publish(new MessageRecord(level, event, timestamp));
+	}
+
+	/**
+	 * Method that gives a record to the console appender, it only waits for the buffer of the appender
+	 * @param record The record of the message
+	 * @throws LoggerException The exception that has been thrown during the process of logging
+	 */
+	private void Publish(MessageRecord record) throws LoggerException
+	{
+		//The appender has been closed since we got it
+		Logger current = consoleLogger;
+		if (generation != ConsoleAppenderRegistry.getGeneration())
+			current = Resolve();
+		try
+		{
+			current.log(record);
+		}
+		catch(SecurityException e)
+		{
+			throw new LoggerException("There was an error trying to access to the console", e);
+		}
+	}
+
+	/**
+	 * Method that opens the appender of the console and formats a record that is never written, so the first
+	 * message finds the background thread and its formatter ready
+	 * @throws LoggerException If the optional console parameters are not valid
+	 */
+	@Override
+	public void WarmUp() throws LoggerException
+	{
+		MessageRecord record = new MessageRecord(LevelOfMessage.MESSAGE, "warm up", System.currentTimeMillis());
+		for (Handler handler : Resolve().getHandlers())
+			if (handler.getFormatter() != null)
+				handler.getFormatter().format(record);
+	}
+
+	/**
+	 * Method that gets the logger of the console appender from the registry
+	 * @return the logger attached to the appender
+	 * @throws LoggerException If the optional console parameters are not valid
+	 */
+	private Logger Resolve() throws LoggerException
+	{
+		//The generation is read first, a close in between only means we will resolve again
+		int current = ConsoleAppenderRegistry.getGeneration();
+		Logger resolved = ConsoleAppenderRegistry.GetLogger(consoleParams);
+		consoleLogger = resolved;
+		generation = current;
+		return resolved;
+	}
+
+	/**
+	 * Getter for what the destination can do: the appender can be shared by every thread and only copies the messages into its buffer
+	 * @return the capabilities of the destination
+	 */
+	@Override
+	public Set<SinkCapability> getCapabilities()
+	{
+		return EnumSet.of(SinkCapability.THREAD_SAFE);
+	}
+
+	/**
+	 * Getter for the name of the destination, used to name its metrics
+	 * @return the name of the destination
+	 */
+	@Override
+	public String getName()
+	{
+		return "console";
+	}
+
+}
@@ -0,0 +1,314 @@
+package com.bl.logger.sink;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Timestamp;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.bl.exception.LoggerException;
+import com.bl.logger.LevelOfMessage;
+import com.bl.logger.database.ConnectionPool;
+import com.bl.logger.database.ConnectionPoolRegistry;
+import com.bl.logger.database.DatabaseBatchWriter;
+import com.bl.logger.database.DatabaseSpool;
+import com.bl.logger.database.LogSchema;
+import com.bl.logger.event.LogEvent;
+import com.bl.logger.format.MessageRecord;
+
+/**
+ * Destination that inserts the messages into the LOG table. It keeps the batch writer (or the spool)
+ * of the credentials, asked to the registry by the first message and again only if the pools have been closed
+ * @author Teddy
+ *
+ */
+public class DatabaseSink implements LogSink {
+
+	//Atttributes of the class
+	private final Map dbParams;
+	private final String[] columns;
+	private final int timestampColumn;
+	private volatile DatabaseBatchWriter writer;
+	private volatile DatabaseSpool spool;
+	private volatile int generation = -1;
+
+	/**
+	 * Constructor of the database destination, the pool of the credentials is created by the first message
+	 * @param dbParams The already validated database parameters, they must not be modified afterwards
+	 * @throws LoggerException If the databaseColumns parameter is not valid
+	 */
+	public DatabaseSink(Map dbParams) throws LoggerException
+	{
+		this.dbParams = dbParams;
+		this.columns = ConnectionPoolRegistry.GetColumns(dbParams);
+		int found = -1;
+		for (int i = 0; i < columns.length; i++)
+			if (columns[i].equalsIgnoreCase(LogSchema.TIMESTAMP_COLUMN))
+				found = i;
+		this.timestampColumn = found;
+	}
+
+	/**
+	 * Method that holds the logic to add a message into the database
+	 * @param messageText the message we want to add
+	 * @param level The type of message we will output
+	 * @param timestamp The moment (in milliseconds) the message was logged
+	 * @throws LoggerException The exception that has been thrown during the process of logging
+	 */
+	@Override
+	public void Write(String messageText, LevelOfMessage level, long timestamp) throws LoggerException
+	{
+		Insert(messageText, level, timestampColumn >= 0 ? Values(null, timestamp) : null);
+	}
+
+	/**
+	 * Method that holds the logic to add a structured event into the database, its fields named in the
+	 * databaseColumns parameter go into their own columns
+	 * @param event The structured event
+	 * @param level The type of message we will output
+	 * @param timestamp The moment (in milliseconds) the message was logged
+	 * @throws LoggerException The exception that has been thrown during the process of logging
+	 */
+	@Override
+	public void Write(LogEvent event, LevelOfMessage level, long timestamp) throws LoggerException
+	{
+		Insert(event.getMessageText(), level, Values(event, timestamp));
+	}
+
+	/**
+	 * Method that adds many messages to the batch writer taking its lock once for every batch they fill,
+	 * or to the spool if there is one
+	 * @param records The messages, in the order they were logged
+	 * @throws LoggerException The exception that has been thrown during the process of logging
+	 */
+	@Override
+	public void Write(List<MessageRecord> records) throws LoggerException
+	{
+		int rows = records.size();
+		String[] messageTexts = new String[rows];
+		int[] typesOfMessage = new int[rows];
+		Object[][] values = new Object[rows][];
+		for (int i = 0; i < rows; i++)
+		{
+			MessageRecord record = records.get(i);
+			messageTexts[i] = record.getMessageText();
+			typesOfMessage[i] = TypeOfMessage(record.getLevelOfMessage());
+			values[i] = Values(record.getEvent(), record.getMillis());
+		}
+
+		DatabaseBatchWriter current = Current();
+		DatabaseSpool currentSpool = spool;
+		if (current == null)
+		{
+			try
+			{
+				for (int i = 0; i < rows; i++)
+					currentSpool.Append(messageTexts[i], typesOfMessage[i], values[i]);
+				return;
+			}
+			catch (IOException e)
+			{
+				throw new LoggerException("Cannot write into the database spool", e);
+			}
+		}
+		try
+		{
+			current.Add(messageTexts, typesOfMessage, values, rows);
+		}
+		catch (SQLException e)
+		{
+			throw DatabaseError(e);
+		}
+	}
+
+	/**
+	 * Method that gives the values of the extra columns of a row: the fields of the event named in the
+	 * databaseColumns parameter and the moment
+	 * @param event The structured event, or null for a plain text
+	 * @param timestamp The moment (in milliseconds) the message was logged
+	 * @return the values of the extra columns, or null if there are none
+	 */
+	private Object[] Values(LogEvent event, long timestamp)
+	{
+		if (columns.length == 0)
+			return null;
+		Object[] values = new Object[columns.length];
+		if (event != null)
+		{
+			for (int i = 0; i < columns.length; i++)
+			{
+				int index = event.IndexOf(columns[i]);
+				if (index >= 0)
+					values[i] = event.getValue(index);
+			}
+		}
+		if (timestampColumn >= 0)
+			values[timestampColumn] = new Timestamp(timestamp);
+		return values;
+	}
+
+	/**
+	 * Method that adds a row to the batch writer, or to the spool if there is one
+	 * @param messageText the message we want to add
+	 * @param level The type of message we will output
+	 * @param values The values of the extra columns, or null
+	 * @throws LoggerException The exception that has been thrown during the process of logging
+	 */
+	private void Insert(String messageText, LevelOfMessage level, Object[] values) throws LoggerException
+	{
+		DatabaseBatchWriter current = Current();
+		DatabaseSpool currentSpool = spool;
+		
+		//With a spool the row is only appended to its file, the database is written in the background
+		if (current == null)
+		{
+			try
+			{
+				currentSpool.Append(messageText, TypeOfMessage(level), values);
+				return;
+			}
+			catch (IOException e)
+			{
+				throw new LoggerException("Cannot write into the database spool", e);
+			}
+		}
+		try
+		{
+			//Adding the row to the batch of these credentials, it is written with a prepared statement
+			current.Add(messageText, TypeOfMessage(level), values);
+		}
+		catch (SQLException e)
+		{
+			throw DatabaseError(e);
+		}
+	}
+
+	/**
+	 * Method that gives the batch writer, asking the registry again if the pool has been closed since we got it.
+	 * The spool attribute is updated at the same time
+	 * @return the batch writer, or null if the rows go into the spool
+	 * @throws LoggerException If the optional pool or batch parameters are not valid
+	 */
+	private DatabaseBatchWriter Current() throws LoggerException
+	{
+		DatabaseBatchWriter current = writer;
+		if (generation != ConnectionPoolRegistry.getGeneration())
+			current = Resolve();
+		return current;
+	}
+
+	/**
+	 * Method that gives the exception of an error of the database
+	 * @param e The error of the database
+	 * @return the exception to throw
+	 */
+	private static LoggerException DatabaseError(SQLException e)
+	{
+		//If we get a timeout when trying to establish a DB connection
+		if (e instanceof SQLTimeoutException)
+			return new LoggerException("Timeout occurred when attempting to establish a DB connection", e);
+
+		//If an error on the DB happens we will catch it
+		return new LoggerException("Cannot create database connection or perform DML instruction, "
+				+ "Please check your Data Base parameters", e);
+	}
+
+	/**
+	 * Method that creates the pool, the batch writer and the spool of the credentials and opens the minimum
+	 * connections of the pool (at least one, so the driver is loaded) before the first message
+	 * @throws LoggerException If the optional parameters are not valid or the database cannot be reached
+	 */
+	@Override
+	public void WarmUp() throws LoggerException
+	{
+		Resolve();
+		try
+		{
+			ConnectionPool pool = ConnectionPoolRegistry.GetPool(dbParams);
+			pool.Prefill();
+			pool.Borrow().Release();
+		}
+		catch (SQLException e)
+		{
+			throw DatabaseError(e);
+		}
+	}
+
+	/**
+	 * Method that gets the spool or the batch writer of the credentials from the registry. With a spool
+	 * the database is not used here, its replayer connects (and prepares the table) in the background
+	 * @return the batch writer, or null if the rows go into the spool
+	 * @throws LoggerException If the optional pool, batch or spool parameters are not valid or the table cannot be prepared
+	 */
+	private DatabaseBatchWriter Resolve() throws LoggerException
+	{
+		//The generation is read first, a close in between only means we will resolve again
+		int current = ConnectionPoolRegistry.getGeneration();
+		DatabaseSpool resolvedSpool = ConnectionPoolRegistry.GetSpool(dbParams);
+		DatabaseBatchWriter resolved = resolvedSpool == null ? ConnectionPoolRegistry.GetBatchWriter(dbParams) : null;
+		spool = resolvedSpool;
+		writer = resolved;
+		generation = current;
+		return resolved;
+	}
+
+	/**
+	 * Method that gives the code of the type of the message we insert in the database
+	 * @param level The type of the message
+	 * @return the code of the type
+	 */
+	public static int TypeOfMessage(LevelOfMessage level)
+	{
+		switch(level)
+		{
+			case ERROR:
+				return 2;
+			case WARNING:
+				return 3;
+			default:
+				return 1;
+		}
+	}
+
+	/**
+	 * Method that gives the type of message of a code of the database
+	 * @param typeOfMessage The code of the type
+	 * @return the type of the message
+	 */
+	public static LevelOfMessage LevelOfType(int typeOfMessage)
+	{
+		switch(typeOfMessage)
+		{
+			case 2:
+				return LevelOfMessage.ERROR;
+			case 3:
+				return LevelOfMessage.WARNING;
+			default:
+				return LevelOfMessage.MESSAGE;
+		}
+	}
+
+	/**
+	 * Getter for what the destination can do: the rows are grouped into batches and kept by the database
+	 * @return the capabilities of the destination
+	 */
+	@Override
+	public Set<SinkCapability> getCapabilities()
+	{
+		return EnumSet.of(SinkCapability.BATCHING, SinkCapability.THREAD_SAFE, SinkCapability.DURABLE);
+	}
+
+	/**
+	 * Getter for the name of the destination, used to name its metrics
+	 * @return the name of the destination
+	 */
+	@Override
+	public String getName()
+	{
+		return "database";
+	}
+
+}
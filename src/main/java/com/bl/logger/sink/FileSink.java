@@ -0,0 +1,147 @@
+package com.bl.logger.sink;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Handler;
+import java.util.logging.Logger;
+
+import com.bl.exception.LoggerException;
+import com.bl.logger.LevelOfMessage;
+import com.bl.logger.event.LogEvent;
+import com.bl.logger.file.FileAppenderRegistry;
+import com.bl.logger.format.MessageRecord;
+
+/**
+ * Destination that writes the messages into the log file of a folder. It keeps the logger of the
+ * long-lived appender, asked to the registry by the first message and again only if the appenders have been closed
+ * @author Teddy
+ *
+ */
+public class FileSink implements LogSink {
+
+	//Atttributes of the class
+	private final Map fileParams;
+	private volatile Logger fileLogger;
+	private volatile int generation = -1;
+
+	/**
+	 * Constructor of the file destination, the appender of the folder is opened by the first message
+	 * @param fileParams The already validated file parameters, they must not be modified afterwards
+	 */
+	public FileSink(Map fileParams)
+	{
+		this.fileParams = fileParams;
+	}
+
+	/**
+	 * Method that holds the logic to log into a file
+	 * @param messageText The message we want to add
+	 * @param level The type of the message we will output
+	 * @param timestamp The moment (in milliseconds) the message was logged
+	 * @throws LoggerException The exception that has been thrown during the process of logging
+	 */
+	@Override
+	public void Write(String messageText, LevelOfMessage level, long timestamp) throws LoggerException
+	{
+		//The record has the final message and keeps the type and the text for the binary appender
+		Publish(new MessageRecord(level, messageText, timestamp));
+	}
+
+	/**
+	 * Method that holds the logic to log a structured event into a file, the appender decides if it is
+	 * written as text or with its fields as JSON
+	 * @param event The structured event
+	 * @param level The type of the message we will output
+	 * @param timestamp The moment (in milliseconds) the message was logged
+	 * @throws LoggerException The exception that has been thrown during the process of logging
+	 */
+	@Override
+	public void Write(LogEvent event, LevelOfMessage level, long timestamp) throws LoggerException
+	{
+		Publish(new MessageRecord(level, event, timestamp));
+	}
+
+	/**
+	 * Method that gives a record to the appender of the folder
+	 * @param record The record of the message
+	 * @throws LoggerException The exception that has been thrown during the process of logging
+	 */
+	private void Publish(MessageRecord record) throws LoggerException
+	{
+		//The appender has been closed since we got it
+		Logger current = fileLogger;
+		if (generation != FileAppenderRegistry.getGeneration())
+			current = Resolve();
+		try
+		{
+			current.log(record);
+		}
+		catch(SecurityException e)
+		{
+			throw new LoggerException("A security error has occurred with the file", e);
+		}
+	}
+
+	/**
+	 * Method that opens the appender of the folder and formats a record that is never written, so the first
+	 * message finds the file and its formatter ready
+	 * @throws LoggerException If the file cannot be opened or the optional file parameters are not valid
+	 */
+	@Override
+	public void WarmUp() throws LoggerException
+	{
+		MessageRecord record = new MessageRecord(LevelOfMessage.MESSAGE, "warm up", System.currentTimeMillis());
+		for (Handler handler : Resolve().getHandlers())
+			if (handler.getFormatter() != null)
+				handler.getFormatter().format(record);
+	}
+
+	/**
+	 * Method that gets the logger of the appender of the folder from the registry
+	 * @return the logger attached to the appender
+	 * @throws LoggerException If the file cannot be opened or the optional file parameters are not valid
+	 */
+	private Logger Resolve() throws LoggerException
+	{
+		try
+		{
+			//The generation is read first, a close in between only means we will resolve again
+			int current = FileAppenderRegistry.getGeneration();
+			Logger resolved = FileAppenderRegistry.GetLogger(fileParams);
+			fileLogger = resolved;
+			generation = current;
+			return resolved;
+		}
+		catch(IOException e)
+		{
+			throw new LoggerException("An error has occurred trying to create, open a file", e);
+		}
+		catch(SecurityException e)
+		{
+			throw new LoggerException("A security error has occurred with the file", e);
+		}
+	}
+
+	/**
+	 * Getter for what the destination can do: the appender can be shared by every thread and the messages are kept in the file
+	 * @return the capabilities of the destination
+	 */
+	@Override
+	public Set<SinkCapability> getCapabilities()
+	{
+		return EnumSet.of(SinkCapability.THREAD_SAFE, SinkCapability.DURABLE);
+	}
+
+	/**
+	 * Getter for the name of the destination, used to name its metrics
+	 * @return the name of the destination
+	 */
+	@Override
+	public String getName()
+	{
+		return "file";
+	}
+
+}
@@ -0,0 +1,84 @@
+package com.bl.logger.sink;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import com.bl.exception.LoggerException;
+import com.bl.logger.LevelOfMessage;
+import com.bl.logger.event.LogEvent;
+import com.bl.logger.format.MessageRecord;
+
+/**
+ * Interface of a destination of the logger whose configuration has already been validated.
+ * Its resources (files, connections) are opened by its first message, or before it by WarmUp.
+ * Destinations other than the file, the console and the database are created by a LogSinkProvider
+ * @author Teddy
+ *
+ */
+public interface LogSink {
+	
+	/**
+	 * Method that writes a message into the destination
+	 * @param messageText The text of the message
+	 * @param level The type of the message
+	 * @param timestamp The moment (in milliseconds) the message was logged
+	 * @throws LoggerException The exception that has been thrown during the process of logging
+	 */
+	void Write(String messageText, LevelOfMessage level, long timestamp) throws LoggerException;
+	
+	/**
+	 * Method that writes a structured event into the destination, by default as the text of the event
+	 * @param event The structured event
+	 * @param level The type of the message
+	 * @param timestamp The moment (in milliseconds) the message was logged
+	 * @throws LoggerException The exception that has been thrown during the process of logging
+	 */
+	default void Write(LogEvent event, LevelOfMessage level, long timestamp) throws LoggerException
+	{
+		Write(event.getMessageText(), level, timestamp);
+	}
+	
+	/**
+	 * Method that writes many messages into the destination, by default one after another. It is
+	 * only called with batches if the destination has the BATCHING capability
+	 * @param records The messages, in the order they were logged
+	 * @throws LoggerException The exception that has been thrown during the process of logging
+	 */
+	default void Write(List<MessageRecord> records) throws LoggerException
+	{
+		for (MessageRecord record : records)
+		{
+			if (record.getEvent() != null)
+				Write(record.getEvent(), record.getLevelOfMessage(), record.getMillis());
+			else
+				Write(record.getMessageText(), record.getLevelOfMessage(), record.getMillis());
+		}
+	}
+	
+	/**
+	 * Getter for what the destination can do. By default it has no capability, so it is written
+	 * from one thread at a time and one message at a time
+	 * @return the capabilities of the destination
+	 */
+	default Set<SinkCapability> getCapabilities()
+	{
+		return EnumSet.noneOf(SinkCapability.class);
+	}
+	
+	/**
+	 * Method that opens the resources of the destination before its first message, so that message
+	 * doesn't pay for them. By default there is nothing to open
+	 * @throws LoggerException If the resources cannot be opened
+	 */
+	default void WarmUp() throws LoggerException
+	{
+	}
+	
+	/**
+	 * Getter for the name of the destination, used to name its metrics
+	 * @return the name of the destination
+	 */
+	String getName();
+
+}
@@ -0,0 +1,31 @@
+package com.bl.logger.sink;
+
+import java.util.Map;
+
+import com.bl.exception.LoggerException;
+
+/**
+ * Interface of the factories of destinations found with ServiceLoader. A jar adds a destination by
+ * listing its provider in META-INF/services/com.bl.logger.sink.LogSinkProvider, and a logger uses it
+ * when its name is in the sinks parameter or is given to Builder.LogTo
+ * @author Teddy
+ *
+ */
+public interface LogSinkProvider {
+	
+	/**
+	 * Getter for the name of the destinations created by this provider, it also names their metrics
+	 * and their threshold parameter (name + "Threshold")
+	 * @return the name of the destination
+	 */
+	String getName();
+	
+	/**
+	 * Method that creates a destination with the parameters of a logger
+	 * @param parameters The copy of the parameters of the logger (it can be null), they must not be modified
+	 * @return the destination
+	 * @throws LoggerException If the parameters of the destination are not valid
+	 */
+	LogSink Create(Map parameters) throws LoggerException;
+
+}
@@ -0,0 +1,124 @@
+package com.bl.logger.sink;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.bl.exception.LoggerException;
+import com.bl.logger.LevelOfMessage;
+import com.bl.logger.format.MessageRecord;
+import com.bl.logger.network.NetworkFrame;
+import com.bl.logger.network.NetworkShipper;
+import com.bl.logger.network.NetworkShipperRegistry;
+
+/**
+ * Destination that ships the messages to a collector through TCP or UDP. It only encodes the messages
+ * and leaves them in the buffer of the long-lived shipper, asked to the registry by the first message
+ * and again only if the shippers have been closed
+ * @author Teddy
+ *
+ */
+public class NetworkSink implements LogSink {
+
+	//Atttributes of the class
+	private final Map networkParams;
+	private volatile NetworkShipper shipper;
+	private volatile int generation = -1;
+
+	/**
+	 * Constructor of the network destination, the shipper of the collector is created by the first message
+	 * @param networkParams The already validated parameters of the collector, they must not be modified afterwards
+	 */
+	public NetworkSink(Map networkParams)
+	{
+		this.networkParams = networkParams;
+	}
+
+	/**
+	 * Method that holds the logic to ship a message
+	 * @param messageText The message we want to add
+	 * @param level The type of the message we will output
+	 * @param timestamp The moment (in milliseconds) the message was logged
+	 * @throws LoggerException If the optional network parameters are not valid
+	 */
+	@Override
+	public void Write(String messageText, LevelOfMessage level, long timestamp) throws LoggerException
+	{
+		Current().Offer(NetworkFrame.EncodeRecord(level, messageText, timestamp));
+	}
+
+	/**
+	 * Method that ships many messages, they go into the buffer of the shipper together
+	 * @param records The messages, in the order they were logged
+	 * @throws LoggerException If the optional network parameters are not valid
+	 */
+	@Override
+	public void Write(List<MessageRecord> records) throws LoggerException
+	{
+		List<byte[]> encoded = new ArrayList<byte[]>(records.size());
+		for (MessageRecord record : records)
+			encoded.add(NetworkFrame.EncodeRecord(record.getLevelOfMessage(), record.getMessageText(), record.getMillis()));
+		Current().Offer(encoded);
+	}
+
+	/**
+	 * Method that creates the shipper, which connects to the collector right away
+	 * @throws LoggerException If the optional network parameters are not valid
+	 */
+	@Override
+	public void WarmUp() throws LoggerException
+	{
+		Resolve();
+	}
+
+	/**
+	 * Method that gives the shipper, asking the registry for it if the shippers have been closed since we got it
+	 * @return the shipper
+	 * @throws LoggerException If the optional network parameters are not valid
+	 */
+	private NetworkShipper Current() throws LoggerException
+	{
+		NetworkShipper current = shipper;
+		if (generation != NetworkShipperRegistry.getGeneration())
+			current = Resolve();
+		return current;
+	}
+
+	/**
+	 * Method that gets the shipper of the collector from the registry
+	 * @return the shipper
+	 * @throws LoggerException If the optional network parameters are not valid
+	 */
+	private NetworkShipper Resolve() throws LoggerException
+	{
+		//The generation is read first, a close in between only means we will resolve again
+		int current = NetworkShipperRegistry.getGeneration();
+		NetworkShipper resolved = NetworkShipperRegistry.GetShipper(networkParams);
+		shipper = resolved;
+		generation = current;
+		return resolved;
+	}
+
+	/**
+	 * Getter for what the destination can do: the shipper takes many messages at once from any thread
+	 * @return the capabilities of the destination
+	 */
+	@Override
+	public Set<SinkCapability> getCapabilities()
+	{
+		return EnumSet.of(SinkCapability.BATCHING, SinkCapability.THREAD_SAFE);
+	}
+
+	/**
+	 * Getter for the name of the destination, used to name its metrics
+	 * @return the name of the destination
+	 */
+	@Override
+	public String getName()
+	{
+		return "network";
+	}
+
+}
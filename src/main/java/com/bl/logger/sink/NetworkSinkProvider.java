@@ -0,0 +1,38 @@
+package com.bl.logger.sink;
+
+import java.util.Map;
+
+import com.bl.exception.LoggerException;
+import com.bl.logger.network.NetworkShipperRegistry;
+
+/**
+ * Provider of the destination that ships the messages to a collector, used with the name "network"
+ * @author Teddy
+ *
+ */
+public class NetworkSinkProvider implements LogSinkProvider {
+
+	/**
+	 * Getter for the name of the destination
+	 * @return the name of the destination
+	 */
+	@Override
+	public String getName()
+	{
+		return "network";
+	}
+
+	/**
+	 * Method that creates the destination after checking the parameters of the collector
+	 * @param parameters The copy of the parameters of the logger (it can be null)
+	 * @return the destination
+	 * @throws LoggerException If the parameters of the collector are not valid
+	 */
+	@Override
+	public LogSink Create(Map parameters) throws LoggerException
+	{
+		NetworkShipperRegistry.ValidateParameters(parameters);
+		return new NetworkSink(parameters);
+	}
+
+}
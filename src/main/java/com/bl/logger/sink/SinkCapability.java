@@ -0,0 +1,33 @@
+package com.bl.logger.sink;
+
+/**
+ * Enum with what a destination can do, the logger uses it to choose the cheapest way of writing into it
+ * @author Teddy
+ *
+ */
+public enum SinkCapability {
+	
+	/**
+	 * Writing many messages at once is cheaper than writing them one by one, so the asynchronous
+	 * consumers give the destination every message they have taken in a single call
+	 */
+	BATCHING,
+	
+	/**
+	 * The destination can be written by many threads at the same time, otherwise the logger
+	 * writes into it from one thread at a time
+	 */
+	THREAD_SAFE,
+	
+	/**
+	 * The messages are kept by the destination (file, database) once they have been written
+	 */
+	DURABLE,
+	
+	/**
+	 * Writing into the destination never waits (for a lock, a buffer or the network), so when the
+	 * destinations are written in parallel the calling thread writes it instead of the executor
+	 */
+	NON_BLOCKING
+
+}
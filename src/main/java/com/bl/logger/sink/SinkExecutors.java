@@ -0,0 +1,61 @@
+package com.bl.logger.sink;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class that gives the default executor used to write a message into many destinations at the same time.
+ * It uses virtual threads when the JVM has them (Java 21 or later) and a pool of daemon threads otherwise
+ * @author Teddy
+ *
+ */
+public final class SinkExecutors {
+
+	/**
+	 * Private constructor, this class only has static methods
+	 */
+	private SinkExecutors() {
+	}
+
+	/**
+	 * Method that gives the shared default executor, created the first time it is needed
+	 * @return the executor
+	 */
+	public static Executor GetDefault()
+	{
+		return Holder.EXECUTOR;
+	}
+
+	/**
+	 * Method that creates the executor, looking for virtual threads by reflection so the code still
+	 * compiles and runs on Java 8
+	 * @return the executor
+	 */
+	private static ExecutorService Create()
+	{
+		try
+		{
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		}
+		catch (ReflectiveOperationException | RuntimeException e)
+		{
+			//The threads only wait for the destinations, so idle ones are released after a while
+			final AtomicInteger counter = new AtomicInteger();
+			return Executors.newCachedThreadPool(runnable -> {
+				Thread thread = new Thread(runnable, "JobLogger-sink-" + counter.getAndIncrement());
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+
+	/**
+	 * Holder of the executor, so it is only created when the parallel mode is used
+	 */
+	private static final class Holder {
+		private static final ExecutorService EXECUTOR = Create();
+	}
+
+}
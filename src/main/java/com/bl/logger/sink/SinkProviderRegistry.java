@@ -0,0 +1,65 @@
+package com.bl.logger.sink;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+import com.bl.exception.LoggerException;
+
+/**
+ * Class that keeps the providers of destinations found with ServiceLoader. The class path is only
+ * searched the first time a destination is asked for by its name
+ * @author Teddy
+ *
+ */
+public final class SinkProviderRegistry {
+
+	//Atttributes of the class
+	private static volatile Map<String, LogSinkProvider> providers;
+
+	/**
+	 * Private constructor, this class only has static methods
+	 */
+	private SinkProviderRegistry() {
+	}
+
+	/**
+	 * Method that creates a destination with the provider of its name
+	 * @param name The name of the destination
+	 * @param parameters The copy of the parameters of the logger (it can be null)
+	 * @return the destination
+	 * @throws LoggerException If there is no provider with that name or the parameters are not valid
+	 */
+	public static LogSink Create(String name, Map parameters) throws LoggerException
+	{
+		LogSinkProvider provider = GetProviders().get(name);
+		if (provider == null)
+			throw new LoggerException("There is no destination named " + name);
+		return provider.Create(parameters);
+	}
+
+	/**
+	 * Method that gives the providers by name, loading them the first time
+	 * @return the providers
+	 */
+	private static Map<String, LogSinkProvider> GetProviders()
+	{
+		//Most of the times the providers have already been loaded
+		Map<String, LogSinkProvider> current = providers;
+		if (current != null)
+			return current;
+		synchronized (SinkProviderRegistry.class)
+		{
+			if (providers == null)
+			{
+				//The first provider found for a name wins
+				Map<String, LogSinkProvider> loaded = new HashMap<String, LogSinkProvider>();
+				for (LogSinkProvider provider : ServiceLoader.load(LogSinkProvider.class, SinkProviderRegistry.class.getClassLoader()))
+					loaded.putIfAbsent(provider.getName(), provider);
+				providers = loaded;
+			}
+			return providers;
+		}
+	}
+
+}
@@ -0,0 +1,303 @@
+package com.bl.logger.throttle;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.bl.exception.LoggerException;
+import com.bl.logger.LevelOfMessage;
+import com.bl.logger.metrics.Counter;
+import com.bl.logger.metrics.MetricsRegistry;
+
+/**
+ * Stage in front of the destinations that protects them during storms of messages. The first message
+ * with a given text and type is written, its repeats within the deduplication window are only counted
+ * and written afterwards as a single "text ... repeated N times" message. The messages left are then
+ * limited by a token bucket per type of message. The summaries of the messages that are not logged
+ * again can be written by a background thread and when the application stops (SweepInBackground)
+ * @author Teddy
+ *
+ */
+public final class MessageThrottle {
+
+	//Counters of the discarded messages, published in the MetricsRegistry
+	private static final Counter[] deduplicated = new Counter[LevelOfMessage.values().length];
+	private static final Counter[] rateLimited = new Counter[LevelOfMessage.values().length];
+
+	static {
+		for (LevelOfMessage level : LevelOfMessage.values())
+		{
+			deduplicated[level.ordinal()] = MetricsRegistry.GetCounter("deduplicated." + level.name());
+			rateLimited[level.ordinal()] = MetricsRegistry.GetCounter("rateLimited." + level.name());
+		}
+	}
+
+	//Atttributes of the class
+	private final long windowMillis;
+	private final int maxMessages;
+	private final TokenBucket[] buckets;
+	private final Map<RepeatKey, Repeat> repeats = new ConcurrentHashMap<RepeatKey, Repeat>();
+	private final AtomicLong nextSweep = new AtomicLong();
+	private volatile RepeatHandler backgroundHandler;
+
+	/**
+	 * Constructor of the throttle
+	 * @param windowMillis Time during which the repeats of a message are collapsed (0 disables the deduplication)
+	 * @param maxMessages Maximum amount of different messages followed at the same time
+	 * @param ratesPerSecond Maximum amount of messages per second of every type (0 means no limit)
+	 * @param burst Amount of messages over the rate accepted at once (0 means one second of messages)
+	 */
+	public MessageThrottle(long windowMillis, int maxMessages, long[] ratesPerSecond, long burst)
+	{
+		this.windowMillis = windowMillis;
+		this.maxMessages = maxMessages;
+		this.buckets = new TokenBucket[ratesPerSecond.length];
+		for (int i = 0; i < ratesPerSecond.length; i++)
+			if (ratesPerSecond[i] > 0)
+				buckets[i] = new TokenBucket(ratesPerSecond[i], burst > 0 ? burst : ratesPerSecond[i]);
+	}
+
+	/**
+	 * Method that decides if a message must be written. The summaries of the repeats whose window
+	 * has finished are given to the handler before the decision is taken
+	 * @param messageText The text of the message
+	 * @param level The type of the message
+	 * @param now The current time in milliseconds
+	 * @param handler The object that writes the summaries of the repeated messages
+	 * @return true if the message must be written, false if it has been collapsed or rate limited
+	 * @throws LoggerException The exception thrown by the handler
+	 */
+	public boolean Accept(String messageText, LevelOfMessage level, long now, RepeatHandler handler) throws LoggerException
+	{
+		if (windowMillis > 0)
+		{
+			//Writing the repeats of the messages that have not been seen again
+			Expire(now, handler);
+
+			RepeatKey key = new RepeatKey(messageText, level);
+			while (true)
+			{
+				Repeat repeat = repeats.get(key);
+				if (repeat == null)
+				{
+					//Messages over the limit are not followed, they go straight to the rate limit
+					if (repeats.size() < maxMessages && repeats.putIfAbsent(key, new Repeat(now)) != null)
+						continue;
+					break;
+				}
+
+				long count;
+				synchronized (repeat)
+				{
+					//The sweep has just written and removed it
+					if (repeat.removed)
+						continue;
+					if (now - repeat.windowStart < windowMillis)
+					{
+						repeat.count++;
+						deduplicated[level.ordinal()].Increment();
+						return false;
+					}
+					count = repeat.count;
+					repeat.count = 0;
+					repeat.windowStart = now;
+				}
+				if (count > 0)
+					handler.Repeated(Summary(messageText, count), level);
+				break;
+			}
+		}
+
+		//Applying the rate limit of the type of message
+		TokenBucket bucket = buckets[level.ordinal()];
+		if (bucket != null && !bucket.TryTake())
+		{
+			rateLimited[level.ordinal()].Increment();
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Method that asks the background thread to write the summaries of the finished windows, and the pending ones
+	 * when the application stops. The thread keeps the throttle only while somebody else uses it
+	 * @param handler The object that writes the summaries of the repeated messages
+	 */
+	public void SweepInBackground(RepeatHandler handler)
+	{
+		if (windowMillis == 0)
+			return;
+		backgroundHandler = handler;
+		RepeatSweeper.Register(this);
+	}
+
+	/**
+	 * Method used by the background thread to write the summaries, nobody waits for the errors of the handler
+	 * @param now The current time in milliseconds, Long.MAX_VALUE to write every pending repeat
+	 */
+	void SweepQuietly(long now)
+	{
+		//The throttle may have been closed since the thread took it
+		RepeatHandler handler = backgroundHandler;
+		if (handler == null)
+			return;
+		try
+		{
+			if (now == Long.MAX_VALUE)
+				Sweep(now, handler);
+			else
+				Expire(now, handler);
+		}
+		catch (LoggerException e)
+		{
+			//The destinations keep their own errors, the summary is lost like a failed message
+		}
+	}
+
+	/**
+	 * Method that sweeps the repeats at most once every window
+	 * @param now The current time in milliseconds
+	 * @param handler The object that writes the summaries of the repeated messages
+	 * @throws LoggerException The first exception thrown by the handler
+	 */
+	private void Expire(long now, RepeatHandler handler) throws LoggerException
+	{
+		long sweep = nextSweep.get();
+		if (now >= sweep && nextSweep.compareAndSet(sweep, now + windowMillis))
+			Sweep(now, handler);
+	}
+
+	/**
+	 * Method that writes the summaries of every repeated message right now, no matter its window
+	 * @param handler The object that writes the summaries of the repeated messages
+	 * @throws LoggerException The first exception thrown by the handler
+	 */
+	public void Flush(RepeatHandler handler) throws LoggerException
+	{
+		Sweep(Long.MAX_VALUE, handler);
+	}
+
+	/**
+	 * Method that stops the background thread from sweeping the throttle and writes every pending repeat
+	 * @param handler The object that writes the summaries of the repeated messages
+	 * @throws LoggerException The first exception thrown by the handler
+	 */
+	public void Close(RepeatHandler handler) throws LoggerException
+	{
+		if (backgroundHandler != null)
+		{
+			backgroundHandler = null;
+			RepeatSweeper.Unregister(this);
+		}
+		Flush(handler);
+	}
+
+	/**
+	 * Method that removes the messages whose window has finished, writing their summaries
+	 * @param now The current time in milliseconds
+	 * @param handler The object that writes the summaries of the repeated messages
+	 * @throws LoggerException The first exception thrown by the handler
+	 */
+	private void Sweep(long now, RepeatHandler handler) throws LoggerException
+	{
+		LoggerException error = null;
+		Iterator<Map.Entry<RepeatKey, Repeat>> iterator = repeats.entrySet().iterator();
+		while (iterator.hasNext())
+		{
+			Map.Entry<RepeatKey, Repeat> entry = iterator.next();
+			Repeat repeat = entry.getValue();
+			long count;
+			synchronized (repeat)
+			{
+				if (now != Long.MAX_VALUE && now - repeat.windowStart < windowMillis)
+					continue;
+				repeat.removed = true;
+				count = repeat.count;
+			}
+			iterator.remove();
+
+			//Every summary is attempted even if one of them fails
+			if (count > 0)
+			{
+				try
+				{
+					handler.Repeated(Summary(entry.getKey().messageText, count), entry.getKey().level);
+				}
+				catch (LoggerException e)
+				{
+					if (error == null)
+						error = e;
+				}
+			}
+		}
+		if (error != null)
+			throw error;
+	}
+
+	/**
+	 * Method that gives the text written for a repeated message
+	 * @param messageText The text of the message
+	 * @param count The amount of repeats that have not been written
+	 * @return the text of the summary
+	 */
+	public static String Summary(String messageText, long count)
+	{
+		return messageText + " ... repeated " + count + " times";
+	}
+
+	/**
+	 * Getter for the amount of different messages followed right now
+	 * @return the amount of messages
+	 */
+	public int getTrackedMessages()
+	{
+		return repeats.size();
+	}
+
+	/**
+	 * Key of a repeated message: its text and its type
+	 */
+	private static final class RepeatKey {
+
+		private final String messageText;
+		private final LevelOfMessage level;
+
+		private RepeatKey(String messageText, LevelOfMessage level)
+		{
+			this.messageText = messageText;
+			this.level = level;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return 31 * messageText.hashCode() + level.ordinal();
+		}
+
+		@Override
+		public boolean equals(Object other)
+		{
+			if (!(other instanceof RepeatKey))
+				return false;
+			RepeatKey key = (RepeatKey) other;
+			return level == key.level && messageText.equals(key.messageText);
+		}
+	}
+
+	/**
+	 * Repeats of a message within its current window, guarded by its own monitor
+	 */
+	private static final class Repeat {
+
+		private long windowStart;
+		private long count;
+		private boolean removed;
+
+		private Repeat(long windowStart)
+		{
+			this.windowStart = windowStart;
+		}
+	}
+
+}
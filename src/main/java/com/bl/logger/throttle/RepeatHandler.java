@@ -0,0 +1,22 @@
+package com.bl.logger.throttle;
+
+import com.bl.exception.LoggerException;
+import com.bl.logger.LevelOfMessage;
+
+/**
+ * Interface of the object that writes the summary of a message that has been repeated
+ * @author Teddy
+ *
+ */
+@FunctionalInterface
+public interface RepeatHandler {
+
+	/**
+	 * Method that writes the summary of a repeated message
+	 * @param summaryText The text of the message followed by the amount of repeats
+	 * @param level The type of the message
+	 * @throws LoggerException The exception that has been thrown during the process of logging
+	 */
+	void Repeated(String summaryText, LevelOfMessage level) throws LoggerException;
+
+}
@@ -0,0 +1,96 @@
+package com.bl.logger.throttle;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class that writes in the background the summaries of the repeated messages whose window has finished,
+ * so they do not wait for the next message, and the pending ones when the application stops. The
+ * throttles are weakly referenced, a logger that is not used anymore can still be collected
+ * @author Teddy
+ *
+ */
+final class RepeatSweeper {
+
+	//Time between two looks at the throttles
+	private static final long SWEEP_INTERVAL = 100;
+
+	//Atttributes of the class
+	private static final Queue<WeakReference<MessageThrottle>> throttles = new ConcurrentLinkedQueue<WeakReference<MessageThrottle>>();
+	private static ScheduledExecutorService scheduler;
+
+	/**
+	 * Private constructor, this class only has static methods
+	 */
+	private RepeatSweeper() {
+	}
+
+	/**
+	 * Method that adds a throttle to the ones swept in the background, starting the thread the first time
+	 * @param throttle The throttle
+	 */
+	static synchronized void Register(MessageThrottle throttle)
+	{
+		throttles.add(new WeakReference<MessageThrottle>(throttle));
+		if (scheduler != null)
+			return;
+		scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "JobLogger-repeat-sweeper");
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduler.scheduleWithFixedDelay(RepeatSweeper::SweepAll, SWEEP_INTERVAL, SWEEP_INTERVAL, TimeUnit.MILLISECONDS);
+		Runtime.getRuntime().addShutdownHook(new Thread(RepeatSweeper::FlushAll, "JobLogger-repeat-shutdown"));
+	}
+
+	/**
+	 * Method that removes a throttle from the ones swept in the background
+	 * @param throttle The throttle
+	 */
+	static void Unregister(MessageThrottle throttle)
+	{
+		Iterator<WeakReference<MessageThrottle>> iterator = throttles.iterator();
+		while (iterator.hasNext())
+		{
+			MessageThrottle registered = iterator.next().get();
+			if (registered == null || registered == throttle)
+				iterator.remove();
+		}
+	}
+
+	/**
+	 * Method executed by the background thread, it sweeps every throttle and forgets the collected ones
+	 */
+	private static void SweepAll()
+	{
+		long now = System.currentTimeMillis();
+		Iterator<WeakReference<MessageThrottle>> iterator = throttles.iterator();
+		while (iterator.hasNext())
+		{
+			MessageThrottle throttle = iterator.next().get();
+			if (throttle == null)
+				iterator.remove();
+			else
+				throttle.SweepQuietly(now);
+		}
+	}
+
+	/**
+	 * Method executed when the application stops, it writes the summaries of every pending repeat
+	 */
+	private static void FlushAll()
+	{
+		for (WeakReference<MessageThrottle> reference : throttles)
+		{
+			MessageThrottle throttle = reference.get();
+			if (throttle != null)
+				throttle.SweepQuietly(Long.MAX_VALUE);
+		}
+	}
+
+}
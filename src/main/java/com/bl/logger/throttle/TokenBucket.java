@@ -0,0 +1,58 @@
+package com.bl.logger.throttle;
+
+/**
+ * Token bucket that lets a type of message through at a steady rate with some room for bursts
+ * @author Teddy
+ *
+ */
+final class TokenBucket {
+
+	//Atttributes of the class
+	private final long capacity;
+	private final long nanosPerToken;
+	private long tokens;
+	private long lastRefill;
+
+	/**
+	 * Constructor of the bucket, it starts full
+	 * @param perSecond The amount of tokens added every second
+	 * @param capacity The maximum amount of tokens the bucket can hold
+	 */
+	TokenBucket(long perSecond, long capacity)
+	{
+		this.capacity = capacity;
+		this.nanosPerToken = Math.max(1, 1000000000L / perSecond);
+		this.tokens = capacity;
+		this.lastRefill = System.nanoTime();
+	}
+
+	/**
+	 * Method that takes one token if there is any
+	 * @return true if the message can be written
+	 */
+	synchronized boolean TryTake()
+	{
+		//Adding the tokens earned since the last refill, keeping the remainder of time for the next one
+		long now = System.nanoTime();
+		long earned = (now - lastRefill) / nanosPerToken;
+		if (earned > 0)
+		{
+			if (tokens + earned >= capacity)
+			{
+				tokens = capacity;
+				lastRefill = now;
+			}
+			else
+			{
+				tokens += earned;
+				lastRefill += earned * nanosPerToken;
+			}
+		}
+
+		if (tokens == 0)
+			return false;
+		tokens--;
+		return true;
+	}
+
+}
@@ -0,0 +1,283 @@
+package com.bl.junit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.bl.exception.LoggerException;
+import com.bl.logger.JobLogger;
+import com.bl.logger.LevelOfMessage;
+import com.bl.logger.async.AsyncDispatcher;
+import com.bl.logger.async.AsyncIntake;
+import com.bl.logger.async.BackPressurePolicy;
+
+/**
+ * Class that will have all the unit tests for the asynchronous mode of the Logger
+ * @author Teddy
+ *
+ */
+public class AsyncLoggerTests {
+
+	/**
+	 * Method to go back to synchronous mode after every test
+	 */
+	@After
+	public void TearDown()
+	{
+		JobLogger.StopAsyncMode(5, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Unit test to verify that the asynchronous mode still validates the message on the caller thread
+	 * @throws LoggerException
+	 */
+	@Test
+	public void AsyncModeValidatesTheMessageTest() throws LoggerException
+	{
+		JobLogger.StartAsyncMode(16, 1, BackPressurePolicy.BLOCK, 0);
+
+		LoggerException exception = Assert.assertThrows(LoggerException.class,
+				() -> JobLogger.LogMessage("          ", false, true, false, LevelOfMessage.WARNING, null));
+		Assert.assertTrue(exception.getMessage().equals("The message cannot contain only white space"));
+	}
+
+	/**
+	 * Unit test to verify that a message logged in asynchronous mode reaches the console
+	 * @throws LoggerException
+	 */
+	@Test
+	public void AsyncModeLogsIntoTheConsoleTest() throws LoggerException
+	{
+		//Getting the logger and adding our custom handler
+		Logger logger = Logger.getLogger("MyLog");
+		final LoggerTestsHandler handler = new LoggerTestsHandler();
+		handler.setLevel(Level.ALL);
+		logger.setUseParentHandlers(false);
+		logger.addHandler(handler);
+
+		//Logging and draining the buffer
+		JobLogger.StartAsyncMode(16, 1, BackPressurePolicy.BLOCK, 0);
+		JobLogger.LogMessage("This an async error message", false, true, false, LevelOfMessage.ERROR, null);
+		Assert.assertTrue(JobLogger.StopAsyncMode(5, TimeUnit.SECONDS));
+
+		//Asserting the message has been written by the consumer
+		Assert.assertTrue(handler.getLevelRecorded().intValue() == Level.SEVERE.intValue());
+		Assert.assertTrue(handler.getMessageRecorded().endsWith("This an async error message"));
+
+		//Removing the handler to avoid memory leak
+		logger.removeHandler(handler);
+	}
+
+	/**
+	 * Unit test to verify that with many consumers every message is written with its own type
+	 * @throws Exception
+	 */
+	@Test
+	public void ConsumersKeepEveryMessageWithItsTypeTest() throws Exception
+	{
+		//Keeping every record that reaches the handlers of "MyLog"
+		final List<LogRecord> records = Collections.synchronizedList(new ArrayList<LogRecord>());
+		Handler handler = new Handler() {
+			@Override
+			public void publish(LogRecord record)
+			{
+				records.add(record);
+			}
+
+			@Override
+			public void flush()
+			{
+			}
+
+			@Override
+			public void close()
+			{
+			}
+		};
+		handler.setLevel(Level.ALL);
+		Logger logger = Logger.getLogger("MyLog");
+		logger.setUseParentHandlers(false);
+		logger.addHandler(handler);
+		try
+		{
+			//Every thread logs the three types, the text says which one it is
+			JobLogger.StartAsyncMode(64, 4, BackPressurePolicy.BLOCK, 0);
+			final LevelOfMessage[] levels = LevelOfMessage.values();
+			Thread[] threads = new Thread[4];
+			for (int t = 0; t < threads.length; t++)
+			{
+				threads[t] = new Thread(() -> {
+					try
+					{
+						for (int i = 0; i < 300; i++)
+						{
+							LevelOfMessage level = levels[i % levels.length];
+							JobLogger.LogMessage("paired " + level.name() + " " + i, false, true, false, level, null);
+						}
+					}
+					catch (LoggerException e)
+					{
+						throw new IllegalStateException(e);
+					}
+				});
+				threads[t].start();
+			}
+			for (Thread thread : threads)
+				thread.join();
+			Assert.assertTrue(JobLogger.StopAsyncMode(5, TimeUnit.SECONDS));
+
+			//No message has been written with the type of another one
+			Map<String, Level> expected = new HashMap<String, Level>();
+			expected.put("ERROR", Level.SEVERE);
+			expected.put("WARNING", Level.WARNING);
+			expected.put("MESSAGE", Level.INFO);
+			int paired = 0;
+			synchronized (records)
+			{
+				for (LogRecord record : records)
+				{
+					String message = record.getMessage();
+					int index = message.indexOf("paired ");
+					if (index < 0)
+						continue;
+					String type = message.substring(index + 7, message.indexOf(' ', index + 7));
+					Assert.assertEquals(message, expected.get(type), record.getLevel());
+					paired++;
+				}
+			}
+			Assert.assertEquals(1200, paired);
+		}
+		finally
+		{
+			logger.removeHandler(handler);
+		}
+	}
+
+	/**
+	 * Unit test to verify that the errors of the consumers are counted instead of thrown
+	 * @throws LoggerException
+	 */
+	@Test
+	public void AsyncModeCountsFailedMessagesTest() throws LoggerException
+	{
+		JobLogger.StartAsyncMode(16, 1, BackPressurePolicy.BLOCK, 0);
+		AsyncIntake dispatcher = JobLogger.GetAsyncDispatcher();
+
+		//There is no driver for the database, the caller must not see the error
+		Map<String, Object> dbParams = new HashMap<String, Object>();
+		dbParams.put("userName", "username");
+		dbParams.put("password", "dragon");
+		dbParams.put("dbms", "nodriver");
+		dbParams.put("serverName", "nowhere");
+		JobLogger.LogMessage("This is a message", false, false, true, LevelOfMessage.WARNING, dbParams);
+		JobLogger.StopAsyncMode(5, TimeUnit.SECONDS);
+
+		Assert.assertEquals(1, dispatcher.getFailedEvents());
+		Assert.assertTrue(dispatcher.getLastFailure().getMessage().equals("Cannot create database connection or perform DML instruction, "
+				+ "Please check your Data Base parameters"));
+	}
+
+	/**
+	 * Unit test to verify that an Error thrown by a destination does not kill the consumer and block the callers
+	 * @throws Exception
+	 */
+	@Test
+	public void ConsumerSurvivesAnErrorTest() throws Exception
+	{
+		//Every odd message makes the destination throw an Error
+		AsyncDispatcher dispatcher = new AsyncDispatcher(4, 1, BackPressurePolicy.BLOCK, 0, event -> {
+			if (Integer.parseInt(event.getMessageText().substring("message ".length())) % 2 == 1)
+				throw new AssertionError("Broken destination");
+		});
+
+		//Many more messages than the buffer holds, the caller blocks until the consumer makes room
+		Thread producer = new Thread(() -> {
+			try
+			{
+				for (int i = 0; i < 40; i++)
+					dispatcher.Offer(null, "message " + i, LevelOfMessage.MESSAGE);
+			}
+			catch (LoggerException e)
+			{
+				throw new IllegalStateException(e);
+			}
+		});
+		producer.start();
+		producer.join(10000);
+		Assert.assertFalse(producer.isAlive());
+
+		Assert.assertTrue(dispatcher.Stop(5, TimeUnit.SECONDS));
+		Assert.assertEquals(20, dispatcher.getProcessedEvents());
+		Assert.assertEquals(20, dispatcher.getFailedEvents());
+		Assert.assertTrue(dispatcher.getLastFailure().getCause() instanceof AssertionError);
+	}
+
+	/**
+	 * Unit test to verify the DROP_NEWEST and DROP_OLDEST policies count the discarded messages
+	 * @throws Exception
+	 */
+	@Test
+	public void DropPoliciesCountDiscardedMessagesTest() throws Exception
+	{
+		for (BackPressurePolicy policy : new BackPressurePolicy[] {BackPressurePolicy.DROP_NEWEST, BackPressurePolicy.DROP_OLDEST})
+		{
+			//The consumer waits until we let it go so the buffer fills up
+			final CountDownLatch release = new CountDownLatch(1);
+			final CountDownLatch started = new CountDownLatch(1);
+			AsyncDispatcher dispatcher = new AsyncDispatcher(4, 1, policy, 0, event -> {
+				started.countDown();
+				try
+				{
+					release.await();
+				}
+				catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+				}
+			});
+
+			//The first message keeps the consumer busy, the next four fill the buffer
+			dispatcher.Offer(null, "message 0", LevelOfMessage.MESSAGE);
+			started.await(5, TimeUnit.SECONDS);
+			for (int i = 1; i <= 4; i++)
+				Assert.assertTrue(dispatcher.Offer(null, "message " + i, LevelOfMessage.MESSAGE));
+
+			//The buffer is full now
+			boolean accepted = dispatcher.Offer(null, "message 5", LevelOfMessage.MESSAGE);
+			Assert.assertEquals(policy == BackPressurePolicy.DROP_OLDEST, accepted);
+			Assert.assertEquals(1, dispatcher.getDroppedEvents());
+
+			release.countDown();
+			Assert.assertTrue(dispatcher.Stop(5, TimeUnit.SECONDS));
+			Assert.assertEquals(5, dispatcher.getProcessedEvents());
+		}
+	}
+
+	/**
+	 * Unit test to verify that an invalid configuration is rejected
+	 */
+	@Test
+	public void InvalidAsyncConfigurationTest()
+	{
+		LoggerException exception = Assert.assertThrows(LoggerException.class,
+				() -> JobLogger.StartAsyncMode(0, 1, BackPressurePolicy.BLOCK, 0));
+		Assert.assertTrue(exception.getMessage().equals("The capacity and the consumers of the asynchronous mode must be positive"));
+
+		exception = Assert.assertThrows(LoggerException.class,
+				() -> JobLogger.StartAsyncMode(16, 1, BackPressurePolicy.SAMPLE, 1));
+		Assert.assertTrue(exception.getMessage().equals("The sample rate must be greater than one"));
+	}
+
+}
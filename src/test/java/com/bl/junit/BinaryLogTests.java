@@ -0,0 +1,134 @@
+package com.bl.junit;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.bl.exception.LoggerException;
+import com.bl.logger.JobLogger;
+import com.bl.logger.LevelOfMessage;
+import com.bl.logger.file.FileAppenderRegistry;
+import com.bl.logger.format.BinaryLogReader;
+import com.bl.logger.format.MessageFormatter;
+
+/**
+ * Class that will have all the unit tests for the binary log format
+ * @author Teddy
+ *
+ */
+public class BinaryLogTests {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Method that gives the parameters of a binary appender in the temporary folder
+	 * @return the parameters
+	 */
+	private Map<String, Object> BinaryParameters()
+	{
+		Map<String, Object> dbParams = new HashMap<String, Object>();
+		dbParams.put("logFileFolder", folder.getRoot().getPath());
+		dbParams.put("fileMode", "binary");
+		return dbParams;
+	}
+
+	/**
+	 * Unit test to verify that the messages are read back with their type, moment and text
+	 * @throws Exception
+	 */
+	@Test
+	public void MessagesAreReadBackTest() throws Exception
+	{
+		//A long text needs more than one byte for its length
+		StringBuilder longText = new StringBuilder();
+		for (int i = 0; i < 100; i++)
+			longText.append("long ");
+		String[] texts = {"This an info message", "Mensaje con acentos: \u00e1\u00e9\u00ed\u00f3\u00fa \u20ac", longText.toString()};
+		LevelOfMessage[] levels = {LevelOfMessage.MESSAGE, LevelOfMessage.WARNING, LevelOfMessage.ERROR};
+
+		long before = System.currentTimeMillis();
+		for (int i = 0; i < texts.length; i++)
+			JobLogger.LogMessage(texts[i], true, false, false, levels[i], BinaryParameters());
+		long after = System.currentTimeMillis();
+		FileAppenderRegistry.CloseAll();
+
+		try (BinaryLogReader reader = new BinaryLogReader(new FileInputStream(new File(folder.getRoot(), "logFile.bin"))))
+		{
+			for (int i = 0; i < texts.length; i++)
+			{
+				Assert.assertTrue(reader.Next());
+				Assert.assertEquals(levels[i], reader.getLevel());
+				Assert.assertEquals(texts[i], reader.getMessageText());
+				Assert.assertTrue(reader.getTimestamp() >= before && reader.getTimestamp() <= after);
+				Assert.assertEquals(reader.getTimestamp() * 1000000L, reader.getTimestampNanos());
+			}
+			Assert.assertFalse(reader.Next());
+		}
+	}
+
+	/**
+	 * Unit test to verify that the decoder gives the same text the text appender writes, and that the file is smaller
+	 * @throws Exception
+	 */
+	@Test
+	public void BinaryLogIsDecodedIntoTextTest() throws Exception
+	{
+		File textFolder = folder.newFolder("text");
+		Map<String, Object> textParams = new HashMap<String, Object>();
+		textParams.put("logFileFolder", textFolder.getPath());
+		Map<String, Object> binaryParams = BinaryParameters();
+		for (int i = 0; i < 50; i++)
+		{
+			JobLogger.LogMessage("message number " + i, true, false, false, LevelOfMessage.WARNING, binaryParams);
+			JobLogger.LogMessage("message number " + i, true, false, false, LevelOfMessage.WARNING, textParams);
+		}
+		FileAppenderRegistry.CloseAll();
+
+		//Reopening the file appends to it without a second header
+		JobLogger.LogMessage("after reopening", true, false, false, LevelOfMessage.ERROR, binaryParams);
+		FileAppenderRegistry.CloseAll();
+
+		File binaryFile = new File(folder.getRoot(), "logFile.bin");
+		StringWriter text = new StringWriter();
+		Assert.assertEquals(51, BinaryLogReader.Decode(new FileInputStream(binaryFile), text));
+		String[] lines = text.toString().split(System.lineSeparator());
+		Assert.assertEquals(51, lines.length);
+		Assert.assertTrue(lines[0].startsWith(MessageFormatter.Prefix(LevelOfMessage.WARNING, System.currentTimeMillis())));
+		Assert.assertTrue(lines[0].endsWith(" message number 0"));
+		Assert.assertTrue(lines[50].startsWith("error ") && lines[50].endsWith(" after reopening"));
+
+		//The binary file takes less than half of the text one
+		Assert.assertTrue(binaryFile.length() * 2 < new File(textFolder, "logFile.txt").length());
+	}
+
+	/**
+	 * Unit test to verify that a file that is not a binary log is rejected
+	 * @throws Exception
+	 */
+	@Test
+	public void OtherFilesAreRejectedTest() throws Exception
+	{
+		Files.write(new File(folder.getRoot(), "logFile.bin").toPath(), "plain text".getBytes(StandardCharsets.UTF_8));
+
+		LoggerException exception = Assert.assertThrows(LoggerException.class,
+				() -> JobLogger.LogMessage("This is a message", true, false, false, LevelOfMessage.WARNING, BinaryParameters()));
+		Assert.assertTrue(exception.getMessage().equals("An error has occurred trying to create, open a file"));
+
+		IOException error = Assert.assertThrows(IOException.class,
+				() -> new BinaryLogReader(new ByteArrayInputStream("JLOX".getBytes(StandardCharsets.UTF_8))));
+		Assert.assertTrue(error.getMessage().equals("The stream is not a binary log"));
+	}
+
+}
@@ -0,0 +1,138 @@
+package com.bl.junit;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.bl.exception.LoggerException;
+import com.bl.logger.JobLogger;
+import com.bl.logger.LevelOfMessage;
+import com.bl.logger.database.ConnectionPool;
+import com.bl.logger.database.ConnectionPoolRegistry;
+import com.bl.logger.database.PooledConnection;
+
+/**
+ * Class that will have all the unit tests for the database connection pool
+ * @author Teddy
+ *
+ */
+public class ConnectionPoolTests {
+
+	/**
+	 * Method that creates the LOG table in an in-memory database used only by these tests
+	 * @throws SQLException
+	 */
+	@BeforeClass
+	public static void SetUp() throws SQLException
+	{
+		TestSupport.ConnectWithLogTable("mem:pooltests").close();
+	}
+
+	/**
+	 * Unit test to verify that repeated messages with the same parameters reuse the same connection
+	 * @throws LoggerException
+	 */
+	@Test
+	public void RepeatedMessagesReuseTheConnectionTest() throws LoggerException
+	{
+		Map<String, Object> dbParams = TestSupport.DbParams("mem:pooltests");
+		ConnectionPool pool = ConnectionPoolRegistry.GetPool(dbParams);
+		long created = pool.getCreatedCount();
+		long borrowed = pool.getBorrowCount();
+
+		for (int i = 0; i < 5; i++)
+			JobLogger.LogMessage("This is a pooled message", false, false, true, LevelOfMessage.MESSAGE, dbParams);
+
+		//Only one connection has been needed for the five messages
+		Assert.assertTrue(pool.getCreatedCount() - created <= 1);
+		Assert.assertEquals(5, pool.getBorrowCount() - borrowed);
+		Assert.assertTrue(pool.getIdleConnections() >= 1);
+	}
+
+	/**
+	 * Unit test to verify that a caller gets a timeout when every connection is borrowed
+	 * @throws Exception
+	 */
+	@Test
+	public void BorrowTimeoutWhenThePoolIsExhaustedTest() throws Exception
+	{
+		Map<String, Object> dbParams = TestSupport.DbParams("mem:pooltests_timeout");
+		dbParams.put("poolMaxSize", 1);
+		dbParams.put("poolBorrowTimeout", "50");
+		ConnectionPool pool = ConnectionPoolRegistry.GetPool(dbParams);
+
+		PooledConnection first = pool.Borrow();
+		Assert.assertThrows(SQLTimeoutException.class, () -> pool.Borrow());
+		Assert.assertEquals(1, pool.getBorrowTimeouts());
+
+		//Once released the connection can be borrowed again
+		first.Release();
+		pool.Borrow().Release();
+		Assert.assertEquals(1, pool.getCreatedCount());
+	}
+
+	/**
+	 * Unit test to verify that a broken idle connection is replaced on borrow
+	 * @throws Exception
+	 */
+	@Test
+	public void ValidationOnBorrowReplacesBrokenConnectionsTest() throws Exception
+	{
+		Map<String, Object> dbParams = TestSupport.DbParams("mem:pooltests_validation");
+		ConnectionPool pool = ConnectionPoolRegistry.GetPool(dbParams);
+
+		//Breaking the connection while it is idle
+		PooledConnection connection = pool.Borrow();
+		connection.getConnection().close();
+		connection.Release();
+
+		PooledConnection replacement = pool.Borrow();
+		Assert.assertFalse(replacement.getConnection().isClosed());
+		Assert.assertEquals(1, pool.getValidationFailures());
+		Assert.assertEquals(2, pool.getCreatedCount());
+		replacement.Release();
+	}
+
+	/**
+	 * Unit test to verify that idle connections over the minimum are closed
+	 * @throws Exception
+	 */
+	@Test
+	public void IdleConnectionsAreEvictedTest() throws Exception
+	{
+		Map<String, Object> dbParams = TestSupport.DbParams("mem:pooltests_eviction");
+		dbParams.put("poolMinSize", 1);
+		dbParams.put("poolIdleTimeout", 500);
+		ConnectionPool pool = ConnectionPoolRegistry.GetPool(dbParams);
+
+		PooledConnection first = pool.Borrow();
+		PooledConnection second = pool.Borrow();
+		first.Release();
+		second.Release();
+		Assert.assertEquals(2, pool.getTotalConnections());
+
+		//Only the minimum is kept once the idle timeout has passed
+		Thread.sleep(600);
+		pool.Evict();
+		Assert.assertEquals(1, pool.getTotalConnections());
+	}
+
+	/**
+	 * Unit test to verify that invalid pool parameters are rejected
+	 */
+	@Test
+	public void InvalidPoolParametersTest()
+	{
+		final Map<String, Object> dbParams = TestSupport.DbParams("mem:pooltests_invalid");
+		dbParams.put("poolMaxSize", "many");
+
+		LoggerException exception = Assert.assertThrows(LoggerException.class,
+				() -> JobLogger.LogMessage("This is a message", false, false, true, LevelOfMessage.WARNING, dbParams));
+		Assert.assertTrue(exception.getMessage().equals("The parameter poolMaxSize must be a valid number"));
+	}
+
+}
@@ -0,0 +1,196 @@
+package com.bl.junit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.bl.exception.LoggerException;
+import com.bl.logger.JobLogger;
+import com.bl.logger.LevelOfMessage;
+import com.bl.logger.console.BufferedConsoleHandler;
+import com.bl.logger.console.ConsoleAppenderRegistry;
+import com.bl.logger.metrics.MetricsRegistry;
+
+/**
+ * Class that will have all the unit tests for the buffered console appender
+ * @author Teddy
+ *
+ */
+public class ConsoleSinkTests {
+
+	/**
+	 * Method that waits until the stream contains a text or a second has passed
+	 * @param out The stream that must contain the text
+	 * @param text The text we are waiting for
+	 * @return true if the stream contains the text
+	 * @throws InterruptedException
+	 */
+	private static boolean AwaitText(ByteArrayOutputStream out, String text) throws InterruptedException
+	{
+		long deadline = System.currentTimeMillis() + 1000;
+		while (System.currentTimeMillis() < deadline)
+		{
+			if (out.toString().contains(text))
+				return true;
+			Thread.sleep(5);
+		}
+		return out.toString().contains(text);
+	}
+
+	/**
+	 * Unit test to verify that the messages wait in the buffer and an error writes them right away
+	 * @throws Exception
+	 */
+	@Test
+	public void ErrorsAreWrittenRightAwayTest() throws Exception
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BufferedConsoleHandler handler = new BufferedConsoleHandler(out, 1 << 20, 60000);
+		handler.publish(new LogRecord(Level.INFO, "waiting message"));
+		Thread.sleep(100);
+		Assert.assertEquals(0, out.size());
+		Assert.assertTrue(handler.getPendingCharacters() > 0);
+
+		handler.publish(new LogRecord(Level.SEVERE, "error message"));
+		Assert.assertTrue(AwaitText(out, "error message"));
+		Assert.assertTrue(out.toString().indexOf("waiting message") < out.toString().indexOf("error message"));
+		handler.close();
+	}
+
+	/**
+	 * Unit test to verify that a message is written once it reaches the maximum staleness
+	 * @throws Exception
+	 */
+	@Test
+	public void StaleMessagesAreWrittenTest() throws Exception
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BufferedConsoleHandler handler = new BufferedConsoleHandler(out, 1 << 20, 20);
+		handler.publish(new LogRecord(Level.WARNING, "stale message"));
+		Assert.assertTrue(AwaitText(out, "stale message"));
+
+		//Flush waits until the messages have been written
+		handler.publish(new LogRecord(Level.INFO, "flushed message"));
+		handler.flush();
+		Assert.assertTrue(out.toString().contains("flushed message"));
+		handler.close();
+	}
+
+	/**
+	 * Unit test to verify that a console that does not read never blocks the callers
+	 * @throws Exception
+	 */
+	@Test
+	public void BlockedConsoleDoesNotBlockTheCallersTest() throws Exception
+	{
+		final CountDownLatch release = new CountDownLatch(1);
+		final ByteArrayOutputStream written = new ByteArrayOutputStream();
+		OutputStream blocked = new OutputStream() {
+			@Override
+			public void write(int b) throws IOException
+			{
+				write(new byte[] { (byte) b }, 0, 1);
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException
+			{
+				try
+				{
+					release.await();
+				}
+				catch (InterruptedException e)
+				{
+					throw new IOException(e);
+				}
+				written.write(b, off, len);
+			}
+		};
+		long droppedBefore = MetricsRegistry.GetCounter("console.dropped").getValue();
+		BufferedConsoleHandler handler = new BufferedConsoleHandler(blocked, 4096, 10);
+
+		//The flusher gets stuck with the first messages, the rest fill the buffer and are dropped
+		long start = System.nanoTime();
+		for (int i = 0; i < 2000; i++)
+			handler.publish(new LogRecord(Level.SEVERE, "message " + i));
+		Assert.assertTrue(System.nanoTime() - start < 5000000000L);
+		Assert.assertTrue(MetricsRegistry.GetCounter("console.dropped").getValue() > droppedBefore);
+
+		release.countDown();
+		handler.close();
+		Assert.assertTrue(written.toString().contains("message 0"));
+	}
+
+	/**
+	 * Unit test to verify that a message bigger than the buffer is written instead of dropped
+	 * @throws Exception
+	 */
+	@Test
+	public void BigMessagesAreWrittenThroughTest() throws Exception
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BufferedConsoleHandler handler = new BufferedConsoleHandler(out, 64, 60000);
+		handler.publish(new LogRecord(Level.INFO, "small"));
+		StringBuilder big = new StringBuilder();
+		for (int i = 0; i < 20; i++)
+			big.append("big message ");
+		handler.publish(new LogRecord(Level.INFO, big.toString()));
+
+		//It is written by the caller, after the message that was waiting
+		Assert.assertTrue(out.toString().contains(big));
+		Assert.assertTrue(out.toString().indexOf("small") < out.toString().indexOf("big message"));
+		handler.close();
+	}
+
+	/**
+	 * Unit test to verify that the messages reach the handlers of "MyLog" but not the ones of the root logger
+	 * @throws Exception
+	 */
+	@Test
+	public void RootHandlersDoNotWriteTheMessagesAgainTest() throws Exception
+	{
+		LoggerTestsHandler myLogHandler = new LoggerTestsHandler();
+		LoggerTestsHandler rootHandler = new LoggerTestsHandler();
+		Logger myLog = Logger.getLogger("MyLog");
+		boolean useParentHandlers = myLog.getUseParentHandlers();
+		myLog.setUseParentHandlers(true);
+		myLog.addHandler(myLogHandler);
+		Logger.getLogger("").addHandler(rootHandler);
+		try
+		{
+			JobLogger.NewBuilder().LogToConsole(true).Build().Log("This is a console message", LevelOfMessage.WARNING);
+			Assert.assertTrue(myLogHandler.getMessageRecorded().contains("This is a console message"));
+			Assert.assertNull(rootHandler.getMessageRecorded());
+		}
+		finally
+		{
+			myLog.setUseParentHandlers(useParentHandlers);
+			myLog.removeHandler(myLogHandler);
+			Logger.getLogger("").removeHandler(rootHandler);
+		}
+	}
+
+	/**
+	 * Unit test to verify that invalid console parameters are rejected
+	 */
+	@Test
+	public void InvalidConsoleParametersTest()
+	{
+		ConsoleAppenderRegistry.CloseAll();
+		final Map<String, Object> dbParams = new HashMap<String, Object>();
+		dbParams.put("consoleMaxStaleness", 0);
+		LoggerException exception = Assert.assertThrows(LoggerException.class,
+				() -> JobLogger.LogMessage("This is a message", false, true, false, LevelOfMessage.WARNING, dbParams));
+		Assert.assertTrue(exception.getMessage().equals("The console appender parameters are not valid"));
+	}
+
+}
@@ -0,0 +1,278 @@
+package com.bl.junit;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.bl.exception.LoggerException;
+import com.bl.logger.JobLogger;
+import com.bl.logger.LevelOfMessage;
+import com.bl.logger.database.ConnectionPoolRegistry;
+import com.bl.logger.database.DatabaseBatchWriter;
+import com.bl.logger.metrics.MetricsRegistry;
+
+/**
+ * Class that will have all the unit tests for the batched inserts into the LOG table
+ * @author Teddy
+ *
+ */
+public class DatabaseBatchTests {
+
+	/**
+	 * Method that creates an in-memory database with the LOG table and gives its parameters
+	 * @param serverName The name of the in-memory database
+	 * @return the database parameters
+	 * @throws SQLException
+	 */
+	private static Map<String, Object> CreateDatabase(String serverName) throws SQLException
+	{
+		TestSupport.ConnectWithLogTable(serverName).close();
+		return TestSupport.DbParams(serverName);
+	}
+
+	/**
+	 * Method that counts the rows of the LOG table
+	 * @param serverName The name of the in-memory database
+	 * @return the amount of rows
+	 * @throws SQLException
+	 */
+	private static int CountRows(String serverName) throws SQLException
+	{
+		Connection connection = TestSupport.Connect(serverName);
+		Statement stmt = connection.createStatement();
+		ResultSet resultSet = stmt.executeQuery("SELECT COUNT(*) AMOUNT FROM LOG");
+		resultSet.next();
+		int amount = resultSet.getInt("AMOUNT");
+		connection.close();
+		return amount;
+	}
+
+	/**
+	 * Unit test to verify that the rows are written in batches of the configured size
+	 * @throws Exception
+	 */
+	@Test
+	public void RowsAreWrittenInBatchesTest() throws Exception
+	{
+		Map<String, Object> dbParams = CreateDatabase("mem:batchtests_size");
+		dbParams.put("batchSize", 10);
+		dbParams.put("batchMaxDelay", 60000);
+
+		for (int i = 0; i < 25; i++)
+			JobLogger.LogMessage("This is message " + i, false, false, true, LevelOfMessage.MESSAGE, dbParams);
+
+		//Two full batches have been written, the last five rows are waiting
+		DatabaseBatchWriter writer = ConnectionPoolRegistry.GetBatchWriter(dbParams);
+		Assert.assertEquals(2, writer.getWrittenBatches());
+		Assert.assertEquals(5, writer.getPendingRows());
+		Assert.assertEquals(20, CountRows("mem:batchtests_size"));
+
+		//Flushing the incomplete batch
+		ConnectionPoolRegistry.FlushAll();
+		Assert.assertEquals(25, CountRows("mem:batchtests_size"));
+	}
+
+	/**
+	 * Unit test to verify that an incomplete batch is written after its maximum delay
+	 * @throws Exception
+	 */
+	@Test
+	public void IncompleteBatchIsWrittenAfterItsDelayTest() throws Exception
+	{
+		Map<String, Object> dbParams = CreateDatabase("mem:batchtests_delay");
+		dbParams.put("batchSize", 100);
+		dbParams.put("batchMaxDelay", 100);
+
+		JobLogger.LogMessage("This is a delayed message", false, false, true, LevelOfMessage.ERROR, dbParams);
+		Assert.assertEquals(0, CountRows("mem:batchtests_delay"));
+
+		//Waiting for the background flush
+		long deadline = System.currentTimeMillis() + 5000;
+		while (CountRows("mem:batchtests_delay") == 0 && System.currentTimeMillis() < deadline)
+			Thread.sleep(50);
+		Assert.assertEquals(1, CountRows("mem:batchtests_delay"));
+	}
+
+	/**
+	 * Unit test to verify that the rows of a failed background flush are counted as dropped
+	 * @throws Exception
+	 */
+	@Test
+	public void FailedDelayedBatchIsCountedAsDroppedTest() throws Exception
+	{
+		//The LOG table does not exist
+		Map<String, Object> dbParams = CreateDatabase("mem:batchtests_dropped");
+		TestSupport.Connect("mem:batchtests_dropped").createStatement().executeUpdate("DROP TABLE LOG");
+		dbParams.put("batchSize", 100);
+		dbParams.put("batchMaxDelay", 100);
+		long dropped = MetricsRegistry.GetCounter("database.dropped").getValue();
+
+		JobLogger.LogMessage("This is a lost message", false, false, true, LevelOfMessage.ERROR, dbParams);
+		JobLogger.LogMessage("This is another lost message", false, false, true, LevelOfMessage.ERROR, dbParams);
+		DatabaseBatchWriter writer = ConnectionPoolRegistry.GetBatchWriter(dbParams);
+		long deadline = System.currentTimeMillis() + 5000;
+		while (writer.getDroppedRows() == 0 && System.currentTimeMillis() < deadline)
+			Thread.sleep(50);
+		Assert.assertEquals(2, writer.getDroppedRows());
+		Assert.assertEquals(0, writer.getPendingRows());
+		Assert.assertNotNull(writer.getLastFailure());
+		Assert.assertEquals(dropped + 2, MetricsRegistry.GetCounter("database.dropped").getValue());
+	}
+
+	/**
+	 * Unit test to verify that a writer forgotten by CloseAll doesn't keep the rows that still reach it
+	 * @throws Exception
+	 */
+	@Test
+	public void ClosedWriterDoesNotKeepRowsTest() throws Exception
+	{
+		Map<String, Object> dbParams = CreateDatabase("mem:batchtests_closed");
+		dbParams.put("batchSize", 100);
+		dbParams.put("batchMaxDelay", 50);
+		DatabaseBatchWriter writer = ConnectionPoolRegistry.GetBatchWriter(dbParams);
+		writer.Add("This is a flushed row", LevelOfMessage.ERROR.ordinal());
+		ConnectionPoolRegistry.CloseAll();
+		Assert.assertEquals(1, CountRows("mem:batchtests_closed"));
+
+		//The row is written at once, its pool is closed so the caller gets the error
+		SQLException exception = Assert.assertThrows(SQLException.class,
+				() -> writer.Add("This is a rejected row", LevelOfMessage.ERROR.ordinal()));
+		Assert.assertTrue(exception.getMessage().equals("The connection pool has been closed"));
+		Thread.sleep(300);
+		Assert.assertEquals(0, writer.getPendingRows());
+		Assert.assertEquals(1, writer.getFailedRows());
+		Assert.assertEquals(0, writer.getDroppedRows());
+		Assert.assertEquals(1, CountRows("mem:batchtests_closed"));
+	}
+
+	/**
+	 * Unit test to verify that without the moment of the rows the batches are written in the order they were completed
+	 * @throws Exception
+	 */
+	@Test
+	public void BatchesKeepTheOrderOfTheirRowsTest() throws Exception
+	{
+		Map<String, Object> dbParams = CreateDatabase("mem:batchtests_order");
+		dbParams.put("batchSize", 3);
+		dbParams.put("batchMaxDelay", 60000);
+		final DatabaseBatchWriter writer = ConnectionPoolRegistry.GetBatchWriter(dbParams);
+
+		Thread[] threads = new Thread[8];
+		for (int t = 0; t < threads.length; t++)
+		{
+			final int thread = t;
+			threads[t] = new Thread(() -> {
+				try
+				{
+					for (int i = 0; i < 300; i++)
+						writer.Add(thread + " " + i, LevelOfMessage.MESSAGE.ordinal());
+				}
+				catch (SQLException e)
+				{
+					throw new IllegalStateException(e);
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads)
+			thread.join();
+		writer.Flush(true);
+
+		//The rows of every thread are in the table in the order they were added
+		int[] next = new int[threads.length];
+		Connection connection = TestSupport.Connect("mem:batchtests_order");
+		ResultSet resultSet = connection.createStatement().executeQuery("SELECT MESSAGE FROM LOG ORDER BY _ROWID_");
+		while (resultSet.next())
+		{
+			String[] row = resultSet.getString(1).split(" ");
+			int thread = Integer.parseInt(row[0]);
+			Assert.assertEquals(next[thread]++, Integer.parseInt(row[1]));
+		}
+		connection.close();
+		for (int count : next)
+			Assert.assertEquals(300, count);
+	}
+
+	/**
+	 * Unit test to verify that the batches with the moment of their rows are written by many threads at once
+	 * @throws Exception
+	 */
+	@Test
+	public void BatchesWithTheirMomentAreWrittenConcurrentlyTest() throws Exception
+	{
+		Map<String, Object> dbParams = CreateDatabase("mem:batchtests_concurrent");
+		dbParams.put("databaseBootstrap", true);
+		dbParams.put("batchSize", 10);
+		dbParams.put("batchMaxDelay", 60000);
+
+		Thread[] threads = new Thread[8];
+		for (int t = 0; t < threads.length; t++)
+		{
+			final int thread = t;
+			threads[t] = new Thread(() -> {
+				try
+				{
+					for (int i = 0; i < 100; i++)
+						JobLogger.LogMessage("Message " + i + " of thread " + thread, false, false, true, LevelOfMessage.MESSAGE, dbParams);
+				}
+				catch (LoggerException e)
+				{
+					throw new IllegalStateException(e);
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads)
+			thread.join();
+
+		//Every row is there with its moment
+		DatabaseBatchWriter writer = ConnectionPoolRegistry.GetBatchWriter(dbParams);
+		Assert.assertEquals(800, writer.getWrittenRows());
+		Assert.assertEquals(0, writer.getFailedRows());
+		Connection connection = TestSupport.Connect("mem:batchtests_concurrent");
+		ResultSet resultSet = connection.createStatement().executeQuery("SELECT COUNT(*) FROM LOG WHERE LOGGED_AT IS NOT NULL");
+		resultSet.next();
+		Assert.assertEquals(800, resultSet.getInt(1));
+		connection.close();
+	}
+
+	/**
+	 * Unit test to verify that the prepared statement accepts any text in the message
+	 * @throws Exception
+	 */
+	@Test
+	public void MessageWithQuotesIsInsertedTest() throws Exception
+	{
+		Map<String, Object> dbParams = CreateDatabase("mem:batchtests_quotes");
+
+		JobLogger.LogMessage("It's a message with 'quotes'", false, false, true, LevelOfMessage.WARNING, dbParams);
+
+		Connection connection = TestSupport.Connect("mem:batchtests_quotes");
+		ResultSet resultSet = connection.createStatement().executeQuery("SELECT MESSAGE, LEVEL FROM LOG");
+		Assert.assertTrue(resultSet.next());
+		Assert.assertEquals("It's a message with 'quotes'", resultSet.getString("MESSAGE"));
+		Assert.assertEquals(3, resultSet.getInt("LEVEL"));
+		connection.close();
+	}
+
+	/**
+	 * Unit test to verify that invalid batch parameters are rejected
+	 * @throws SQLException
+	 */
+	@Test
+	public void InvalidBatchParametersTest() throws SQLException
+	{
+		final Map<String, Object> dbParams = CreateDatabase("mem:batchtests_invalid");
+		dbParams.put("batchSize", 0);
+
+		LoggerException exception = Assert.assertThrows(LoggerException.class,
+				() -> JobLogger.LogMessage("This is a message", false, false, true, LevelOfMessage.WARNING, dbParams));
+		Assert.assertTrue(exception.getMessage().equals("The database batch parameters are not valid"));
+	}
+
+}
@@ -0,0 +1,285 @@
+package com.bl.junit;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.bl.exception.LoggerException;
+import com.bl.logger.JobLogger;
+import com.bl.logger.LevelOfMessage;
+import com.bl.logger.database.CircuitBreaker;
+import com.bl.logger.database.CircuitState;
+import com.bl.logger.database.ConnectionPoolRegistry;
+import com.bl.logger.database.DatabaseSpool;
+import com.bl.logger.event.LogEvent;
+import com.bl.logger.metrics.MetricsRegistry;
+import com.bl.logger.query.LogQuery;
+import com.bl.logger.query.LogQueryEngine;
+
+/**
+ * Class that will have all the unit tests for the spool of the database
+ * @author Teddy
+ *
+ */
+public class DatabaseSpoolTests {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Method that closes the spools so their files can be removed
+	 */
+	@After
+	public void CloseSpools()
+	{
+		ConnectionPoolRegistry.CloseAll();
+	}
+
+	/**
+	 * Method that counts the rows of the LOG table
+	 * @param connection The connection to the database
+	 * @return the amount of rows
+	 * @throws SQLException
+	 */
+	private static int CountRows(Connection connection) throws SQLException
+	{
+		ResultSet rs = connection.createStatement().executeQuery("SELECT COUNT(*) FROM LOG");
+		rs.next();
+		return rs.getInt(1);
+	}
+
+	/**
+	 * Method that gives the parameters of an in-memory database with a spool
+	 * @param serverName The name of the in-memory database
+	 * @return the parameters
+	 */
+	private Map<String, Object> Parameters(String serverName)
+	{
+		Map<String, Object> dbParams = TestSupport.DbParams(serverName);
+		dbParams.put("databaseSpool", folder.getRoot().getPath());
+		dbParams.put("spoolRetryDelay", 20);
+		dbParams.put("spoolMaxRetryDelay", 100);
+		return dbParams;
+	}
+
+	/**
+	 * Unit test to verify that the messages are kept while the database fails and written once it is back
+	 * @throws Exception
+	 */
+	@Test
+	public void MessagesAreReplayedWhenTheDatabaseComesBackTest() throws Exception
+	{
+		Connection connection = TestSupport.Connect("mem:spooldown");
+		Map<String, Object> dbParams = Parameters("mem:spooldown");
+
+		//The table does not exist, but the caller does not notice
+		JobLogger.LogMessage("first message", false, false, true, LevelOfMessage.ERROR, dbParams);
+		JobLogger.LogMessage("second message", false, false, true, LevelOfMessage.WARNING, dbParams);
+		JobLogger.LogMessage("third message", false, false, true, LevelOfMessage.MESSAGE, dbParams);
+		DatabaseSpool spool = ConnectionPoolRegistry.GetSpool(dbParams);
+		Thread.sleep(200);
+		Assert.assertEquals(3, spool.getPendingRecords());
+		Assert.assertNotNull(spool.getLastFailure());
+		Assert.assertTrue(spool.getBreaker().getConsecutiveFailures() > 0);
+
+		connection.createStatement().executeUpdate("CREATE TABLE LOG(MESSAGE VARCHAR(4000), LEVEL INT)");
+		Assert.assertTrue(spool.AwaitDrained(5, TimeUnit.SECONDS));
+		Assert.assertEquals(3, CountRows(connection));
+		Assert.assertEquals(CircuitState.CLOSED, spool.getBreaker().getState());
+		ResultSet rs = connection.createStatement().executeQuery("SELECT LEVEL FROM LOG WHERE MESSAGE = 'first message'");
+		rs.next();
+		Assert.assertEquals(2, rs.getInt(1));
+		connection.close();
+	}
+
+	/**
+	 * Unit test to verify that the pending messages survive a restart and a record left half written is discarded
+	 * @throws Exception
+	 */
+	@Test
+	public void PendingMessagesSurviveARestartTest() throws Exception
+	{
+		Connection connection = TestSupport.Connect("mem:spoolrestart");
+		Map<String, Object> dbParams = Parameters("mem:spoolrestart");
+		JobLogger.LogMessage("before restart 1", false, false, true, LevelOfMessage.ERROR, dbParams);
+		JobLogger.LogMessage("before restart 2", false, false, true, LevelOfMessage.ERROR, dbParams);
+		ConnectionPoolRegistry.CloseAll();
+
+		//Simulating a crash in the middle of a record
+		File[] files = folder.getRoot().listFiles((dir, name) -> name.endsWith(".dat"));
+		Assert.assertEquals(1, files.length);
+		FileOutputStream out = new FileOutputStream(files[0], true);
+		out.write(new byte[] { 0, 0, 0, 100, 1, 2 });
+		out.close();
+
+		connection.createStatement().executeUpdate("CREATE TABLE LOG(MESSAGE VARCHAR(4000), LEVEL INT)");
+		JobLogger.LogMessage("after restart", false, false, true, LevelOfMessage.ERROR, dbParams);
+		Assert.assertTrue(ConnectionPoolRegistry.GetSpool(dbParams).AwaitDrained(5, TimeUnit.SECONDS));
+		Assert.assertEquals(3, CountRows(connection));
+
+		//The file is emptied once everything has been written
+		Assert.assertEquals(0, files[0].length());
+		connection.close();
+	}
+
+	/**
+	 * Unit test to verify that a damaged record is skipped and the replay goes on with the next ones
+	 * @throws Exception
+	 */
+	@Test
+	public void DamagedRecordsAreSkippedTest() throws Exception
+	{
+		Connection connection = TestSupport.Connect("mem:spooldamaged");
+		Map<String, Object> dbParams = Parameters("mem:spooldamaged");
+		JobLogger.LogMessage("first message", false, false, true, LevelOfMessage.ERROR, dbParams);
+		JobLogger.LogMessage("second message", false, false, true, LevelOfMessage.ERROR, dbParams);
+		JobLogger.LogMessage("third message", false, false, true, LevelOfMessage.ERROR, dbParams);
+		DatabaseSpool spool = ConnectionPoolRegistry.GetSpool(dbParams);
+		long damagedBefore = MetricsRegistry.GetCounter("database.spool.damaged").getValue();
+
+		//Breaking the text of the second record while the database is down (header of 13 bytes and length of 4)
+		File[] files = folder.getRoot().listFiles((dir, name) -> name.endsWith(".dat"));
+		RandomAccessFile file = new RandomAccessFile(files[0], "rw");
+		file.seek(13 + 4 + "first message".length() + 13 + 4);
+		file.write('X');
+		file.close();
+
+		//An attempt that read the records before they were broken fails before the table is created
+		for (int i = 0; i < 100 && spool.getLastFailure() == null; i++)
+			Thread.sleep(50);
+		Thread.sleep(300);
+		connection.createStatement().executeUpdate("CREATE TABLE LOG(MESSAGE VARCHAR(4000), LEVEL INT)");
+		Assert.assertTrue(spool.AwaitDrained(5, TimeUnit.SECONDS));
+		Assert.assertEquals(2, CountRows(connection));
+		Assert.assertEquals(1, MetricsRegistry.GetCounter("database.spool.damaged").getValue() - damagedBefore);
+
+		//The replayer is still there for the next messages
+		JobLogger.LogMessage("fourth message", false, false, true, LevelOfMessage.ERROR, dbParams);
+		Assert.assertTrue(spool.AwaitDrained(5, TimeUnit.SECONDS));
+		Assert.assertEquals(3, CountRows(connection));
+		ResultSet rs = connection.createStatement().executeQuery("SELECT COUNT(*) FROM LOG WHERE MESSAGE LIKE 'second%'");
+		rs.next();
+		Assert.assertEquals(0, rs.getInt(1));
+		connection.close();
+	}
+
+	/**
+	 * Unit test to verify that the values of the extra columns are replayed with their type
+	 * @throws Exception
+	 */
+	@Test
+	public void ValuesKeepTheirTypeTest() throws Exception
+	{
+		Connection connection = TestSupport.Connect("mem:spooltyped");
+		Map<String, Object> dbParams = Parameters("mem:spooltyped");
+		dbParams.put("databaseColumns", "amount, ratio, paid, customer, LOGGED_AT");
+		long before = System.currentTimeMillis();
+		LogEvent event = LogEvent.Of("Order {orderId} has been paid").With("amount", 1234567890123L).With("ratio", 0.125)
+				.With("paid", true).With("customer", "Zo\u00eb");
+		JobLogger.LogStructuredMessage(event, false, false, true, LevelOfMessage.WARNING, dbParams);
+		long after = System.currentTimeMillis();
+
+		connection.createStatement().executeUpdate("CREATE TABLE LOG(MESSAGE VARCHAR(4000), LEVEL INT, amount BIGINT, "
+				+ "ratio DOUBLE, paid BOOLEAN, customer VARCHAR(100), LOGGED_AT TIMESTAMP)");
+		Assert.assertTrue(ConnectionPoolRegistry.GetSpool(dbParams).AwaitDrained(5, TimeUnit.SECONDS));
+		ResultSet rs = connection.createStatement().executeQuery("SELECT amount, ratio, paid, customer, LOGGED_AT FROM LOG");
+		Assert.assertTrue(rs.next());
+		Assert.assertEquals(1234567890123L, rs.getLong(1));
+		Assert.assertEquals(0.125, rs.getDouble(2), 0);
+		Assert.assertTrue(rs.getBoolean(3));
+		Assert.assertEquals("Zo\u00eb", rs.getString(4));
+		long loggedAt = rs.getTimestamp(5).getTime();
+		Assert.assertTrue(loggedAt >= before && loggedAt <= after);
+		connection.close();
+	}
+
+	/**
+	 * Unit test to verify that with a spool the table is prepared by the replayer once the database can be reached
+	 * @throws Exception
+	 */
+	@Test
+	public void BootstrapWaitsForTheDatabaseTest() throws Exception
+	{
+		//The database refuses the password of the logger until it is changed
+		Properties connectionProps = new Properties();
+		connectionProps.put("user", "username");
+		connectionProps.put("password", "changeme");
+		Connection connection = DriverManager.getConnection("jdbc:h2:mem:spoolbootstrap/test;DB_CLOSE_DELAY=-1;DATABASE_TO_UPPER=false",
+				connectionProps);
+		Map<String, Object> dbParams = Parameters("mem:spoolbootstrap");
+		dbParams.put("databaseBootstrap", true);
+
+		//The caller does not notice that the database cannot be reached
+		JobLogger.LogMessage("first message", false, false, true, LevelOfMessage.ERROR, dbParams);
+		DatabaseSpool spool = ConnectionPoolRegistry.GetSpool(dbParams);
+		//H2 takes its time to refuse a wrong password
+		for (int i = 0; i < 100 && spool.getLastFailure() == null; i++)
+			Thread.sleep(50);
+		Assert.assertNotNull(spool.getLastFailure());
+		Assert.assertEquals(1, spool.getPendingRecords());
+
+		connection.createStatement().executeUpdate("ALTER USER \"username\" SET PASSWORD 'dragon'");
+		Assert.assertTrue(spool.AwaitDrained(5, TimeUnit.SECONDS));
+		Assert.assertEquals(1, CountRows(connection));
+		Assert.assertEquals(1, new LogQueryEngine(dbParams).Count(LogQuery.NewQuery().Containing("first")));
+		connection.close();
+	}
+
+	/**
+	 * Unit test to verify that the circuit opens after the failures and waits longer every time
+	 */
+	@Test
+	public void CircuitBreakerBacksOffExponentiallyTest()
+	{
+		CircuitBreaker breaker = new CircuitBreaker(3, 100, 1000);
+		Assert.assertEquals(0, breaker.DelayMillis(0));
+		breaker.RecordFailure(0);
+		Assert.assertEquals(100, breaker.DelayMillis(0));
+		breaker.RecordFailure(100);
+		Assert.assertEquals(CircuitState.CLOSED, breaker.getState());
+		Assert.assertEquals(200, breaker.DelayMillis(100));
+		breaker.RecordFailure(300);
+		Assert.assertEquals(CircuitState.OPEN, breaker.getState());
+		Assert.assertEquals(400, breaker.DelayMillis(300));
+
+		//Once the delay is over a single attempt is allowed
+		Assert.assertEquals(0, breaker.DelayMillis(700));
+		Assert.assertEquals(CircuitState.HALF_OPEN, breaker.getState());
+		breaker.RecordFailure(700);
+		Assert.assertEquals(CircuitState.OPEN, breaker.getState());
+		Assert.assertEquals(800, breaker.DelayMillis(700));
+		breaker.RecordFailure(1500);
+		Assert.assertEquals(1000, breaker.DelayMillis(1500));
+
+		breaker.RecordSuccess();
+		Assert.assertEquals(CircuitState.CLOSED, breaker.getState());
+		Assert.assertEquals(0, breaker.DelayMillis(1500));
+	}
+
+	/**
+	 * Unit test to verify that invalid spool parameters are rejected
+	 */
+	@Test
+	public void InvalidSpoolParametersTest()
+	{
+		final Map<String, Object> dbParams = Parameters("mem:spoolinvalid");
+		dbParams.put("spoolBatchSize", 0);
+		LoggerException exception = Assert.assertThrows(LoggerException.class,
+				() -> JobLogger.LogMessage("This is a message", false, false, true, LevelOfMessage.WARNING, dbParams));
+		Assert.assertTrue(exception.getMessage().equals("The database spool parameters are not valid"));
+	}
+
+}
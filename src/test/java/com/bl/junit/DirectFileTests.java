@@ -0,0 +1,122 @@
+package com.bl.junit;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.bl.logger.JobLogger;
+import com.bl.logger.LevelOfMessage;
+import com.bl.logger.file.DirectFileHandler;
+import com.bl.logger.file.FileAppenderRegistry;
+import com.bl.logger.format.MessageFormatter;
+
+/**
+ * Class that will have all the unit tests for the appender that stages the messages off-heap
+ * @author Teddy
+ *
+ */
+public class DirectFileTests {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Method that closes the appenders so their files can be removed
+	 */
+	@After
+	public void CloseAppenders()
+	{
+		FileAppenderRegistry.CloseAll();
+	}
+
+	/**
+	 * Method that gives the parameters of a direct appender
+	 * @param bufferSize The size of the off-heap buffers
+	 * @param policy The flush policy
+	 * @return the parameters
+	 */
+	private Map<String, Object> Parameters(int bufferSize, String policy)
+	{
+		Map<String, Object> dbParams = new HashMap<String, Object>();
+		dbParams.put("logFileFolder", folder.getRoot().getPath());
+		dbParams.put("fileMode", "direct");
+		dbParams.put("fileBufferSize", bufferSize);
+		dbParams.put("fileFlushPolicy", policy);
+		return dbParams;
+	}
+
+	/**
+	 * Unit test to verify that every message is written as a line with its type and date, in UTF-8
+	 * @throws Exception
+	 */
+	@Test
+	public void MessagesAreWrittenAsLinesTest() throws Exception
+	{
+		Map<String, Object> dbParams = Parameters(8192, "EVERY_RECORD");
+		String text = "caf\u00e9 \u20ac \ud83d\ude00 done";
+		JobLogger.LogMessage(text, true, false, false, LevelOfMessage.WARNING, dbParams);
+		JobLogger.LogMessage("second line", true, false, false, LevelOfMessage.ERROR, dbParams);
+
+		long now = System.currentTimeMillis();
+		Assert.assertEquals(MessageFormatter.Format(LevelOfMessage.WARNING, text, now) + "\n"
+				+ MessageFormatter.Format(LevelOfMessage.ERROR, "second line", now) + "\n", TestSupport.ReadLogFile(folder.getRoot()));
+	}
+
+	/**
+	 * Unit test to verify that a message longer than a buffer spans many buffers and the pool reuses them
+	 * @throws Exception
+	 */
+	@Test
+	public void BuffersAreReusedFromThePoolTest() throws Exception
+	{
+		Map<String, Object> dbParams = Parameters(64, "ON_SHUTDOWN");
+		StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 200; i++)
+		{
+			String text = "message number " + i + " with some padding to fill the buffers";
+			JobLogger.LogMessage(text, true, false, false, LevelOfMessage.MESSAGE, dbParams);
+			expected.append(MessageFormatter.Format(LevelOfMessage.MESSAGE, text)).append('\n');
+		}
+		DirectFileHandler handler = (DirectFileHandler) FileAppenderRegistry.GetLogger(dbParams).getHandlers()[0];
+		long allocated = handler.getPool().getAllocated();
+		Assert.assertTrue(allocated <= 16);
+
+		//Once the pool has its buffers no more off-heap memory is allocated
+		for (int i = 0; i < 200; i++)
+		{
+			String text = "more " + i;
+			JobLogger.LogMessage(text, true, false, false, LevelOfMessage.MESSAGE, dbParams);
+			expected.append(MessageFormatter.Format(LevelOfMessage.MESSAGE, text)).append('\n');
+		}
+		Assert.assertEquals(allocated, handler.getPool().getAllocated());
+
+		FileAppenderRegistry.FlushAll();
+		Assert.assertEquals(expected.toString(), TestSupport.ReadLogFile(folder.getRoot()));
+	}
+
+	/**
+	 * Unit test to verify that the direct appender can also write JSON lines
+	 * @throws Exception
+	 */
+	@Test
+	public void DirectFileWritesJsonLinesTest() throws Exception
+	{
+		Map<String, Object> dbParams = Parameters(128, "EVERY_N_RECORDS");
+		dbParams.put("fileFlushEvery", 2);
+		dbParams.put("fileFormat", "json");
+		JobLogger.LogMessage("first \"quoted\"", true, false, false, LevelOfMessage.ERROR, dbParams);
+		Assert.assertTrue(TestSupport.ReadLogFile(folder.getRoot()).isEmpty());
+		JobLogger.LogMessage("second", true, false, false, LevelOfMessage.WARNING, dbParams);
+
+		String[] lines = TestSupport.ReadLogFile(folder.getRoot()).split("\n");
+		Assert.assertEquals(2, lines.length);
+		Assert.assertTrue(lines[0].endsWith("\"level\":\"ERROR\",\"message\":\"first \\\"quoted\\\"\"}"));
+		Assert.assertTrue(lines[1].endsWith("\"level\":\"WARNING\",\"message\":\"second\"}"));
+	}
+
+}
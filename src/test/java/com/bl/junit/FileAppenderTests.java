@@ -0,0 +1,179 @@
+package com.bl.junit;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.bl.exception.LoggerException;
+import com.bl.logger.JobLogger;
+import com.bl.logger.LevelOfMessage;
+import com.bl.logger.file.FileAppenderRegistry;
+
+/**
+ * Class that will have all the unit tests for the long-lived file appender
+ * @author Teddy
+ *
+ */
+public class FileAppenderTests {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Unit test to verify that every message is appended to the same file
+	 * @throws Exception
+	 */
+	@Test
+	public void MessagesAreAppendedToTheSameFileTest() throws Exception
+	{
+		Map<String, Object> dbParams = new HashMap<String, Object>();
+		dbParams.put("logFileFolder", folder.getRoot().getPath());
+
+		JobLogger.LogMessage("This a warning message", true, false, false, LevelOfMessage.WARNING, dbParams);
+		JobLogger.LogMessage("This an error message", true, false, false, LevelOfMessage.ERROR, dbParams);
+		JobLogger.LogMessage("This an info message", true, false, false, LevelOfMessage.MESSAGE, dbParams);
+
+		//The three messages are in the file, none of them has been overwritten
+		String content = TestSupport.ReadLogFile(folder.getRoot());
+		Assert.assertTrue(content.contains("WARNING") && content.contains("This a warning message"));
+		Assert.assertTrue(content.contains("SEVERE") && content.contains("This an error message"));
+		Assert.assertTrue(content.contains("INFO") && content.contains("This an info message"));
+		Assert.assertFalse(new File(folder.getRoot(), "logFile.txt.lck").exists());
+	}
+
+	/**
+	 * Unit test to verify that the buffer is written every N messages
+	 * @throws Exception
+	 */
+	@Test
+	public void BufferIsWrittenEveryNRecordsTest() throws Exception
+	{
+		Map<String, Object> dbParams = new HashMap<String, Object>();
+		dbParams.put("logFileFolder", folder.getRoot().getPath());
+		dbParams.put("fileFlushPolicy", "EVERY_N_RECORDS");
+		dbParams.put("fileFlushEvery", 3);
+
+		JobLogger.LogMessage("first message", true, false, false, LevelOfMessage.MESSAGE, dbParams);
+		JobLogger.LogMessage("second message", true, false, false, LevelOfMessage.MESSAGE, dbParams);
+		Assert.assertTrue(TestSupport.ReadLogFile(folder.getRoot()).isEmpty());
+
+		JobLogger.LogMessage("third message", true, false, false, LevelOfMessage.MESSAGE, dbParams);
+		Assert.assertTrue(TestSupport.ReadLogFile(folder.getRoot()).contains("third message"));
+	}
+
+	/**
+	 * Unit test to verify that the buffer is kept in memory until it is flushed
+	 * @throws Exception
+	 */
+	@Test
+	public void BufferIsWrittenOnFlushTest() throws Exception
+	{
+		Map<String, Object> dbParams = new HashMap<String, Object>();
+		dbParams.put("logFileFolder", folder.getRoot().getPath());
+		dbParams.put("fileFlushPolicy", "ON_SHUTDOWN");
+
+		JobLogger.LogMessage("buffered message", true, false, false, LevelOfMessage.ERROR, dbParams);
+		Assert.assertTrue(TestSupport.ReadLogFile(folder.getRoot()).isEmpty());
+
+		FileAppenderRegistry.FlushAll();
+		Assert.assertTrue(TestSupport.ReadLogFile(folder.getRoot()).contains("buffered message"));
+	}
+
+	/**
+	 * Unit test to verify that the mapped appender grows in chunks and removes the unused part when closed
+	 * @throws Exception
+	 */
+	@Test
+	public void MappedFileGrowsAndIsTruncatedOnCloseTest() throws Exception
+	{
+		Map<String, Object> dbParams = new HashMap<String, Object>();
+		dbParams.put("logFileFolder", folder.getRoot().getPath());
+		dbParams.put("fileMode", "mapped");
+		dbParams.put("fileChunkSize", 256);
+
+		//Many more bytes than a single chunk
+		for (int i = 0; i < 50; i++)
+			JobLogger.LogMessage("mapped message " + i, true, false, false, LevelOfMessage.WARNING, dbParams);
+		FileAppenderRegistry.CloseAll();
+
+		String content = TestSupport.ReadLogFile(folder.getRoot());
+		Assert.assertTrue(content.contains("mapped message 0"));
+		Assert.assertTrue(content.contains("mapped message 49"));
+		Assert.assertEquals(-1, content.indexOf('\u0000'));
+	}
+
+	/**
+	 * Unit test to verify that the mapped appender continues after the data of a file that was not truncated
+	 * @throws Exception
+	 */
+	@Test
+	public void MappedFileSkipsTheZerosOfAPreviousChunkTest() throws Exception
+	{
+		//A file with data followed by an unused chunk
+		File logFile = new File(folder.getRoot(), "logFile.txt");
+		byte[] previous = new byte[1024];
+		byte[] data = "previous data\n".getBytes(StandardCharsets.UTF_8);
+		System.arraycopy(data, 0, previous, 0, data.length);
+		Files.write(logFile.toPath(), previous);
+
+		Map<String, Object> dbParams = new HashMap<String, Object>();
+		dbParams.put("logFileFolder", folder.getRoot().getPath());
+		dbParams.put("fileMode", "mapped");
+		JobLogger.LogMessage("new message", true, false, false, LevelOfMessage.ERROR, dbParams);
+		FileAppenderRegistry.CloseAll();
+
+		String content = TestSupport.ReadLogFile(folder.getRoot());
+		Assert.assertTrue(content.startsWith("previous data\n"));
+		Assert.assertTrue(content.contains("new message"));
+		Assert.assertEquals(-1, content.indexOf('\u0000'));
+	}
+
+	/**
+	 * Unit test to verify that a folder cannot get a second appender with another configuration
+	 * @throws Exception
+	 */
+	@Test
+	public void FolderKeepsItsConfigurationTest() throws Exception
+	{
+		Map<String, Object> dbParams = new HashMap<String, Object>();
+		dbParams.put("logFileFolder", folder.getRoot().getPath());
+		JobLogger.LogMessage("first message", true, false, false, LevelOfMessage.MESSAGE, dbParams);
+
+		final Map<String, Object> otherParams = new HashMap<String, Object>(dbParams);
+		otherParams.put("fileFlushPolicy", "ON_SHUTDOWN");
+		LoggerException exception = Assert.assertThrows(LoggerException.class,
+				() -> FileAppenderRegistry.GetLogger(otherParams));
+		Assert.assertTrue(exception.getMessage().equals("The log file folder is already used with another file configuration"));
+
+		//Once the appender is closed the folder can be opened again in another way
+		FileAppenderRegistry.CloseAll();
+		JobLogger.LogMessage("buffered message", true, false, false, LevelOfMessage.MESSAGE, otherParams);
+		Assert.assertFalse(TestSupport.ReadLogFile(folder.getRoot()).contains("buffered message"));
+		FileAppenderRegistry.FlushAll();
+		Assert.assertTrue(TestSupport.ReadLogFile(folder.getRoot()).contains("buffered message"));
+		FileAppenderRegistry.CloseAll();
+	}
+
+	/**
+	 * Unit test to verify that an unknown flush policy is rejected
+	 */
+	@Test
+	public void InvalidFlushPolicyTest()
+	{
+		final Map<String, Object> dbParams = new HashMap<String, Object>();
+		dbParams.put("logFileFolder", folder.getRoot().getPath());
+		dbParams.put("fileFlushPolicy", "SOMETIMES");
+
+		LoggerException exception = Assert.assertThrows(LoggerException.class,
+				() -> JobLogger.LogMessage("This is a message", true, false, false, LevelOfMessage.WARNING, dbParams));
+		Assert.assertTrue(exception.getMessage().equals("The parameter fileFlushPolicy must be a valid flush policy"));
+	}
+
+}
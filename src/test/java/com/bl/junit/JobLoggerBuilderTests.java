@@ -0,0 +1,206 @@
+package com.bl.junit;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.bl.exception.LoggerException;
+import com.bl.logger.JobLogger;
+import com.bl.logger.LevelOfMessage;
+import com.bl.logger.database.ConnectionPoolRegistry;
+import com.bl.logger.file.FileAppenderRegistry;
+
+/**
+ * Class that will have all the unit tests for the pre-configured logger instances
+ * @author Teddy
+ *
+ */
+public class JobLoggerBuilderTests {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Unit test to verify that a built logger writes into the file and the database
+	 * @throws Exception
+	 */
+	@Test
+	public void BuiltLoggerWritesIntoEveryDestinationTest() throws Exception
+	{
+		Connection connection = TestSupport.ConnectWithLogTable("mem:builder");
+		Map<String, Object> dbParams = TestSupport.DbParams("mem:builder");
+		dbParams.put("logFileFolder", folder.getRoot().getPath());
+
+		JobLogger jobLogger = JobLogger.NewBuilder().LogToFile(true).LogToDatabase(true).WithParameters(dbParams).Build();
+		jobLogger.Log("This an error message", LevelOfMessage.ERROR);
+		jobLogger.Log("This a warning message", LevelOfMessage.WARNING);
+
+		Assert.assertTrue(TestSupport.ReadLogFile(folder.getRoot()).contains("This an error message"));
+		ResultSet rs = connection.createStatement().executeQuery("SELECT COUNT(*) FROM LOG");
+		rs.next();
+		Assert.assertEquals(2, rs.getInt(1));
+		connection.close();
+	}
+
+	/**
+	 * Unit test to verify that the logger keeps its own copy of the parameters
+	 * @throws Exception
+	 */
+	@Test
+	public void BuiltLoggerIgnoresLaterChangesOfTheParametersTest() throws Exception
+	{
+		Map<String, Object> dbParams = new HashMap<String, Object>();
+		dbParams.put("logFileFolder", folder.getRoot().getPath());
+		JobLogger jobLogger = JobLogger.NewBuilder().LogToFile(true).WithParameters(dbParams).Build();
+
+		//Changing the map of the caller after building
+		File other = folder.newFolder("other");
+		dbParams.put("logFileFolder", other.getPath());
+		jobLogger.Log("first message", LevelOfMessage.MESSAGE);
+
+		Assert.assertTrue(TestSupport.ReadLogFile(folder.getRoot()).contains("first message"));
+		Assert.assertFalse(new File(other, "logFile.txt").exists());
+	}
+
+	/**
+	 * Unit test to verify that a built logger keeps working after the appenders and pools are closed
+	 * @throws Exception
+	 */
+	@Test
+	public void BuiltLoggerSurvivesClosedResourcesTest() throws Exception
+	{
+		Connection connection = TestSupport.ConnectWithLogTable("mem:reopen");
+		Map<String, Object> dbParams = TestSupport.DbParams("mem:reopen");
+		dbParams.put("logFileFolder", folder.getRoot().getPath());
+		JobLogger jobLogger = JobLogger.NewBuilder().LogToFile(true).LogToDatabase(true).WithParameters(dbParams).Build();
+
+		jobLogger.Log("before closing", LevelOfMessage.WARNING);
+		FileAppenderRegistry.CloseAll();
+		ConnectionPoolRegistry.CloseAll();
+		jobLogger.Log("after closing", LevelOfMessage.WARNING);
+
+		Assert.assertTrue(TestSupport.ReadLogFile(folder.getRoot()).contains("after closing"));
+		ResultSet rs = connection.createStatement().executeQuery("SELECT COUNT(*) FROM LOG");
+		rs.next();
+		Assert.assertEquals(2, rs.getInt(1));
+		connection.close();
+	}
+
+	/**
+	 * Unit test to verify that the static method follows the changes of the parameters between calls
+	 * @throws Exception
+	 */
+	@Test
+	public void LogMessageUsesTheCurrentParametersTest() throws Exception
+	{
+		Map<String, Object> dbParams = new HashMap<String, Object>();
+		dbParams.put("logFileFolder", folder.getRoot().getPath());
+		JobLogger.LogMessage("first message", true, false, false, LevelOfMessage.MESSAGE, dbParams);
+
+		//The same map with another folder must not reuse the cached logger
+		File other = folder.newFolder("other");
+		dbParams.put("logFileFolder", other.getPath());
+		JobLogger.LogMessage("second message", true, false, false, LevelOfMessage.MESSAGE, dbParams);
+
+		Assert.assertFalse(TestSupport.ReadLogFile(folder.getRoot()).contains("second message"));
+		Assert.assertTrue(TestSupport.ReadLogFile(other).contains("second message"));
+	}
+
+	/**
+	 * Unit test to verify that the static method follows the destinations of every call with the same parameters
+	 * @throws Exception
+	 */
+	@Test
+	public void LogMessageUsesTheCurrentDestinationsTest() throws Exception
+	{
+		Map<String, Object> dbParams = new HashMap<String, Object>();
+		dbParams.put("logFileFolder", folder.getRoot().getPath());
+		JobLogger.LogMessage("first message", true, false, false, LevelOfMessage.MESSAGE, dbParams);
+		JobLogger.LogMessage("second message", false, true, false, LevelOfMessage.MESSAGE, dbParams);
+		JobLogger.LogMessage("third message", true, false, false, LevelOfMessage.MESSAGE, dbParams);
+
+		String content = TestSupport.ReadLogFile(folder.getRoot());
+		Assert.assertTrue(content.contains("first message"));
+		Assert.assertFalse(content.contains("second message"));
+		Assert.assertTrue(content.contains("third message"));
+	}
+
+	/**
+	 * Unit test to verify that the loggers the static method forgets write their repeated messages
+	 * @throws Exception
+	 */
+	@Test
+	public void LogMessageClosesTheForgottenLoggersTest() throws Exception
+	{
+		Map<String, Object> dbParams = new HashMap<String, Object>();
+		dbParams.put("logFileFolder", folder.getRoot().getPath());
+		dbParams.put("dedupWindow", 60000);
+		for (int i = 0; i < 5; i++)
+			JobLogger.LogMessage("forgotten message", true, false, false, LevelOfMessage.WARNING, dbParams);
+		Assert.assertFalse(TestSupport.ReadLogFile(folder.getRoot()).contains("forgotten message ... repeated"));
+
+		//Enough other configurations empty the cache
+		for (int i = 0; i < 256; i++)
+		{
+			Map<String, Object> otherParams = new HashMap<String, Object>();
+			otherParams.put("logFileFolder", folder.getRoot().getPath());
+			otherParams.put("configuration", i);
+			JobLogger.WarmUp(true, false, false, otherParams);
+		}
+		Assert.assertTrue(TestSupport.ReadLogFile(folder.getRoot()).contains("forgotten message ... repeated 4 times"));
+
+		//The same map gets a new logger, with a new window
+		JobLogger.LogMessage("forgotten message", true, false, false, LevelOfMessage.WARNING, dbParams);
+		String content = TestSupport.ReadLogFile(folder.getRoot());
+		Assert.assertEquals(content.indexOf("forgotten message ... repeated"), content.lastIndexOf("forgotten message ... repeated"));
+		Assert.assertTrue(content.lastIndexOf("forgotten message") > content.indexOf("forgotten message ... repeated"));
+	}
+
+	/**
+	 * Unit test to verify that the configuration is validated when the logger is built
+	 */
+	@Test
+	public void BuildValidatesTheConfigurationTest()
+	{
+		LoggerException exception = Assert.assertThrows(LoggerException.class,
+				() -> JobLogger.NewBuilder().Build());
+		Assert.assertTrue(exception.getMessage().equals("Invalid configuration"));
+
+		exception = Assert.assertThrows(LoggerException.class,
+				() -> JobLogger.NewBuilder().LogToFile(true).Build());
+		Assert.assertTrue(exception.getMessage().equals("File parameter cannot be blank"));
+
+		exception = Assert.assertThrows(LoggerException.class,
+				() -> JobLogger.NewBuilder().LogToDatabase(true).WithParameters(new HashMap<String, Object>()).Build());
+		Assert.assertTrue(exception.getMessage().equals("Not all the required database parameters have been specified"));
+	}
+
+	/**
+	 * Unit test to verify that a built logger validates every message
+	 * @throws LoggerException
+	 */
+	@Test
+	public void BuiltLoggerValidatesTheMessageTest() throws LoggerException
+	{
+		final JobLogger jobLogger = JobLogger.NewBuilder().LogToConsole(true).Build();
+
+		LoggerException exception = Assert.assertThrows(LoggerException.class, () -> jobLogger.Log(null, LevelOfMessage.ERROR));
+		Assert.assertTrue(exception.getMessage().equals("The Message cannot be null"));
+		exception = Assert.assertThrows(LoggerException.class, () -> jobLogger.Log("   ", LevelOfMessage.ERROR));
+		Assert.assertTrue(exception.getMessage().equals("The message cannot contain only white space"));
+		exception = Assert.assertThrows(LoggerException.class, () -> jobLogger.Log("message", null));
+		Assert.assertTrue(exception.getMessage().equals("Error or Warning or Message must be specified"));
+
+		//The empty constructor gives a logger without destinations
+		exception = Assert.assertThrows(LoggerException.class, () -> new JobLogger().Log("message", LevelOfMessage.ERROR));
+		Assert.assertTrue(exception.getMessage().equals("Invalid configuration"));
+	}
+
+}
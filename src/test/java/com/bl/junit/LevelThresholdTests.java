@@ -0,0 +1,110 @@
+package com.bl.junit;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.bl.exception.LoggerException;
+import com.bl.logger.JobLogger;
+import com.bl.logger.LevelOfMessage;
+
+/**
+ * Class that will have all the unit tests for the minimum type of message of every destination
+ * @author Teddy
+ *
+ */
+public class LevelThresholdTests {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Unit test to verify that the file only receives the types of message over its threshold
+	 * @throws Exception
+	 */
+	@Test
+	public void FileOnlyReceivesTheTypesOverItsThresholdTest() throws Exception
+	{
+		Map<String, Object> dbParams = new HashMap<String, Object>();
+		dbParams.put("logFileFolder", folder.getRoot().getPath());
+		dbParams.put("fileThreshold", "WARNING");
+
+		JobLogger.LogMessage("This an info message", true, false, false, LevelOfMessage.MESSAGE, dbParams);
+		JobLogger.LogMessage("This a warning message", true, false, false, LevelOfMessage.WARNING, dbParams);
+		JobLogger.LogMessage("This an error message", true, false, false, LevelOfMessage.ERROR, dbParams);
+
+		String content = TestSupport.ReadLogFile(folder.getRoot());
+		Assert.assertFalse(content.contains("This an info message"));
+		Assert.assertTrue(content.contains("This a warning message"));
+		Assert.assertTrue(content.contains("This an error message"));
+	}
+
+	/**
+	 * Unit test to verify that the text of a filtered message is never built
+	 * @throws Exception
+	 */
+	@Test
+	public void FilteredMessageIsNotBuiltTest() throws Exception
+	{
+		Map<String, Object> dbParams = new HashMap<String, Object>();
+		dbParams.put("logFileFolder", folder.getRoot().getPath());
+		JobLogger jobLogger = JobLogger.NewBuilder().LogToFile(true).FileThreshold(LevelOfMessage.ERROR)
+				.WithParameters(dbParams).Build();
+		Map<String, Object> staticParams = new HashMap<String, Object>(dbParams);
+		staticParams.put("fileThreshold", LevelOfMessage.ERROR);
+		final AtomicInteger built = new AtomicInteger();
+
+		Assert.assertFalse(jobLogger.IsEnabled(LevelOfMessage.WARNING));
+		jobLogger.LogLazy(() -> "warning " + built.incrementAndGet(), LevelOfMessage.WARNING);
+		JobLogger.LogLazyMessage(() -> "static warning " + built.incrementAndGet(), true, false, false, 
+				LevelOfMessage.WARNING, staticParams);
+		Assert.assertEquals(0, built.get());
+
+		jobLogger.LogLazy(() -> "error " + built.incrementAndGet(), LevelOfMessage.ERROR);
+		Assert.assertEquals(1, built.get());
+		Assert.assertTrue(TestSupport.ReadLogFile(folder.getRoot()).contains("error 1"));
+	}
+
+	/**
+	 * Unit test to verify that every destination applies its own threshold
+	 * @throws Exception
+	 */
+	@Test
+	public void EveryDestinationHasItsOwnThresholdTest() throws Exception
+	{
+		Map<String, Object> dbParams = new HashMap<String, Object>();
+		dbParams.put("logFileFolder", folder.getRoot().getPath());
+		JobLogger jobLogger = JobLogger.NewBuilder().LogToFile(true).LogToConsole(true)
+				.ConsoleThreshold(LevelOfMessage.ERROR).WithParameters(dbParams).Build();
+
+		//The file still accepts every type, so the logger does too
+		Assert.assertTrue(jobLogger.IsEnabled(LevelOfMessage.MESSAGE));
+		jobLogger.Log("only in the file", LevelOfMessage.MESSAGE);
+		Assert.assertTrue(TestSupport.ReadLogFile(folder.getRoot()).contains("only in the file"));
+	}
+
+	/**
+	 * Unit test to verify that an unknown threshold is rejected
+	 */
+	@Test
+	public void InvalidThresholdTest()
+	{
+		final Map<String, Object> dbParams = new HashMap<String, Object>();
+		dbParams.put("logFileFolder", folder.getRoot().getPath());
+		dbParams.put("fileThreshold", "DEBUG");
+
+		LoggerException exception = Assert.assertThrows(LoggerException.class,
+				() -> JobLogger.LogMessage("This is a message", true, false, false, LevelOfMessage.WARNING, dbParams));
+		Assert.assertTrue(exception.getMessage().equals("The parameter fileThreshold must be a valid level"));
+
+		exception = Assert.assertThrows(LoggerException.class,
+				() -> JobLogger.LogLazyMessage(null, true, false, false, LevelOfMessage.WARNING, dbParams));
+		Assert.assertTrue(exception.getMessage().equals("The Message cannot be null"));
+	}
+
+}
@@ -0,0 +1,185 @@
+package com.bl.junit;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.bl.exception.LoggerException;
+import com.bl.logger.JobLogger;
+import com.bl.logger.LevelOfMessage;
+import com.bl.logger.database.ConnectionPoolRegistry;
+import com.bl.logger.query.LogCursor;
+import com.bl.logger.query.LogEntry;
+import com.bl.logger.query.LogQuery;
+import com.bl.logger.query.LogQueryEngine;
+
+/**
+ * Class that will have all the unit tests for the searches in the LOG table
+ * @author Teddy
+ *
+ */
+public class LogQueryTests {
+
+	/**
+	 * Method that gives the parameters of an in-memory database
+	 * @param serverName The name of the in-memory database
+	 * @return the parameters
+	 */
+	private static Map<String, Object> Parameters(String serverName)
+	{
+		Map<String, Object> dbParams = TestSupport.DbParams(serverName);
+		dbParams.put("databaseBootstrap", true);
+		return dbParams;
+	}
+
+	/**
+	 * Method that reads every message of a cursor
+	 * @param cursor The cursor
+	 * @return the texts of the messages, in order
+	 * @throws LoggerException
+	 */
+	private static String Texts(LogCursor cursor) throws LoggerException
+	{
+		StringBuilder texts = new StringBuilder();
+		LogEntry entry;
+		while ((entry = cursor.Next()) != null)
+			texts.append(texts.length() == 0 ? "" : ",").append(entry.getMessageText());
+		return texts.toString();
+	}
+
+	/**
+	 * Unit test to verify that an existing table gets the column and the indexes, and that it can be done twice
+	 * @throws Exception
+	 */
+	@Test
+	public void BootstrapUpgradesAnExistingTableTest() throws Exception
+	{
+		Connection connection = TestSupport.Connect("mem:querybootstrap");
+		connection.createStatement().executeUpdate("CREATE TABLE LOG(MESSAGE VARCHAR(4000), LEVEL INT)");
+		connection.createStatement().executeUpdate("INSERT INTO LOG VALUES('old message', 2)");
+
+		Map<String, Object> dbParams = Parameters("mem:querybootstrap");
+		LogQueryEngine engine = new LogQueryEngine(dbParams);
+		engine.Bootstrap();
+		engine.Bootstrap();
+
+		Set<String> indexes = new HashSet<String>();
+		ResultSet rs = connection.getMetaData().getIndexInfo(null, null, "LOG", false, false);
+		while (rs.next())
+			indexes.add(rs.getString("INDEX_NAME"));
+		Assert.assertTrue(indexes.contains("LOG_LOGGED_AT_IDX"));
+		Assert.assertTrue(indexes.contains("LOG_LEVEL_IDX"));
+
+		//The old row is still there, without moment
+		LogCursor cursor = engine.Query(LogQuery.NewQuery());
+		LogEntry entry = cursor.Next();
+		Assert.assertEquals("old message", entry.getMessageText());
+		Assert.assertEquals(LevelOfMessage.ERROR, entry.getLevel());
+		Assert.assertNull(cursor.Next());
+		connection.close();
+	}
+
+	/**
+	 * Unit test to verify that the messages are found by type, moment and text
+	 * @throws Exception
+	 */
+	@Test
+	public void MessagesAreFoundByTypeMomentAndTextTest() throws Exception
+	{
+		Connection connection = TestSupport.Connect("mem:queryfilters");
+		Map<String, Object> dbParams = Parameters("mem:queryfilters");
+		JobLogger jobLogger = JobLogger.NewBuilder().LogToDatabase(true).WithParameters(dbParams).Build();
+		long start = System.currentTimeMillis();
+		jobLogger.Log("disk 100% full", LevelOfMessage.ERROR);
+		jobLogger.Log("disk 90 full", LevelOfMessage.WARNING);
+		jobLogger.Log("user logged in", LevelOfMessage.MESSAGE);
+		Thread.sleep(20);
+		long middle = System.currentTimeMillis();
+		Thread.sleep(20);
+		jobLogger.Log("disk 100% full again", LevelOfMessage.ERROR);
+
+		LogQueryEngine engine = new LogQueryEngine(dbParams);
+		Assert.assertEquals("disk 100% full,disk 100% full again",
+				Texts(engine.Query(LogQuery.NewQuery().Levels(LevelOfMessage.ERROR))));
+		Assert.assertEquals("disk 100% full,disk 90 full",
+				Texts(engine.Query(LogQuery.NewQuery().Containing("disk").To(middle))));
+		Assert.assertEquals("disk 100% full again,disk 100% full",
+				Texts(engine.Query(LogQuery.NewQuery().Containing("100%").NewestFirst(true))));
+		Assert.assertEquals("disk 100% full again",
+				Texts(engine.Query(LogQuery.NewQuery().From(middle).Levels(LevelOfMessage.ERROR, LevelOfMessage.WARNING))));
+		Assert.assertEquals("user logged in", Texts(engine.Query(LogQuery.NewQuery().Containing("logged").Limit(1)
+				.Levels(LevelOfMessage.MESSAGE))));
+
+		//The wildcards of SQL are searched as plain characters
+		Assert.assertEquals(0, engine.Count(LogQuery.NewQuery().Containing("_")));
+		Assert.assertEquals(0, engine.Count(LogQuery.NewQuery().Containing("9%")));
+		Assert.assertEquals(3, engine.Count(LogQuery.NewQuery().Containing("disk")));
+
+		LogCursor cursor = engine.Query(LogQuery.NewQuery().Limit(1));
+		long timestamp = cursor.Next().getTimestamp();
+		Assert.assertTrue(timestamp >= start && timestamp <= middle);
+		Assert.assertNull(cursor.Next());
+		connection.close();
+	}
+
+	/**
+	 * Unit test to verify that a big result is read in pieces and the connection goes back to the pool
+	 * @throws Exception
+	 */
+	@Test
+	public void BigResultIsStreamedTest() throws Exception
+	{
+		Connection connection = TestSupport.Connect("mem:querystream");
+		Map<String, Object> dbParams = Parameters("mem:querystream");
+		dbParams.put("batchSize", 100);
+		JobLogger jobLogger = JobLogger.NewBuilder().LogToDatabase(true).WithParameters(dbParams).Build();
+		for (int i = 0; i < 1000; i++)
+			jobLogger.Log("row " + i, LevelOfMessage.WARNING);
+
+		LogQueryEngine engine = new LogQueryEngine(dbParams);
+		int idleBefore = ConnectionPoolRegistry.GetPool(dbParams).getIdleConnections();
+		int rows = 0;
+		try (LogCursor cursor = engine.Query(LogQuery.NewQuery().FetchSize(10)))
+		{
+			while (cursor.Next() != null)
+				rows++;
+		}
+		Assert.assertEquals(1000, rows);
+		Assert.assertTrue(ConnectionPoolRegistry.GetPool(dbParams).getIdleConnections() >= Math.max(1, idleBefore));
+
+		//A cursor closed before the end also gives its connection back
+		LogCursor cursor = engine.Query(LogQuery.NewQuery().FetchSize(10));
+		Assert.assertNotNull(cursor.Next());
+		cursor.close();
+		Assert.assertNull(cursor.Next());
+		connection.close();
+	}
+
+	/**
+	 * Unit test to verify that a table without moments cannot be queried and the parameters are validated
+	 * @throws Exception
+	 */
+	@Test
+	public void TableMustBeBootstrappedTest() throws Exception
+	{
+		Connection connection = TestSupport.Connect("mem:querylegacy");
+		connection.createStatement().executeUpdate("CREATE TABLE LOG(MESSAGE VARCHAR(4000), LEVEL INT)");
+		final Map<String, Object> dbParams = Parameters("mem:querylegacy");
+		dbParams.remove("databaseBootstrap");
+		JobLogger.LogMessage("legacy message", false, false, true, LevelOfMessage.ERROR, dbParams);
+
+		final LogQueryEngine engine = new LogQueryEngine(dbParams);
+		LoggerException exception = Assert.assertThrows(LoggerException.class, () -> engine.Query(LogQuery.NewQuery()));
+		Assert.assertTrue(exception.getMessage().equals("The LOG table must be bootstrapped before it is queried"));
+
+		exception = Assert.assertThrows(LoggerException.class, () -> new LogQueryEngine(null));
+		Assert.assertTrue(exception.getMessage().equals("DataBase parameters cannot be blank"));
+		connection.close();
+	}
+
+}
@@ -0,0 +1,111 @@
+package com.bl.junit;
+
+import java.text.DateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.bl.logger.LevelOfMessage;
+import com.bl.logger.format.MessageFormatter;
+
+/**
+ * Class that will have all the unit tests for the formatting of the messages
+ * @author Teddy
+ *
+ */
+public class MessageFormatterTests {
+
+	/**
+	 * Unit test to verify that the final message keeps the format the logger has always had
+	 */
+	@Test
+	public void FinalMessageKeepsTheFormatTest()
+	{
+		String date = DateFormat.getDateInstance(DateFormat.LONG).format(new Date());
+		Assert.assertEquals("warning " + date + " This a warning message",
+				MessageFormatter.Format(LevelOfMessage.WARNING, "This a warning message"));
+		Assert.assertEquals("error " + date + " This an error message",
+				MessageFormatter.Format(LevelOfMessage.ERROR, "This an error message"));
+		Assert.assertEquals("message " + date + " This an info message",
+				MessageFormatter.Format(LevelOfMessage.MESSAGE, "This an info message"));
+
+		Assert.assertEquals(Level.SEVERE, MessageFormatter.ToLevel(LevelOfMessage.ERROR));
+		Assert.assertEquals(Level.WARNING, MessageFormatter.ToLevel(LevelOfMessage.WARNING));
+		Assert.assertEquals(Level.INFO, MessageFormatter.ToLevel(LevelOfMessage.MESSAGE));
+	}
+
+	/**
+	 * Unit test to verify that a message of another day gets the date of that day
+	 */
+	@Test
+	public void MessageOfAnotherDayGetsItsOwnDateTest()
+	{
+		Calendar calendar = Calendar.getInstance();
+		calendar.add(Calendar.DAY_OF_MONTH, -3);
+		long timestamp = calendar.getTimeInMillis();
+
+		String date = DateFormat.getDateInstance(DateFormat.LONG).format(new Date(timestamp));
+		Assert.assertEquals("error " + date + " old message",
+				MessageFormatter.Format(LevelOfMessage.ERROR, "old message", timestamp));
+
+		//Today is still formatted with the date of today
+		String today = DateFormat.getDateInstance(DateFormat.LONG).format(new Date());
+		Assert.assertEquals("error " + today + " new message", MessageFormatter.Format(LevelOfMessage.ERROR, "new message"));
+	}
+
+	/**
+	 * Unit test to verify that the message can be appended into the reusable buffer of the thread
+	 */
+	@Test
+	public void MessageIsAppendedIntoTheThreadBufferTest()
+	{
+		long now = System.currentTimeMillis();
+		StringBuilder buffer = MessageFormatter.GetBuffer();
+		MessageFormatter.FormatTo(buffer, LevelOfMessage.WARNING, "buffered", now);
+		Assert.assertEquals(MessageFormatter.Format(LevelOfMessage.WARNING, "buffered", now), buffer.toString());
+
+		//The same buffer is given again, empty
+		Assert.assertSame(buffer, MessageFormatter.GetBuffer());
+		Assert.assertEquals(0, buffer.length());
+	}
+
+	/**
+	 * Unit test to verify that many threads formatting at once never mix their messages
+	 * @throws Exception
+	 */
+	@Test
+	public void ConcurrentFormattingDoesNotMixMessagesTest() throws Exception
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+		for (int t = 0; t < 8; t++)
+		{
+			final LevelOfMessage level = LevelOfMessage.values()[t % LevelOfMessage.values().length];
+			final String text = "thread " + t;
+			results.add(executor.submit(new Callable<Boolean>() {
+				@Override
+				public Boolean call()
+				{
+					String expected = MessageFormatter.Prefix(level, System.currentTimeMillis()) + text;
+					for (int i = 0; i < 10000; i++)
+						if (!MessageFormatter.Format(level, text).equals(expected))
+							return false;
+					return true;
+				}
+			}));
+		}
+		for (Future<Boolean> result : results)
+			Assert.assertTrue(result.get());
+		executor.shutdown();
+	}
+
+}
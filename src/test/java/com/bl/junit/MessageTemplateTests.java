@@ -0,0 +1,119 @@
+package com.bl.junit;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.bl.exception.LoggerException;
+import com.bl.logger.JobLogger;
+import com.bl.logger.LevelOfMessage;
+import com.bl.logger.format.MessageTemplate;
+
+/**
+ * Class that will have all the unit tests for the messages with {} placeholders
+ * @author Teddy
+ *
+ */
+public class MessageTemplateTests {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Unit test to verify that the arguments are placed into the pattern in order
+	 */
+	@Test
+	public void ArgumentsArePlacedIntoThePatternTest()
+	{
+		Assert.assertEquals("User bob has 3 items", MessageTemplate.Parse("User {} has {} items").Format("bob", 3));
+		Assert.assertEquals(2, MessageTemplate.Parse("User {} has {} items").getPlaceholderCount());
+
+		//Missing arguments keep the placeholder, extra arguments are ignored
+		Assert.assertEquals("a=1 b={}", MessageTemplate.Parse("a={} b={}").Format(1));
+		Assert.assertEquals("only 1", MessageTemplate.Parse("only {}").Format(1, 2, 3));
+		Assert.assertEquals("null value", MessageTemplate.Parse("{} value").Format((Object) null));
+
+		//Escaped placeholders, single braces and arrays
+		Assert.assertEquals("literal {} and 5", MessageTemplate.Parse("literal \\{} and {}").Format(5));
+		Assert.assertEquals("{ 7 }", MessageTemplate.Parse("{ {} }").Format(7));
+		Assert.assertEquals("[1, 2] [a, [b]]", MessageTemplate.Parse("{} {}").Format(new int[] { 1, 2 },
+				new Object[] { "a", new String[] { "b" } }));
+	}
+
+	/**
+	 * Unit test to verify that a pattern is parsed only once
+	 */
+	@Test
+	public void ParsedPatternIsCachedTest()
+	{
+		String pattern = "cached {} pattern";
+		MessageTemplate template = MessageTemplate.Parse(pattern);
+		Assert.assertSame(template, MessageTemplate.Parse(new String(pattern)));
+		Assert.assertEquals(pattern, template.getPattern());
+
+		//Without placeholders the pattern itself is the text
+		String plain = "plain text";
+		Assert.assertSame(plain, MessageTemplate.Parse(plain).Format());
+	}
+
+	/**
+	 * Unit test to verify that the logger writes the message and does not format the disabled types
+	 * @throws Exception
+	 */
+	@Test
+	public void LoggerFormatsOnlyTheEnabledTypesTest() throws Exception
+	{
+		Map<String, Object> dbParams = new HashMap<String, Object>();
+		dbParams.put("logFileFolder", folder.getRoot().getPath());
+		dbParams.put("fileThreshold", "WARNING");
+		final AtomicInteger renders = new AtomicInteger();
+		Object argument = new Object() {
+			@Override
+			public String toString()
+			{
+				renders.incrementAndGet();
+				return "argument";
+			}
+		};
+
+		JobLogger.LogMessage("static {} message", true, false, false, LevelOfMessage.MESSAGE, dbParams, argument);
+		Assert.assertEquals(0, renders.get());
+		JobLogger.LogMessage("static {} message", true, false, false, LevelOfMessage.ERROR, dbParams, argument);
+		JobLogger jobLogger = JobLogger.NewBuilder().LogToFile(true).WithParameters(dbParams).Build();
+		jobLogger.Log("built {} message {}", LevelOfMessage.MESSAGE, argument, 1);
+		jobLogger.Log("built {} message {}", LevelOfMessage.WARNING, argument, 2);
+		Assert.assertEquals(2, renders.get());
+
+		String content = TestSupport.ReadLogFile(folder.getRoot());
+		Assert.assertTrue(content.contains("static argument message"));
+		Assert.assertTrue(content.contains("built argument message 2"));
+		Assert.assertFalse(content.contains("built argument message 1"));
+	}
+
+	/**
+	 * Unit test to verify that the pattern is validated like any other message
+	 * @throws LoggerException
+	 */
+	@Test
+	public void PatternIsValidatedTest() throws LoggerException
+	{
+		final JobLogger jobLogger = JobLogger.NewBuilder().LogToConsole(true).Build();
+		LoggerException exception = Assert.assertThrows(LoggerException.class,
+				() -> jobLogger.Log(null, LevelOfMessage.ERROR, 1));
+		Assert.assertTrue(exception.getMessage().equals("The Message cannot be null"));
+		exception = Assert.assertThrows(LoggerException.class, () -> jobLogger.Log("  ", LevelOfMessage.ERROR, 1));
+		Assert.assertTrue(exception.getMessage().equals("The message cannot contain only white space"));
+		exception = Assert.assertThrows(LoggerException.class,
+				() -> JobLogger.LogMessage("value {}", false, false, false, LevelOfMessage.ERROR, null, 1));
+		Assert.assertTrue(exception.getMessage().equals("Invalid configuration"));
+		exception = Assert.assertThrows(LoggerException.class,
+				() -> JobLogger.LogMessage("value {}", false, true, false, null, null, 1));
+		Assert.assertTrue(exception.getMessage().equals("Error or Warning or Message must be specified"));
+	}
+
+}
@@ -0,0 +1,109 @@
+package com.bl.junit;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.bl.exception.LoggerException;
+import com.bl.logger.JobLogger;
+import com.bl.logger.LevelOfMessage;
+import com.bl.logger.metrics.HistogramSnapshot;
+import com.bl.logger.metrics.LatencyHistogram;
+import com.bl.logger.metrics.MetricsRegistry;
+import com.bl.logger.metrics.MetricsSnapshot;
+
+/**
+ * Class that will have all the unit tests for the metrics of the logger
+ * @author Teddy
+ *
+ */
+public class MetricsTests {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Unit test to verify that every type of message and every write into a destination is counted
+	 * @throws LoggerException
+	 */
+	@Test
+	public void MessagesAndSinkLatenciesAreRecordedTest() throws LoggerException
+	{
+		Map<String, Object> dbParams = new HashMap<String, Object>();
+		dbParams.put("logFileFolder", folder.getRoot().getPath());
+		JobLogger jobLogger = JobLogger.NewBuilder().LogToFile(true).WithParameters(dbParams).Build();
+
+		MetricsSnapshot before = MetricsRegistry.Snapshot();
+		jobLogger.Log("This an error message", LevelOfMessage.ERROR);
+		jobLogger.Log("This a warning message", LevelOfMessage.WARNING);
+		jobLogger.Log("Another warning message", LevelOfMessage.WARNING);
+		MetricsSnapshot after = MetricsRegistry.Snapshot();
+
+		Assert.assertEquals(1, after.Counter("records.ERROR") - before.Counter("records.ERROR"));
+		Assert.assertEquals(2, after.Counter("records.WARNING") - before.Counter("records.WARNING"));
+		long written = before.Histogram("sink.file.latency") == null ? 0 : before.Histogram("sink.file.latency").getCount();
+		Assert.assertEquals(3, after.Histogram("sink.file.latency").getCount() - written);
+		Assert.assertTrue(after.Histogram("sink.file.latency").getMax() > 0);
+	}
+
+	/**
+	 * Unit test to verify that every exception of the logger is counted
+	 */
+	@Test
+	public void ExceptionsAreCountedTest()
+	{
+		long before = MetricsRegistry.Snapshot().Counter("exceptions");
+		Assert.assertThrows(LoggerException.class,
+				() -> JobLogger.LogMessage(null, true, false, false, LevelOfMessage.ERROR, null));
+		Assert.assertThrows(LoggerException.class,
+				() -> JobLogger.LogMessage("message", false, false, false, LevelOfMessage.ERROR, null));
+		Assert.assertEquals(2, MetricsRegistry.Snapshot().Counter("exceptions") - before);
+	}
+
+	/**
+	 * Unit test to verify that the percentiles of a histogram are close to the real ones
+	 */
+	@Test
+	public void HistogramPercentilesAreAccurateTest()
+	{
+		LatencyHistogram histogram = MetricsRegistry.GetHistogram("test.accuracy");
+		for (long value = 1; value <= 100000; value++)
+			histogram.Record(value * 1000);
+
+		HistogramSnapshot snapshot = histogram.Snapshot();
+		Assert.assertEquals(100000, snapshot.getCount());
+		Assert.assertEquals(100000000, snapshot.getMax());
+		Assert.assertEquals(50000500.0, snapshot.getMean(), 1.0);
+		Assert.assertEquals(50000000, snapshot.getP50(), 50000000 * 0.035);
+		Assert.assertEquals(99000000, snapshot.getP99(), 99000000 * 0.035);
+		Assert.assertEquals(99900000, snapshot.getP999(), 99900000 * 0.035);
+	}
+
+	/**
+	 * Unit test to verify that the metrics can be read through JMX
+	 * @throws Exception
+	 */
+	@Test
+	public void MetricsArePublishedInJmxTest() throws Exception
+	{
+		MetricsRegistry.GetCounter("test.jmx").Add(5);
+		MetricsRegistry.RegisterGauge("test.gauge", () -> 42);
+		MetricsRegistry.GetHistogram("test.jmx.latency").Record(1000);
+
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName(MetricsRegistry.OBJECT_NAME);
+		Assert.assertTrue(server.isRegistered(name));
+		Assert.assertEquals(5L, server.getAttribute(name, "test.jmx"));
+		Assert.assertEquals(42L, server.getAttribute(name, "test.gauge"));
+		Assert.assertEquals(1L, server.getAttribute(name, "test.jmx.latency.count"));
+	}
+
+}
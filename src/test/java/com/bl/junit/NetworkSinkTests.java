@@ -0,0 +1,181 @@
+package com.bl.junit;
+
+import java.net.InetAddress;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.bl.exception.LoggerException;
+import com.bl.logger.JobLogger;
+import com.bl.logger.LevelOfMessage;
+import com.bl.logger.event.LogEvent;
+import com.bl.logger.format.MessageRecord;
+import com.bl.logger.network.LoopbackCollector;
+import com.bl.logger.network.NetworkShipper;
+import com.bl.logger.network.NetworkShipperRegistry;
+
+/**
+ * Class that will have all the unit tests for the messages shipped to a collector
+ * @author Teddy
+ *
+ */
+public class NetworkSinkTests {
+
+	/**
+	 * Method that closes the shippers after every test, so the next one gets new ones
+	 */
+	@After
+	public void TearDown()
+	{
+		NetworkShipperRegistry.CloseAll();
+	}
+
+	/**
+	 * Method that gives the parameters of a logger that ships its messages to a collector
+	 * @param protocol The protocol of the collector
+	 * @param port The port of the collector
+	 * @return the parameters
+	 */
+	private static Map<String, Object> Parameters(String protocol, int port)
+	{
+		Map<String, Object> dbParams = new HashMap<String, Object>();
+		dbParams.put("sinks", "network");
+		dbParams.put("networkHost", InetAddress.getLoopbackAddress().getHostAddress());
+		dbParams.put("networkPort", port);
+		dbParams.put("networkProtocol", protocol);
+		return dbParams;
+	}
+
+	/**
+	 * Unit test to verify that the messages arrive through TCP in compressed batches
+	 * @throws Exception
+	 */
+	@Test
+	public void TcpShipsCompressedBatchesTest() throws Exception
+	{
+		try (LoopbackCollector collector = new LoopbackCollector(false, 0))
+		{
+			Map<String, Object> dbParams = Parameters("tcp", collector.getPort());
+			dbParams.put("networkCompression", "deflate");
+			dbParams.put("networkBatchSize", 50);
+			dbParams.put("networkMaxDelay", 1000);
+			JobLogger jobLogger = JobLogger.NewBuilder().WithParameters(dbParams).Build();
+			for (int i = 0; i < 200; i++)
+				jobLogger.Log("This is the message " + i, LevelOfMessage.WARNING);
+			Assert.assertTrue(NetworkShipperRegistry.FlushAll(5, TimeUnit.SECONDS));
+			Assert.assertTrue(collector.AwaitRecords(200, 5, TimeUnit.SECONDS));
+
+			//Every message is there, in order, in a few compressed frames
+			List<MessageRecord> records = collector.getRecords();
+			Assert.assertEquals(200, records.size());
+			for (int i = 0; i < 200; i++)
+			{
+				Assert.assertEquals("This is the message " + i, records.get(i).getMessageText());
+				Assert.assertEquals(LevelOfMessage.WARNING, records.get(i).getLevelOfMessage());
+			}
+			Assert.assertTrue(collector.getFrames() < 200);
+			Assert.assertEquals(collector.getFrames(), collector.getCompressedFrames());
+			Assert.assertEquals(200, NetworkShipperRegistry.GetShipper(dbParams).getSentRecords());
+		}
+	}
+
+	/**
+	 * Unit test to verify that the messages arrive through UDP, one frame per datagram
+	 * @throws Exception
+	 */
+	@Test
+	public void UdpShipsDatagramsTest() throws Exception
+	{
+		try (LoopbackCollector collector = new LoopbackCollector(true, 0))
+		{
+			Map<String, Object> dbParams = Parameters("udp", collector.getPort());
+			dbParams.put("networkBatchSize", 5);
+			JobLogger jobLogger = JobLogger.NewBuilder().WithParameters(dbParams).Build();
+			for (int i = 0; i < 19; i++)
+				jobLogger.Log("This is the error " + i, LevelOfMessage.ERROR);
+			jobLogger.LogStructured(LogEvent.Of("This is the error {code}").With("code", 19L), LevelOfMessage.ERROR);
+			Assert.assertTrue(NetworkShipperRegistry.FlushAll(5, TimeUnit.SECONDS));
+			Assert.assertTrue(collector.AwaitRecords(20, 5, TimeUnit.SECONDS));
+
+			List<MessageRecord> records = collector.getRecords();
+			for (int i = 0; i < 20; i++)
+				Assert.assertEquals("This is the error " + i, records.get(i).getMessageText());
+			Assert.assertEquals(0, collector.getCompressedFrames());
+			Assert.assertTrue(collector.getFrames() >= 4);
+		}
+	}
+
+	/**
+	 * Unit test to verify that the newest messages wait in the buffer while the collector is down
+	 * @throws Exception
+	 */
+	@Test
+	public void MessagesWaitForTheCollectorTest() throws Exception
+	{
+		LoopbackCollector collector = new LoopbackCollector(false, 0);
+		int port = collector.getPort();
+		Map<String, Object> dbParams = Parameters("tcp", port);
+		dbParams.put("networkBatchSize", 5);
+		dbParams.put("networkMaxDelay", 0);
+		dbParams.put("networkBufferSize", 10);
+		dbParams.put("networkReconnectDelay", 50);
+		JobLogger jobLogger = JobLogger.NewBuilder().WithParameters(dbParams).Build();
+		jobLogger.Log("message 0", LevelOfMessage.MESSAGE);
+		Assert.assertTrue(collector.AwaitRecords(1, 5, TimeUnit.SECONDS));
+		collector.close();
+
+		//Logging doesn't wait for the collector, only the newest messages are kept
+		for (int i = 1; i <= 30; i++)
+			jobLogger.Log("message " + i, LevelOfMessage.MESSAGE);
+		NetworkShipper shipper = NetworkShipperRegistry.GetShipper(dbParams);
+		Thread.sleep(200);
+		Assert.assertFalse(shipper.Flush(0, TimeUnit.SECONDS));
+		Assert.assertTrue(shipper.getDroppedRecords() > 0);
+
+		try (LoopbackCollector restarted = new LoopbackCollector(false, port))
+		{
+			Assert.assertTrue(shipper.Flush(5, TimeUnit.SECONDS));
+			Assert.assertEquals(31, shipper.getSentRecords() + shipper.getDroppedRecords());
+			//Everything sent after the first message goes to the new collector
+			Assert.assertTrue(restarted.AwaitRecords((int) shipper.getSentRecords() - 1, 5, TimeUnit.SECONDS));
+			List<MessageRecord> records = restarted.getRecords();
+			Assert.assertTrue(records.size() <= 15);
+			Assert.assertEquals("message 30", records.get(records.size() - 1).getMessageText());
+			Assert.assertEquals(0, shipper.getPendingRecords());
+		}
+	}
+
+	/**
+	 * Unit test to verify that the network parameters are validated
+	 * @throws Exception
+	 */
+	@Test
+	public void NetworkParametersAreValidatedTest() throws Exception
+	{
+		final Map<String, Object> dbParams = Parameters("tcp", 9);
+		dbParams.remove("networkHost");
+		LoggerException exception = Assert.assertThrows(LoggerException.class,
+				() -> JobLogger.NewBuilder().WithParameters(dbParams).Build());
+		Assert.assertTrue(exception.getMessage().equals("The network parameters are not valid"));
+
+		dbParams.put("networkHost", "localhost");
+		dbParams.put("networkCompression", "lz4");
+		exception = Assert.assertThrows(LoggerException.class, () -> JobLogger.NewBuilder().WithParameters(dbParams).Build());
+		Assert.assertTrue(exception.getMessage().equals("The network parameters are not valid"));
+
+		//The tuning of the shipper is read by the warm up or the first message
+		dbParams.remove("networkCompression");
+		dbParams.put("networkBufferSize", 0);
+		final JobLogger jobLogger = JobLogger.NewBuilder().WithParameters(dbParams).Build();
+		exception = Assert.assertThrows(LoggerException.class, () -> jobLogger.WarmUp());
+		Assert.assertTrue(exception.getMessage().equals("The network parameters are not valid"));
+		exception = Assert.assertThrows(LoggerException.class, () -> jobLogger.Log("This is a message", LevelOfMessage.ERROR));
+		Assert.assertTrue(exception.getMessage().equals("The network parameters are not valid"));
+	}
+
+}
@@ -0,0 +1,157 @@
+package com.bl.junit;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.bl.exception.LoggerException;
+import com.bl.exception.SinkFailureException;
+import com.bl.logger.JobLogger;
+import com.bl.logger.LevelOfMessage;
+
+/**
+ * Class that will have all the unit tests for the destinations written in parallel
+ * @author Teddy
+ *
+ */
+public class ParallelSinksTests {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Method that gives the parameters of the file and of an in-memory database
+	 * @param serverName The name of the in-memory database
+	 * @param dbms The driver of the database
+	 * @return the parameters
+	 */
+	private Map<String, Object> Parameters(String serverName, String dbms)
+	{
+		Map<String, Object> dbParams = TestSupport.DbParams(serverName);
+		dbParams.put("dbms", dbms);
+		dbParams.put("logFileFolder", folder.getRoot().getPath());
+		return dbParams;
+	}
+
+	/**
+	 * Unit test to verify that every destination gets the message when they are written in parallel
+	 * @throws Exception
+	 */
+	@Test
+	public void EveryDestinationIsWrittenInParallelTest() throws Exception
+	{
+		Connection connection = TestSupport.ConnectWithLogTable("mem:parallel");
+		Map<String, Object> dbParams = Parameters("mem:parallel", "h2");
+		dbParams.put("parallelSinks", "true");
+
+		JobLogger.LogMessage("This an error message", true, true, true, LevelOfMessage.ERROR, dbParams);
+		JobLogger.LogMessage("This a warning message", true, true, true, LevelOfMessage.WARNING, dbParams);
+
+		Assert.assertTrue(TestSupport.ReadLogFile(folder.getRoot()).contains("This a warning message"));
+		ResultSet rs = connection.createStatement().executeQuery("SELECT COUNT(*) FROM LOG");
+		rs.next();
+		Assert.assertEquals(2, rs.getInt(1));
+		connection.close();
+	}
+
+	/**
+	 * Unit test to verify that the executor writes every destination that can wait
+	 * @throws Exception
+	 */
+	@Test
+	public void TheExecutorWritesEveryDestinationTest() throws Exception
+	{
+		TestSupport.ConnectWithLogTable("mem:executor").close();
+		final AtomicInteger executed = new AtomicInteger();
+		JobLogger jobLogger = JobLogger.NewBuilder().LogToFile(true).LogToDatabase(true)
+				.WithParameters(Parameters("mem:executor", "h2")).ParallelSinks(true)
+				.SinkExecutor(task -> {
+					executed.incrementAndGet();
+					Executors.newSingleThreadExecutor().execute(task);
+				}).Build();
+
+		jobLogger.Log("This a warning message", LevelOfMessage.WARNING);
+		Assert.assertEquals(2, executed.get());
+		Assert.assertTrue(TestSupport.ReadLogFile(folder.getRoot()).contains("This a warning message"));
+
+		//Only the destinations that accept the type are handed over
+		JobLogger fileOnly = JobLogger.NewBuilder().LogToFile(true).LogToDatabase(true)
+				.WithParameters(Parameters("mem:executor", "h2")).ParallelSinks(true).DatabaseThreshold(LevelOfMessage.ERROR)
+				.SinkExecutor(task -> {
+					executed.incrementAndGet();
+					task.run();
+				}).Build();
+		fileOnly.Log("Only in the file", LevelOfMessage.WARNING);
+		Assert.assertEquals(3, executed.get());
+
+		//A destination the executor refuses is reported instead of being written without a timeout
+		final JobLogger rejecting = JobLogger.NewBuilder().LogToFile(true).WithParameters(Parameters("mem:executor", "h2"))
+				.ParallelSinks(true).SinkExecutor(task -> {
+					throw new RejectedExecutionException();
+				}).Build();
+		SinkFailureException exception = Assert.assertThrows(SinkFailureException.class,
+				() -> rejecting.Log("Not written", LevelOfMessage.WARNING));
+		Assert.assertTrue(exception.getFailures().get("file").getMessage().equals("The destination file could not be given to the executor"));
+		Assert.assertFalse(TestSupport.ReadLogFile(folder.getRoot()).contains("Not written"));
+	}
+
+	/**
+	 * Unit test to verify that the exception tells which destinations have failed
+	 * @throws Exception
+	 */
+	@Test
+	public void FailedDestinationsAreReportedTest() throws Exception
+	{
+		final Map<String, Object> dbParams = Parameters("mem:failed", "nodriver");
+		dbParams.put("parallelSinks", true);
+
+		SinkFailureException exception = Assert.assertThrows(SinkFailureException.class,
+				() -> JobLogger.LogMessage("This an error message", true, false, true, LevelOfMessage.ERROR, dbParams));
+		Assert.assertTrue(exception.getMessage().equals("The message could not be written into: database"));
+		Assert.assertEquals(1, exception.getFailures().size());
+		Assert.assertTrue(exception.getFailures().get("database").getMessage().equals("Cannot create database connection or perform DML instruction, "
+				+ "Please check your Data Base parameters"));
+
+		//The other destination has been written anyway
+		Assert.assertTrue(TestSupport.ReadLogFile(folder.getRoot()).contains("This an error message"));
+	}
+
+	/**
+	 * Unit test to verify that a destination that does not answer in time is reported
+	 * @throws Exception
+	 */
+	@Test
+	public void SlowDestinationTimesOutTest() throws Exception
+	{
+		TestSupport.ConnectWithLogTable("mem:slow").close();
+		//An executor that never runs the work of the database, the first destination
+		final AtomicInteger submitted = new AtomicInteger();
+		final JobLogger jobLogger = JobLogger.NewBuilder().LogToFile(true).LogToDatabase(true)
+				.WithParameters(Parameters("mem:slow", "h2")).ParallelSinks(true).SinkTimeout(50)
+				.SinkExecutor(task -> {
+					if (submitted.getAndIncrement() > 0)
+						task.run();
+				}).Build();
+
+		long start = System.nanoTime();
+		SinkFailureException exception = Assert.assertThrows(SinkFailureException.class,
+				() -> jobLogger.Log("This an error message", LevelOfMessage.ERROR));
+		Assert.assertTrue(System.nanoTime() - start < 5000000000L);
+		Assert.assertTrue(exception.getFailures().get("database").getMessage()
+				.equals("The destination database did not answer in 50 milliseconds"));
+		Assert.assertTrue(TestSupport.ReadLogFile(folder.getRoot()).contains("This an error message"));
+
+		LoggerException invalid = Assert.assertThrows(LoggerException.class,
+				() -> JobLogger.NewBuilder().LogToConsole(true).SinkTimeout(0).ParallelSinks(true).Build());
+		Assert.assertTrue(invalid.getMessage().equals("The parameter sinkTimeout must be positive"));
+	}
+
+}
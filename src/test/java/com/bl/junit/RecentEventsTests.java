@@ -0,0 +1,157 @@
+package com.bl.junit;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.bl.exception.LoggerException;
+import com.bl.logger.JobLogger;
+import com.bl.logger.LevelOfMessage;
+import com.bl.logger.event.LogEvent;
+import com.bl.logger.recent.RecentEvent;
+import com.bl.logger.recent.RecentEventRing;
+import com.bl.logger.recent.RecentEvents;
+
+/**
+ * Class that will have all the unit tests for the last messages kept in memory
+ * @author Teddy
+ *
+ */
+public class RecentEventsTests {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Method that gives the texts of some messages
+	 * @param events The messages
+	 * @return the texts, in order
+	 */
+	private static List<String> Texts(Iterable<RecentEvent> events)
+	{
+		List<String> texts = new ArrayList<String>();
+		for (RecentEvent event : events)
+			texts.add(event.getMessageText());
+		return texts;
+	}
+
+	/**
+	 * Unit test to verify that a full ring forgets its oldest messages
+	 * @throws Exception
+	 */
+	@Test
+	public void RingKeepsTheNewestMessagesTest() throws Exception
+	{
+		RecentEventRing ring = new RecentEventRing(3);
+		Assert.assertTrue(ring.Snapshot().isEmpty());
+		Assert.assertFalse(ring.iterator().hasNext());
+
+		for (int i = 1; i <= 5; i++)
+			ring.Add("message " + i, null, LevelOfMessage.ERROR, i);
+		Assert.assertEquals("[message 3, message 4, message 5]", Texts(ring.Snapshot()).toString());
+		Assert.assertEquals("[message 4, message 5]", Texts(ring.Snapshot(2)).toString());
+		Assert.assertEquals("[message 3, message 4, message 5]", Texts(ring).toString());
+		Assert.assertEquals(5, ring.getAdded());
+
+		//The iterator stops at the newest message there was when it was created
+		Iterator<RecentEvent> iterator = ring.iterator();
+		Assert.assertEquals("message 3", iterator.next().getMessageText());
+		ring.Add("message 6", null, LevelOfMessage.ERROR, 6);
+		Assert.assertEquals("message 4", iterator.next().getMessageText());
+		Assert.assertEquals("message 5", iterator.next().getMessageText());
+		Assert.assertFalse(iterator.hasNext());
+	}
+
+	/**
+	 * Unit test to verify that the logger keeps the messages of every type apart
+	 * @throws Exception
+	 */
+	@Test
+	public void LoggerKeepsTheMessagesOfEveryTypeTest() throws Exception
+	{
+		Map<String, Object> dbParams = new HashMap<String, Object>();
+		dbParams.put("logFileFolder", folder.getRoot().getPath());
+		dbParams.put("recentEvents", 2);
+		JobLogger jobLogger = JobLogger.NewBuilder().LogToFile(true).WithParameters(dbParams).Build();
+		jobLogger.Log("error 1", LevelOfMessage.ERROR);
+		Thread.sleep(2);
+		for (int i = 1; i <= 5; i++)
+			jobLogger.Log("message " + i, LevelOfMessage.MESSAGE);
+		Thread.sleep(2);
+		jobLogger.LogStructured(LogEvent.Of("error {code}").With("code", 2L), LevelOfMessage.ERROR);
+
+		RecentEvents recentEvents = jobLogger.getRecentEvents();
+		Assert.assertEquals("[error 1, error 2]", Texts(recentEvents.Snapshot(LevelOfMessage.ERROR, 10)).toString());
+		Assert.assertEquals("[message 4, message 5]", Texts(recentEvents.getRing(LevelOfMessage.MESSAGE)).toString());
+		Assert.assertTrue(recentEvents.Snapshot(LevelOfMessage.WARNING, 10).isEmpty());
+		Assert.assertEquals("[error 1, message 4, message 5, error 2]", Texts(recentEvents.Snapshot()).toString());
+		Assert.assertEquals(2L, recentEvents.Snapshot(LevelOfMessage.ERROR, 1).get(0).getEvent().getValue(0));
+
+		//The builder overrides the parameter, and by default nothing is kept
+		Assert.assertEquals(5, JobLogger.NewBuilder().LogToFile(true).WithParameters(dbParams).RecentEvents(5).Build()
+				.getRecentEvents().getRing(LevelOfMessage.ERROR).getCapacity());
+		dbParams.remove("recentEvents");
+		Assert.assertNull(JobLogger.NewBuilder().LogToFile(true).WithParameters(dbParams).Build().getRecentEvents());
+	}
+
+	/**
+	 * Unit test to verify that the messages can be read while many threads write them
+	 * @throws Exception
+	 */
+	@Test
+	public void ReadersDoNotStopTheWritersTest() throws Exception
+	{
+		final RecentEventRing ring = new RecentEventRing(10000);
+		final AtomicBoolean failed = new AtomicBoolean();
+		Thread[] writers = new Thread[4];
+		for (int i = 0; i < writers.length; i++)
+		{
+			writers[i] = new Thread(() -> {
+				for (int j = 0; j < 50000; j++)
+					ring.Add("error " + j, null, LevelOfMessage.ERROR, j);
+			});
+			writers[i].start();
+		}
+
+		//Every copy is in order and never bigger than the ring
+		while (writers[0].isAlive())
+		{
+			List<RecentEvent> events = ring.Snapshot();
+			failed.compareAndSet(false, events.size() > ring.getCapacity());
+			for (int i = 1; i < events.size(); i++)
+				failed.compareAndSet(false, events.get(i).getSequence() <= events.get(i - 1).getSequence());
+		}
+		for (Thread writer : writers)
+			writer.join();
+		Assert.assertFalse(failed.get());
+		Assert.assertEquals(200000, ring.getAdded());
+
+		List<RecentEvent> events = ring.Snapshot();
+		Assert.assertEquals(10000, events.size());
+		Assert.assertEquals(199999, events.get(events.size() - 1).getSequence());
+	}
+
+	/**
+	 * Unit test to verify that the amount of messages kept is validated
+	 * @throws Exception
+	 */
+	@Test
+	public void CapacityIsValidatedTest() throws Exception
+	{
+		final Map<String, Object> dbParams = new HashMap<String, Object>();
+		dbParams.put("logFileFolder", folder.getRoot().getPath());
+		dbParams.put("recentEvents", -1);
+		LoggerException exception = Assert.assertThrows(LoggerException.class,
+				() -> JobLogger.NewBuilder().LogToFile(true).WithParameters(dbParams).Build());
+		Assert.assertTrue(exception.getMessage().equals("The parameter recentEvents cannot be negative"));
+	}
+
+}
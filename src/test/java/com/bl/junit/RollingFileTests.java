@@ -0,0 +1,170 @@
+package com.bl.junit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.bl.exception.LoggerException;
+import com.bl.logger.JobLogger;
+import com.bl.logger.LevelOfMessage;
+import com.bl.logger.file.FileAppenderRegistry;
+
+/**
+ * Class that will have all the unit tests for the rolling file appender
+ * @author Teddy
+ *
+ */
+public class RollingFileTests {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Method that gives the parameters of a rolling appender in the temporary folder
+	 * @return the parameters
+	 */
+	private Map<String, Object> RollingParameters()
+	{
+		Map<String, Object> dbParams = new HashMap<String, Object>();
+		dbParams.put("logFileFolder", folder.getRoot().getPath());
+		dbParams.put("fileMode", "rolling");
+		return dbParams;
+	}
+
+	/**
+	 * Method that gives the names of the files of the temporary folder, sorted
+	 * @return the names of the files
+	 */
+	private String[] FileNames()
+	{
+		String[] names = folder.getRoot().list();
+		Arrays.sort(names);
+		return names;
+	}
+
+	/**
+	 * Method that reads a compressed segment
+	 * @param name The name of the segment
+	 * @return the content of the segment
+	 * @throws IOException
+	 */
+	private String ReadCompressed(String name) throws IOException
+	{
+		ByteArrayOutputStream content = new ByteArrayOutputStream();
+		try (InputStream in = new GZIPInputStream(new FileInputStream(new File(folder.getRoot(), name))))
+		{
+			byte[] buffer = new byte[4096];
+			int read;
+			while ((read = in.read(buffer)) != -1)
+				content.write(buffer, 0, read);
+		}
+		return new String(content.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Unit test to verify that the file is rolled by size and the segments are compressed
+	 * @throws Exception
+	 */
+	@Test
+	public void FileIsRolledBySizeAndCompressedTest() throws Exception
+	{
+		Map<String, Object> dbParams = RollingParameters();
+		dbParams.put("fileMaxSize", 400);
+
+		for (int i = 0; i < 20; i++)
+			JobLogger.LogMessage("rolling message " + i, true, false, false, LevelOfMessage.WARNING, dbParams);
+		FileAppenderRegistry.CloseAll();
+		Assert.assertTrue(FileAppenderRegistry.AwaitCompression(5, TimeUnit.SECONDS));
+
+		//Every closed segment is compressed and the messages are all there, in order
+		StringBuilder content = new StringBuilder();
+		int segments = 0;
+		for (int i = 1; new File(folder.getRoot(), "logFile.txt." + i + ".gz").exists(); i++, segments++)
+		{
+			Assert.assertFalse(new File(folder.getRoot(), "logFile.txt." + i).exists());
+			content.append(ReadCompressed("logFile.txt." + i + ".gz"));
+		}
+		content.append(TestSupport.ReadLogFile(folder.getRoot()));
+		Assert.assertTrue(segments > 1);
+		int previous = -1;
+		for (int i = 0; i < 20; i++)
+		{
+			int position = content.indexOf("rolling message " + i + System.lineSeparator());
+			Assert.assertTrue(position > previous);
+			previous = position;
+		}
+	}
+
+	/**
+	 * Unit test to verify that only the newest segments are kept
+	 * @throws Exception
+	 */
+	@Test
+	public void OnlyTheNewestSegmentsAreKeptTest() throws Exception
+	{
+		Map<String, Object> dbParams = RollingParameters();
+		dbParams.put("fileMaxSize", 200);
+		dbParams.put("fileMaxSegments", 2);
+
+		for (int i = 0; i < 30; i++)
+			JobLogger.LogMessage("retention message " + i, true, false, false, LevelOfMessage.ERROR, dbParams);
+		Assert.assertTrue(FileAppenderRegistry.AwaitCompression(5, TimeUnit.SECONDS));
+		FileAppenderRegistry.CloseAll();
+
+		String[] names = FileNames();
+		Assert.assertEquals(3, names.length);
+		Assert.assertEquals("logFile.txt", names[0]);
+		Assert.assertFalse(new File(folder.getRoot(), "logFile.txt.1.gz").exists());
+		Assert.assertTrue(names[1].endsWith(".gz") && names[2].endsWith(".gz"));
+	}
+
+	/**
+	 * Unit test to verify that the file is rolled once it is older than the interval
+	 * @throws Exception
+	 */
+	@Test
+	public void FileIsRolledByTimeTest() throws Exception
+	{
+		Map<String, Object> dbParams = RollingParameters();
+		dbParams.put("fileRollInterval", 50);
+
+		JobLogger.LogMessage("old message", true, false, false, LevelOfMessage.MESSAGE, dbParams);
+		Thread.sleep(100);
+		JobLogger.LogMessage("new message", true, false, false, LevelOfMessage.MESSAGE, dbParams);
+		FileAppenderRegistry.CloseAll();
+		Assert.assertTrue(FileAppenderRegistry.AwaitCompression(5, TimeUnit.SECONDS));
+
+		Assert.assertTrue(ReadCompressed("logFile.txt.1.gz").contains("old message"));
+		String current = TestSupport.ReadLogFile(folder.getRoot());
+		Assert.assertTrue(current.contains("new message"));
+		Assert.assertFalse(current.contains("old message"));
+	}
+
+	/**
+	 * Unit test to verify that an invalid size is rejected
+	 */
+	@Test
+	public void InvalidRollingParametersTest()
+	{
+		final Map<String, Object> dbParams = RollingParameters();
+		dbParams.put("fileMaxSize", 0);
+
+		LoggerException exception = Assert.assertThrows(LoggerException.class,
+				() -> JobLogger.LogMessage("This is a message", true, false, false, LevelOfMessage.WARNING, dbParams));
+		Assert.assertTrue(exception.getMessage().equals("The file appender parameters are not valid"));
+	}
+
+}
@@ -0,0 +1,282 @@
+package com.bl.junit;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.bl.exception.LoggerException;
+import com.bl.exception.SinkFailureException;
+import com.bl.logger.JobLogger;
+import com.bl.logger.LevelOfMessage;
+import com.bl.logger.async.BackPressurePolicy;
+import com.bl.logger.database.ConnectionPoolRegistry;
+import com.bl.logger.format.MessageRecord;
+import com.bl.logger.sink.LogSink;
+import com.bl.logger.sink.LogSinkProvider;
+import com.bl.logger.sink.SinkCapability;
+
+/**
+ * Class that will have all the unit tests for the destinations added through the LogSink interface
+ * @author Teddy
+ *
+ */
+public class SinkProviderTests {
+
+	/**
+	 * Destination that keeps its messages in memory
+	 */
+	public static class MemorySink implements LogSink {
+
+		//Atttributes of the class
+		private final Set<SinkCapability> capabilities;
+		private final List<String> messages = Collections.synchronizedList(new ArrayList<String>());
+		private final AtomicInteger batches = new AtomicInteger();
+		private final AtomicInteger writing = new AtomicInteger();
+		private final AtomicBoolean overlapped = new AtomicBoolean();
+		private volatile String lastThread;
+		private volatile long firstBatchDelay;
+
+		public MemorySink(Set<SinkCapability> capabilities)
+		{
+			this.capabilities = capabilities;
+		}
+
+		@Override
+		public void Write(String messageText, LevelOfMessage level, long timestamp) throws LoggerException
+		{
+			if (writing.incrementAndGet() > 1)
+				overlapped.set(true);
+			Thread.yield();
+			messages.add(messageText);
+			lastThread = Thread.currentThread().getName();
+			writing.decrementAndGet();
+		}
+
+		@Override
+		public void Write(List<MessageRecord> records) throws LoggerException
+		{
+			//The first batch is slow, so the next messages pile up in the buffer
+			if (batches.getAndIncrement() == 0)
+			{
+				try
+				{
+					Thread.sleep(firstBatchDelay);
+				}
+				catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+				}
+			}
+			for (MessageRecord record : records)
+				messages.add(record.getMessageText());
+		}
+
+		@Override
+		public Set<SinkCapability> getCapabilities()
+		{
+			return capabilities;
+		}
+
+		@Override
+		public String getName()
+		{
+			return "memory";
+		}
+	}
+
+	/**
+	 * Provider of the memory destination, listed in META-INF/services of the tests
+	 */
+	public static class MemorySinkProvider implements LogSinkProvider {
+
+		//The last destination created
+		static volatile MemorySink created;
+
+		@Override
+		public String getName()
+		{
+			return "memory";
+		}
+
+		@Override
+		public LogSink Create(Map parameters)
+		{
+			created = new MemorySink(EnumSet.of(SinkCapability.THREAD_SAFE));
+			return created;
+		}
+	}
+
+	/**
+	 * Method to go back to synchronous mode after every test
+	 */
+	@After
+	public void TearDown()
+	{
+		JobLogger.StopAsyncMode(5, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Unit test to verify that a destination is found by its name with its threshold
+	 * @throws Exception
+	 */
+	@Test
+	public void DestinationsAreFoundByNameTest() throws Exception
+	{
+		Map<String, Object> dbParams = new HashMap<String, Object>();
+		dbParams.put("sinks", "memory");
+		dbParams.put("memoryThreshold", "WARNING");
+		JobLogger jobLogger = JobLogger.NewBuilder().WithParameters(dbParams).Build();
+		jobLogger.Log("This is a warning", LevelOfMessage.WARNING);
+		jobLogger.Log("This is a message", LevelOfMessage.MESSAGE);
+		Assert.assertEquals("[This is a warning]", MemorySinkProvider.created.messages.toString());
+
+		//The builder can name it too
+		JobLogger.NewBuilder().LogTo("memory").Build().Log("This is a message", LevelOfMessage.MESSAGE);
+		Assert.assertEquals("[This is a message]", MemorySinkProvider.created.messages.toString());
+
+		LoggerException exception = Assert.assertThrows(LoggerException.class,
+				() -> JobLogger.NewBuilder().LogTo("nothing").Build());
+		Assert.assertTrue(exception.getMessage().equals("There is no destination named nothing"));
+	}
+
+	/**
+	 * Unit test to verify that the asynchronous consumers give whole batches to the destinations that prefer them
+	 * @throws Exception
+	 */
+	@Test
+	public void BatchingDestinationsGetWholeBatchesTest() throws Exception
+	{
+		Map<String, Object> dbParams = TestSupport.DbParams("mem:sinkbatches");
+		dbParams.put("databaseBootstrap", true);
+		dbParams.put("batchSize", 10);
+		MemorySink sink = new MemorySink(EnumSet.of(SinkCapability.BATCHING, SinkCapability.THREAD_SAFE));
+		sink.firstBatchDelay = 100;
+		JobLogger jobLogger = JobLogger.NewBuilder().LogToDatabase(true).WithParameters(dbParams)
+				.WithSink(sink, null).Build();
+
+		JobLogger.StartAsyncMode(1024, 1, BackPressurePolicy.BLOCK, 0);
+		for (int i = 0; i < 100; i++)
+			jobLogger.Log("message " + i, LevelOfMessage.WARNING);
+		Assert.assertTrue(JobLogger.StopAsyncMode(5, TimeUnit.SECONDS));
+		ConnectionPoolRegistry.FlushAll();
+
+		//Every message is there, in order, with fewer calls than messages
+		Assert.assertEquals(100, sink.messages.size());
+		for (int i = 0; i < 100; i++)
+			Assert.assertEquals("message " + i, sink.messages.get(i));
+		Assert.assertTrue(sink.batches.get() < 100);
+
+		Connection connection = TestSupport.Connect("mem:sinkbatches");
+		ResultSet rs = connection.createStatement().executeQuery("SELECT COUNT(*) FROM LOG");
+		rs.next();
+		Assert.assertEquals(100, rs.getInt(1));
+		connection.close();
+	}
+
+	/**
+	 * Unit test to verify that a destination that is not thread safe is written from one thread at a time
+	 * @throws Exception
+	 */
+	@Test
+	public void UnsafeDestinationsAreWrittenOneAtATimeTest() throws Exception
+	{
+		final MemorySink sink = new MemorySink(EnumSet.noneOf(SinkCapability.class));
+		final JobLogger jobLogger = JobLogger.NewBuilder().WithSink(sink, null).Build();
+		Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++)
+		{
+			threads[i] = new Thread(() -> {
+				try
+				{
+					for (int j = 0; j < 1000; j++)
+						jobLogger.Log("message " + j, LevelOfMessage.ERROR);
+				}
+				catch (LoggerException e)
+				{
+					throw new IllegalStateException(e);
+				}
+			});
+			threads[i].start();
+		}
+		for (Thread thread : threads)
+			thread.join();
+		Assert.assertEquals(4000, sink.messages.size());
+		Assert.assertFalse(sink.overlapped.get());
+	}
+
+	/**
+	 * Unit test to verify that in parallel the caller only writes the destinations that never wait
+	 * @throws Exception
+	 */
+	@Test
+	public void CallerWritesTheNonBlockingDestinationsTest() throws Exception
+	{
+		MemorySink nonBlockingSink = new MemorySink(EnumSet.of(SinkCapability.THREAD_SAFE, SinkCapability.NON_BLOCKING));
+		MemorySink sink = new MemorySink(EnumSet.of(SinkCapability.THREAD_SAFE));
+		MemorySink durableSink = new MemorySink(EnumSet.of(SinkCapability.THREAD_SAFE, SinkCapability.DURABLE));
+		final AtomicInteger executed = new AtomicInteger();
+		JobLogger jobLogger = JobLogger.NewBuilder().WithSink(durableSink, null).WithSink(sink, null)
+				.WithSink(nonBlockingSink, null).ParallelSinks(true)
+				.SinkExecutor(task -> {
+					executed.incrementAndGet();
+					new Thread(task, "sink-executor").start();
+				}).Build();
+
+		jobLogger.Log("This is a message", LevelOfMessage.MESSAGE);
+		Assert.assertEquals(2, executed.get());
+		Assert.assertEquals(Thread.currentThread().getName(), nonBlockingSink.lastThread);
+		Assert.assertEquals("sink-executor", sink.lastThread);
+		Assert.assertEquals("sink-executor", durableSink.lastThread);
+	}
+
+	/**
+	 * Unit test to verify that a destination that is not durable still has a timeout in parallel
+	 * @throws Exception
+	 */
+	@Test
+	public void SlowDestinationThatIsNotDurableTimesOutTest() throws Exception
+	{
+		final CountDownLatch release = new CountDownLatch(1);
+		LogSink slowSink = new MemorySink(EnumSet.of(SinkCapability.THREAD_SAFE)) {
+			@Override
+			public void Write(String messageText, LevelOfMessage level, long timestamp) throws LoggerException
+			{
+				try
+				{
+					release.await();
+				}
+				catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+		final JobLogger jobLogger = JobLogger.NewBuilder().WithSink(slowSink, null).ParallelSinks(true).SinkTimeout(50).Build();
+		try
+		{
+			SinkFailureException exception = Assert.assertThrows(SinkFailureException.class,
+					() -> jobLogger.Log("This is a message", LevelOfMessage.MESSAGE));
+			Assert.assertTrue(exception.getFailures().get("memory").getMessage()
+					.equals("The destination memory did not answer in 50 milliseconds"));
+		}
+		finally
+		{
+			release.countDown();
+		}
+	}
+
+}
@@ -0,0 +1,303 @@
+package com.bl.junit;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.bl.exception.LoggerException;
+import com.bl.logger.JobLogger;
+import com.bl.logger.LevelOfMessage;
+import com.bl.logger.async.AsyncEvent;
+import com.bl.logger.async.AsyncEventHandler;
+import com.bl.logger.async.BackPressurePolicy;
+import com.bl.logger.async.StripedDispatcher;
+
+/**
+ * Class that will have all the unit tests for the striped asynchronous mode of the Logger
+ * @author Teddy
+ *
+ */
+public class StripedDispatcherTests {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Method to go back to synchronous mode after every test
+	 */
+	@After
+	public void TearDown()
+	{
+		JobLogger.StopAsyncMode(5, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Unit test to verify that the messages of many threads are all written, in the order of every thread
+	 * @throws Exception
+	 */
+	@Test
+	public void MessagesOfEveryThreadAreWrittenInOrderTest() throws Exception
+	{
+		final Map<String, Integer> lastOfThread = new ConcurrentHashMap<String, Integer>();
+		final List<String> outOfOrder = new ArrayList<String>();
+		final StripedDispatcher dispatcher = new StripedDispatcher(64, BackPressurePolicy.BLOCK, event -> {
+			//The collector is a single thread, no synchronization is needed here
+			String[] parts = event.getMessageText().split(" ");
+			int sequence = Integer.parseInt(parts[1]);
+			Integer last = lastOfThread.put(parts[0], sequence);
+			if (last != null && last + 1 != sequence)
+				outOfOrder.add(event.getMessageText());
+		});
+
+		//Eight threads logging at once
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int t = 0; t < 8; t++)
+		{
+			final String name = "thread" + t;
+			threads.add(new Thread(() -> {
+				try
+				{
+					for (int i = 0; i < 5000; i++)
+						dispatcher.Offer(null, name + " " + i, LevelOfMessage.MESSAGE);
+				}
+				catch (LoggerException e)
+				{
+					throw new IllegalStateException(e);
+				}
+			}));
+		}
+		for (Thread thread : threads)
+			thread.start();
+		for (Thread thread : threads)
+			thread.join();
+
+		Assert.assertTrue(dispatcher.Stop(5, TimeUnit.SECONDS));
+		Assert.assertEquals(40000, dispatcher.getProcessedEvents());
+		Assert.assertEquals(0, dispatcher.getDroppedEvents());
+		Assert.assertTrue(outOfOrder.isEmpty());
+	}
+
+	/**
+	 * Unit test to verify that the collector merges the buffers of the threads by timestamp
+	 * @throws Exception
+	 */
+	@Test
+	public void BuffersAreMergedByTimestampTest() throws Exception
+	{
+		//The collector waits with the first message until every thread has logged
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch started = new CountDownLatch(1);
+		final List<Long> timestamps = new ArrayList<Long>();
+		final StripedDispatcher dispatcher = new StripedDispatcher(64, BackPressurePolicy.BLOCK, event -> {
+			started.countDown();
+			try
+			{
+				release.await();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+			timestamps.add(event.getTimestamp());
+		});
+		dispatcher.Offer(null, "first", LevelOfMessage.MESSAGE);
+		Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+		//Two threads logging one after the other, with a different millisecond each time
+		for (int round = 0; round < 4; round++)
+		{
+			final int current = round;
+			Thread thread = new Thread(() -> {
+				try
+				{
+					for (int i = 0; i < 3; i++)
+						dispatcher.Offer(null, "round " + current, LevelOfMessage.MESSAGE);
+				}
+				catch (LoggerException e)
+				{
+					throw new IllegalStateException(e);
+				}
+			});
+			thread.start();
+			thread.join();
+			Thread.sleep(5);
+		}
+
+		release.countDown();
+		Assert.assertTrue(dispatcher.Stop(5, TimeUnit.SECONDS));
+		Assert.assertEquals(13, timestamps.size());
+		for (int i = 1; i < timestamps.size(); i++)
+			Assert.assertTrue(timestamps.get(i - 1) <= timestamps.get(i));
+	}
+
+	/**
+	 * Unit test to verify that every message accepted while the dispatcher is being stopped is written
+	 * @throws Exception
+	 */
+	@Test
+	public void MessagesAcceptedDuringTheStopAreWrittenTest() throws Exception
+	{
+		for (int round = 0; round < 20; round++)
+		{
+			final AtomicLong accepted = new AtomicLong();
+			final AtomicLong handled = new AtomicLong();
+			final StripedDispatcher dispatcher = new StripedDispatcher(16, BackPressurePolicy.BLOCK,
+					event -> handled.incrementAndGet());
+
+			//Every thread logs until the dispatcher refuses its messages
+			final CountDownLatch started = new CountDownLatch(4);
+			List<Thread> threads = new ArrayList<Thread>();
+			for (int t = 0; t < 4; t++)
+			{
+				Thread thread = new Thread(() -> {
+					started.countDown();
+					try
+					{
+						while (true)
+						{
+							dispatcher.Offer(null, "message", LevelOfMessage.MESSAGE);
+							accepted.incrementAndGet();
+						}
+					}
+					catch (LoggerException e)
+					{
+						//The dispatcher has been stopped
+					}
+				});
+				thread.start();
+				threads.add(thread);
+			}
+			Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+			Thread.sleep(2);
+
+			Assert.assertTrue(dispatcher.Stop(5, TimeUnit.SECONDS));
+			for (Thread thread : threads)
+				thread.join();
+			Assert.assertEquals(accepted.get(), handled.get());
+			Assert.assertEquals(accepted.get(), dispatcher.getProcessedEvents());
+		}
+	}
+
+	/**
+	 * Unit test to verify that a full buffer discards the new messages with DROP_NEWEST
+	 * @throws Exception
+	 */
+	@Test
+	public void FullBufferDropsTheNewestMessageTest() throws Exception
+	{
+		//The collector waits until we let it go so the buffer fills up
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch started = new CountDownLatch(1);
+		StripedDispatcher dispatcher = new StripedDispatcher(4, BackPressurePolicy.DROP_NEWEST, event -> {
+			started.countDown();
+			try
+			{
+				release.await();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		});
+
+		//The first message keeps the collector busy, the next four fill the buffer
+		dispatcher.Offer(null, "message 0", LevelOfMessage.MESSAGE);
+		Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+		for (int i = 1; i <= 4; i++)
+			Assert.assertTrue(dispatcher.Offer(null, "message " + i, LevelOfMessage.MESSAGE));
+		Assert.assertFalse(dispatcher.Offer(null, "message 5", LevelOfMessage.MESSAGE));
+		Assert.assertEquals(1, dispatcher.getDroppedEvents());
+
+		release.countDown();
+		Assert.assertTrue(dispatcher.Stop(5, TimeUnit.SECONDS));
+		Assert.assertEquals(5, dispatcher.getProcessedEvents());
+	}
+
+	/**
+	 * Unit test to verify that an Error thrown by the handler does not kill the collector and block the callers
+	 * @throws Exception
+	 */
+	@Test
+	public void CollectorSurvivesAnErrorTest() throws Exception
+	{
+		//The handler breaks on every batch that holds the first message
+		StripedDispatcher dispatcher = new StripedDispatcher(4, BackPressurePolicy.BLOCK, new AsyncEventHandler() {
+			@Override
+			public void Handle(AsyncEvent event)
+			{
+			}
+
+			@Override
+			public void HandleBatch(AsyncEvent[] events, int count, LoggerException[] failures)
+			{
+				for (int i = 0; i < count; i++)
+					if (events[i].getMessageText().equals("message 0"))
+						throw new AssertionError("Broken destination");
+			}
+		});
+
+		//Many more messages than the buffer holds, the caller blocks until the collector makes room
+		Thread producer = new Thread(() -> {
+			try
+			{
+				for (int i = 0; i < 40; i++)
+					dispatcher.Offer(null, "message " + i, LevelOfMessage.MESSAGE);
+			}
+			catch (LoggerException e)
+			{
+				throw new IllegalStateException(e);
+			}
+		});
+		producer.start();
+		producer.join(10000);
+		Assert.assertFalse(producer.isAlive());
+
+		Assert.assertTrue(dispatcher.Stop(5, TimeUnit.SECONDS));
+		Assert.assertEquals(40, dispatcher.getProcessedEvents() + dispatcher.getFailedEvents());
+		Assert.assertTrue(dispatcher.getFailedEvents() > 0);
+		Assert.assertTrue(dispatcher.getLastFailure().getCause() instanceof AssertionError);
+	}
+
+	/**
+	 * Unit test to verify that the striped mode writes the messages of JobLogger into the file
+	 * @throws Exception
+	 */
+	@Test
+	public void StripedModeLogsIntoTheFileTest() throws Exception
+	{
+		Map<String, Object> dbParams = new HashMap<String, Object>();
+		dbParams.put("logFileFolder", folder.getRoot().getPath());
+
+		JobLogger.StartStripedAsyncMode(16, BackPressurePolicy.BLOCK);
+		for (int i = 0; i < 100; i++)
+			JobLogger.LogMessage("striped message " + i, true, false, false, LevelOfMessage.WARNING, dbParams);
+		Assert.assertTrue(JobLogger.StopAsyncMode(5, TimeUnit.SECONDS));
+
+		String content = TestSupport.ReadLogFile(folder.getRoot());
+		Assert.assertTrue(content.contains("striped message 0"));
+		Assert.assertTrue(content.contains("striped message 99"));
+	}
+
+	/**
+	 * Unit test to verify that the policies that need to touch other messages are rejected
+	 */
+	@Test
+	public void UnsupportedPolicyTest()
+	{
+		LoggerException exception = Assert.assertThrows(LoggerException.class,
+				() -> JobLogger.StartStripedAsyncMode(16, BackPressurePolicy.DROP_OLDEST));
+		Assert.assertTrue(exception.getMessage().equals("The striped asynchronous mode only supports the BLOCK and DROP_NEWEST policies"));
+	}
+
+}
@@ -0,0 +1,173 @@
+package com.bl.junit;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.bl.exception.LoggerException;
+import com.bl.logger.JobLogger;
+import com.bl.logger.LevelOfMessage;
+import com.bl.logger.database.ConnectionPoolRegistry;
+import com.bl.logger.event.LogEvent;
+import com.bl.logger.file.FileAppenderRegistry;
+
+/**
+ * Class that will have all the unit tests for the structured events
+ * @author Teddy
+ *
+ */
+public class StructuredEventTests {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Method that closes the appenders and the spools so their files can be removed
+	 */
+	@After
+	public void CloseResources()
+	{
+		FileAppenderRegistry.CloseAll();
+		ConnectionPoolRegistry.CloseAll();
+	}
+
+	/**
+	 * Method that gives the parameters of an in-memory database with the extra columns
+	 * @param serverName The name of the in-memory database
+	 * @return the parameters
+	 */
+	private static Map<String, Object> Parameters(String serverName)
+	{
+		Map<String, Object> dbParams = TestSupport.DbParams(serverName);
+		dbParams.put("databaseColumns", "requestId, elapsed");
+		return dbParams;
+	}
+
+	/**
+	 * Unit test to verify that the fields fill the template and the rest are appended as key=value
+	 */
+	@Test
+	public void EventIsRenderedAsTextTest()
+	{
+		LogEvent event = LogEvent.Of("Order {orderId} has been paid").With("orderId", 42L).With("amount", 10.5)
+				.With("retried", false).With("customer", "ann");
+		Assert.assertEquals("Order 42 has been paid amount=10.5 retried=false customer=ann", event.getMessageText());
+		Assert.assertSame(event.getMessageText(), event.getMessageText());
+		Assert.assertEquals(Long.valueOf(42), event.getValue(event.IndexOf("orderId")));
+		Assert.assertEquals(-1, event.IndexOf("missing"));
+
+		//Braces that are not fields are kept
+		Assert.assertEquals("{not a field} 1", LogEvent.Of("{not a field} {n}").With("n", 1).getMessageText());
+	}
+
+	/**
+	 * Unit test to verify that the file can be written as JSON lines with the fields as JSON values
+	 * @throws Exception
+	 */
+	@Test
+	public void EventIsWrittenAsJsonLinesTest() throws Exception
+	{
+		Map<String, Object> dbParams = new HashMap<String, Object>();
+		dbParams.put("logFileFolder", folder.getRoot().getPath());
+		dbParams.put("fileFormat", "json");
+		JobLogger jobLogger = JobLogger.NewBuilder().LogToFile(true).WithParameters(dbParams).Build();
+
+		jobLogger.LogStructured(LogEvent.Of("User {user} said \"hi\"").With("user", "bob").With("count", 3L)
+				.With("ok", true), LevelOfMessage.WARNING);
+		jobLogger.Log("plain text", LevelOfMessage.ERROR);
+		FileAppenderRegistry.CloseAll();
+
+		String[] lines = TestSupport.ReadLogFile(folder.getRoot()).split("\n");
+		Assert.assertEquals(2, lines.length);
+		Assert.assertTrue(lines[0].startsWith("{\"timestamp\":"));
+		Assert.assertTrue(lines[0].endsWith(
+				",\"level\":\"WARNING\",\"message\":\"User bob said \\\"hi\\\"\",\"fields\":{\"user\":\"bob\",\"count\":3,\"ok\":true}}"));
+		Assert.assertTrue(lines[1].contains("\"level\":\"ERROR\""));
+		Assert.assertTrue(lines[1].contains("plain text"));
+	}
+
+	/**
+	 * Unit test to verify that the fields are written into their own columns, directly and through the spool
+	 * @throws Exception
+	 */
+	@Test
+	public void FieldsAreWrittenIntoTheirColumnsTest() throws Exception
+	{
+		Connection connection = TestSupport.ConnectWithLogTable("mem:structured", "requestId VARCHAR(100), elapsed BIGINT");
+		JobLogger.LogStructuredMessage(LogEvent.Of("Request finished").With("requestId", "r-1").With("elapsed", 125L),
+				false, false, true, LevelOfMessage.ERROR, Parameters("mem:structured"));
+
+		//Through the spool, a field that is missing gives a null column
+		Map<String, Object> dbParams = Parameters("mem:structured");
+		dbParams.put("databaseSpool", folder.getRoot().getPath());
+		JobLogger.LogStructuredMessage(LogEvent.Of("Spooled request").With("elapsed", 7L),
+				false, false, true, LevelOfMessage.WARNING, dbParams);
+		Assert.assertTrue(ConnectionPoolRegistry.GetSpool(dbParams).AwaitDrained(5, TimeUnit.SECONDS));
+
+		ResultSet rs = connection.createStatement().executeQuery("SELECT MESSAGE, LEVEL, requestId, elapsed FROM LOG ORDER BY elapsed DESC");
+		Assert.assertTrue(rs.next());
+		Assert.assertEquals("Request finished requestId=r-1 elapsed=125", rs.getString(1));
+		Assert.assertEquals(2, rs.getInt(2));
+		Assert.assertEquals("r-1", rs.getString(3));
+		Assert.assertEquals(125L, rs.getLong(4));
+		Assert.assertTrue(rs.next());
+		Assert.assertEquals("Spooled request elapsed=7", rs.getString(1));
+		Assert.assertNull(rs.getString(3));
+		Assert.assertEquals(7L, rs.getLong(4));
+		Assert.assertFalse(rs.next());
+		connection.close();
+	}
+
+	/**
+	 * Unit test to verify that the event is validated and not rendered when its type is disabled
+	 * @throws LoggerException
+	 */
+	@Test
+	public void StructuredEventIsValidatedTest() throws LoggerException
+	{
+		final JobLogger jobLogger = JobLogger.NewBuilder().LogToConsole(true).ConsoleThreshold(LevelOfMessage.ERROR).Build();
+		final AtomicInteger renders = new AtomicInteger();
+		Object field = new Object() {
+			@Override
+			public String toString()
+			{
+				renders.incrementAndGet();
+				return "rendered";
+			}
+		};
+		jobLogger.LogStructured(LogEvent.Of("ignored {field}").With("field", field), LevelOfMessage.MESSAGE);
+		Assert.assertEquals(0, renders.get());
+		jobLogger.LogStructured(LogEvent.Of("written {field}").With("field", field), LevelOfMessage.ERROR);
+		Assert.assertEquals(1, renders.get());
+
+		LoggerException exception = Assert.assertThrows(LoggerException.class,
+				() -> jobLogger.LogStructured(null, LevelOfMessage.ERROR));
+		Assert.assertTrue(exception.getMessage().equals("The Message cannot be null"));
+		exception = Assert.assertThrows(LoggerException.class,
+				() -> jobLogger.LogStructured(LogEvent.Of("  "), LevelOfMessage.ERROR));
+		Assert.assertTrue(exception.getMessage().equals("The message cannot contain only white space"));
+
+		final Map<String, Object> fileParams = new HashMap<String, Object>();
+		fileParams.put("logFileFolder", folder.getRoot().getPath());
+		fileParams.put("fileFormat", "xml");
+		exception = Assert.assertThrows(LoggerException.class,
+				() -> JobLogger.LogMessage("This is a message", true, false, false, LevelOfMessage.WARNING, fileParams));
+		Assert.assertTrue(exception.getMessage().equals("The parameter fileFormat must be a valid file format"));
+
+		final Map<String, Object> dbParams = Parameters("mem:structuredinvalid");
+		dbParams.put("databaseColumns", "requestId, drop table");
+		exception = Assert.assertThrows(LoggerException.class,
+				() -> JobLogger.LogMessage("This is a message", false, false, true, LevelOfMessage.WARNING, dbParams));
+		Assert.assertTrue(exception.getMessage().equals("The parameter databaseColumns must be a list of column names"));
+	}
+
+}
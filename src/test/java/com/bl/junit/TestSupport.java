@@ -0,0 +1,99 @@
+package com.bl.junit;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Class with the helpers shared by the unit tests: the parameters and the connections of the
+ * in-memory databases, and the content of the log files
+ * @author Teddy
+ *
+ */
+final class TestSupport {
+
+	/**
+	 * The helpers are static, the class cannot be instantiated
+	 */
+	private TestSupport()
+	{
+	}
+
+	/**
+	 * Method that reads the log file of a folder
+	 * @param logFileFolder The folder of the log file
+	 * @return the content of the file
+	 * @throws IOException
+	 */
+	static String ReadLogFile(File logFileFolder) throws IOException
+	{
+		return new String(Files.readAllBytes(new File(logFileFolder, "logFile.txt").toPath()), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Method that gives the parameters of an in-memory database
+	 * @param serverName The name of the in-memory database
+	 * @return the database parameters, the tests can add their own ones
+	 */
+	static Map<String, Object> DbParams(String serverName)
+	{
+		Map<String, Object> dbParams = new HashMap<String, Object>();
+		dbParams.put("userName", "username");
+		dbParams.put("password", "dragon");
+		dbParams.put("dbms", "h2");
+		dbParams.put("serverName", serverName);
+		return dbParams;
+	}
+
+	/**
+	 * Method that opens a connection to an in-memory database
+	 * @param serverName The name of the in-memory database
+	 * @return the connection
+	 * @throws SQLException
+	 */
+	static Connection Connect(String serverName) throws SQLException
+	{
+		Properties connectionProps = new Properties();
+		connectionProps.put("user", "username");
+		connectionProps.put("password", "dragon");
+		return DriverManager.getConnection("jdbc:h2:" + serverName
+				+ "/test;DB_CLOSE_DELAY=-1;DATABASE_TO_UPPER=false", connectionProps);
+	}
+
+	/**
+	 * Method that opens a connection to an in-memory database with the LOG table
+	 * @param serverName The name of the in-memory database
+	 * @return the connection
+	 * @throws SQLException
+	 */
+	static Connection ConnectWithLogTable(String serverName) throws SQLException
+	{
+		return ConnectWithLogTable(serverName, null);
+	}
+
+	/**
+	 * Method that opens a connection to an in-memory database with a LOG table that can have extra columns
+	 * @param serverName The name of the in-memory database
+	 * @param extraColumns The definition of the extra columns, or null for none
+	 * @return the connection
+	 * @throws SQLException
+	 */
+	static Connection ConnectWithLogTable(String serverName, String extraColumns) throws SQLException
+	{
+		Connection connection = Connect(serverName);
+		Statement stmt = connection.createStatement();
+		stmt.executeUpdate("CREATE TABLE IF NOT EXISTS LOG(MESSAGE VARCHAR(4000), LEVEL INT"
+				+ (extraColumns == null ? "" : ", " + extraColumns) + ")");
+		stmt.close();
+		return connection;
+	}
+
+}
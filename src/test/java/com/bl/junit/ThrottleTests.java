@@ -0,0 +1,153 @@
+package com.bl.junit;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.bl.exception.LoggerException;
+import com.bl.logger.JobLogger;
+import com.bl.logger.LevelOfMessage;
+
+/**
+ * Class that will have all the unit tests for the deduplication and the rate limit of the messages
+ * @author Teddy
+ *
+ */
+public class ThrottleTests {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Method that counts the times a text appears in another one
+	 * @param content The text where we look
+	 * @param text The text we count
+	 * @return the amount of times
+	 */
+	private static int Occurrences(String content, String text)
+	{
+		int count = 0;
+		for (int index = content.indexOf(text); index >= 0; index = content.indexOf(text, index + text.length()))
+			count++;
+		return count;
+	}
+
+	/**
+	 * Unit test to verify that the repeats of a message are written once with the amount of repeats
+	 * @throws Exception
+	 */
+	@Test
+	public void RepeatedMessagesAreCollapsedTest() throws Exception
+	{
+		Map<String, Object> dbParams = new HashMap<String, Object>();
+		dbParams.put("logFileFolder", folder.getRoot().getPath());
+		dbParams.put("dedupWindow", 200);
+
+		for (int i = 0; i < 100; i++)
+			JobLogger.LogMessage("storm message", true, false, false, LevelOfMessage.ERROR, dbParams);
+		JobLogger.LogMessage("storm message", true, false, false, LevelOfMessage.WARNING, dbParams);
+		String content = TestSupport.ReadLogFile(folder.getRoot());
+		Assert.assertEquals(2, Occurrences(content, "storm message"));
+
+		//Once the window is over the next repeat writes the summary and starts a new window
+		Thread.sleep(300);
+		JobLogger.LogMessage("storm message", true, false, false, LevelOfMessage.ERROR, dbParams);
+		content = TestSupport.ReadLogFile(folder.getRoot());
+		Assert.assertTrue(content.contains("storm message ... repeated 99 times"));
+		Assert.assertEquals(4, Occurrences(content, "storm message"));
+	}
+
+	/**
+	 * Unit test to verify that the pending repeats can be written on demand
+	 * @throws Exception
+	 */
+	@Test
+	public void RepeatedMessagesAreWrittenOnFlushTest() throws Exception
+	{
+		Map<String, Object> dbParams = new HashMap<String, Object>();
+		dbParams.put("logFileFolder", folder.getRoot().getPath());
+		JobLogger jobLogger = JobLogger.NewBuilder().LogToFile(true).WithParameters(dbParams)
+				.DeduplicationWindow(60000).Build();
+
+		for (int i = 0; i < 10; i++)
+			jobLogger.Log("flushed message", LevelOfMessage.WARNING);
+		jobLogger.FlushRepeatedMessages();
+		Assert.assertTrue(TestSupport.ReadLogFile(folder.getRoot()).contains("flushed message ... repeated 9 times"));
+
+		//Nothing else is pending
+		jobLogger.FlushRepeatedMessages();
+		Assert.assertEquals(2, Occurrences(TestSupport.ReadLogFile(folder.getRoot()), "flushed message"));
+	}
+
+	/**
+	 * Unit test to verify that the repeats are written once their window is over even if the message is not logged again
+	 * @throws Exception
+	 */
+	@Test
+	public void RepeatedMessagesAreWrittenInTheBackgroundTest() throws Exception
+	{
+		Map<String, Object> dbParams = new HashMap<String, Object>();
+		dbParams.put("logFileFolder", folder.getRoot().getPath());
+		JobLogger jobLogger = JobLogger.NewBuilder().LogToFile(true).WithParameters(dbParams)
+				.DeduplicationWindow(100).Build();
+
+		for (int i = 0; i < 5; i++)
+			jobLogger.Log("quiet message", LevelOfMessage.ERROR);
+		Assert.assertEquals(1, Occurrences(TestSupport.ReadLogFile(folder.getRoot()), "quiet message"));
+
+		//Nothing else is logged, the background thread writes the summary
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!TestSupport.ReadLogFile(folder.getRoot()).contains("quiet message ... repeated 4 times") && System.currentTimeMillis() < deadline)
+			Thread.sleep(50);
+		Assert.assertTrue(TestSupport.ReadLogFile(folder.getRoot()).contains("quiet message ... repeated 4 times"));
+	}
+
+	/**
+	 * Unit test to verify that every type of message has its own rate limit
+	 * @throws Exception
+	 */
+	@Test
+	public void RateLimitIsAppliedByTypeTest() throws Exception
+	{
+		Map<String, Object> dbParams = new HashMap<String, Object>();
+		dbParams.put("logFileFolder", folder.getRoot().getPath());
+		dbParams.put("errorRateLimit", "1");
+		dbParams.put("rateLimitBurst", 5);
+		JobLogger jobLogger = JobLogger.NewBuilder().LogToFile(true).WithParameters(dbParams).Build();
+
+		for (int i = 0; i < 50; i++)
+		{
+			jobLogger.Log("limited error " + i, LevelOfMessage.ERROR);
+			jobLogger.Log("free warning " + i, LevelOfMessage.WARNING);
+		}
+		String content = TestSupport.ReadLogFile(folder.getRoot());
+		Assert.assertTrue(Occurrences(content, "limited error") <= 6);
+		Assert.assertTrue(content.contains("limited error 0") && content.contains("limited error 4"));
+		Assert.assertEquals(50, Occurrences(content, "free warning"));
+	}
+
+	/**
+	 * Unit test to verify that invalid deduplication or rate limit parameters are rejected
+	 */
+	@Test
+	public void InvalidThrottleParametersTest()
+	{
+		final Map<String, Object> dbParams = new HashMap<String, Object>();
+		dbParams.put("logFileFolder", folder.getRoot().getPath());
+		dbParams.put("dedupWindow", -1);
+		LoggerException exception = Assert.assertThrows(LoggerException.class,
+				() -> JobLogger.LogMessage("This is a message", true, false, false, LevelOfMessage.WARNING, dbParams));
+		Assert.assertTrue(exception.getMessage().equals("The deduplication and rate limit parameters are not valid"));
+
+		dbParams.remove("dedupWindow");
+		dbParams.put("warningRateLimit", "fast");
+		exception = Assert.assertThrows(LoggerException.class,
+				() -> JobLogger.LogMessage("This is a message", true, false, false, LevelOfMessage.WARNING, dbParams));
+		Assert.assertTrue(exception.getMessage().equals("The parameter warningRateLimit must be a valid number"));
+	}
+
+}
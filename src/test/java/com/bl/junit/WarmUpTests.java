@@ -0,0 +1,123 @@
+package com.bl.junit;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.bl.exception.LoggerException;
+import com.bl.logger.JobLogger;
+import com.bl.logger.LevelOfMessage;
+import com.bl.logger.database.ConnectionPool;
+import com.bl.logger.database.ConnectionPoolRegistry;
+import com.bl.logger.query.LogQuery;
+import com.bl.logger.query.LogQueryEngine;
+
+/**
+ * Class that will have all the unit tests for the warm up of the destinations
+ * @author Teddy
+ *
+ */
+public class WarmUpTests {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Method that gives the parameters of an in-memory database
+	 * @param serverName The name of the in-memory database
+	 * @return the parameters
+	 */
+	private static Map<String, Object> Parameters(String serverName)
+	{
+		Map<String, Object> dbParams = TestSupport.DbParams(serverName);
+		dbParams.put("databaseBootstrap", true);
+		return dbParams;
+	}
+
+	/**
+	 * Method that counts the rows of the LOG table
+	 * @param dbParams The parameters of the database
+	 * @return the amount of rows
+	 * @throws LoggerException
+	 */
+	private static long Count(Map<String, Object> dbParams) throws LoggerException
+	{
+		return new LogQueryEngine(dbParams).Count(LogQuery.NewQuery());
+	}
+
+	/**
+	 * Unit test to verify that a destination is not opened until its first message
+	 * @throws Exception
+	 */
+	@Test
+	public void DestinationsAreOpenedByTheirFirstMessageTest() throws Exception
+	{
+		Map<String, Object> dbParams = Parameters("mem:warmuplazy");
+		dbParams.put("logFileFolder", folder.getRoot().getPath());
+		JobLogger jobLogger = JobLogger.NewBuilder().LogToFile(true).LogToDatabase(true)
+				.DatabaseThreshold(LevelOfMessage.ERROR).WithParameters(dbParams).Build();
+		File logFile = new File(folder.getRoot(), "logFile.txt");
+		Assert.assertFalse(logFile.exists());
+
+		//The database only gets errors, so a warning doesn't open it
+		jobLogger.Log("This is a warning", LevelOfMessage.WARNING);
+		Assert.assertTrue(logFile.exists());
+		Assert.assertEquals(0, ConnectionPoolRegistry.GetPool(dbParams).getCreatedCount());
+	}
+
+	/**
+	 * Unit test to verify that the warm up opens the file and the minimum connections of the pool
+	 * @throws Exception
+	 */
+	@Test
+	public void WarmUpOpensEveryDestinationTest() throws Exception
+	{
+		Map<String, Object> dbParams = Parameters("mem:warmupopen");
+		dbParams.put("logFileFolder", folder.getRoot().getPath());
+		dbParams.put("poolMinSize", 2);
+		dbParams.put("batchSize", 1);
+		JobLogger jobLogger = JobLogger.NewBuilder().LogToFile(true).LogToDatabase(true).WithParameters(dbParams).Build();
+		jobLogger.WarmUp();
+
+		ConnectionPool pool = ConnectionPoolRegistry.GetPool(dbParams);
+		Assert.assertTrue(new File(folder.getRoot(), "logFile.txt").exists());
+		Assert.assertEquals(2, pool.getCreatedCount());
+		Assert.assertEquals(2, pool.getIdleConnections());
+
+		//The first message uses what has been opened
+		jobLogger.Log("This is an error", LevelOfMessage.ERROR);
+		Assert.assertEquals(2, pool.getCreatedCount());
+		Assert.assertEquals(1, Count(dbParams));
+	}
+
+	/**
+	 * Unit test to verify that the configurations of LogMessage can be warmed up and the errors are reported
+	 * @throws Exception
+	 */
+	@Test
+	public void WarmUpOfLogMessageTest() throws Exception
+	{
+		Map<String, Object> dbParams = new HashMap<String, Object>();
+		dbParams.put("logFileFolder", folder.getRoot().getPath());
+		JobLogger.WarmUp(true, false, false, dbParams);
+		Assert.assertTrue(new File(folder.getRoot(), "logFile.txt").exists());
+
+		LoggerException exception = Assert.assertThrows(LoggerException.class,
+				() -> JobLogger.WarmUp(false, false, false, dbParams));
+		Assert.assertTrue(exception.getMessage().equals("Invalid configuration"));
+
+		//There is no driver for the database
+		final Map<String, Object> wrongParams = Parameters("nowhere");
+		wrongParams.put("dbms", "nodriver");
+		wrongParams.remove("databaseBootstrap");
+		exception = Assert.assertThrows(LoggerException.class, () -> JobLogger.WarmUp(false, false, true, wrongParams));
+		Assert.assertTrue(exception.getMessage().equals("Cannot create database connection or perform DML instruction, "
+				+ "Please check your Data Base parameters"));
+	}
+
+}